@@ -0,0 +1,74 @@
+package org.charno.common.security.annotation;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 限流注解
+ * 用于在Controller类或方法上标注访问频率限制（令牌桶：容量为 permits，每个 period 补满）
+ * 超过限制时返回 429 Too Many Requests，并通过 Retry-After 响应头告知客户端等待时间
+ *
+ * 限流维度（key）：
+ * - IP：按客户端IP分别限流（默认）
+ * - USER：按登录用户分别限流，未登录时按客户端IP
+ * - ROUTE：该接口的所有调用方共享同一个令牌桶
+ *
+ * 使用示例：
+ * <pre>
+ * @RateLimit(permits = 10, period = 1, unit = TimeUnit.MINUTES)
+ * @PostMapping
+ * public Mono<ApiResponse<Map<String, Object>>> login(...) {
+ *     // 同一IP每分钟最多10次
+ * }
+ * </pre>
+ */
+@Target({ElementType.TYPE, ElementType.METHOD})
+@Retention(RetentionPolicy.RUNTIME)
+public @interface RateLimit {
+
+    /**
+     * 令牌桶容量（一个周期内允许的请求数，也是允许的最大突发请求数）
+     *
+     * @return 请求数
+     */
+    int permits();
+
+    /**
+     * 补满令牌桶的周期
+     *
+     * @return 周期
+     */
+    long period() default 1;
+
+    /**
+     * 周期的时间单位
+     *
+     * @return 时间单位
+     */
+    TimeUnit unit() default TimeUnit.MINUTES;
+
+    /**
+     * 限流维度
+     *
+     * @return 限流维度
+     */
+    Key key() default Key.IP;
+
+    /**
+     * 限流名称，用于Redis Key和指标标签；默认为 Controller类名#方法名
+     * 多个接口使用相同名称和维度时共享同一个令牌桶
+     *
+     * @return 限流名称
+     */
+    String name() default "";
+
+    /**
+     * 限流维度
+     */
+    enum Key {
+        IP, USER, ROUTE
+    }
+}
@@ -0,0 +1,38 @@
+package org.charno.common.security.annotation;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * 权限校验注解
+ * 用于在Controller类或方法上标注需要的操作权限（sys_permission 中的权限代码）
+ * 
+ * 支持单个权限：@RequiresPermission("user:delete")
+ * 支持多个权限（AND关系）：@RequiresPermission({"user:update", "role:query"})
+ * 
+ * 用户的权限由其角色在 sys_role_permission 中分配的权限决定
+ * 可以与 @RequiresRole 同时使用，两者都满足才放行
+ * 
+ * 使用示例：
+ * <pre>
+ * @RequiresPermission("user:delete")
+ * @DeleteMapping("/{id}")
+ * public Mono<ApiResponse<Void>> delete(@PathVariable UUID id) {
+ *     // 只有拥有 user:delete 权限的角色可以访问
+ * }
+ * </pre>
+ */
+@Target({ElementType.TYPE, ElementType.METHOD})
+@Retention(RetentionPolicy.RUNTIME)
+public @interface RequiresPermission {
+
+    /**
+     * 需要的权限代码数组
+     * 如果指定多个权限，使用AND关系（需要全部满足）
+     * 
+     * @return 权限代码数组
+     */
+    String[] value();
+}
@@ -0,0 +1,88 @@
+package org.charno.common.security.config;
+
+import org.springframework.security.crypto.argon2.Argon2PasswordEncoder;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.function.IntFunction;
+
+/**
+ * 密码编码器强度校准
+ * 启动时在当前硬件上测量最低强度下的一次加密耗时，推算出不超过目标耗时的最大强度
+ *
+ * BCrypt 最低 cost 与旧版本固定值（12）一致，校准只会提高强度
+ *
+ * 只校准参数保存在哈希值中的算法（BCrypt 的 cost、Argon2 的迭代次数），
+ * 这类算法调整强度后已有哈希仍可验证；PBKDF2 的迭代次数不保存在哈希值中，不参与校准
+ */
+final class PasswordEncoderCalibrator {
+
+    static final int BCRYPT_MIN_COST = 12;
+    static final int BCRYPT_MAX_COST = 16;
+
+    static final int ARGON2_SALT_LENGTH = 16;
+    static final int ARGON2_HASH_LENGTH = 32;
+    static final int ARGON2_PARALLELISM = 1;
+    static final int ARGON2_MEMORY_KB = 1 << 14;
+    static final int ARGON2_MIN_ITERATIONS = 2;
+    static final int ARGON2_MAX_ITERATIONS = 10;
+
+    private static final String SAMPLE_PASSWORD = "calibration-sample-password";
+    private static final int SAMPLES = 3;
+
+    private PasswordEncoderCalibrator() {
+    }
+
+    /**
+     * 校准 BCrypt cost
+     * cost 每增加 1 耗时翻倍
+     *
+     * @param target 目标耗时
+     * @return cost（{@value #BCRYPT_MIN_COST} ~ {@value #BCRYPT_MAX_COST}）
+     */
+    static int bcryptCost(Duration target) {
+        long nanos = measure(BCryptPasswordEncoder::new, BCRYPT_MIN_COST);
+        int cost = BCRYPT_MIN_COST;
+        while (cost < BCRYPT_MAX_COST && nanos * 2 <= target.toNanos()) {
+            nanos *= 2;
+            cost++;
+        }
+        return cost;
+    }
+
+    /**
+     * 校准 Argon2 迭代次数（内存和并行度固定）
+     * 耗时与迭代次数近似线性
+     *
+     * @param target 目标耗时
+     * @return 迭代次数（{@value #ARGON2_MIN_ITERATIONS} ~ {@value #ARGON2_MAX_ITERATIONS}）
+     */
+    static int argon2Iterations(Duration target) {
+        long nanos = measure(PasswordEncoderCalibrator::argon2, ARGON2_MIN_ITERATIONS);
+        long perIteration = Math.max(1, nanos / ARGON2_MIN_ITERATIONS);
+        long iterations = target.toNanos() / perIteration;
+        return (int) Math.max(ARGON2_MIN_ITERATIONS, Math.min(ARGON2_MAX_ITERATIONS, iterations));
+    }
+
+    static Argon2PasswordEncoder argon2(int iterations) {
+        return new Argon2PasswordEncoder(ARGON2_SALT_LENGTH, ARGON2_HASH_LENGTH, ARGON2_PARALLELISM, ARGON2_MEMORY_KB, iterations);
+    }
+
+    /**
+     * 测量一次加密耗时：预热一次后取多次测量的中位数
+     */
+    private static long measure(IntFunction<PasswordEncoder> factory, int strength) {
+        PasswordEncoder encoder = factory.apply(strength);
+        encoder.encode(SAMPLE_PASSWORD);
+        long[] samples = new long[SAMPLES];
+        for (int i = 0; i < SAMPLES; i++) {
+            long start = System.nanoTime();
+            encoder.encode(SAMPLE_PASSWORD);
+            samples[i] = System.nanoTime() - start;
+        }
+        Arrays.sort(samples);
+        return samples[SAMPLES / 2];
+    }
+}
@@ -1,29 +1,75 @@
 package org.charno.common.security.config;
 
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.DelegatingPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.security.crypto.password.Pbkdf2PasswordEncoder;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
 
 /**
  * 密码编码器配置类
- * 使用 Spring Security 自带的 BCryptPasswordEncoder 实现密码加密
+ * 使用 Spring Security 的 DelegatingPasswordEncoder，按哈希值前缀（{bcrypt}、{argon2}、{pbkdf2}）选择算法
+ *
+ * 密码策略：
+ * - 新密码使用 charno.security.password.algorithm 指定的算法加密
+ * - 启动时按 charno.security.password.target-latency 校准 BCrypt cost / Argon2 迭代次数（见 PasswordEncoderCalibrator）
+ * - 旧版本保存的无前缀哈希（BCrypt，password_algo_version = 1）仍可验证，并在登录成功后升级
  */
+@Slf4j
 @Configuration
 public class PasswordEncoderConfig {
 
+    public static final String BCRYPT = "bcrypt";
+    public static final String ARGON2 = "argon2";
+    public static final String PBKDF2 = "pbkdf2";
+
     /**
      * 配置密码编码器
-     * BCryptPasswordEncoder 是 Spring Security 推荐的密码加密方式
-     * 使用 BCrypt 算法进行单向哈希加密，每次加密结果都不同，但可以验证
      *
+     * @param algorithm        新密码使用的算法（bcrypt / argon2 / pbkdf2）
+     * @param targetLatency    单次加密的目标耗时
+     * @param calibrate        是否在启动时校准强度，关闭时使用最低强度
+     * @param pbkdf2Iterations PBKDF2 迭代次数（不保存在哈希值中，修改后已有的 PBKDF2 哈希将无法验证）
      * @return PasswordEncoder 实例
      */
     @Bean
-    public PasswordEncoder passwordEncoder() {
-        // BCryptPasswordEncoder 的强度参数默认为 10
-        // 强度越高，加密时间越长，安全性越高（范围：4-31，推荐：10-12）
-        return new BCryptPasswordEncoder(12);
+    public PasswordEncoder passwordEncoder(
+            @Value("${charno.security.password.algorithm:bcrypt}") String algorithm,
+            @Value("${charno.security.password.target-latency:250ms}") Duration targetLatency,
+            @Value("${charno.security.password.calibrate:true}") boolean calibrate,
+            @Value("${charno.security.password.pbkdf2-iterations:310000}") int pbkdf2Iterations) {
+        Map<String, PasswordEncoder> encoders = new HashMap<>();
+
+        // 只校准当前用于加密的算法，其他算法仅用于验证已有哈希（BCrypt、Argon2 的参数从哈希值中读取）
+        int bcryptCost = calibrate && BCRYPT.equals(algorithm)
+                ? PasswordEncoderCalibrator.bcryptCost(targetLatency)
+                : PasswordEncoderCalibrator.BCRYPT_MIN_COST;
+        int argon2Iterations = calibrate && ARGON2.equals(algorithm)
+                ? PasswordEncoderCalibrator.argon2Iterations(targetLatency)
+                : PasswordEncoderCalibrator.ARGON2_MIN_ITERATIONS;
+
+        encoders.put(BCRYPT, new BCryptPasswordEncoder(bcryptCost));
+        encoders.put(ARGON2, PasswordEncoderCalibrator.argon2(argon2Iterations));
+        encoders.put(PBKDF2, new Pbkdf2PasswordEncoder("", 16, pbkdf2Iterations,
+                Pbkdf2PasswordEncoder.SecretKeyFactoryAlgorithm.PBKDF2WithHmacSHA256));
+
+        if (!encoders.containsKey(algorithm)) {
+            throw new IllegalStateException("Unsupported password algorithm: " + algorithm);
+        }
+
+        DelegatingPasswordEncoder passwordEncoder = new DelegatingPasswordEncoder(algorithm, encoders);
+        // 旧版本的哈希没有 {id} 前缀，均为 BCrypt
+        passwordEncoder.setDefaultPasswordEncoderForMatches(new BCryptPasswordEncoder());
+
+        log.info("Password encoder initialized: algorithm={}, bcryptCost={}, argon2Iterations={}, pbkdf2Iterations={}",
+                algorithm, bcryptCost, argon2Iterations, pbkdf2Iterations);
+        return passwordEncoder;
     }
 }
-
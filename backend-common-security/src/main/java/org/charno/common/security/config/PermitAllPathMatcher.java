@@ -0,0 +1,92 @@
+package org.charno.common.security.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.server.PathContainer;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.web.util.pattern.PathPattern;
+import org.springframework.web.util.pattern.PathPatternParser;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * 匿名访问路径匹配器
+ * 启动时收集所有 {@link PermitAllPathProvider} 注册的路径并编译为 PathPattern，
+ * SecurityConfig 和 AuthenticationFilter 共用同一份路径，保证两者放行范围一致
+ *
+ * 使用与 Spring Security pathMatchers 相同的 PathPatternParser 解析规则，
+ * 并同样匹配应用内路径（pathWithinApplication）
+ */
+@Slf4j
+@Component
+public class PermitAllPathMatcher {
+
+    private final List<String> paths;
+    private final List<PathPattern> patterns;
+
+    public PermitAllPathMatcher(List<PermitAllPathProvider> permitAllPathProviders) {
+        // 如果定制模块没有实现 PermitAllPathProvider，Spring 会注入空列表
+        this.paths = List.copyOf(collectPermitAllPaths(
+                permitAllPathProviders != null ? permitAllPathProviders : new ArrayList<>()));
+        this.patterns = paths.stream()
+                .map(PathPatternParser.defaultInstance::parse)
+                .toList();
+    }
+
+    /**
+     * 获取所有放行路径（去重后的原始字符串）
+     *
+     * @return 路径列表
+     */
+    public List<String> getPaths() {
+        return paths;
+    }
+
+    /**
+     * 匹配请求路径
+     *
+     * @param request ServerHttpRequest
+     * @return 匹配到的路径模式字符串，未匹配返回 null
+     */
+    public String match(ServerHttpRequest request) {
+        if (patterns.isEmpty()) {
+            return null;
+        }
+        PathContainer path = request.getPath().pathWithinApplication();
+        for (PathPattern pattern : patterns) {
+            if (pattern.matches(path)) {
+                return pattern.getPatternString();
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 收集所有需要放行的路径
+     * 从所有 PermitAllPathProvider 实现中收集路径（包括系统模块和定制模块）
+     *
+     * @return 去重后的路径列表
+     */
+    private static List<String> collectPermitAllPaths(List<PermitAllPathProvider> permitAllPathProviders) {
+        // 收集所有模块（系统模块和定制模块）注册的路径
+        return permitAllPathProviders.stream()
+                .flatMap(provider -> {
+                    try {
+                        List<String> paths = provider.getPermitAllPaths();
+                        if (paths == null) {
+                            log.warn("PermitAllPathProvider {} 返回了 null，已忽略", provider.getClass().getName());
+                            return Stream.<String>empty();
+                        }
+                        return paths.stream();
+                    } catch (Exception e) {
+                        log.error("获取 PermitAllPathProvider {} 的路径时发生错误", provider.getClass().getName(), e);
+                        return Stream.<String>empty();
+                    }
+                })
+                .distinct()  // 去重
+                .collect(Collectors.toList());
+    }
+}
@@ -1,13 +1,10 @@
 package org.charno.common.security.config;
 
 import lombok.extern.slf4j.Slf4j;
-import org.charno.common.web.response.ApiResponse;
+import org.charno.common.web.response.ErrorResponseWriter;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
-import org.springframework.core.io.buffer.DataBuffer;
-import org.springframework.core.io.buffer.DataBufferFactory;
 import org.springframework.http.HttpStatus;
-import org.springframework.http.MediaType;
 import org.springframework.security.config.annotation.method.configuration.EnableReactiveMethodSecurity;
 import org.springframework.security.config.annotation.web.reactive.EnableWebFluxSecurity;
 import org.springframework.security.config.web.server.SecurityWebFiltersOrder;
@@ -15,12 +12,8 @@ import org.springframework.security.config.web.server.ServerHttpSecurity;
 import org.springframework.security.web.server.SecurityWebFilterChain;
 import org.springframework.security.web.server.authentication.AuthenticationWebFilter;
 import org.springframework.security.web.server.ServerAuthenticationEntryPoint;
-import reactor.core.publisher.Mono;
 
-import java.nio.charset.StandardCharsets;
-import java.util.ArrayList;
 import java.util.List;
-import java.util.stream.Collectors;
 
 /**
  * Spring Security 配置类
@@ -36,15 +29,17 @@ public class SecurityConfig {
 
     private final TokenReactiveAuthenticationManager authenticationManager;
     private final TokenAuthenticationConverter authenticationConverter;
-    private final List<PermitAllPathProvider> permitAllPathProviders;
+    private final PermitAllPathMatcher permitAllPathMatcher;
+    private final ErrorResponseWriter errorResponseWriter;
 
     public SecurityConfig(
             TokenReactiveAuthenticationManager authenticationManager,
-            List<PermitAllPathProvider> permitAllPathProviders) {
+            PermitAllPathMatcher permitAllPathMatcher,
+            ErrorResponseWriter errorResponseWriter) {
         this.authenticationManager = authenticationManager;
         this.authenticationConverter = new TokenAuthenticationConverter();
-        // 如果定制模块没有实现 PermitAllPathProvider，Spring 会注入空列表
-        this.permitAllPathProviders = permitAllPathProviders != null ? permitAllPathProviders : new ArrayList<>();
+        this.permitAllPathMatcher = permitAllPathMatcher;
+        this.errorResponseWriter = errorResponseWriter;
     }
 
     /**
@@ -55,6 +50,7 @@ public class SecurityConfig {
      * - 系统模块路径：通过 backend-system 模块的 ModuleInitialization 实现 PermitAllPathProvider 注册
      * - 定制模块路径：通过定制模块实现 PermitAllPathProvider 接口注册
      * - 自动去重：多个模块注册相同路径时自动去重
+     * - 路径由 {@link PermitAllPathMatcher} 统一收集，AuthenticationFilter 使用同一份路径跳过Token查询
      *
      * @param http ServerHttpSecurity 实例
      * @return SecurityWebFilterChain
@@ -66,7 +62,7 @@ public class SecurityConfig {
         authenticationWebFilter.setServerAuthenticationConverter(authenticationConverter);
 
         // 收集所有需要放行的路径
-        List<String> allPermitAllPaths = collectPermitAllPaths();
+        List<String> allPermitAllPaths = permitAllPathMatcher.getPaths();
         
         // 记录所有注册的路径（用于调试）
         if (log.isInfoEnabled() && !allPermitAllPaths.isEmpty()) {
@@ -87,9 +83,9 @@ public class SecurityConfig {
                 
                 // 添加自定义认证过滤器
                 // 注意：
-                // 1. AuthenticationFilter（Order=-100）会先执行，添加用户信息到请求头
-                // 2. RoleCheckWebFilter（Order=0）在HandlerMapping之后执行，校验角色权限
-                // 3. 然后这个认证过滤器会从请求头读取用户信息并创建Authentication对象
+                // 1. AuthenticationFilter（Order=-100）会先执行，将用户主体保存为请求属性
+                // 2. RoleCheckWebFilter（Order=0）读取用户主体，校验角色权限
+                // 3. 然后这个认证过滤器会从请求属性读取用户主体并创建Authentication对象
                 .addFilterAt(authenticationWebFilter, SecurityWebFiltersOrder.AUTHENTICATION)
                 
                 // 配置未认证和权限不足时的处理
@@ -118,63 +114,12 @@ public class SecurityConfig {
         return httpSecurity.build();
     }
     
-    /**
-     * 收集所有需要放行的路径
-     * 从所有 PermitAllPathProvider 实现中收集路径（包括系统模块和定制模块）
-     * 
-     * @return 去重后的路径列表
-     */
-    private List<String> collectPermitAllPaths() {
-        // 收集所有模块（系统模块和定制模块）注册的路径
-        List<String> allPaths = permitAllPathProviders.stream()
-                .flatMap(provider -> {
-                    try {
-                        List<String> paths = provider.getPermitAllPaths();
-                        if (paths == null) {
-                            log.warn("PermitAllPathProvider {} 返回了 null，已忽略", provider.getClass().getName());
-                            return java.util.stream.Stream.<String>empty();
-                        }
-                        return paths.stream();
-                    } catch (Exception e) {
-                        log.error("获取 PermitAllPathProvider {} 的路径时发生错误", provider.getClass().getName(), e);
-                        return java.util.stream.Stream.<String>empty();
-                    }
-                })
-                .distinct()  // 去重
-                .collect(Collectors.toList());
-        
-        return allPaths;
-    }
-
     /**
      * 配置未认证时的处理
-     * 当请求需要认证但没有有效Token时，返回401错误
+     * 当请求需要认证但没有有效Token时，返回401错误（响应体由ErrorResponseWriter预编码写入）
      */
     @Bean
     public ServerAuthenticationEntryPoint authenticationEntryPoint() {
-        return (exchange, ex) -> {
-            // 检查响应是否已提交，如果已提交则不再处理
-            if (exchange.getResponse().isCommitted()) {
-                return Mono.empty();
-            }
-            
-            exchange.getResponse().setStatusCode(HttpStatus.UNAUTHORIZED);
-            exchange.getResponse().getHeaders().setContentType(MediaType.APPLICATION_JSON);
-            
-            // 返回JSON格式的错误信息
-            ApiResponse<Void> errorResponse = ApiResponse.fail(401, "未授权，请先登录");
-            String errorBody = String.format(
-                    "{\"code\":%d,\"message\":\"%s\",\"timestamp\":\"%s\"}",
-                    errorResponse.getCode(),
-                    errorResponse.getMessage(),
-                    errorResponse.getTimestamp()
-            );
-            
-            DataBufferFactory bufferFactory = exchange.getResponse().bufferFactory();
-            DataBuffer buffer = bufferFactory.wrap(errorBody.getBytes(StandardCharsets.UTF_8));
-            
-            return exchange.getResponse().writeWith(Mono.just(buffer));
-        };
+        return (exchange, ex) -> errorResponseWriter.write(exchange, HttpStatus.UNAUTHORIZED, 401, "未授权，请先登录");
     }
 }
-
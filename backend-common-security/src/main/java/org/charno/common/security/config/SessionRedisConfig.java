@@ -0,0 +1,41 @@
+package org.charno.common.security.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.charno.common.security.session.SessionRedisSerializer;
+import org.charno.systementity.entity.SysUser;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.connection.ReactiveRedisConnectionFactory;
+import org.springframework.data.redis.core.ReactiveRedisTemplate;
+import org.springframework.data.redis.serializer.RedisSerializationContext;
+import org.springframework.data.redis.serializer.RedisSerializer;
+
+/**
+ * 会话Redis配置类
+ * 为Token会话提供专用的ReactiveRedisTemplate，使用紧凑的二进制编码代替通用的JSON序列化
+ */
+@Configuration
+public class SessionRedisConfig {
+
+    /**
+     * 配置会话专用的ReactiveRedisTemplate
+     * Key使用String序列化，Value使用SessionRedisSerializer
+     */
+    @Bean
+    public ReactiveRedisTemplate<String, SysUser> sessionRedisTemplate(
+            ReactiveRedisConnectionFactory connectionFactory,
+            ObjectMapper objectMapper) {
+
+        SessionRedisSerializer sessionSerializer = new SessionRedisSerializer(objectMapper);
+
+        RedisSerializationContext<String, SysUser> serializationContext =
+                RedisSerializationContext.<String, SysUser>newSerializationContext()
+                        .key(RedisSerializer.string())
+                        .value(sessionSerializer)
+                        .hashKey(RedisSerializer.string())
+                        .hashValue(sessionSerializer)
+                        .build();
+
+        return new ReactiveRedisTemplate<>(connectionFactory, serializationContext);
+    }
+}
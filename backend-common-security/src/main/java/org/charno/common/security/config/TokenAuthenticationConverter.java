@@ -1,54 +1,44 @@
 package org.charno.common.security.config;
 
+import org.charno.common.security.principal.AuthenticatedPrincipal;
 import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.web.server.authentication.ServerAuthenticationConverter;
 import org.springframework.web.server.ServerWebExchange;
 import reactor.core.publisher.Mono;
 
 import java.util.Collections;
-import java.util.UUID;
+import java.util.List;
 
 /**
  * Token认证转换器
- * 从请求头中提取用户信息并创建Authentication对象
+ * 从请求属性中读取用户主体并创建Authentication对象
  * 
  * 工作原理：
- * 1. AuthenticationFilter已经验证Token并将用户信息添加到请求头
- * 2. 此转换器从请求头中读取X-User-Id
- * 3. 如果存在X-User-Id，说明用户已认证，创建Authentication对象
+ * 1. AuthenticationFilter已经验证Token并将AuthenticatedPrincipal保存为请求属性
+ * 2. 此转换器直接读取该属性（无需解析请求头）
+ * 3. 如果存在，说明用户已认证，创建Authentication对象（principal 为 AuthenticatedPrincipal，权限为 ROLE_{roleCode}）
  * 4. 如果不存在，返回空Mono（表示未认证）
  */
 public class TokenAuthenticationConverter implements ServerAuthenticationConverter {
 
-    private static final String USER_ID_HEADER = "X-User-Id";
+    private static final String ROLE_PREFIX = "ROLE_";
 
     @Override
     public Mono<Authentication> convert(ServerWebExchange exchange) {
-        String userId = exchange.getRequest().getHeaders().getFirst(USER_ID_HEADER);
-        
-        // 如果请求头中没有用户ID，说明未认证
-        if (userId == null || userId.isEmpty()) {
-            return Mono.empty();
-        }
+        AuthenticatedPrincipal principal = AuthenticatedPrincipal.from(exchange);
 
-        try {
-            // 解析用户ID
-            UUID userUuid = UUID.fromString(userId);
-            
-            // 创建Authentication对象
-            // 使用UsernamePasswordAuthenticationToken，用户名设置为用户ID的字符串形式
-            // 可以添加角色权限，这里暂时使用空权限列表
-            TokenAuthenticationToken authentication = new TokenAuthenticationToken(
-                    userUuid.toString(),
-                    null,
-                    Collections.emptyList()
-            );
-            
-            return Mono.just(authentication);
-        } catch (IllegalArgumentException e) {
-            // 用户ID格式无效
+        // 如果请求属性中没有用户主体，说明未认证
+        if (principal == null) {
             return Mono.empty();
         }
+
+        List<GrantedAuthority> authorities = principal.roleCode() != null && !principal.roleCode().isEmpty()
+                ? List.of(new SimpleGrantedAuthority(ROLE_PREFIX + principal.roleCode()))
+                : Collections.emptyList();
+
+        // 创建Authentication对象，Controller中可通过 @AuthenticationPrincipal 注入 AuthenticatedPrincipal
+        return Mono.just(new TokenAuthenticationToken(principal, null, authorities));
     }
 }
-
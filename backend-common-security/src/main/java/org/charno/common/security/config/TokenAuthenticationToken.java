@@ -8,6 +8,7 @@ import java.util.Collection;
 /**
  * Token认证Token
  * 自定义Authentication实现，用于存储Token认证信息
+ * principal 为 {@link org.charno.common.security.principal.AuthenticatedPrincipal}
  */
 public class TokenAuthenticationToken extends AbstractAuthenticationToken {
 
@@ -8,7 +8,7 @@ import reactor.core.publisher.Mono;
 /**
  * Token响应式认证管理器
  * 
- * 由于AuthenticationFilter已经验证了Token并添加了用户信息到请求头，
+ * 由于AuthenticationFilter已经验证了Token并将用户主体保存为请求属性，
  * TokenAuthenticationConverter已经创建了Authentication对象，
  * 这里只需要直接返回认证对象即可（无需再次验证）
  */
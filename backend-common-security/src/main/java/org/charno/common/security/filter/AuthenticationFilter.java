@@ -1,28 +1,51 @@
 package org.charno.common.security.filter;
 
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.charno.common.security.config.PermitAllPathMatcher;
+import org.charno.common.security.principal.AuthenticatedPrincipal;
+import org.charno.common.security.session.ApiKeyService;
 import org.charno.common.security.util.TokenUtil;
-import org.charno.systementity.entity.SysUser;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
 import org.springframework.http.server.reactive.ServerHttpRequest;
 import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.HandlerMapping;
 import org.springframework.web.server.ServerWebExchange;
 import org.springframework.web.server.WebFilter;
 import org.springframework.web.server.WebFilterChain;
+import org.springframework.web.util.pattern.PathPattern;
 import reactor.core.publisher.Mono;
 
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
 /**
  * 身份认证过滤器
- * 验证Token并将用户信息添加到请求头
- * 
+ * 验证Token并将用户信息保存为请求属性
+ *
  * 过滤器职责：
- * 1. 从Authorization请求头提取Token（如果存在）
- * 2. 使用TokenUtil从Redis获取用户信息（优化：不再查询PostgreSQL）
+ * 1. 从Authorization请求头提取Token（如果存在；WebSocket握手请求也支持 token 查询参数）
+ * 2. 使用TokenUtil获取用户信息（opaque Token从L1缓存/Redis获取，signed Token在本地校验，不再查询PostgreSQL）；
+ *    没有Token但携带 X-Api-Key 请求头时，使用ApiKeyService校验API Key（机器客户端）
  * 3. 验证用户状态
- * 4. 将用户信息添加到请求头，供后续Controller使用
+ * 4. 创建AuthenticatedPrincipal，保存到请求属性和Reactor上下文，供后续过滤器和Controller使用
  * 5. 如果没有Token或Token无效，不添加用户信息但继续放行（不拦截）
- * 
+ *
+ * 安全：移除客户端自行携带的 X-User-* 请求头，防止下游代码误信伪造的用户信息
+ *
+ * 匿名访问路径（PermitAllPathProvider 注册的路径）和 OPTIONS 预检请求即使携带Token也不查询，
+ * 这些请求不会得到用户主体；需要用户身份的接口不应注册为匿名访问路径（WebSocket握手请求除外，仍会查询）
+ *
+ * 指标 auth.token.lookup（仅统计携带Token的请求）：
+ * - outcome=skipped：route 为匹配到的放行路径模式（预检请求为 OPTIONS）
+ * - outcome=performed：route 为Controller映射的路径模式，未进入Controller时为 UNMATCHED
+ *
  * 注意：此过滤器不负责拦截请求，认证拦截由Spring Security处理
  */
 @Component
@@ -33,50 +56,131 @@ public class AuthenticationFilter implements WebFilter {
 
     private static final String AUTHORIZATION_HEADER = "Authorization";
     private static final String BEARER_PREFIX = "Bearer ";
-    
-    // 添加到请求头的用户信息字段
-    private static final String USER_ID_HEADER = "X-User-Id";
-    private static final String USER_STATUS_HEADER = "X-User-Status";
-    private static final String USER_ACCOUNT_TYPE_HEADER = "X-User-Account-Type";
-    private static final String USER_ACCOUNT_IDENTIFIER_HEADER = "X-User-Account-Identifier";
-    private static final String USER_ROLE_CODE_HEADER = "X-User-Role-Code";
+    private static final String API_KEY_HEADER = "X-Api-Key";
+    private static final String TOKEN_QUERY_PARAM = "token";
+    private static final String WEBSOCKET_UPGRADE = "websocket";
+
+    /**
+     * 旧版本由服务器添加的用户信息请求头，现在只会由客户端伪造，需要移除
+     */
+    private static final List<String> USER_INFO_HEADERS = List.of(
+            "X-User-Id",
+            "X-User-Status",
+            "X-User-Account-Type",
+            "X-User-Account-Identifier",
+            "X-User-Role-Code"
+    );
+
+    private static final String LOOKUP_METRIC = "auth.token.lookup";
+    private static final String OUTCOME_SKIPPED = "skipped";
+    private static final String OUTCOME_PERFORMED = "performed";
+    private static final String ROUTE_PREFLIGHT = "OPTIONS";
+    private static final String ROUTE_UNMATCHED = "UNMATCHED";
 
     private final TokenUtil tokenUtil;
+    private final ApiKeyService apiKeyService;
+    private final PermitAllPathMatcher permitAllPathMatcher;
+    private final MeterRegistry meterRegistry;
+    private final Map<String, Counter> lookupCounters = new ConcurrentHashMap<>();
 
-    public AuthenticationFilter(TokenUtil tokenUtil) {
+    public AuthenticationFilter(TokenUtil tokenUtil, ApiKeyService apiKeyService, PermitAllPathMatcher permitAllPathMatcher, MeterRegistry meterRegistry) {
         this.tokenUtil = tokenUtil;
+        this.apiKeyService = apiKeyService;
+        this.permitAllPathMatcher = permitAllPathMatcher;
+        this.meterRegistry = meterRegistry;
     }
 
     @Override
-    public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+    public Mono<Void> filter(ServerWebExchange originalExchange, WebFilterChain chain) {
+        ServerWebExchange exchange = stripUserInfoHeaders(originalExchange);
         ServerHttpRequest request = exchange.getRequest();
 
-        // 从请求头中提取Token
+        // 从请求头中提取Token，没有Token时提取API Key
         String token = extractToken(request);
-        log.debug("Request method: {}, URI: {}, Has credentials: {}", request.getMethod(), request.getURI(), token != null && !token.isEmpty());
+        boolean hasToken = token != null && !token.isEmpty();
+        String apiKey = hasToken ? null : request.getHeaders().getFirst(API_KEY_HEADER);
+        boolean hasApiKey = apiKey != null && !apiKey.isEmpty();
+        log.debug("Request method: {}, URI: {}, Has credentials: {}", request.getMethod(), request.getURI(), hasToken || hasApiKey);
 
-        // 如果没有Token，直接放行（不添加用户信息）
-        if (token == null || token.isEmpty()) {
+        // 如果没有Token和API Key，直接放行（不添加用户信息）
+        if (!hasToken && !hasApiKey) {
             return chain.filter(exchange);
         }
 
-        // 验证Token并从Redis获取用户信息（优化：不再查询PostgreSQL）
+        // 匿名访问路径和预检请求不需要用户信息，跳过Token查询
+        String permitAllRoute = skippableRoute(request);
+        if (permitAllRoute != null) {
+            countLookup(OUTCOME_SKIPPED, permitAllRoute);
+            return chain.filter(exchange);
+        }
+
+        // 验证Token或API Key并获取用户信息（优化：不再查询PostgreSQL）
+        // 先把“无用户信息”转换为 Optional.empty()，避免过滤器链完成（空Mono）后被 switchIfEmpty 再次执行
+        Mono<AuthenticatedPrincipal> authentication = hasToken ? authenticateToken(token) : apiKeyService.verify(apiKey);
+        return authentication
+                .map(Optional::of)
+                // Token无效或用户不存在，不添加用户信息但继续放行
+                .defaultIfEmpty(Optional.empty())
+                .flatMap(optionalPrincipal -> {
+                    if (optionalPrincipal.isEmpty()) {
+                        return chain.filter(exchange);
+                    }
+                    // 将用户信息保存为请求属性和Reactor上下文
+                    AuthenticatedPrincipal principal = optionalPrincipal.get();
+                    exchange.getAttributes().put(AuthenticatedPrincipal.ATTRIBUTE, principal);
+                    // 继续过滤器链
+                    return chain.filter(exchange)
+                            .contextWrite(context -> context.put(AuthenticatedPrincipal.class, principal));
+                })
+                // 请求处理完成后 DispatcherHandler 已设置匹配的路径模式，用作路由标签（基数有限）
+                .doFinally(signal -> countLookup(OUTCOME_PERFORMED, matchedRoute(exchange)));
+    }
+
+    /**
+     * 验证Token并创建用户主体
+     */
+    private Mono<AuthenticatedPrincipal> authenticateToken(String token) {
         return tokenUtil.getUserByToken(token)
-                .flatMap(user -> {
+                .filter(user -> {
                     // 检查用户状态，只有ENABLED状态的用户才添加信息
                     if (user.getStatus() != null && "ENABLED".equals(user.getStatus())) {
-                        // 将用户信息添加到请求头
-                        ServerHttpRequest mutatedRequest = addUserInfoToHeaders(request, user);
-                        // 继续过滤器链
-                        return chain.filter(exchange.mutate().request(mutatedRequest).build());
-                    } else {
-                        // 用户状态异常，不添加用户信息但继续放行
-                        log.warn("User status is not ENABLED: userId={}, status={}", user.getId(), user.getStatus());
-                        return chain.filter(exchange);
+                        return true;
                     }
+                    // 用户状态异常，不添加用户信息但继续放行
+                    log.warn("User status is not ENABLED: userId={}, status={}", user.getId(), user.getStatus());
+                    return false;
                 })
-                // Token无效或用户不存在，不添加用户信息但继续放行
-                .switchIfEmpty(chain.filter(exchange));
+                .map(AuthenticatedPrincipal::of);
+    }
+
+    /**
+     * 判断是否可以跳过Token查询
+     * WebSocket路径虽然注册为匿名访问路径，但握手时需要用户主体（复制到WebSocket会话属性），因此握手请求不跳过
+     *
+     * @return 跳过时返回路由标签，否则返回 null
+     */
+    private String skippableRoute(ServerHttpRequest request) {
+        if (HttpMethod.OPTIONS.equals(request.getMethod())) {
+            return ROUTE_PREFLIGHT;
+        }
+        if (WEBSOCKET_UPGRADE.equalsIgnoreCase(request.getHeaders().getUpgrade())) {
+            return null;
+        }
+        return permitAllPathMatcher.match(request);
+    }
+
+    private String matchedRoute(ServerWebExchange exchange) {
+        PathPattern pattern = exchange.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        return pattern != null ? pattern.getPatternString() : ROUTE_UNMATCHED;
+    }
+
+    private void countLookup(String outcome, String route) {
+        lookupCounters.computeIfAbsent(outcome + ' ' + route, key -> Counter.builder(LOOKUP_METRIC)
+                        .description("Authentication token lookups by route")
+                        .tag("outcome", outcome)
+                        .tag("route", route)
+                        .register(meterRegistry))
+                .increment();
     }
 
     /**
@@ -84,10 +188,15 @@ public class AuthenticationFilter implements WebFilter {
      * 支持两种格式：
      * 1. Authorization: Bearer {token}
      * 2. Authorization: {token}
+     *
+     * 浏览器无法为WebSocket握手设置请求头，因此WebSocket握手请求额外支持 ?token={token}
      */
     private String extractToken(ServerHttpRequest request) {
         String authorization = request.getHeaders().getFirst(AUTHORIZATION_HEADER);
         if (authorization == null || authorization.isEmpty()) {
+            if (WEBSOCKET_UPGRADE.equalsIgnoreCase(request.getHeaders().getUpgrade())) {
+                return request.getQueryParams().getFirst(TOKEN_QUERY_PARAM);
+            }
             return null;
         }
 
@@ -100,23 +209,26 @@ public class AuthenticationFilter implements WebFilter {
     }
 
     /**
-     * 将用户信息添加到请求头
-     * 
-     * 添加的请求头：
-     * - X-User-Id: 用户ID
-     * - X-User-Status: 用户状态
-     * - X-User-Account-Type: 账号类型
-     * - X-User-Account-Identifier: 账号标识符
-     * - X-User-Role-Code: 角色代码
+     * 移除客户端携带的 X-User-* 请求头
+     * 只有确实携带时才复制请求头，正常请求无额外开销
      */
-    private ServerHttpRequest addUserInfoToHeaders(ServerHttpRequest request, SysUser user) {
-        return request.mutate()
-                .header(USER_ID_HEADER, user.getId().toString())
-                .header(USER_STATUS_HEADER, user.getStatus() != null ? user.getStatus() : "")
-                .header(USER_ACCOUNT_TYPE_HEADER, user.getAccountType() != null ? user.getAccountType() : "")
-                .header(USER_ACCOUNT_IDENTIFIER_HEADER, user.getAccountIdentifier() != null ? user.getAccountIdentifier() : "")
-                .header(USER_ROLE_CODE_HEADER, user.getRoleCode() != null ? user.getRoleCode() : "")
+    private ServerWebExchange stripUserInfoHeaders(ServerWebExchange exchange) {
+        HttpHeaders headers = exchange.getRequest().getHeaders();
+        boolean present = false;
+        for (String name : USER_INFO_HEADERS) {
+            if (headers.getFirst(name) != null) {
+                present = true;
+                break;
+            }
+        }
+        if (!present) {
+            return exchange;
+        }
+
+        log.warn("Removing client supplied user info headers: URI={}", exchange.getRequest().getURI());
+        ServerHttpRequest request = exchange.getRequest().mutate()
+                .headers(mutable -> USER_INFO_HEADERS.forEach(mutable::remove))
                 .build();
+        return exchange.mutate().request(request).build();
     }
 }
-
@@ -0,0 +1,76 @@
+package org.charno.common.security.filter;
+
+import org.charno.common.security.principal.AuthenticatedPrincipal;
+import org.charno.common.security.service.PermissionIndex;
+import org.charno.common.web.response.ErrorResponseWriter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Mono;
+
+import java.util.Optional;
+
+/**
+ * 权限校验过滤器
+ * 检查Controller方法上的@RequiresPermission注解，校验当前用户角色的权限
+ *
+ * 执行顺序：Order(10)，在RoleCheckWebFilter之后执行
+ *
+ * 工作流程：
+ * 1. 通过PermissionIndex获取请求对应Controller方法的权限要求（预编译为权限位图）
+ * 2. 如果没有权限要求，直接放行
+ * 3. 如果有权限要求，从请求属性获取AuthenticatedPrincipal的roleCode
+ * 4. 角色权限位图与要求位图按位与，包含全部要求的权限则放行，否则返回403 Forbidden
+ */
+@Component
+@Order(10)
+public class PermissionCheckWebFilter implements WebFilter {
+
+    private static final Logger log = LoggerFactory.getLogger(PermissionCheckWebFilter.class);
+
+    private final PermissionIndex permissionIndex;
+    private final ErrorResponseWriter errorResponseWriter;
+
+    public PermissionCheckWebFilter(PermissionIndex permissionIndex, ErrorResponseWriter errorResponseWriter) {
+        this.permissionIndex = permissionIndex;
+        this.errorResponseWriter = errorResponseWriter;
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+        // 先把“没有权限要求”转换为 Optional.empty()，避免过滤器链完成（空Mono）后被 switchIfEmpty 再次执行
+        return permissionIndex.getRequirement(exchange)
+                .map(Optional::of)
+                .defaultIfEmpty(Optional.empty())
+                .flatMap(optionalRequirement -> {
+                    if (optionalRequirement.isEmpty()) {
+                        return chain.filter(exchange);
+                    }
+                    PermissionIndex.PermissionRequirement requirement = optionalRequirement.get();
+
+                    AuthenticatedPrincipal principal = AuthenticatedPrincipal.from(exchange);
+                    String roleCode = principal != null ? principal.roleCode() : null;
+                    if (requirement.allows(roleCode)) {
+                        return chain.filter(exchange);
+                    }
+                    log.warn("Permission check failed: roleCode={}, requiredPermissions={}, path={}",
+                            roleCode, requirement.getRequiredPermissions(), exchange.getRequest().getURI().getPath());
+                    return handleForbidden(exchange);
+                });
+    }
+
+    /**
+     * 处理403 Forbidden响应（响应体由ErrorResponseWriter预编码写入）
+     *
+     * @param exchange ServerWebExchange
+     * @return Mono<Void>
+     */
+    private Mono<Void> handleForbidden(ServerWebExchange exchange) {
+        return errorResponseWriter.write(exchange, HttpStatus.FORBIDDEN, 403, "禁止访问：需要操作权限");
+    }
+}
@@ -0,0 +1,130 @@
+package org.charno.common.security.filter;
+
+import org.charno.common.security.annotation.RateLimit;
+import org.charno.common.security.principal.AuthenticatedPrincipal;
+import org.charno.common.security.service.RateLimitIndex;
+import org.charno.common.security.service.RateLimitService;
+import org.charno.common.web.response.ErrorResponseWriter;
+import org.charno.common.web.response.ResponseCode;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Mono;
+
+import java.net.InetSocketAddress;
+import java.util.Optional;
+
+/**
+ * 限流过滤器
+ * 检查Controller方法上的@RateLimit注解，超过限制时返回429 Too Many Requests
+ *
+ * 执行顺序：Order(-50)，在AuthenticationFilter之后（USER维度需要用户主体）、RoleCheckWebFilter之前执行
+ *
+ * 客户端IP：默认使用连接的远程地址；部署在反向代理之后时开启 charno.security.rate-limit.trust-forwarded-headers，
+ * 改为读取 X-Forwarded-For / X-Real-IP（未经代理时客户端可以伪造这些请求头绕过限流）
+ */
+@Component
+@Order(-50)
+public class RateLimitWebFilter implements WebFilter {
+
+    private static final Logger log = LoggerFactory.getLogger(RateLimitWebFilter.class);
+
+    private final RateLimitIndex rateLimitIndex;
+    private final RateLimitService rateLimitService;
+    private final ErrorResponseWriter errorResponseWriter;
+    private final boolean trustForwardedHeaders;
+
+    public RateLimitWebFilter(
+            RateLimitIndex rateLimitIndex,
+            RateLimitService rateLimitService,
+            ErrorResponseWriter errorResponseWriter,
+            @Value("${charno.security.rate-limit.trust-forwarded-headers:false}") boolean trustForwardedHeaders) {
+        this.rateLimitIndex = rateLimitIndex;
+        this.rateLimitService = rateLimitService;
+        this.errorResponseWriter = errorResponseWriter;
+        this.trustForwardedHeaders = trustForwardedHeaders;
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+        // 先把“没有限流规则”转换为 Optional.empty()，避免过滤器链完成（空Mono）后被 switchIfEmpty 再次执行
+        return rateLimitIndex.getRule(exchange)
+                .map(Optional::of)
+                .defaultIfEmpty(Optional.empty())
+                .flatMap(optionalRule -> {
+                    if (optionalRule.isEmpty()) {
+                        return chain.filter(exchange);
+                    }
+                    RateLimitIndex.Rule rule = optionalRule.get();
+                    String bucketKey = rule.name() + ":" + dimension(rule, exchange);
+                    return rateLimitService.tryAcquire(bucketKey, rule)
+                            .flatMap(wait -> {
+                                if (wait == 0) {
+                                    return chain.filter(exchange);
+                                }
+                                log.debug("Rate limit exceeded: bucket={}, retryAfterMillis={}", bucketKey, wait);
+                                return handleTooManyRequests(exchange, wait);
+                            });
+                });
+    }
+
+    /**
+     * 计算令牌桶的维度值
+     */
+    private String dimension(RateLimitIndex.Rule rule, ServerWebExchange exchange) {
+        if (rule.key() == RateLimit.Key.ROUTE) {
+            return "route";
+        }
+        if (rule.key() == RateLimit.Key.USER) {
+            AuthenticatedPrincipal principal = AuthenticatedPrincipal.from(exchange);
+            if (principal != null) {
+                return "user:" + principal.userId();
+            }
+            // 未登录时按IP限流
+        }
+        return "ip:" + getClientIp(exchange.getRequest());
+    }
+
+    private String getClientIp(ServerHttpRequest request) {
+        if (trustForwardedHeaders) {
+            String xForwardedFor = request.getHeaders().getFirst("X-Forwarded-For");
+            if (xForwardedFor != null && !xForwardedFor.isEmpty()) {
+                // X-Forwarded-For可能包含多个IP，取第一个
+                return xForwardedFor.split(",")[0].trim();
+            }
+            String xRealIp = request.getHeaders().getFirst("X-Real-IP");
+            if (xRealIp != null && !xRealIp.isEmpty()) {
+                return xRealIp;
+            }
+        }
+        InetSocketAddress remoteAddress = request.getRemoteAddress();
+        if (remoteAddress != null && remoteAddress.getAddress() != null) {
+            return remoteAddress.getAddress().getHostAddress();
+        }
+        return "unknown";
+    }
+
+    /**
+     * 处理429 Too Many Requests响应（响应体由ErrorResponseWriter预编码写入）
+     *
+     * @param exchange         ServerWebExchange
+     * @param retryAfterMillis 需要等待的毫秒数
+     * @return Mono<Void>
+     */
+    private Mono<Void> handleTooManyRequests(ServerWebExchange exchange, long retryAfterMillis) {
+        if (!exchange.getResponse().isCommitted()) {
+            // Retry-After 以秒为单位，向上取整
+            exchange.getResponse().getHeaders().set(HttpHeaders.RETRY_AFTER,
+                    String.valueOf(Math.max(1, (retryAfterMillis + 999) / 1000)));
+        }
+        return errorResponseWriter.write(exchange, HttpStatus.TOO_MANY_REQUESTS, ResponseCode.TOO_MANY_REQUESTS);
+    }
+}
@@ -1,117 +1,94 @@
 package org.charno.common.security.filter;
 
-import org.charno.common.security.annotation.RequiresRole;
-import org.charno.common.security.util.RoleCheckUtil;
-import org.charno.common.web.response.ApiResponse;
+import org.charno.common.security.principal.AuthenticatedPrincipal;
+import org.charno.common.security.service.RoleRequirementIndex;
+import org.charno.common.web.response.ErrorResponseWriter;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.core.annotation.Order;
-import org.springframework.core.io.buffer.DataBuffer;
-import org.springframework.core.io.buffer.DataBufferFactory;
 import org.springframework.http.HttpStatus;
-import org.springframework.http.MediaType;
 import org.springframework.stereotype.Component;
 import org.springframework.web.server.ServerWebExchange;
 import org.springframework.web.server.WebFilter;
 import org.springframework.web.server.WebFilterChain;
 import reactor.core.publisher.Mono;
 
-import java.nio.charset.StandardCharsets;
+import java.util.Optional;
 
 /**
  * 角色校验过滤器
  * 检查Controller方法上的@RequiresRole注解，校验当前用户的角色权限
  * 
- * 执行顺序：Order(0)，在HandlerMapping之后执行，以便获取HandlerMethod
+ * 执行顺序：Order(0)，在AuthenticationFilter之后执行
  * 
  * 工作流程：
- * 1. 检查请求对应的Controller方法是否有@RequiresRole注解
- * 2. 如果没有注解，直接放行
- * 3. 如果有注解，从请求头获取X-User-Role-Code
- * 4. 直接使用roleCode校验是否匹配注解中要求的角色
+ * 1. 通过RoleRequirementIndex获取请求对应Controller方法的角色要求（启动时预编译为角色位图）
+ * 2. 如果没有角色要求，直接放行
+ * 3. 如果有角色要求，从请求属性获取AuthenticatedPrincipal的roleCode
+ * 4. 使用角色位图校验roleCode是否满足要求
  * 5. 如果匹配，放行；如果不匹配，返回403 Forbidden
  */
 @Component
-@Order(0) // 在HandlerMapping之后执行，以便获取HandlerMethod
+@Order(0)
 public class RoleCheckWebFilter implements WebFilter {
 
     private static final Logger log = LoggerFactory.getLogger(RoleCheckWebFilter.class);
 
-    private static final String USER_ROLE_CODE_HEADER = "X-User-Role-Code";
+    private final RoleRequirementIndex roleRequirementIndex;
+    private final ErrorResponseWriter errorResponseWriter;
+
+    public RoleCheckWebFilter(RoleRequirementIndex roleRequirementIndex, ErrorResponseWriter errorResponseWriter) {
+        this.roleRequirementIndex = roleRequirementIndex;
+        this.errorResponseWriter = errorResponseWriter;
+    }
 
     @Override
     public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
-        // 获取HandlerMethod
-        return RoleCheckUtil.getHandlerMethod(exchange)
-                .flatMap(handlerMethod -> {
-                    // 检查是否有@RequiresRole注解
-                    RequiresRole annotation = RoleCheckUtil.getRequiresRoleAnnotation(handlerMethod);
-                    if (annotation == null) {
-                        // 没有注解，直接放行
-                        return chain.filter(exchange);
-                    }
-
-                    // 有注解，需要校验角色
-                    String[] requiredRoles = annotation.value();
-                    if (requiredRoles == null || requiredRoles.length == 0) {
-                        // 注解中没有指定角色，直接放行
+        // 获取角色要求
+        // 先把“没有角色要求”转换为 Optional.empty()，避免过滤器链完成（空Mono）后被 switchIfEmpty 再次执行
+        return roleRequirementIndex.getRequirement(exchange)
+                .map(Optional::of)
+                .defaultIfEmpty(Optional.empty())
+                .flatMap(optionalRequirement -> {
+                    // 没有角色要求（未标注注解、静态资源或其他非Controller请求），直接放行
+                    if (optionalRequirement.isEmpty()) {
                         return chain.filter(exchange);
                     }
+                    RoleRequirementIndex.RoleRequirement requirement = optionalRequirement.get();
 
-                    // 从请求头获取roleCode
-                    String roleCode = exchange.getRequest().getHeaders().getFirst(USER_ROLE_CODE_HEADER);
+                    // 从请求属性获取roleCode
+                    AuthenticatedPrincipal principal = AuthenticatedPrincipal.from(exchange);
+                    String roleCode = principal != null ? principal.roleCode() : null;
                     if (roleCode == null || roleCode.isEmpty()) {
                         // 没有roleCode，返回403（用户可能未认证，但由Spring Security处理401）
                         // 这里返回403是因为方法需要角色权限，但用户没有角色信息
                         log.warn("Role check failed: no roleCode found, requiredRoles={}, path={}", 
-                                String.join(",", requiredRoles), exchange.getRequest().getURI().getPath());
+                                requirement.getRequiredRoles(), exchange.getRequest().getURI().getPath());
                         return handleForbidden(exchange);
                     }
 
-                    // 直接校验角色code是否匹配
-                    if (RoleCheckUtil.isRoleMatched(roleCode, requiredRoles)) {
+                    // 校验角色位图
+                    if (requirement.allows(roleCode)) {
                         // 角色匹配，放行
                         log.debug("Role check passed: roleCode={}, requiredRoles={}", 
-                                roleCode, String.join(",", requiredRoles));
+                                roleCode, requirement.getRequiredRoles());
                         return chain.filter(exchange);
                     } else {
                         // 角色不匹配，返回403
                         log.warn("Role check failed: roleCode={}, requiredRoles={}, path={}", 
-                                roleCode, String.join(",", requiredRoles), exchange.getRequest().getURI().getPath());
+                                roleCode, requirement.getRequiredRoles(), exchange.getRequest().getURI().getPath());
                         return handleForbidden(exchange);
                     }
-                })
-                // 无法获取HandlerMethod，可能是静态资源或其他非Controller请求，直接放行
-                .switchIfEmpty(chain.filter(exchange));
+                });
     }
 
     /**
-     * 处理403 Forbidden响应
+     * 处理403 Forbidden响应（响应体由ErrorResponseWriter预编码写入）
      * 
      * @param exchange ServerWebExchange
      * @return Mono<Void>
      */
     private Mono<Void> handleForbidden(ServerWebExchange exchange) {
-        // 检查响应是否已提交，如果已提交则不再处理
-        if (exchange.getResponse().isCommitted()) {
-            return Mono.empty();
-        }
-        
-        exchange.getResponse().setStatusCode(HttpStatus.FORBIDDEN);
-        exchange.getResponse().getHeaders().setContentType(MediaType.APPLICATION_JSON);
-
-        ApiResponse<Void> errorResponse = ApiResponse.fail(403, "禁止访问：需要角色权限");
-        String errorBody = String.format(
-                "{\"code\":%d,\"message\":\"%s\",\"timestamp\":\"%s\"}",
-                errorResponse.getCode(),
-                errorResponse.getMessage(),
-                errorResponse.getTimestamp()
-        );
-
-        DataBufferFactory bufferFactory = exchange.getResponse().bufferFactory();
-        DataBuffer buffer = bufferFactory.wrap(errorBody.getBytes(StandardCharsets.UTF_8));
-
-        return exchange.getResponse().writeWith(Mono.just(buffer));
+        return errorResponseWriter.write(exchange, HttpStatus.FORBIDDEN, 403, "禁止访问：需要角色权限");
     }
 }
-
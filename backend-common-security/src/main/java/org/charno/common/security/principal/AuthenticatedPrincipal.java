@@ -0,0 +1,84 @@
+package org.charno.common.security.principal;
+
+import org.charno.systementity.entity.SysUser;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+
+import java.security.Principal;
+import java.util.UUID;
+
+/**
+ * 已认证用户主体
+ * AuthenticationFilter验证Token后创建的不可变用户信息，同时保存到：
+ * 1. 请求属性（{@link #ATTRIBUTE}）：供过滤器、WebSocket握手等直接读取
+ * 2. Reactor上下文（以 AuthenticatedPrincipal.class 为键）：供响应式调用链中的任意位置读取
+ * 3. Spring Security 的 Authentication.principal：Controller中可使用 @AuthenticationPrincipal 注入
+ *
+ * 使用示例：
+ * <pre>
+ * &#64;GetMapping("/me")
+ * public Mono&lt;ApiResponse&lt;UUID&gt;&gt; me(@AuthenticationPrincipal AuthenticatedPrincipal principal) {
+ *     return Mono.just(ApiResponse.success(principal.userId()));
+ * }
+ * </pre>
+ *
+ * @param userId            用户ID
+ * @param status            用户状态
+ * @param roleCode          角色代码
+ * @param accountType       账号类型
+ * @param accountIdentifier 账号标识符
+ */
+public record AuthenticatedPrincipal(
+        UUID userId,
+        String status,
+        String roleCode,
+        String accountType,
+        String accountIdentifier) implements Principal {
+
+    /**
+     * 请求属性名（WebSocket握手时同名复制到会话属性）
+     */
+    public static final String ATTRIBUTE = AuthenticatedPrincipal.class.getName();
+
+    /**
+     * 由会话用户创建
+     *
+     * @param user 用户对象
+     * @return AuthenticatedPrincipal
+     */
+    public static AuthenticatedPrincipal of(SysUser user) {
+        return new AuthenticatedPrincipal(
+                user.getId(),
+                user.getStatus(),
+                user.getRoleCode(),
+                user.getAccountType(),
+                user.getAccountIdentifier());
+    }
+
+    /**
+     * 从请求属性获取
+     *
+     * @param exchange ServerWebExchange
+     * @return AuthenticatedPrincipal，未认证返回 null
+     */
+    public static AuthenticatedPrincipal from(ServerWebExchange exchange) {
+        return exchange.getAttribute(ATTRIBUTE);
+    }
+
+    /**
+     * 从Reactor上下文获取
+     *
+     * @return Mono<AuthenticatedPrincipal>，未认证返回空
+     */
+    public static Mono<AuthenticatedPrincipal> current() {
+        return Mono.deferContextual(context -> Mono.justOrEmpty(context.getOrEmpty(AuthenticatedPrincipal.class)));
+    }
+
+    /**
+     * 主体名称为用户ID，与之前 Authentication.getName() 的返回值保持一致
+     */
+    @Override
+    public String getName() {
+        return userId.toString();
+    }
+}
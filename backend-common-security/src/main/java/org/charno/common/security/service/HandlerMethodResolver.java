@@ -0,0 +1,81 @@
+package org.charno.common.security.service;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+import org.springframework.web.cors.reactive.CorsUtils;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.reactive.HandlerMapping;
+import org.springframework.web.reactive.result.method.annotation.RequestMappingHandlerMapping;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+
+/**
+ * Controller方法解析器
+ * WebFilter在DispatcherHandler之前执行，此时 BEST_MATCHING_HANDLER_ATTRIBUTE 尚未设置，
+ * 需要主动通过 RequestMappingHandlerMapping 匹配请求对应的Controller方法
+ *
+ * 解析结果保存为请求属性，同一请求中的多个过滤器（角色校验、限流等）只匹配一次
+ */
+@Component
+public class HandlerMethodResolver {
+
+    private static final String ATTRIBUTE = HandlerMethodResolver.class.getName() + ".handlerMethod";
+
+    /**
+     * 未匹配到Controller方法时保存的占位值
+     */
+    private static final Object NO_HANDLER_METHOD = new Object();
+
+    private final ObjectProvider<RequestMappingHandlerMapping> handlerMappingProvider;
+
+    private volatile List<RequestMappingHandlerMapping> handlerMappings;
+
+    public HandlerMethodResolver(ObjectProvider<RequestMappingHandlerMapping> handlerMappingProvider) {
+        this.handlerMappingProvider = handlerMappingProvider;
+    }
+
+    /**
+     * 获取所有 RequestMappingHandlerMapping（用于启动时遍历Controller方法）
+     * 首次调用时获取，调用方应在所有单例创建完成后调用
+     *
+     * @return HandlerMapping列表
+     */
+    public List<RequestMappingHandlerMapping> getHandlerMappings() {
+        List<RequestMappingHandlerMapping> mappings = handlerMappings;
+        if (mappings == null) {
+            mappings = handlerMappingProvider.orderedStream().toList();
+            handlerMappings = mappings;
+        }
+        return mappings;
+    }
+
+    /**
+     * 解析请求对应的HandlerMethod
+     * CORS预检请求不对应Controller方法，直接跳过
+     *
+     * @param exchange ServerWebExchange
+     * @return Mono<HandlerMethod>，如果无法获取则返回空
+     */
+    public Mono<HandlerMethod> resolve(ServerWebExchange exchange) {
+        Object handler = exchange.getAttribute(HandlerMapping.BEST_MATCHING_HANDLER_ATTRIBUTE);
+        if (handler instanceof HandlerMethod handlerMethod) {
+            return Mono.just(handlerMethod);
+        }
+        Object resolved = exchange.getAttribute(ATTRIBUTE);
+        if (resolved instanceof HandlerMethod handlerMethod) {
+            return Mono.just(handlerMethod);
+        }
+        if (resolved == NO_HANDLER_METHOD || CorsUtils.isPreFlightRequest(exchange.getRequest())) {
+            return Mono.empty();
+        }
+        return Flux.fromIterable(getHandlerMappings())
+                .concatMap(mapping -> mapping.getHandler(exchange))
+                .next()
+                .ofType(HandlerMethod.class)
+                .doOnNext(handlerMethod -> exchange.getAttributes().put(ATTRIBUTE, handlerMethod))
+                .switchIfEmpty(Mono.fromRunnable(() -> exchange.getAttributes().put(ATTRIBUTE, NO_HANDLER_METHOD)));
+    }
+}
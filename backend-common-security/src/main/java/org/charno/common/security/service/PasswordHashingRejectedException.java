@@ -0,0 +1,12 @@
+package org.charno.common.security.service;
+
+/**
+ * 密码哈希任务被拒绝异常
+ * 当密码哈希线程池的等待队列已满时抛出，调用方应返回 503（服务繁忙）而不是继续排队
+ */
+public class PasswordHashingRejectedException extends RuntimeException {
+
+    public PasswordHashingRejectedException() {
+        super("服务繁忙，请稍后重试");
+    }
+}
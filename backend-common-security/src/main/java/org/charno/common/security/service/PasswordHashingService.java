@@ -0,0 +1,181 @@
+package org.charno.common.security.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.charno.common.security.util.PasswordUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 密码哈希服务
+ * 将 BCrypt 等CPU密集型的密码加密/校验放到独立的有界线程池中执行，避免阻塞 Netty 事件循环线程
+ *
+ * 准入控制：
+ * - 线程池大小和等待队列容量固定
+ * - 队列已满时立即失败（{@link PasswordHashingRejectedException}），由控制层返回 503，而不是无限排队
+ *
+ * 指标：
+ * - password.hash.queue.depth：等待队列长度
+ * - password.hash.wait：任务排队等待时间（按 operation 区分 encode / matches）
+ * - password.hash.time：哈希计算耗时（按 operation 区分 encode / matches）
+ * - password.hash.rejected：被拒绝的任务数
+ */
+@Service
+public class PasswordHashingService {
+
+    private static final Logger log = LoggerFactory.getLogger(PasswordHashingService.class);
+
+    private static final String OPERATION_ENCODE = "encode";
+    private static final String OPERATION_MATCHES = "matches";
+
+    private final PasswordUtil passwordUtil;
+    private final ThreadPoolExecutor executor;
+    private final Counter rejectedCounter;
+    private final Timers encodeTimers;
+    private final Timers matchesTimers;
+
+    public PasswordHashingService(
+            PasswordUtil passwordUtil,
+            MeterRegistry meterRegistry,
+            @Value("${charno.security.password-hashing.pool-size:0}") int poolSize,
+            @Value("${charno.security.password-hashing.queue-capacity:100}") int queueCapacity) {
+        this.passwordUtil = passwordUtil;
+
+        // 未配置时使用CPU核数（哈希计算为CPU密集型，线程数超过核数没有收益）
+        int threads = poolSize > 0 ? poolSize : Runtime.getRuntime().availableProcessors();
+        this.executor = new ThreadPoolExecutor(
+                threads, threads,
+                0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                new HashingThreadFactory(),
+                new ThreadPoolExecutor.AbortPolicy());
+
+        Gauge.builder("password.hash.queue.depth", executor, e -> e.getQueue().size())
+                .description("Pending password hashing tasks")
+                .register(meterRegistry);
+        this.rejectedCounter = Counter.builder("password.hash.rejected")
+                .description("Password hashing tasks rejected because the queue was full")
+                .register(meterRegistry);
+        this.encodeTimers = Timers.register(meterRegistry, OPERATION_ENCODE);
+        this.matchesTimers = Timers.register(meterRegistry, OPERATION_MATCHES);
+
+        log.info("Password hashing pool initialized: threads={}, queueCapacity={}", threads, queueCapacity);
+    }
+
+    /**
+     * 加密密码
+     *
+     * @param rawPassword 原始密码（明文）
+     * @return Mono<String> 加密后的密码（密文）
+     */
+    public Mono<String> encode(String rawPassword) {
+        return submit(encodeTimers, () -> passwordUtil.encode(rawPassword));
+    }
+
+    /**
+     * 验证密码
+     *
+     * @param rawPassword     原始密码（明文）
+     * @param encodedPassword 加密后的密码（密文）
+     * @return Mono<Boolean> true 如果密码匹配，false 否则
+     */
+    public Mono<Boolean> matches(String rawPassword, String encodedPassword) {
+        return submit(matchesTimers, () -> passwordUtil.matches(rawPassword, encodedPassword));
+    }
+
+    /**
+     * 获取当前密码算法版本（与加密结果一起保存到 password_algo_version）
+     *
+     * @return 密码算法版本
+     */
+    public int getAlgoVersion() {
+        return passwordUtil.getAlgoVersion();
+    }
+
+    /**
+     * 检查已保存的密码是否需要按当前策略重新加密（只解析哈希值，不做哈希计算）
+     *
+     * @param encodedPassword     加密后的密码
+     * @param passwordAlgoVersion 保存的密码算法版本
+     * @return true 如果需要重新加密
+     */
+    public boolean needsRehash(String encodedPassword, Integer passwordAlgoVersion) {
+        return passwordUtil.needsRehash(encodedPassword, passwordAlgoVersion);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    private <T> Mono<T> submit(Timers timers, Callable<T> task) {
+        return Mono.create(sink -> {
+            long enqueuedAt = System.nanoTime();
+            try {
+                Future<?> future = executor.submit(() -> {
+                    long startedAt = System.nanoTime();
+                    timers.waitTimer().record(startedAt - enqueuedAt, TimeUnit.NANOSECONDS);
+                    try {
+                        sink.success(task.call());
+                    } catch (Throwable e) {
+                        sink.error(e);
+                    } finally {
+                        timers.hashTimer().record(System.nanoTime() - startedAt, TimeUnit.NANOSECONDS);
+                    }
+                });
+                // 请求被取消时，尚未开始执行的任务不再占用线程
+                sink.onCancel(() -> future.cancel(false));
+            } catch (RejectedExecutionException e) {
+                rejectedCounter.increment();
+                log.warn("Password hashing queue is full, rejecting {} request", timers.operation());
+                sink.error(new PasswordHashingRejectedException());
+            }
+        });
+    }
+
+    /**
+     * 单个操作的计时器：排队等待时间和哈希计算时间，构造时注册一次
+     */
+    private record Timers(String operation, Timer waitTimer, Timer hashTimer) {
+
+        static Timers register(MeterRegistry meterRegistry, String operation) {
+            return new Timers(operation,
+                    Timer.builder("password.hash.wait")
+                            .tag("operation", operation)
+                            .register(meterRegistry),
+                    Timer.builder("password.hash.time")
+                            .tag("operation", operation)
+                            .register(meterRegistry));
+        }
+    }
+
+    /**
+     * 哈希线程工厂，便于在线程转储中识别
+     */
+    private static class HashingThreadFactory implements ThreadFactory {
+
+        private final AtomicInteger counter = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, "password-hash-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
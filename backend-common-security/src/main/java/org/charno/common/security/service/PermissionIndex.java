@@ -0,0 +1,283 @@
+package org.charno.common.security.service;
+
+import jakarta.annotation.PreDestroy;
+import org.charno.common.security.annotation.RequiresPermission;
+import org.charno.systementity.entity.SysPermission;
+import org.charno.systementity.entity.SysRolePermission;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.data.r2dbc.core.R2dbcEntityTemplate;
+import org.springframework.data.redis.connection.ReactiveSubscription;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.reactive.result.method.annotation.RequestMappingHandlerMapping;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+import reactor.util.retry.Retry;
+
+import java.lang.reflect.Method;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * 权限索引
+ * 启动时预先解析所有Controller方法上的 @RequiresPermission 注解，并把每个角色在 sys_role_permission 中的权限
+ * 编译为定长位图（long[]），请求时只需一次Map查找和逐字的按位与，不访问数据库
+ *
+ * 权限ID：
+ * - sys_permission 中的权限代码与注解中出现的权限代码合并后排序，分配连续的整数ID
+ * - 注解中的权限即使不在 sys_permission 中也会分配ID（没有角色拥有该权限，访问会被拒绝）
+ * - 同一快照中所有位图宽度相同（权限数 / 64 向上取整）
+ *
+ * 角色继承：角色的权限位图为其闭包（自身 + 全部祖先，见 RoleHierarchy）中所有角色直接分配的权限按位或
+ *
+ * 刷新：
+ * - 权限、角色权限分配或角色变更后调用 {@link #refresh()}：本节点立即重建，并通过 Redis 发布/订阅频道
+ *   {@value #REFRESH_CHANNEL} 通知其他节点重新加载
+ * - RoleHierarchy 重新加载后使用最近一次加载的权限数据重建（不访问数据库）
+ * - 加载失败时保留当前索引
+ *
+ * 索引以不可变快照整体替换，请求线程无锁读取
+ */
+@Component
+public class PermissionIndex implements SmartInitializingSingleton {
+
+    private static final Logger log = LoggerFactory.getLogger(PermissionIndex.class);
+
+    static final String REFRESH_CHANNEL = "permission:refresh";
+
+    private final HandlerMethodResolver handlerMethodResolver;
+    private final R2dbcEntityTemplate template;
+    private final ReactiveStringRedisTemplate stringRedisTemplate;
+    private final RoleHierarchy roleHierarchy;
+
+    private volatile Map<Method, PermissionRequirement> requirements = Map.of();
+
+    /**
+     * 最近一次加载的权限代码和角色权限分配，角色继承关系变化时用于重建
+     */
+    private Collection<String> loadedPermissionCodes = List.of();
+    private Collection<SysRolePermission> loadedGrants = List.of();
+
+    private Disposable subscription;
+
+    public PermissionIndex(HandlerMethodResolver handlerMethodResolver,
+                           R2dbcEntityTemplate template,
+                           ReactiveStringRedisTemplate stringRedisTemplate,
+                           RoleHierarchy roleHierarchy) {
+        this.handlerMethodResolver = handlerMethodResolver;
+        this.template = template;
+        this.stringRedisTemplate = stringRedisTemplate;
+        this.roleHierarchy = roleHierarchy;
+        roleHierarchy.addListener(this::rebuild);
+    }
+
+    /**
+     * 所有单例创建完成后（HandlerMapping已完成方法注册）构建索引
+     * 先仅根据注解同步构建（此时没有角色拥有任何权限），再异步加载数据库重建，并订阅刷新频道
+     * Redis不可用时按指数退避重新订阅，避免启动失败
+     */
+    @Override
+    public void afterSingletonsInstantiated() {
+        rebuild();
+        reload().subscribe();
+
+        subscription = stringRedisTemplate.listenToChannel(REFRESH_CHANNEL)
+                .map(ReactiveSubscription.Message::getMessage)
+                .concatMap(message -> reload())
+                .doOnError(e -> log.warn("Permission refresh subscription interrupted: {}", e.getMessage()))
+                .retryWhen(Retry.backoff(Long.MAX_VALUE, Duration.ofSeconds(1)).maxBackoff(Duration.ofSeconds(30)))
+                .subscribe();
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (subscription != null) {
+            subscription.dispose();
+        }
+    }
+
+    /**
+     * 重新加载权限并重建索引，同时通知其他节点重新加载
+     * 通知失败只记录日志，本节点的重建结果不受影响
+     *
+     * @return Mono<Void>
+     */
+    public Mono<Void> refresh() {
+        return reload()
+                .then(stringRedisTemplate.convertAndSend(REFRESH_CHANNEL, String.valueOf(System.currentTimeMillis())))
+                .doOnError(e -> log.warn("Failed to publish permission refresh: {}", e.getMessage()))
+                .onErrorResume(e -> Mono.empty())
+                .then();
+    }
+
+    /**
+     * 获取请求对应的权限要求
+     *
+     * @param exchange ServerWebExchange
+     * @return Mono<PermissionRequirement>，没有权限要求时返回空
+     */
+    public Mono<PermissionRequirement> getRequirement(ServerWebExchange exchange) {
+        Map<Method, PermissionRequirement> current = requirements;
+        if (current.isEmpty()) {
+            return Mono.empty();
+        }
+        return handlerMethodResolver.resolve(exchange)
+                .mapNotNull(handlerMethod -> current.get(handlerMethod.getMethod()));
+    }
+
+    /**
+     * 从 sys_permission 和 sys_role_permission 加载数据并重建索引
+     * 加载失败时保留当前索引
+     */
+    private Mono<Void> reload() {
+        return Mono.zip(
+                        template.select(SysPermission.class).all().map(SysPermission::getCode).collectList(),
+                        template.select(SysRolePermission.class).all().collectList())
+                .doOnNext(tuple -> rebuild(tuple.getT1(), tuple.getT2()))
+                .doOnError(e -> log.warn("Failed to load permissions for permission index: {}", e.getMessage()))
+                .onErrorResume(e -> Mono.empty())
+                .then();
+    }
+
+    private synchronized void rebuild(Collection<String> permissionCodes, Collection<SysRolePermission> grants) {
+        loadedPermissionCodes = permissionCodes;
+        loadedGrants = grants;
+        rebuild();
+    }
+
+    private synchronized void rebuild() {
+        Collection<String> permissionCodes = loadedPermissionCodes;
+        Collection<SysRolePermission> grants = loadedGrants;
+
+        // 1. 收集所有带权限要求的方法（方法上的注解优先于类上的注解）
+        Map<Method, String[]> annotated = new HashMap<>();
+        for (RequestMappingHandlerMapping mapping : handlerMethodResolver.getHandlerMappings()) {
+            for (HandlerMethod handlerMethod : mapping.getHandlerMethods().values()) {
+                RequiresPermission annotation = AnnotatedElementUtils.findMergedAnnotation(handlerMethod.getMethod(), RequiresPermission.class);
+                if (annotation == null) {
+                    annotation = AnnotatedElementUtils.findMergedAnnotation(handlerMethod.getBeanType(), RequiresPermission.class);
+                }
+                if (annotation != null && annotation.value().length > 0) {
+                    annotated.put(handlerMethod.getMethod(), annotation.value());
+                }
+            }
+        }
+
+        // 2. 分配连续的权限ID
+        TreeSet<String> codes = new TreeSet<>(permissionCodes);
+        annotated.values().forEach(required -> codes.addAll(List.of(required)));
+        Map<String, Integer> permissionIds = new HashMap<>();
+        for (String code : codes) {
+            permissionIds.put(code, permissionIds.size());
+        }
+        int words = Math.max(1, (permissionIds.size() + 63) >>> 6);
+
+        // 3. 编译每个角色直接分配的权限位图
+        Map<String, long[]> directPermissions = new HashMap<>();
+        for (SysRolePermission grant : grants) {
+            Integer permissionId = permissionIds.get(grant.getPermissionCode());
+            if (permissionId == null) {
+                continue;
+            }
+            long[] bits = directPermissions.computeIfAbsent(grant.getRoleCode(), roleCode -> new long[words]);
+            bits[permissionId >>> 6] |= 1L << permissionId;
+        }
+
+        // 4. 按角色闭包合并祖先角色的权限
+        Set<String> roleCodes = new HashSet<>(roleHierarchy.getRoleCodes());
+        roleCodes.addAll(directPermissions.keySet());
+        Map<String, long[]> rolePermissions = new HashMap<>();
+        for (String roleCode : roleCodes) {
+            long[] bits = new long[words];
+            boolean granted = false;
+            for (String ancestor : roleHierarchy.getAncestors(roleCode)) {
+                long[] direct = directPermissions.get(ancestor);
+                if (direct == null) {
+                    continue;
+                }
+                for (int i = 0; i < words; i++) {
+                    bits[i] |= direct[i];
+                }
+                granted = true;
+            }
+            if (granted) {
+                rolePermissions.put(roleCode, bits);
+            }
+        }
+        Map<String, long[]> frozenRolePermissions = Map.copyOf(rolePermissions);
+
+        // 5. 编译每个方法的权限要求位图
+        Map<Method, PermissionRequirement> compiled = new HashMap<>();
+        annotated.forEach((method, required) -> {
+            long[] bits = new long[words];
+            for (String code : required) {
+                int permissionId = permissionIds.get(code);
+                bits[permissionId >>> 6] |= 1L << permissionId;
+            }
+            compiled.put(method, new PermissionRequirement(bits, frozenRolePermissions, String.join(",", required)));
+        });
+
+        requirements = Map.copyOf(compiled);
+        log.info("Permission index built: {} permissions, {} roles with permissions, {} protected handler methods",
+                permissionIds.size(), frozenRolePermissions.size(), compiled.size());
+    }
+
+    /**
+     * 权限要求
+     * 要求位图与其所属快照的角色权限位图一起保存，保证两者宽度和权限ID一致
+     */
+    public static final class PermissionRequirement {
+
+        private final long[] required;
+        private final Map<String, long[]> rolePermissions;
+        private final String requiredPermissions;
+
+        private PermissionRequirement(long[] required, Map<String, long[]> rolePermissions, String requiredPermissions) {
+            this.required = required;
+            this.rolePermissions = rolePermissions;
+            this.requiredPermissions = requiredPermissions;
+        }
+
+        /**
+         * 校验角色是否拥有全部要求的权限（AND关系）
+         *
+         * @param roleCode 用户的角色code
+         * @return true表示满足
+         */
+        public boolean allows(String roleCode) {
+            if (roleCode == null) {
+                return false;
+            }
+            long[] granted = rolePermissions.get(roleCode);
+            if (granted == null) {
+                return false;
+            }
+            for (int i = 0; i < required.length; i++) {
+                if ((granted[i] & required[i]) != required[i]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        /**
+         * 获取要求的权限代码（逗号分隔，用于日志）
+         *
+         * @return 权限代码
+         */
+        public String getRequiredPermissions() {
+            return requiredPermissions;
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package org.charno.common.security.service;
+
+import org.charno.common.security.annotation.RateLimit;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.stereotype.Component;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.reactive.result.method.annotation.RequestMappingHandlerMapping;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+
+import java.lang.reflect.Method;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 限流规则索引
+ * 启动时预先解析所有Controller方法上的 @RateLimit 注解（方法上的注解优先于类上的注解），
+ * 请求时只需一次Map查找
+ */
+@Component
+public class RateLimitIndex implements SmartInitializingSingleton {
+
+    private static final Logger log = LoggerFactory.getLogger(RateLimitIndex.class);
+
+    private final HandlerMethodResolver handlerMethodResolver;
+
+    private volatile Map<Method, Rule> rules = Map.of();
+
+    public RateLimitIndex(HandlerMethodResolver handlerMethodResolver) {
+        this.handlerMethodResolver = handlerMethodResolver;
+    }
+
+    /**
+     * 所有单例创建完成后（HandlerMapping已完成方法注册）构建索引
+     */
+    @Override
+    public void afterSingletonsInstantiated() {
+        Map<Method, Rule> compiled = new HashMap<>();
+        for (RequestMappingHandlerMapping mapping : handlerMethodResolver.getHandlerMappings()) {
+            for (HandlerMethod handlerMethod : mapping.getHandlerMethods().values()) {
+                RateLimit annotation = AnnotatedElementUtils.findMergedAnnotation(handlerMethod.getMethod(), RateLimit.class);
+                if (annotation == null) {
+                    annotation = AnnotatedElementUtils.findMergedAnnotation(handlerMethod.getBeanType(), RateLimit.class);
+                }
+                if (annotation != null) {
+                    compiled.put(handlerMethod.getMethod(), Rule.of(annotation, handlerMethod));
+                }
+            }
+        }
+        rules = Map.copyOf(compiled);
+        log.info("Rate limit index built: {} rate limited handler methods", compiled.size());
+    }
+
+    /**
+     * 获取请求对应的限流规则
+     *
+     * @param exchange ServerWebExchange
+     * @return Mono<Rule>，没有限流规则时返回空
+     */
+    public Mono<Rule> getRule(ServerWebExchange exchange) {
+        Map<Method, Rule> current = rules;
+        if (current.isEmpty()) {
+            return Mono.empty();
+        }
+        return handlerMethodResolver.resolve(exchange)
+                .mapNotNull(handlerMethod -> current.get(handlerMethod.getMethod()));
+    }
+
+    /**
+     * 限流规则（令牌桶）
+     *
+     * @param name             限流名称
+     * @param capacity         令牌桶容量
+     * @param refillPerMillis  每毫秒补充的令牌数
+     * @param key              限流维度
+     */
+    public record Rule(String name, int capacity, double refillPerMillis, RateLimit.Key key) {
+
+        static Rule of(RateLimit annotation, HandlerMethod handlerMethod) {
+            if (annotation.permits() <= 0 || annotation.period() <= 0) {
+                throw new IllegalStateException("Invalid @RateLimit on " + handlerMethod.getShortLogMessage());
+            }
+            String name = annotation.name().isEmpty()
+                    ? handlerMethod.getBeanType().getSimpleName() + "#" + handlerMethod.getMethod().getName()
+                    : annotation.name();
+            long periodMillis = annotation.unit().toMillis(annotation.period());
+            return new Rule(name, annotation.permits(), (double) annotation.permits() / periodMillis, annotation.key());
+        }
+
+        /**
+         * 令牌桶从空到满需要的时间（毫秒）
+         *
+         * @return 毫秒
+         */
+        public long fullRefillMillis() {
+            return (long) Math.ceil(capacity / refillPerMillis);
+        }
+    }
+}
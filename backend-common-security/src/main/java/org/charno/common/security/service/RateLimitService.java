@@ -0,0 +1,179 @@
+package org.charno.common.security.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 限流服务（令牌桶）
+ *
+ * 模式（charno.security.rate-limit.mode）：
+ * - redis（默认）：令牌桶保存在Redis，由Lua脚本原子地补充和扣减，多节点共享配额；使用Redis服务器时间，不受节点时钟影响
+ * - local：令牌桶保存在进程内，适用于单节点部署
+ *
+ * 本地预过滤：Redis拒绝请求时记录该令牌桶的解封时间，在此之前同一令牌桶的请求直接在本地拒绝，不再访问Redis
+ *
+ * Redis不可用时降级为本地令牌桶（各节点分别限流），不会因为限流导致接口不可用
+ *
+ * 指标：rate.limit.requests（name 为限流名称，outcome 为 allowed / rejected）
+ */
+@Service
+public class RateLimitService {
+
+    private static final Logger log = LoggerFactory.getLogger(RateLimitService.class);
+
+    static final String KEY_PREFIX = "rate:";
+
+    /**
+     * 令牌桶脚本
+     * KEYS[1]：令牌桶Key（Hash：tokens、ts）
+     * ARGV[1]：容量；ARGV[2]：每毫秒补充的令牌数
+     * 返回 0 表示放行，否则为需要等待的毫秒数
+     */
+    private static final RedisScript<Long> TOKEN_BUCKET_SCRIPT = RedisScript.of("""
+            local capacity = tonumber(ARGV[1])
+            local rate = tonumber(ARGV[2])
+            local time = redis.call('TIME')
+            local now = tonumber(time[1]) * 1000 + math.floor(tonumber(time[2]) / 1000)
+            local bucket = redis.call('HMGET', KEYS[1], 'tokens', 'ts')
+            local tokens = tonumber(bucket[1])
+            local ts = tonumber(bucket[2])
+            if tokens == nil or ts == nil then
+                tokens = capacity
+                ts = now
+            end
+            tokens = math.min(capacity, tokens + math.max(0, now - ts) * rate)
+            local wait = 0
+            if tokens >= 1 then
+                tokens = tokens - 1
+            else
+                wait = math.ceil((1 - tokens) / rate)
+            end
+            redis.call('HSET', KEYS[1], 'tokens', tostring(tokens), 'ts', tostring(now))
+            redis.call('PEXPIRE', KEYS[1], math.ceil(capacity / rate))
+            return wait
+            """, Long.class);
+
+    private static final String OUTCOME_ALLOWED = "allowed";
+    private static final String OUTCOME_REJECTED = "rejected";
+
+    private final ReactiveStringRedisTemplate stringRedisTemplate;
+    private final MeterRegistry meterRegistry;
+    private final boolean redisMode;
+    private final Cache<String, Long> blockedUntil;
+    private final Cache<String, LocalBucket> localBuckets;
+    private final Map<String, Counter> counters = new ConcurrentHashMap<>();
+
+    public RateLimitService(
+            ReactiveStringRedisTemplate stringRedisTemplate,
+            MeterRegistry meterRegistry,
+            @Value("${charno.security.rate-limit.mode:redis}") String mode,
+            @Value("${charno.security.rate-limit.local-maximum-size:100000}") long localMaximumSize,
+            @Value("${charno.security.rate-limit.local-idle-timeout:1h}") Duration localIdleTimeout) {
+        this.stringRedisTemplate = stringRedisTemplate;
+        this.meterRegistry = meterRegistry;
+        this.redisMode = !"local".equals(mode);
+        this.blockedUntil = Caffeine.newBuilder()
+                .maximumSize(localMaximumSize)
+                .expireAfterWrite(localIdleTimeout)
+                .build();
+        this.localBuckets = Caffeine.newBuilder()
+                .maximumSize(localMaximumSize)
+                .expireAfterAccess(localIdleTimeout)
+                .build();
+        log.info("Rate limiter initialized: mode={}", redisMode ? "redis" : "local");
+    }
+
+    /**
+     * 尝试获取一个令牌
+     *
+     * @param bucketKey 令牌桶标识（限流名称 + 维度值）
+     * @param rule      限流规则
+     * @return Mono<Long> 0 表示放行，否则为需要等待的毫秒数
+     */
+    public Mono<Long> tryAcquire(String bucketKey, RateLimitIndex.Rule rule) {
+        long now = System.currentTimeMillis();
+        Long until = blockedUntil.getIfPresent(bucketKey);
+        if (until != null && until > now) {
+            return Mono.just(record(rule, until - now));
+        }
+
+        if (!redisMode) {
+            return Mono.just(record(rule, acquireLocally(bucketKey, rule)));
+        }
+
+        return stringRedisTemplate.execute(TOKEN_BUCKET_SCRIPT,
+                        List.of(KEY_PREFIX + bucketKey),
+                        List.of(String.valueOf(rule.capacity()), String.valueOf(rule.refillPerMillis())))
+                .next()
+                .defaultIfEmpty(0L)
+                .doOnNext(wait -> {
+                    if (wait > 0) {
+                        blockedUntil.put(bucketKey, now + wait);
+                    }
+                })
+                .onErrorResume(e -> {
+                    log.warn("Rate limit check failed, falling back to local bucket: name={}, error: {}", rule.name(), e.getMessage());
+                    return Mono.fromSupplier(() -> acquireLocally(bucketKey, rule));
+                })
+                .map(wait -> record(rule, wait));
+    }
+
+    private long acquireLocally(String bucketKey, RateLimitIndex.Rule rule) {
+        long now = System.currentTimeMillis();
+        return localBuckets.get(bucketKey, key -> new LocalBucket(rule.capacity(), rule.refillPerMillis(), now))
+                .tryAcquire(now);
+    }
+
+    private long record(RateLimitIndex.Rule rule, long wait) {
+        String outcome = wait > 0 ? OUTCOME_REJECTED : OUTCOME_ALLOWED;
+        counters.computeIfAbsent(rule.name() + ' ' + outcome, key -> Counter.builder("rate.limit.requests")
+                        .description("Rate limited requests by outcome")
+                        .tag("name", rule.name())
+                        .tag("outcome", outcome)
+                        .register(meterRegistry))
+                .increment();
+        return wait;
+    }
+
+    /**
+     * 进程内令牌桶
+     */
+    static final class LocalBucket {
+
+        private final double capacity;
+        private final double refillPerMillis;
+        private double tokens;
+        private long updatedAt;
+
+        LocalBucket(double capacity, double refillPerMillis, long now) {
+            this.capacity = capacity;
+            this.refillPerMillis = refillPerMillis;
+            this.tokens = capacity;
+            this.updatedAt = now;
+        }
+
+        synchronized long tryAcquire(long now) {
+            tokens = Math.min(capacity, tokens + Math.max(0, now - updatedAt) * refillPerMillis);
+            updatedAt = now;
+            if (tokens >= 1) {
+                tokens -= 1;
+                return 0;
+            }
+            return (long) Math.ceil((1 - tokens) / refillPerMillis);
+        }
+    }
+}
@@ -0,0 +1,187 @@
+package org.charno.common.security.service;
+
+import jakarta.annotation.PreDestroy;
+import org.charno.systementity.entity.SysRole;
+import org.charno.systementity.repository.SysRoleRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.data.redis.connection.ReactiveSubscription;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+import reactor.util.retry.Retry;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * 角色继承关系
+ * 角色通过 sys_role.parent_code 继承父角色：子角色拥有父角色（及其所有祖先角色）的全部角色要求和操作权限，
+ * 例如 parent_code=ADMIN 的角色可以访问 @RequiresRole("ADMIN") 的接口，新增角色无需修改注解
+ *
+ * 传递闭包：
+ * - 加载 sys_role 后为每个角色预先计算闭包（自身 + 全部祖先），请求时判断角色是否匹配只需一次Map查找和一次Set查找
+ * - 数据中存在环时（正常情况下管理接口会拒绝产生环的修改），沿父角色向上遍历到重复角色即停止，并记录警告日志
+ *
+ * 刷新：
+ * - 角色新增、删除或修改父角色后调用 {@link #refresh()}：本节点立即重新加载，并通过 Redis 发布/订阅频道
+ *   {@value #REFRESH_CHANNEL} 通知其他节点重新加载
+ * - 重新加载后通知监听者（RoleRequirementIndex、PermissionIndex）重建索引
+ * - 加载失败时保留当前闭包
+ *
+ * 闭包以不可变快照整体替换，请求线程无锁读取
+ */
+@Component
+public class RoleHierarchy implements SmartInitializingSingleton {
+
+    private static final Logger log = LoggerFactory.getLogger(RoleHierarchy.class);
+
+    static final String REFRESH_CHANNEL = "role:refresh";
+
+    private final SysRoleRepository roleRepository;
+    private final ReactiveStringRedisTemplate stringRedisTemplate;
+    private final List<Runnable> listeners = new CopyOnWriteArrayList<>();
+
+    /**
+     * 角色code -> 闭包（自身 + 全部祖先角色code）
+     */
+    private volatile Map<String, Set<String>> closures = Map.of();
+
+    private Disposable subscription;
+
+    public RoleHierarchy(SysRoleRepository roleRepository, ReactiveStringRedisTemplate stringRedisTemplate) {
+        this.roleRepository = roleRepository;
+        this.stringRedisTemplate = stringRedisTemplate;
+    }
+
+    /**
+     * 所有单例创建完成后异步加载 sys_role，并订阅刷新频道
+     * Redis不可用时按指数退避重新订阅，避免启动失败
+     */
+    @Override
+    public void afterSingletonsInstantiated() {
+        reload().subscribe();
+
+        subscription = stringRedisTemplate.listenToChannel(REFRESH_CHANNEL)
+                .map(ReactiveSubscription.Message::getMessage)
+                .concatMap(message -> reload())
+                .doOnError(e -> log.warn("Role hierarchy subscription interrupted: {}", e.getMessage()))
+                .retryWhen(Retry.backoff(Long.MAX_VALUE, Duration.ofSeconds(1)).maxBackoff(Duration.ofSeconds(30)))
+                .subscribe();
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (subscription != null) {
+            subscription.dispose();
+        }
+    }
+
+    /**
+     * 注册监听者，角色继承关系重新加载后调用
+     *
+     * @param listener 监听者
+     */
+    public void addListener(Runnable listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * 重新加载角色继承关系，同时通知其他节点重新加载
+     * 通知失败只记录日志，本节点的加载结果不受影响
+     *
+     * @return Mono<Void>
+     */
+    public Mono<Void> refresh() {
+        return reload()
+                .then(stringRedisTemplate.convertAndSend(REFRESH_CHANNEL, String.valueOf(System.currentTimeMillis())))
+                .doOnError(e -> log.warn("Failed to publish role hierarchy refresh: {}", e.getMessage()))
+                .onErrorResume(e -> Mono.empty())
+                .then();
+    }
+
+    /**
+     * 获取 sys_role 中的全部角色code
+     *
+     * @return 角色code集合
+     */
+    public Set<String> getRoleCodes() {
+        return closures.keySet();
+    }
+
+    /**
+     * 获取角色的闭包（自身 + 全部祖先角色）
+     * 不在 sys_role 中的角色只包含自身
+     *
+     * @param roleCode 角色code
+     * @return 角色code集合
+     */
+    public Set<String> getAncestors(String roleCode) {
+        Set<String> closure = closures.get(roleCode);
+        return closure != null ? closure : Set.of(roleCode);
+    }
+
+    /**
+     * 校验用户角色是否满足要求的角色（OR关系），考虑角色继承
+     *
+     * @param userRoleCode  用户的角色code
+     * @param requiredRoles 需要的角色code数组
+     * @return true表示匹配成功
+     */
+    public boolean isRoleMatched(String userRoleCode, String... requiredRoles) {
+        if (userRoleCode == null || requiredRoles == null) {
+            return false;
+        }
+        Set<String> closure = getAncestors(userRoleCode);
+        for (String requiredRole : requiredRoles) {
+            if (closure.contains(requiredRole)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private Mono<Void> reload() {
+        return roleRepository.findAll()
+                .collectList()
+                .doOnNext(roles -> {
+                    closures = computeClosures(roles);
+                    log.info("Role hierarchy loaded: {} roles", roles.size());
+                    listeners.forEach(Runnable::run);
+                })
+                .doOnError(e -> log.warn("Failed to load role hierarchy: {}", e.getMessage()))
+                .onErrorResume(e -> Mono.empty())
+                .then();
+    }
+
+    /**
+     * 计算每个角色的传递闭包
+     */
+    static Map<String, Set<String>> computeClosures(Collection<SysRole> roles) {
+        Map<String, String> parents = new HashMap<>();
+        for (SysRole role : roles) {
+            parents.put(role.getCode(), role.getParentCode());
+        }
+        Map<String, Set<String>> computed = new HashMap<>();
+        for (String code : parents.keySet()) {
+            LinkedHashSet<String> closure = new LinkedHashSet<>();
+            String current = code;
+            while (current != null && closure.add(current)) {
+                current = parents.get(current);
+            }
+            if (current != null) {
+                log.warn("Role hierarchy contains a cycle: role={}, path={}", code, closure);
+            }
+            computed.put(code, Set.copyOf(closure));
+        }
+        return Map.copyOf(computed);
+    }
+}
@@ -0,0 +1,174 @@
+package org.charno.common.security.service;
+
+import org.charno.common.security.annotation.RequiresRole;
+import org.charno.common.security.util.RoleCheckUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.stereotype.Component;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.reactive.result.method.annotation.RequestMappingHandlerMapping;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+
+import java.lang.reflect.Method;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+/**
+ * 角色要求索引
+ * 启动时预先解析所有Controller方法上的 @RequiresRole 注解，编译为角色位图，请求时只需一次Map查找和一次位图求交
+ *
+ * 角色ID：
+ * - sys_role 中的角色代码与注解中出现的角色代码合并后排序，分配连续的整数ID
+ * - 注解中的角色即使不在 sys_role 中也会分配ID，保证数据库不可用时校验结果不变
+ * - 角色新增、删除或修改父角色后调用 {@link #refresh()}，RoleHierarchy 重新加载后重建索引
+ *
+ * 角色继承：每个角色的闭包（自身 + 全部祖先，见 RoleHierarchy）同样编译为角色位图，
+ * 用户角色的闭包位图与方法要求的角色位图有交集即满足要求
+ *
+ * 索引以不可变快照整体替换，请求线程无锁读取
+ */
+@Component
+public class RoleRequirementIndex implements SmartInitializingSingleton {
+
+    private static final Logger log = LoggerFactory.getLogger(RoleRequirementIndex.class);
+
+    private final HandlerMethodResolver handlerMethodResolver;
+    private final RoleHierarchy roleHierarchy;
+
+    private volatile Map<Method, RoleRequirement> requirements = Map.of();
+
+    public RoleRequirementIndex(HandlerMethodResolver handlerMethodResolver,
+                                RoleHierarchy roleHierarchy) {
+        this.handlerMethodResolver = handlerMethodResolver;
+        this.roleHierarchy = roleHierarchy;
+        roleHierarchy.addListener(this::rebuild);
+    }
+
+    /**
+     * 所有单例创建完成后（HandlerMapping已完成方法注册）构建索引
+     * 先根据注解和当前的角色继承关系同步构建，保证服务启动即可校验；RoleHierarchy 异步加载 sys_role 后再次重建
+     */
+    @Override
+    public void afterSingletonsInstantiated() {
+        rebuild();
+    }
+
+    /**
+     * 从 sys_role 重新加载角色继承关系并重建索引（同时通知其他节点）
+     * 加载失败时保留当前索引
+     *
+     * @return Mono<Void>
+     */
+    public Mono<Void> refresh() {
+        return roleHierarchy.refresh();
+    }
+
+    /**
+     * 获取请求对应的角色要求
+     *
+     * @param exchange ServerWebExchange
+     * @return Mono<RoleRequirement>，没有角色要求时返回空
+     */
+    public Mono<RoleRequirement> getRequirement(ServerWebExchange exchange) {
+        Map<Method, RoleRequirement> current = requirements;
+        if (current.isEmpty()) {
+            return Mono.empty();
+        }
+        return handlerMethodResolver.resolve(exchange)
+                .mapNotNull(handlerMethod -> current.get(handlerMethod.getMethod()));
+    }
+
+    private synchronized void rebuild() {
+        // 1. 收集所有带角色要求的方法
+        Map<Method, String[]> annotated = new HashMap<>();
+        for (RequestMappingHandlerMapping mapping : handlerMethodResolver.getHandlerMappings()) {
+            for (HandlerMethod handlerMethod : mapping.getHandlerMethods().values()) {
+                RequiresRole annotation = RoleCheckUtil.getRequiresRoleAnnotation(handlerMethod);
+                if (annotation != null && annotation.value().length > 0) {
+                    annotated.put(handlerMethod.getMethod(), annotation.value());
+                }
+            }
+        }
+
+        // 2. 分配连续的角色ID
+        TreeSet<String> codes = new TreeSet<>(roleHierarchy.getRoleCodes());
+        annotated.values().forEach(required -> codes.addAll(List.of(required)));
+        Map<String, Integer> roleIds = new HashMap<>();
+        for (String code : codes) {
+            roleIds.put(code, roleIds.size());
+        }
+        Map<String, Integer> frozenRoleIds = Map.copyOf(roleIds);
+
+        // 3. 编译每个角色的闭包位图（自身 + 全部祖先）
+        Map<String, BitSet> closures = new HashMap<>();
+        for (String code : codes) {
+            BitSet closure = new BitSet(frozenRoleIds.size());
+            for (String ancestor : roleHierarchy.getAncestors(code)) {
+                Integer ancestorId = frozenRoleIds.get(ancestor);
+                if (ancestorId != null) {
+                    closure.set(ancestorId);
+                }
+            }
+            closures.put(code, closure);
+        }
+        Map<String, BitSet> frozenClosures = Map.copyOf(closures);
+
+        // 4. 编译方法的角色要求位图
+        Map<Method, RoleRequirement> compiled = new HashMap<>();
+        annotated.forEach((method, required) -> {
+            BitSet roles = new BitSet(frozenRoleIds.size());
+            for (String code : required) {
+                roles.set(frozenRoleIds.get(code));
+            }
+            compiled.put(method, new RoleRequirement(roles, frozenClosures, String.join(",", required)));
+        });
+
+        requirements = Map.copyOf(compiled);
+        log.info("Role requirement index built: {} roles, {} protected handler methods", frozenRoleIds.size(), compiled.size());
+    }
+
+    /**
+     * 角色要求
+     * 角色位图与其所属快照的角色闭包位图一起保存，保证两者的角色ID一致
+     */
+    public static final class RoleRequirement {
+
+        private final BitSet roles;
+        private final Map<String, BitSet> closures;
+        private final String requiredRoles;
+
+        private RoleRequirement(BitSet roles, Map<String, BitSet> closures, String requiredRoles) {
+            this.roles = roles;
+            this.closures = closures;
+            this.requiredRoles = requiredRoles;
+        }
+
+        /**
+         * 校验角色是否满足要求（OR关系，考虑角色继承）
+         *
+         * @param roleCode 用户的角色code
+         * @return true表示满足
+         */
+        public boolean allows(String roleCode) {
+            if (roleCode == null) {
+                return false;
+            }
+            BitSet closure = closures.get(roleCode);
+            return closure != null && closure.intersects(roles);
+        }
+
+        /**
+         * 获取要求的角色code（逗号分隔，用于日志）
+         *
+         * @return 角色code
+         */
+        public String getRequiredRoles() {
+            return requiredRoles;
+        }
+    }
+}
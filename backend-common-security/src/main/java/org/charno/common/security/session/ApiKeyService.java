@@ -0,0 +1,284 @@
+package org.charno.common.security.session;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.charno.common.security.principal.AuthenticatedPrincipal;
+import org.charno.common.security.service.RoleHierarchy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.ReactiveSubscription;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Service;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+import reactor.util.retry.Retry;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.Base64;
+import java.util.HexFormat;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * API Key服务
+ * 机器客户端通过 X-Api-Key 请求头认证，不经过登录（不执行BCrypt、不创建Redis会话）
+ *
+ * Key格式：ck_{prefix}_{secret}
+ * - prefix：12位十六进制随机数，唯一索引，用于定位Key
+ * - secret：32字节随机数（base64url），Key整体熵足够高，使用SHA-256摘要保存即可，无需慢哈希
+ * - 数据库只保存完整Key的SHA-256摘要，Key本身只在创建时返回一次
+ *
+ * 校验：
+ * - 按 prefix 从本地缓存获取Key记录（未命中时查询数据库，只加载启用状态且所属用户启用的Key），
+ *   计算请求Key的SHA-256并以常量时间比较，整个过程为微秒级
+ * - 每次校验都重新判断Key的授权范围是否仍被所属用户的当前角色覆盖（考虑角色继承），
+ *   所属用户被降级后，其名下超出新角色的Key随即失效
+ * - 不存在的 prefix 同样缓存（空记录），重复的无效Key不会反复查询数据库
+ * - 缓存按 cache-expire-after-write 过期；吊销Key时通过 Redis 发布/订阅频道 {@value #INVALIDATION_CHANNEL} 广播，
+ *   所属用户被修改/删除时随会话失效消息（{@value TokenSessionCache#INVALIDATION_CHANNEL}）一起清除
+ *
+ * 认证结果：AuthenticatedPrincipal 的 userId 为所属用户，roleCode 为Key的授权范围（角色），
+ * accountType 为 API_KEY，accountIdentifier 为Key前缀
+ *
+ * 指标：auth.api_key.verify（outcome 为 valid / invalid）
+ */
+@Service
+public class ApiKeyService {
+
+    private static final Logger log = LoggerFactory.getLogger(ApiKeyService.class);
+
+    static final String INVALIDATION_CHANNEL = "api-key:invalidation";
+    private static final String KEY_MESSAGE_PREFIX = "key:";
+    private static final String USER_MESSAGE_PREFIX = "user:";
+
+    public static final String ACCOUNT_TYPE = "API_KEY";
+    private static final String KEY_PREFIX = "ck_";
+    private static final int PREFIX_BYTES = 6;
+    private static final int SECRET_BYTES = 32;
+    private static final int PREFIX_LENGTH = PREFIX_BYTES * 2;
+    private static final int KEY_LENGTH = KEY_PREFIX.length() + PREFIX_LENGTH + 1 + 43;
+
+    private static final String LOAD_SQL = """
+            SELECT k.key_hash, k.role_code, k.expires_at, k.user_id, u.role_code AS owner_role_code
+            FROM sys_api_key k JOIN sys_user u ON u.id = k.user_id
+            WHERE k.key_prefix = :prefix AND k.status = 'ENABLED'
+              AND u.status = 'ENABLED' AND u.deleted_at IS NULL
+            """;
+
+    private final DatabaseClient databaseClient;
+    private final ReactiveStringRedisTemplate stringRedisTemplate;
+    private final RoleHierarchy roleHierarchy;
+    private final Cache<String, Optional<ApiKeyRecord>> cache;
+    private final SecureRandom secureRandom = new SecureRandom();
+    private final Counter validCounter;
+    private final Counter invalidCounter;
+
+    private Disposable subscription;
+
+    public ApiKeyService(
+            DatabaseClient databaseClient,
+            ReactiveStringRedisTemplate stringRedisTemplate,
+            RoleHierarchy roleHierarchy,
+            MeterRegistry meterRegistry,
+            @Value("${charno.security.api-key.cache-maximum-size:10000}") long cacheMaximumSize,
+            @Value("${charno.security.api-key.cache-expire-after-write:60s}") Duration cacheExpireAfterWrite) {
+        this.databaseClient = databaseClient;
+        this.stringRedisTemplate = stringRedisTemplate;
+        this.roleHierarchy = roleHierarchy;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(cacheMaximumSize)
+                .expireAfterWrite(cacheExpireAfterWrite)
+                .build();
+        this.validCounter = Counter.builder("auth.api_key.verify")
+                .description("API key verifications by outcome")
+                .tag("outcome", "valid")
+                .register(meterRegistry);
+        this.invalidCounter = Counter.builder("auth.api_key.verify")
+                .description("API key verifications by outcome")
+                .tag("outcome", "invalid")
+                .register(meterRegistry);
+    }
+
+    /**
+     * 订阅API Key失效频道和会话失效频道
+     * Redis不可用时按指数退避重连，避免启动失败
+     */
+    @PostConstruct
+    public void subscribe() {
+        subscription = stringRedisTemplate.listenToChannel(INVALIDATION_CHANNEL, TokenSessionCache.INVALIDATION_CHANNEL)
+                .map(ReactiveSubscription.Message::getMessage)
+                .doOnNext(this::onInvalidationMessage)
+                .doOnError(e -> {
+                    log.warn("API key invalidation subscription interrupted, clearing cache: {}", e.getMessage());
+                    cache.invalidateAll();
+                })
+                .retryWhen(Retry.backoff(Long.MAX_VALUE, Duration.ofSeconds(1)).maxBackoff(Duration.ofSeconds(30)))
+                .subscribe();
+    }
+
+    @PreDestroy
+    public void unsubscribe() {
+        if (subscription != null) {
+            subscription.dispose();
+        }
+    }
+
+    /**
+     * 生成新的API Key
+     *
+     * @return GeneratedApiKey，包含完整Key（只返回给调用方一次）、前缀和摘要
+     */
+    public GeneratedApiKey generate() {
+        byte[] prefixBytes = new byte[PREFIX_BYTES];
+        byte[] secretBytes = new byte[SECRET_BYTES];
+        secureRandom.nextBytes(prefixBytes);
+        secureRandom.nextBytes(secretBytes);
+        String prefix = HexFormat.of().formatHex(prefixBytes);
+        String rawKey = KEY_PREFIX + prefix + "_" + Base64.getUrlEncoder().withoutPadding().encodeToString(secretBytes);
+        return new GeneratedApiKey(rawKey, prefix, HexFormat.of().formatHex(digest(rawKey)));
+    }
+
+    /**
+     * 校验API Key
+     *
+     * @param rawKey 请求携带的Key
+     * @return Mono<AuthenticatedPrincipal>，Key无效、已禁用、已过期、所属用户不可用
+     * 或Key的授权范围超出所属用户的当前角色时返回空
+     */
+    public Mono<AuthenticatedPrincipal> verify(String rawKey) {
+        String prefix = parsePrefix(rawKey);
+        if (prefix == null) {
+            invalidCounter.increment();
+            return Mono.empty();
+        }
+        byte[] digest = digest(rawKey);
+
+        Optional<ApiKeyRecord> cached = cache.getIfPresent(prefix);
+        Mono<Optional<ApiKeyRecord>> lookup = cached != null
+                ? Mono.just(cached)
+                : load(prefix).doOnNext(entry -> cache.put(prefix, entry));
+        return lookup.mapNotNull(entry -> {
+            AuthenticatedPrincipal principal = entry
+                    .filter(r -> roleHierarchy.isRoleMatched(r.ownerRoleCode(), r.principal().roleCode()))
+                    .map(r -> r.match(digest))
+                    .orElse(null);
+            (principal != null ? validCounter : invalidCounter).increment();
+            return principal;
+        });
+    }
+
+    /**
+     * 使某个Key的缓存失效（本节点立即生效，并广播到其他节点）
+     * 用于禁用、删除Key等场景
+     *
+     * @param prefix Key前缀
+     * @return Mono<Void>
+     */
+    public Mono<Void> invalidate(String prefix) {
+        cache.invalidate(prefix);
+        return stringRedisTemplate.convertAndSend(INVALIDATION_CHANNEL, KEY_MESSAGE_PREFIX + prefix)
+                .doOnError(e -> log.warn("Failed to publish API key invalidation: prefix={}, error: {}", prefix, e.getMessage()))
+                .onErrorResume(e -> Mono.empty())
+                .then();
+    }
+
+    /**
+     * 从数据库加载Key记录
+     * 查询失败时不缓存，本次请求视为未认证
+     */
+    private Mono<Optional<ApiKeyRecord>> load(String prefix) {
+        return databaseClient.sql(LOAD_SQL)
+                .bind("prefix", prefix)
+                .map((row, metadata) -> new ApiKeyRecord(
+                        HexFormat.of().parseHex(row.get("key_hash", String.class)),
+                        row.get("expires_at", OffsetDateTime.class),
+                        row.get("owner_role_code", String.class),
+                        new AuthenticatedPrincipal(
+                                row.get("user_id", UUID.class),
+                                "ENABLED",
+                                row.get("role_code", String.class),
+                                ACCOUNT_TYPE,
+                                prefix)))
+                .one()
+                .map(Optional::of)
+                .defaultIfEmpty(Optional.empty())
+                .doOnError(e -> log.warn("Failed to load API key: prefix={}, error: {}", prefix, e.getMessage()))
+                .onErrorResume(e -> Mono.empty());
+    }
+
+    private void onInvalidationMessage(String message) {
+        if (message.startsWith(KEY_MESSAGE_PREFIX)) {
+            cache.invalidate(message.substring(KEY_MESSAGE_PREFIX.length()));
+        } else if (message.startsWith(USER_MESSAGE_PREFIX)) {
+            try {
+                UUID userId = UUID.fromString(message.substring(USER_MESSAGE_PREFIX.length()));
+                cache.asMap().values().removeIf(entry -> entry.isPresent() && userId.equals(entry.get().principal().userId()));
+            } catch (IllegalArgumentException e) {
+                log.warn("Ignoring malformed API key invalidation message: {}", message);
+            }
+        }
+    }
+
+    /**
+     * 解析Key前缀，格式不符返回 null（不使用正则表达式）
+     */
+    private static String parsePrefix(String rawKey) {
+        if (rawKey == null || rawKey.length() != KEY_LENGTH || !rawKey.startsWith(KEY_PREFIX)
+                || rawKey.charAt(KEY_PREFIX.length() + PREFIX_LENGTH) != '_') {
+            return null;
+        }
+        String prefix = rawKey.substring(KEY_PREFIX.length(), KEY_PREFIX.length() + PREFIX_LENGTH);
+        for (int i = 0; i < prefix.length(); i++) {
+            if (Character.digit(prefix.charAt(i), 16) < 0) {
+                return null;
+            }
+        }
+        return prefix;
+    }
+
+    private static byte[] digest(String rawKey) {
+        try {
+            return MessageDigest.getInstance("SHA-256").digest(rawKey.getBytes(StandardCharsets.UTF_8));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    /**
+     * 新生成的API Key
+     *
+     * @param rawKey  完整Key（只返回给调用方一次，不保存）
+     * @param prefix  Key前缀
+     * @param keyHash 完整Key的SHA-256摘要（十六进制）
+     */
+    public record GeneratedApiKey(String rawKey, String prefix, String keyHash) {
+    }
+
+    /**
+     * 缓存的Key记录
+     */
+    private record ApiKeyRecord(byte[] keyHash, OffsetDateTime expiresAt, String ownerRoleCode,
+                                AuthenticatedPrincipal principal) {
+
+        AuthenticatedPrincipal match(byte[] digest) {
+            if (!MessageDigest.isEqual(keyHash, digest)) {
+                return null;
+            }
+            if (expiresAt != null && expiresAt.isBefore(OffsetDateTime.now())) {
+                return null;
+            }
+            return principal;
+        }
+    }
+}
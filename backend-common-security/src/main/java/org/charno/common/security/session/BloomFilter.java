@@ -0,0 +1,75 @@
+package org.charno.common.security.session;
+
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * UUID布隆过滤器
+ * 用于吊销列表的快速否定判断：判定为"不存在"时一定不存在，判定为"可能存在"时需再查精确集合
+ *
+ * 随机UUID本身分布均匀，直接使用高低64位做双重哈希（h1 + i * h2），无需额外的哈希计算。
+ * 位数组使用 AtomicLongArray，支持无锁并发读写；不支持删除，过期元素通过重建过滤器清理。
+ */
+public class BloomFilter {
+
+    private final AtomicLongArray bits;
+    private final long bitCount;
+    private final int hashCount;
+
+    /**
+     * 创建布隆过滤器
+     *
+     * @param expectedInsertions 预计元素数量
+     * @param falsePositiveRate  期望误判率（0~1）
+     */
+    public BloomFilter(long expectedInsertions, double falsePositiveRate) {
+        long n = Math.max(1, expectedInsertions);
+        double p = Math.min(Math.max(falsePositiveRate, 1e-9), 0.5);
+
+        // m = -n * ln(p) / (ln2)^2，k = m / n * ln2
+        long m = (long) Math.ceil(-n * Math.log(p) / (Math.log(2) * Math.log(2)));
+        this.bitCount = Math.max(64, (m + 63) / 64 * 64);
+        this.hashCount = Math.max(1, (int) Math.round((double) bitCount / n * Math.log(2)));
+        this.bits = new AtomicLongArray((int) (bitCount / 64));
+    }
+
+    /**
+     * 添加元素
+     *
+     * @param value UUID
+     */
+    public void put(UUID value) {
+        long h1 = value.getMostSignificantBits();
+        long h2 = value.getLeastSignificantBits() | 1L;
+        for (int i = 0; i < hashCount; i++) {
+            long index = Math.floorMod(h1 + i * h2, bitCount);
+            int word = (int) (index >>> 6);
+            long mask = 1L << index;
+            long current;
+            do {
+                current = bits.get(word);
+                if ((current & mask) != 0) {
+                    break;
+                }
+            } while (!bits.compareAndSet(word, current, current | mask));
+        }
+    }
+
+    /**
+     * 判断元素是否可能存在
+     *
+     * @param value UUID
+     * @return false 表示一定不存在，true 表示可能存在
+     */
+    public boolean mightContain(UUID value) {
+        long h1 = value.getMostSignificantBits();
+        long h2 = value.getLeastSignificantBits() | 1L;
+        for (int i = 0; i < hashCount; i++) {
+            long index = Math.floorMod(h1 + i * h2, bitCount);
+            if ((bits.get((int) (index >>> 6)) & (1L << index)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,160 @@
+package org.charno.common.security.session;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.UUID;
+import java.util.function.LongSupplier;
+
+/**
+ * 无效Token缓存（负缓存）
+ * 记录最近在Redis中确认不存在的opaque Token（过期Token、已登出Token、伪造Token），
+ * 在 ttl 内再次出现时直接拒绝，不再访问Redis
+ *
+ * 判定顺序（均为纯内存操作）：
+ * 1. 格式校验：opaque Token 为UUID字符串，格式不符直接拒绝
+ * 2. 布隆过滤器：判定为"不存在"时一定不是已知的无效Token，正常Token只需这一步
+ * 3. 精确缓存：布隆过滤器判定为"可能存在"时再查精确缓存，只有精确命中才拒绝，布隆过滤器误判不会拒绝有效Token
+ *
+ * 布隆过滤器按 ttl 轮换（保留当前和上一代），每一代最多容纳 maximum-size 个元素，内存有界
+ *
+ * 指标：token.invalid.rejected（reason 为 malformed / cached）
+ */
+@Component
+public class InvalidTokenCache {
+
+    private static final int UUID_LENGTH = 36;
+    private static final double FALSE_POSITIVE_RATE = 0.01;
+
+    private final Cache<String, Boolean> cache;
+    private final long maximumSize;
+    private final long rotateNanos;
+    private final Counter malformedCounter;
+    private final Counter cachedCounter;
+    private final LongSupplier nanoTime;
+
+    private volatile BloomFilter current;
+    private volatile BloomFilter previous;
+    private long currentCreatedAt;
+
+    public InvalidTokenCache(
+            MeterRegistry meterRegistry,
+            @Value("${charno.security.invalid-token-cache.maximum-size:100000}") long maximumSize,
+            @Value("${charno.security.invalid-token-cache.ttl:30s}") Duration ttl) {
+        this(meterRegistry, maximumSize, ttl, System::nanoTime);
+    }
+
+    /**
+     * @param nanoTime 时钟（纳秒），精确缓存过期和布隆过滤器轮换使用同一时钟
+     */
+    InvalidTokenCache(MeterRegistry meterRegistry, long maximumSize, Duration ttl, LongSupplier nanoTime) {
+        this.maximumSize = maximumSize;
+        this.rotateNanos = ttl.toNanos();
+        this.nanoTime = nanoTime;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(ttl)
+                .ticker(nanoTime::getAsLong)
+                .build();
+        this.current = new BloomFilter(maximumSize, FALSE_POSITIVE_RATE);
+        this.previous = new BloomFilter(1, FALSE_POSITIVE_RATE);
+        this.currentCreatedAt = nanoTime.getAsLong();
+
+        this.malformedCounter = Counter.builder("token.invalid.rejected")
+                .description("Tokens rejected without a session store lookup")
+                .tag("reason", "malformed")
+                .register(meterRegistry);
+        this.cachedCounter = Counter.builder("token.invalid.rejected")
+                .description("Tokens rejected without a session store lookup")
+                .tag("reason", "cached")
+                .register(meterRegistry);
+    }
+
+    /**
+     * 判断opaque Token是否可以直接拒绝（格式错误或最近确认无效）
+     *
+     * @param token Token字符串
+     * @return true表示直接拒绝，不需要访问Redis
+     */
+    public boolean rejects(String token) {
+        if (!isUuidShaped(token)) {
+            malformedCounter.increment();
+            return true;
+        }
+        UUID value = UUID.fromString(token);
+        if (!current.mightContain(value) && !previous.mightContain(value)) {
+            return false;
+        }
+        if (cache.getIfPresent(token) != null) {
+            cachedCounter.increment();
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * 记录无效Token（Redis中确认不存在，或已被删除）
+     *
+     * @param token Token字符串
+     */
+    public void add(String token) {
+        if (!isUuidShaped(token)) {
+            return;
+        }
+        cache.put(token, Boolean.TRUE);
+        bloomFilter().put(UUID.fromString(token));
+    }
+
+    /**
+     * 移除无效Token记录（Token被重新保存时调用）
+     *
+     * @param token Token字符串
+     */
+    public void remove(String token) {
+        cache.invalidate(token);
+    }
+
+    /**
+     * 获取当前一代布隆过滤器，超过 ttl 时轮换
+     * 上一代保留一个周期，保证精确缓存中的元素始终能被布隆过滤器判定为"可能存在"
+     */
+    private synchronized BloomFilter bloomFilter() {
+        long now = nanoTime.getAsLong();
+        if (now - currentCreatedAt >= rotateNanos) {
+            previous = current;
+            current = new BloomFilter(maximumSize, FALSE_POSITIVE_RATE);
+            currentCreatedAt = now;
+        }
+        return current;
+    }
+
+    /**
+     * 检查是否为UUID字符串格式（8-4-4-4-12，ASCII十六进制），不使用正则表达式
+     * 不使用 Character.digit：它也接受全角、阿拉伯-印度等非ASCII数字
+     */
+    static boolean isUuidShaped(String token) {
+        if (token == null || token.length() != UUID_LENGTH) {
+            return false;
+        }
+        for (int i = 0; i < UUID_LENGTH; i++) {
+            char c = token.charAt(i);
+            if (i == 8 || i == 13 || i == 18 || i == 23) {
+                if (c != '-') {
+                    return false;
+                }
+            } else if (!isHexDigit(c)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isHexDigit(char c) {
+        return (c >= '0' && c <= '9') || (c >= 'a' && c <= 'f') || (c >= 'A' && c <= 'F');
+    }
+}
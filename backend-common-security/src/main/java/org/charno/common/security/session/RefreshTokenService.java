@@ -0,0 +1,334 @@
+package org.charno.common.security.session;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * 刷新Token服务
+ * 访问Token（opaque 会话或签名Token）只在短时间内有效，客户端使用刷新Token换取新的访问Token，
+ * Redis中的会话数量只与近期活跃的用户有关，不再随登录峰值累积一整个会话周期
+ *
+ * Token格式：{familyId}.{secret}
+ * - familyId：32位十六进制随机数，一次登录对应一个 family，之后每次刷新都在同一 family 内轮换
+ * - secret：32字节随机数（base64url）
+ *
+ * Redis存储：
+ * - {@value #FAMILY_PREFIX}{familyId}：Hash（user、hash、previous、rotated），只保存当前Token的SHA-256摘要，
+ *   每个 family 固定占用一个Key，过期时间为 ttl，每次刷新重新计时
+ * - {@value #USER_PREFIX}{userId}：ZSET，成员为 familyId，score 为最近一次签发/刷新时间；
+ *   每个用户最多保留 max-per-user 个 family，超出时淘汰最久未使用的 family
+ *
+ * 轮换与重用检测（Lua脚本原子执行）：
+ * - 提交的Token是 family 的当前Token：签发新Token，旧Token立即失效
+ * - 提交的是刚被轮换掉的上一个Token（reuse-grace 内）：视为客户端并发刷新，拒绝但不吊销
+ * - 提交的是 family 中更早的Token：说明Token已泄露并被重放，吊销整个 family（攻击者和用户持有的Token同时失效）
+ *
+ * 注意：脚本根据Hash中的用户ID拼接用户索引Key，要求单节点或主从部署的Redis（不支持Redis Cluster）
+ *
+ * 指标：auth.refresh_token.rotate（outcome 为 rotated / invalid / stale / reused）
+ */
+@Service
+public class RefreshTokenService {
+
+    private static final Logger log = LoggerFactory.getLogger(RefreshTokenService.class);
+
+    static final String FAMILY_PREFIX = "refresh:family:";
+    static final String USER_PREFIX = "refresh:user:";
+
+    private static final int FAMILY_ID_BYTES = 16;
+    private static final int SECRET_BYTES = 32;
+    private static final int FAMILY_ID_LENGTH = FAMILY_ID_BYTES * 2;
+    private static final int TOKEN_LENGTH = FAMILY_ID_LENGTH + 1 + 43;
+
+    /**
+     * 签发脚本
+     * KEYS[1]：family Key；KEYS[2]：用户索引Key
+     * ARGV[1]：用户ID；ARGV[2]：Token摘要；ARGV[3]：familyId；ARGV[4]：有效期（毫秒）；ARGV[5]：每个用户最多保留的 family 数；
+     * ARGV[6]：family Key前缀
+     * 返回淘汰的 family 数量
+     */
+    private static final RedisScript<Long> ISSUE_SCRIPT = RedisScript.of("""
+            local time = redis.call('TIME')
+            local now = tonumber(time[1]) * 1000 + math.floor(tonumber(time[2]) / 1000)
+            redis.call('HSET', KEYS[1], 'user', ARGV[1], 'hash', ARGV[2])
+            redis.call('PEXPIRE', KEYS[1], ARGV[4])
+            for _, family in ipairs(redis.call('ZRANGE', KEYS[2], 0, -1)) do
+                if redis.call('EXISTS', ARGV[6] .. family) == 0 then
+                    redis.call('ZREM', KEYS[2], family)
+                end
+            end
+            redis.call('ZADD', KEYS[2], tostring(now), ARGV[3])
+            redis.call('PEXPIRE', KEYS[2], ARGV[4])
+            local excess = redis.call('ZCARD', KEYS[2]) - tonumber(ARGV[5])
+            if excess <= 0 then
+                return 0
+            end
+            local evicted = redis.call('ZPOPMIN', KEYS[2], excess)
+            for i = 1, #evicted, 2 do
+                redis.call('DEL', ARGV[6] .. evicted[i])
+            end
+            return excess
+            """, Long.class);
+
+    /**
+     * 轮换脚本
+     * KEYS[1]：family Key
+     * ARGV[1]：提交的Token摘要；ARGV[2]：新Token摘要；ARGV[3]：有效期（毫秒）；ARGV[4]：并发刷新宽限期（毫秒）；
+     * ARGV[5]：familyId；ARGV[6]：用户索引Key前缀
+     * 返回 "{结果} {用户ID}"，family 不存在时返回 nil
+     */
+    private static final RedisScript<String> ROTATE_SCRIPT = RedisScript.of("""
+            local time = redis.call('TIME')
+            local now = tonumber(time[1]) * 1000 + math.floor(tonumber(time[2]) / 1000)
+            local family = redis.call('HMGET', KEYS[1], 'user', 'hash', 'previous', 'rotated')
+            local user = family[1]
+            if not user then
+                return nil
+            end
+            if family[2] == ARGV[1] then
+                redis.call('HSET', KEYS[1], 'hash', ARGV[2], 'previous', ARGV[1], 'rotated', tostring(now))
+                redis.call('PEXPIRE', KEYS[1], ARGV[3])
+                redis.call('ZADD', ARGV[6] .. user, 'XX', tostring(now), ARGV[5])
+                redis.call('PEXPIRE', ARGV[6] .. user, ARGV[3])
+                return 'rotated ' .. user
+            end
+            if family[3] == ARGV[1] and now - tonumber(family[4]) <= tonumber(ARGV[4]) then
+                return 'stale ' .. user
+            end
+            redis.call('DEL', KEYS[1])
+            redis.call('ZREM', ARGV[6] .. user, ARGV[5])
+            return 'reused ' .. user
+            """, String.class);
+
+    /**
+     * 吊销脚本（只接受 family 的当前Token）
+     * KEYS[1]：family Key
+     * ARGV[1]：Token摘要；ARGV[2]：familyId；ARGV[3]：用户索引Key前缀
+     */
+    private static final RedisScript<Long> REVOKE_SCRIPT = RedisScript.of("""
+            local family = redis.call('HMGET', KEYS[1], 'user', 'hash')
+            if not family[1] or family[2] ~= ARGV[1] then
+                return 0
+            end
+            redis.call('DEL', KEYS[1])
+            redis.call('ZREM', ARGV[3] .. family[1], ARGV[2])
+            return 1
+            """, Long.class);
+
+    /**
+     * 吊销用户全部 family 的脚本
+     * KEYS[1]：用户索引Key
+     * ARGV[1]：family Key前缀
+     */
+    private static final RedisScript<Long> REVOKE_USER_SCRIPT = RedisScript.of("""
+            local families = redis.call('ZRANGE', KEYS[1], 0, -1)
+            for _, family in ipairs(families) do
+                redis.call('DEL', ARGV[1] .. family)
+            end
+            redis.call('DEL', KEYS[1])
+            return #families
+            """, Long.class);
+
+    private static final String OUTCOME_ROTATED = "rotated";
+    private static final String OUTCOME_INVALID = "invalid";
+    private static final String OUTCOME_STALE = "stale";
+    private static final String OUTCOME_REUSED = "reused";
+
+    private final ReactiveStringRedisTemplate stringRedisTemplate;
+    private final SecureRandom secureRandom = new SecureRandom();
+    private final Duration ttl;
+    private final int maxPerUser;
+    private final Duration reuseGrace;
+    private final Counter rotatedCounter;
+    private final Counter invalidCounter;
+    private final Counter staleCounter;
+    private final Counter reusedCounter;
+
+    public RefreshTokenService(
+            ReactiveStringRedisTemplate stringRedisTemplate,
+            MeterRegistry meterRegistry,
+            @Value("${charno.security.refresh-token.ttl:7d}") Duration ttl,
+            @Value("${charno.security.refresh-token.max-per-user:10}") int maxPerUser,
+            @Value("${charno.security.refresh-token.reuse-grace:10s}") Duration reuseGrace) {
+        this.stringRedisTemplate = stringRedisTemplate;
+        this.ttl = ttl;
+        this.maxPerUser = Math.max(1, maxPerUser);
+        this.reuseGrace = reuseGrace;
+        this.rotatedCounter = counter(meterRegistry, OUTCOME_ROTATED);
+        this.invalidCounter = counter(meterRegistry, OUTCOME_INVALID);
+        this.staleCounter = counter(meterRegistry, OUTCOME_STALE);
+        this.reusedCounter = counter(meterRegistry, OUTCOME_REUSED);
+    }
+
+    private static Counter counter(MeterRegistry meterRegistry, String outcome) {
+        return Counter.builder("auth.refresh_token.rotate")
+                .description("Refresh token rotations by outcome")
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+
+    /**
+     * 为用户签发刷新Token（创建新的 family）
+     * 用户的 family 超过 max-per-user 时淘汰最久未使用的 family
+     *
+     * @param userId 用户ID
+     * @return Mono<String> 刷新Token
+     */
+    public Mono<String> issue(UUID userId) {
+        String familyId = HexFormat.of().formatHex(randomBytes(FAMILY_ID_BYTES));
+        String token = familyId + "." + Base64.getUrlEncoder().withoutPadding().encodeToString(randomBytes(SECRET_BYTES));
+        return stringRedisTemplate.execute(ISSUE_SCRIPT,
+                        List.of(FAMILY_PREFIX + familyId, USER_PREFIX + userId),
+                        List.of(userId.toString(), hash(token), familyId, String.valueOf(ttl.toMillis()),
+                                String.valueOf(maxPerUser), FAMILY_PREFIX))
+                .next()
+                .doOnNext(evicted -> {
+                    if (evicted > 0) {
+                        log.debug("Evicted refresh token families: userId={}, evicted={}", userId, evicted);
+                    }
+                })
+                .thenReturn(token);
+    }
+
+    /**
+     * 轮换刷新Token
+     * 校验通过后旧Token立即失效，返回同一 family 的新Token
+     *
+     * @param refreshToken 刷新Token
+     * @return Mono<Rotation>，Token无效、已过期、已吊销或被重用时返回空
+     */
+    public Mono<Rotation> rotate(String refreshToken) {
+        String familyId = parseFamilyId(refreshToken);
+        if (familyId == null) {
+            invalidCounter.increment();
+            return Mono.empty();
+        }
+        String next = familyId + "." + Base64.getUrlEncoder().withoutPadding().encodeToString(randomBytes(SECRET_BYTES));
+        return stringRedisTemplate.execute(ROTATE_SCRIPT,
+                        List.of(FAMILY_PREFIX + familyId),
+                        List.of(hash(refreshToken), hash(next), String.valueOf(ttl.toMillis()),
+                                String.valueOf(reuseGrace.toMillis()), familyId, USER_PREFIX))
+                .next()
+                .defaultIfEmpty(OUTCOME_INVALID)
+                .mapNotNull(result -> {
+                    int separator = result.indexOf(' ');
+                    String outcome = separator > 0 ? result.substring(0, separator) : result;
+                    switch (outcome) {
+                        case OUTCOME_ROTATED -> {
+                            rotatedCounter.increment();
+                            return new Rotation(UUID.fromString(result.substring(separator + 1)), next);
+                        }
+                        case OUTCOME_STALE -> {
+                            staleCounter.increment();
+                            log.debug("Concurrent refresh token rotation rejected: family={}", familyId);
+                        }
+                        case OUTCOME_REUSED -> {
+                            reusedCounter.increment();
+                            log.warn("Refresh token reuse detected, family revoked: userId={}, family={}",
+                                    result.substring(separator + 1), familyId);
+                        }
+                        default -> invalidCounter.increment();
+                    }
+                    return null;
+                });
+    }
+
+    /**
+     * 吊销刷新Token所在的 family
+     * 用于登出等场景，只接受 family 的当前Token
+     *
+     * @param refreshToken 刷新Token
+     * @return Mono<Boolean> true 表示吊销成功
+     */
+    public Mono<Boolean> revoke(String refreshToken) {
+        String familyId = parseFamilyId(refreshToken);
+        if (familyId == null) {
+            return Mono.just(false);
+        }
+        return stringRedisTemplate.execute(REVOKE_SCRIPT,
+                        List.of(FAMILY_PREFIX + familyId),
+                        List.of(hash(refreshToken), familyId, USER_PREFIX))
+                .next()
+                .map(revoked -> revoked > 0)
+                .defaultIfEmpty(false);
+    }
+
+    /**
+     * 吊销某个用户的全部刷新Token
+     * 用于禁用、删除用户等场景
+     *
+     * @param userId 用户ID
+     * @return Mono<Long> 吊销的 family 数量
+     */
+    public Mono<Long> revokeAll(UUID userId) {
+        return stringRedisTemplate.execute(REVOKE_USER_SCRIPT,
+                        List.of(USER_PREFIX + userId),
+                        List.of(FAMILY_PREFIX))
+                .next()
+                .defaultIfEmpty(0L);
+    }
+
+    /**
+     * 获取刷新Token有效期（最近一次使用后开始计时）
+     *
+     * @return 有效期
+     */
+    public Duration getTtl() {
+        return ttl;
+    }
+
+    /**
+     * 解析 familyId，格式不符返回 null（不使用正则表达式）
+     */
+    private static String parseFamilyId(String refreshToken) {
+        if (refreshToken == null || refreshToken.length() != TOKEN_LENGTH || refreshToken.charAt(FAMILY_ID_LENGTH) != '.') {
+            return null;
+        }
+        for (int i = 0; i < FAMILY_ID_LENGTH; i++) {
+            if (Character.digit(refreshToken.charAt(i), 16) < 0) {
+                return null;
+            }
+        }
+        return refreshToken.substring(0, FAMILY_ID_LENGTH);
+    }
+
+    private byte[] randomBytes(int length) {
+        byte[] bytes = new byte[length];
+        secureRandom.nextBytes(bytes);
+        return bytes;
+    }
+
+    private static String hash(String token) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    /**
+     * 轮换结果
+     *
+     * @param userId       用户ID
+     * @param refreshToken 新的刷新Token
+     */
+    public record Rotation(UUID userId, String refreshToken) {
+    }
+}
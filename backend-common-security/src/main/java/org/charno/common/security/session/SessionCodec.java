@@ -0,0 +1,215 @@
+package org.charno.common.security.session;
+
+import org.charno.systementity.entity.SysUser;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.UUID;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * 会话二进制编码器
+ * 将Token对应的会话信息编码为紧凑的版本化二进制记录，只保留认证链路需要的字段
+ *
+ * 记录格式（版本1）：
+ * <pre>
+ * +-------+---------+-------+------------------------------------------------------------+
+ * | magic | version | flags | body                                                       |
+ * | 1字节  | 1字节    | 1字节  | idMsb(8) idLsb(8) status roleCode accountType accountIdentifier |
+ * +-------+---------+-------+------------------------------------------------------------+
+ * </pre>
+ * 字符串字段编码为：2字节无符号长度（0xFFFF表示null，最大 {@value #MAX_STRING_LENGTH} 字节）+ UTF-8字节。
+ * flags 的 bit0 表示 body 经过压缩；仅当 body 超过 {@link #COMPRESSION_THRESHOLD} 字节时才压缩
+ * （使用JDK自带的Deflate，避免引入额外依赖；常规会话记录远小于阈值，不会触发压缩）。
+ */
+public final class SessionCodec {
+
+    /**
+     * 记录魔数，用于区分旧的JSON格式（JSON以 '{' 开头）
+     */
+    public static final byte MAGIC = (byte) 0xC5;
+
+    /**
+     * 当前记录版本
+     */
+    public static final byte VERSION = 1;
+
+    private static final int FLAG_COMPRESSED = 1;
+    private static final int HEADER_LENGTH = 3;
+    private static final int COMPRESSION_THRESHOLD = 256;
+    private static final int NULL_LENGTH = 0xFFFF;
+    static final int MAX_STRING_LENGTH = NULL_LENGTH - 1;
+
+    private SessionCodec() {
+    }
+
+    /**
+     * 判断字节数组是否为二进制会话记录
+     *
+     * @param bytes 字节数组
+     * @return true 表示以魔数开头
+     */
+    public static boolean isSessionRecord(byte[] bytes) {
+        return bytes != null && bytes.length >= HEADER_LENGTH && bytes[0] == MAGIC;
+    }
+
+    /**
+     * 提取会话需要的字段，生成精简的用户对象
+     * 不包含密码哈希、头像、时间戳等认证链路不需要的字段
+     *
+     * @param user 完整用户对象
+     * @return 精简用户对象
+     */
+    public static SysUser project(SysUser user) {
+        SysUser session = new SysUser();
+        session.setId(user.getId());
+        session.setStatus(user.getStatus());
+        session.setRoleCode(user.getRoleCode());
+        session.setAccountType(user.getAccountType());
+        session.setAccountIdentifier(user.getAccountIdentifier());
+        return session;
+    }
+
+    /**
+     * 编码会话记录
+     *
+     * @param user 用户对象
+     * @return 二进制记录
+     * @throws IllegalArgumentException 字符串字段超过 {@value #MAX_STRING_LENGTH} 字节
+     */
+    public static byte[] encode(SysUser user) {
+        byte[] body = encodeBody(user);
+        int flags = 0;
+        if (body.length > COMPRESSION_THRESHOLD) {
+            body = deflate(body);
+            flags |= FLAG_COMPRESSED;
+        }
+
+        byte[] record = new byte[HEADER_LENGTH + body.length];
+        record[0] = MAGIC;
+        record[1] = VERSION;
+        record[2] = (byte) flags;
+        System.arraycopy(body, 0, record, HEADER_LENGTH, body.length);
+        return record;
+    }
+
+    /**
+     * 解码会话记录
+     *
+     * @param record 二进制记录
+     * @return 精简用户对象
+     * @throws IllegalArgumentException 记录格式或版本不受支持
+     */
+    public static SysUser decode(byte[] record) {
+        if (!isSessionRecord(record)) {
+            throw new IllegalArgumentException("Not a session record");
+        }
+        if (record[1] != VERSION) {
+            throw new IllegalArgumentException("Unsupported session record version: " + record[1]);
+        }
+
+        byte[] body = Arrays.copyOfRange(record, HEADER_LENGTH, record.length);
+        if ((record[2] & FLAG_COMPRESSED) != 0) {
+            body = inflate(body);
+        }
+        return decodeBody(body);
+    }
+
+    private static byte[] encodeBody(SysUser user) {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream(96);
+        try (DataOutputStream out = new DataOutputStream(buffer)) {
+            UUID id = user.getId();
+            out.writeLong(id.getMostSignificantBits());
+            out.writeLong(id.getLeastSignificantBits());
+            writeString(out, user.getStatus());
+            writeString(out, user.getRoleCode());
+            writeString(out, user.getAccountType());
+            writeString(out, user.getAccountIdentifier());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return buffer.toByteArray();
+    }
+
+    private static SysUser decodeBody(byte[] body) {
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(body))) {
+            SysUser user = new SysUser();
+            user.setId(new UUID(in.readLong(), in.readLong()));
+            user.setStatus(readString(in));
+            user.setRoleCode(readString(in));
+            user.setAccountType(readString(in));
+            user.setAccountIdentifier(readString(in));
+            return user;
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Corrupted session record", e);
+        }
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeShort(NULL_LENGTH);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length > MAX_STRING_LENGTH) {
+            throw new IllegalArgumentException("Session field too long: " + bytes.length + " bytes");
+        }
+        out.writeShort(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        int length = in.readUnsignedShort();
+        if (length == NULL_LENGTH) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static byte[] deflate(byte[] data) {
+        Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+        try {
+            deflater.setInput(data);
+            deflater.finish();
+            ByteArrayOutputStream out = new ByteArrayOutputStream(data.length);
+            byte[] chunk = new byte[256];
+            while (!deflater.finished()) {
+                out.write(chunk, 0, deflater.deflate(chunk));
+            }
+            return out.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    private static byte[] inflate(byte[] data) {
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(data);
+            ByteArrayOutputStream out = new ByteArrayOutputStream(data.length * 2);
+            byte[] chunk = new byte[256];
+            while (!inflater.finished()) {
+                int n = inflater.inflate(chunk);
+                if (n == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    throw new IllegalArgumentException("Truncated session record");
+                }
+                out.write(chunk, 0, n);
+            }
+            return out.toByteArray();
+        } catch (DataFormatException e) {
+            throw new IllegalArgumentException("Corrupted session record", e);
+        } finally {
+            inflater.end();
+        }
+    }
+}
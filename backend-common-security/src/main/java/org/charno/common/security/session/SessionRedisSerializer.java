@@ -0,0 +1,48 @@
+package org.charno.common.security.session;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.charno.systementity.entity.SysUser;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.data.redis.serializer.SerializationException;
+
+/**
+ * 会话Redis序列化器
+ * 使用 {@link SessionCodec} 将会话写为紧凑的二进制记录
+ *
+ * 兼容性：升级前写入的JSON格式会话（以 '{' 开头）仍可读取，直到其自然过期
+ */
+public class SessionRedisSerializer implements RedisSerializer<SysUser> {
+
+    private final ObjectMapper objectMapper;
+
+    public SessionRedisSerializer(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    public byte[] serialize(SysUser user) throws SerializationException {
+        if (user == null) {
+            return new byte[0];
+        }
+        return SessionCodec.encode(user);
+    }
+
+    @Override
+    public SysUser deserialize(byte[] bytes) throws SerializationException {
+        if (bytes == null || bytes.length == 0) {
+            return null;
+        }
+        try {
+            if (SessionCodec.isSessionRecord(bytes)) {
+                return SessionCodec.decode(bytes);
+            }
+            if (bytes[0] == '{') {
+                // 旧版本JSON格式
+                return SessionCodec.project(objectMapper.readValue(bytes, SysUser.class));
+            }
+        } catch (Exception e) {
+            throw new SerializationException("Failed to deserialize session", e);
+        }
+        throw new SerializationException("Unknown session format");
+    }
+}
@@ -0,0 +1,209 @@
+package org.charno.common.security.session;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * 会话存储（Redis）熔断器
+ * 保护认证链路上的Redis查询：Redis故障或变慢时快速失败，由调用方改用本地的过期会话副本，
+ * 避免每个请求都等待Redis超时
+ *
+ * 状态：
+ * - CLOSED：正常调用，按最近 window-size 次调用的结果统计失败率和慢调用率
+ * - OPEN：调用数达到 minimum-calls 且失败率或慢调用率超过阈值时打开，open-duration 内拒绝全部调用
+ * - HALF_OPEN：打开时间结束后放行 half-open-calls 次试探调用，全部成功则关闭，任意一次失败则重新打开
+ *
+ * 调用频率只与L1缓存未命中次数相关，因此状态变更使用同步方法保护
+ *
+ * 指标：
+ * - token.session.breaker.state：各状态（state 标签）当前是否处于该状态（1/0）
+ * - token.session.breaker.rejected：熔断期间被拒绝的调用次数
+ */
+@Component
+public class SessionStoreCircuitBreaker {
+
+    private static final Logger log = LoggerFactory.getLogger(SessionStoreCircuitBreaker.class);
+
+    public enum State {
+        CLOSED, OPEN, HALF_OPEN
+    }
+
+    private static final byte OUTCOME_SUCCESS = 0;
+    private static final byte OUTCOME_SLOW = 1;
+    private static final byte OUTCOME_FAILURE = 2;
+
+    private final int minimumCalls;
+    private final int failureRateThreshold;
+    private final int slowCallRateThreshold;
+    private final long slowCallNanos;
+    private final long openNanos;
+    private final int halfOpenCalls;
+    private final Counter rejectedCounter;
+
+    /**
+     * 最近调用结果的环形缓冲区
+     */
+    private final byte[] window;
+    private int windowPosition;
+    private int recordedCalls;
+    private int failedCalls;
+    private int slowCalls;
+
+    private volatile State state = State.CLOSED;
+    private long openedAt;
+    private int halfOpenPermits;
+    private int halfOpenSuccesses;
+
+    public SessionStoreCircuitBreaker(
+            MeterRegistry meterRegistry,
+            @Value("${charno.security.session.breaker.window-size:50}") int windowSize,
+            @Value("${charno.security.session.breaker.minimum-calls:20}") int minimumCalls,
+            @Value("${charno.security.session.breaker.failure-rate-threshold:50}") int failureRateThreshold,
+            @Value("${charno.security.session.breaker.slow-call-rate-threshold:80}") int slowCallRateThreshold,
+            @Value("${charno.security.session.breaker.slow-call-duration:150ms}") Duration slowCallDuration,
+            @Value("${charno.security.session.breaker.open-duration:10s}") Duration openDuration,
+            @Value("${charno.security.session.breaker.half-open-calls:5}") int halfOpenCalls) {
+        this.window = new byte[windowSize];
+        this.minimumCalls = Math.min(minimumCalls, windowSize);
+        this.failureRateThreshold = failureRateThreshold;
+        this.slowCallRateThreshold = slowCallRateThreshold;
+        this.slowCallNanos = slowCallDuration.toNanos();
+        this.openNanos = openDuration.toNanos();
+        this.halfOpenCalls = halfOpenCalls;
+
+        for (State value : State.values()) {
+            Gauge.builder("token.session.breaker.state", this, breaker -> breaker.state == value ? 1 : 0)
+                    .description("Session store circuit breaker state")
+                    .tag("state", value.name().toLowerCase())
+                    .register(meterRegistry);
+        }
+        this.rejectedCounter = Counter.builder("token.session.breaker.rejected")
+                .description("Session store calls rejected by the open circuit breaker")
+                .register(meterRegistry);
+    }
+
+    /**
+     * 获取当前状态
+     *
+     * @return 熔断器状态
+     */
+    public State getState() {
+        return state;
+    }
+
+    /**
+     * 申请调用许可
+     * 返回 true 时调用方必须在调用结束后调用 onSuccess / onError 之一（调用必须设置超时，超时按失败记录）
+     *
+     * @return true表示允许调用
+     */
+    public synchronized boolean tryAcquire() {
+        if (state == State.OPEN) {
+            if (System.nanoTime() - openedAt < openNanos) {
+                rejectedCounter.increment();
+                return false;
+            }
+            transitionTo(State.HALF_OPEN);
+            halfOpenPermits = halfOpenCalls;
+            halfOpenSuccesses = 0;
+        }
+        if (state == State.HALF_OPEN) {
+            if (halfOpenPermits == 0) {
+                rejectedCounter.increment();
+                return false;
+            }
+            halfOpenPermits--;
+        }
+        return true;
+    }
+
+    /**
+     * 记录成功的调用（包括未找到会话）
+     *
+     * @param elapsedNanos 调用耗时（纳秒）
+     */
+    public synchronized void onSuccess(long elapsedNanos) {
+        boolean slow = elapsedNanos >= slowCallNanos;
+        if (state == State.HALF_OPEN) {
+            if (slow) {
+                open();
+            } else if (++halfOpenSuccesses >= halfOpenCalls) {
+                close();
+            }
+            return;
+        }
+        record(slow ? OUTCOME_SLOW : OUTCOME_SUCCESS);
+    }
+
+    /**
+     * 记录失败的调用（包括超时）
+     */
+    public synchronized void onError() {
+        if (state == State.HALF_OPEN) {
+            open();
+            return;
+        }
+        record(OUTCOME_FAILURE);
+    }
+
+    private void record(byte outcome) {
+        if (state != State.CLOSED) {
+            // 打开期间结束的旧调用不计入统计
+            return;
+        }
+        if (recordedCalls == window.length) {
+            forget(window[windowPosition]);
+        } else {
+            recordedCalls++;
+        }
+        window[windowPosition] = outcome;
+        windowPosition = (windowPosition + 1) % window.length;
+        if (outcome == OUTCOME_FAILURE) {
+            failedCalls++;
+        } else if (outcome == OUTCOME_SLOW) {
+            slowCalls++;
+        }
+
+        if (recordedCalls >= minimumCalls
+                && (failedCalls * 100 >= failureRateThreshold * recordedCalls
+                || slowCalls * 100 >= slowCallRateThreshold * recordedCalls)) {
+            log.warn("Session store circuit breaker opened: calls={}, failed={}, slow={}", recordedCalls, failedCalls, slowCalls);
+            open();
+        }
+    }
+
+    private void forget(byte outcome) {
+        if (outcome == OUTCOME_FAILURE) {
+            failedCalls--;
+        } else if (outcome == OUTCOME_SLOW) {
+            slowCalls--;
+        }
+    }
+
+    private void open() {
+        openedAt = System.nanoTime();
+        transitionTo(State.OPEN);
+    }
+
+    private void close() {
+        windowPosition = 0;
+        recordedCalls = 0;
+        failedCalls = 0;
+        slowCalls = 0;
+        transitionTo(State.CLOSED);
+    }
+
+    private void transitionTo(State next) {
+        if (state != next) {
+            log.info("Session store circuit breaker state: {} -> {}", state, next);
+            state = next;
+        }
+    }
+}
@@ -0,0 +1,142 @@
+package org.charno.common.security.session;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.ReactiveKeyCommands;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 会话TTL刷新器（滑动过期）
+ * 认证命中的会话Key先记录到内存待刷新集合，按 flush-interval 周期批量发送 EXPIRE（同一连接上流水线执行），
+ * 避免每次请求都产生一次Redis写操作
+ *
+ * 刷新阈值：refresh-threshold 内已刷新过的Key直接跳过，同一会话在一个阈值周期内最多刷新一次
+ *
+ * 指标：
+ * - token.session.refresh.pending：待刷新的Key数量
+ * - token.session.refresh：已发送的EXPIRE数量
+ */
+@Component
+public class SessionTtlRefresher {
+
+    private static final Logger log = LoggerFactory.getLogger(SessionTtlRefresher.class);
+
+    private final ReactiveStringRedisTemplate stringRedisTemplate;
+    private final Duration sessionTtl;
+    private final Duration flushInterval;
+    private final Cache<String, Boolean> recentlyRefreshed;
+    private final Set<String> pending = ConcurrentHashMap.newKeySet();
+    private final Counter refreshCounter;
+
+    private Disposable flushing;
+
+    public SessionTtlRefresher(
+            ReactiveStringRedisTemplate stringRedisTemplate,
+            MeterRegistry meterRegistry,
+            @Value("${charno.security.session.ttl:30m}") Duration sessionTtl,
+            @Value("${charno.security.session.refresh-threshold:5m}") Duration refreshThreshold,
+            @Value("${charno.security.session.flush-interval:5s}") Duration flushInterval) {
+        this.stringRedisTemplate = stringRedisTemplate;
+        this.sessionTtl = sessionTtl;
+        this.flushInterval = flushInterval;
+        this.recentlyRefreshed = Caffeine.newBuilder()
+                .maximumSize(100_000)
+                .expireAfterWrite(refreshThreshold)
+                .build();
+
+        Gauge.builder("token.session.refresh.pending", pending, Set::size)
+                .description("Session keys waiting for a TTL refresh")
+                .register(meterRegistry);
+        this.refreshCounter = Counter.builder("token.session.refresh")
+                .description("Session TTL refreshes sent to Redis")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void start() {
+        flushing = Flux.interval(flushInterval, flushInterval)
+                .onBackpressureDrop()
+                .concatMap(tick -> flush())
+                .subscribe();
+    }
+
+    /**
+     * 停止时尽量把已记录的刷新写入Redis
+     */
+    @PreDestroy
+    public void stop() {
+        if (flushing != null) {
+            flushing.dispose();
+        }
+        try {
+            flush().block(Duration.ofSeconds(5));
+        } catch (RuntimeException e) {
+            log.warn("Failed to flush pending session TTL refreshes on shutdown: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 记录一次会话访问（纯内存操作）
+     *
+     * @param key 会话的Redis Key
+     */
+    public void touch(String key) {
+        if (recentlyRefreshed.getIfPresent(key) != null) {
+            return;
+        }
+        recentlyRefreshed.put(key, Boolean.TRUE);
+        pending.add(key);
+    }
+
+    /**
+     * 取出待刷新集合中的全部Key，批量发送 EXPIRE
+     * 逐个移除（而不是替换集合），并发记录的Key要么本批次取到，要么留给下一批次，不会丢失
+     * 失败时清除这些Key的刷新标记，下次访问时重新记录
+     */
+    private Mono<Void> flush() {
+        List<String> keys = new ArrayList<>();
+        for (Iterator<String> iterator = pending.iterator(); iterator.hasNext(); ) {
+            keys.add(iterator.next());
+            iterator.remove();
+        }
+        if (keys.isEmpty()) {
+            return Mono.empty();
+        }
+
+        return stringRedisTemplate.execute(connection -> connection.keyCommands().expire(
+                        Flux.fromIterable(keys).map(key -> ReactiveKeyCommands.ExpireCommand
+                                .key(ByteBuffer.wrap(key.getBytes(StandardCharsets.UTF_8)))
+                                .timeout(sessionTtl))))
+                .then()
+                .doOnSuccess(v -> {
+                    refreshCounter.increment(keys.size());
+                    log.debug("Refreshed TTL of {} session(s)", keys.size());
+                })
+                .doOnError(e -> {
+                    log.warn("Failed to refresh TTL of {} session(s): {}", keys.size(), e.getMessage());
+                    recentlyRefreshed.invalidateAll(keys);
+                })
+                .onErrorResume(e -> Mono.empty());
+    }
+}
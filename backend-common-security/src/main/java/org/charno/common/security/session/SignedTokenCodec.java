@@ -0,0 +1,139 @@
+package org.charno.common.security.session;
+
+import org.charno.systementity.entity.SysUser;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.UUID;
+
+/**
+ * 签名Token编解码器
+ * 生成并校验 HMAC-SHA256 签名的无状态访问Token，校验过程不涉及任何I/O
+ *
+ * Token格式：base64url(payload) + "." + base64url(HMAC-SHA256(base64url(payload)))
+ * <pre>
+ * payload（版本1）：
+ * +---------+--------------+--------------+------------+-------------------------------+
+ * | version | issuedAt(ms) | expiresAt(ms)| jti(16字节) | 会话记录（{@link SessionCodec}） |
+ * +---------+--------------+--------------+------------+-------------------------------+
+ * </pre>
+ */
+public final class SignedTokenCodec {
+
+    private static final String ALGORITHM = "HmacSHA256";
+    private static final byte VERSION = 1;
+    private static final int FIXED_LENGTH = 1 + 8 + 8 + 16;
+    private static final char SEPARATOR = '.';
+
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+    private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+
+    private final SecretKeySpec key;
+    private final ThreadLocal<Mac> macs;
+
+    public SignedTokenCodec(byte[] secret) {
+        this.key = new SecretKeySpec(secret, ALGORITHM);
+        this.macs = ThreadLocal.withInitial(this::newMac);
+    }
+
+    /**
+     * 判断Token是否为签名Token（不校验签名）
+     * 随机UUID格式的不透明Token不包含 '.'
+     *
+     * @param token Token字符串
+     * @return true 表示签名Token格式
+     */
+    public static boolean isSignedToken(String token) {
+        return token != null && token.indexOf(SEPARATOR) > 0;
+    }
+
+    /**
+     * 签发Token
+     *
+     * @param user      用户对象（只编码会话需要的字段）
+     * @param jti       Token唯一标识
+     * @param issuedAt  签发时间（毫秒）
+     * @param expiresAt 过期时间（毫秒）
+     * @return Token字符串
+     */
+    public String encode(SysUser user, UUID jti, long issuedAt, long expiresAt) {
+        byte[] session = SessionCodec.encode(user);
+        ByteBuffer payload = ByteBuffer.allocate(FIXED_LENGTH + session.length);
+        payload.put(VERSION)
+                .putLong(issuedAt)
+                .putLong(expiresAt)
+                .putLong(jti.getMostSignificantBits())
+                .putLong(jti.getLeastSignificantBits())
+                .put(session);
+
+        String encodedPayload = ENCODER.encodeToString(payload.array());
+        return encodedPayload + SEPARATOR + ENCODER.encodeToString(sign(encodedPayload));
+    }
+
+    /**
+     * 校验签名并解析Token
+     * 只校验签名与格式，过期与吊销由调用方判断
+     *
+     * @param token Token字符串
+     * @return 解析结果，签名无效或格式错误返回 null
+     */
+    public Claims decode(String token) {
+        int separator = token.indexOf(SEPARATOR);
+        if (separator <= 0 || separator != token.lastIndexOf(SEPARATOR)) {
+            return null;
+        }
+        String encodedPayload = token.substring(0, separator);
+        try {
+            byte[] signature = DECODER.decode(token.substring(separator + 1));
+            // 常量时间比较，避免时序攻击
+            if (!MessageDigest.isEqual(signature, sign(encodedPayload))) {
+                return null;
+            }
+
+            byte[] payload = DECODER.decode(encodedPayload);
+            if (payload.length <= FIXED_LENGTH || payload[0] != VERSION) {
+                return null;
+            }
+            ByteBuffer buffer = ByteBuffer.wrap(payload);
+            buffer.get();
+            long issuedAt = buffer.getLong();
+            long expiresAt = buffer.getLong();
+            UUID jti = new UUID(buffer.getLong(), buffer.getLong());
+            SysUser user = SessionCodec.decode(Arrays.copyOfRange(payload, FIXED_LENGTH, payload.length));
+            return new Claims(jti, issuedAt, expiresAt, user);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private byte[] sign(String encodedPayload) {
+        return macs.get().doFinal(encodedPayload.getBytes(StandardCharsets.US_ASCII));
+    }
+
+    private Mac newMac() {
+        try {
+            Mac mac = Mac.getInstance(ALGORITHM);
+            mac.init(key);
+            return mac;
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("HmacSHA256 is not available", e);
+        }
+    }
+
+    /**
+     * Token声明
+     *
+     * @param jti       Token唯一标识
+     * @param issuedAt  签发时间（毫秒）
+     * @param expiresAt 过期时间（毫秒）
+     * @param user      会话用户（只包含 id、status、roleCode、accountType、accountIdentifier）
+     */
+    public record Claims(UUID jti, long issuedAt, long expiresAt, SysUser user) {
+    }
+}
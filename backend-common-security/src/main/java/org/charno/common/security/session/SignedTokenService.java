@@ -0,0 +1,122 @@
+package org.charno.common.security.session;
+
+import org.charno.systementity.entity.SysUser;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.nio.charset.StandardCharsets;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.util.UUID;
+
+/**
+ * 签名Token服务
+ * 签发短期有效的 HMAC 签名访问Token，认证时在本地完成签名、过期和吊销校验，认证链路不再访问Redis
+ *
+ * 配置：
+ * - charno.security.token.mode=signed 时启用（默认 opaque，即Redis中保存会话的随机Token）
+ * - charno.security.token.signing-secret：签名密钥，多节点部署时各节点必须一致；未配置时随机生成（重启后已签发Token全部失效）
+ * - charno.security.token.signed-ttl：Token有效期，默认15分钟
+ */
+@Component
+@ConditionalOnProperty(name = "charno.security.token.mode", havingValue = "signed")
+public class SignedTokenService {
+
+    private static final Logger log = LoggerFactory.getLogger(SignedTokenService.class);
+
+    private static final int MIN_SECRET_LENGTH = 32;
+
+    private final SignedTokenCodec codec;
+    private final TokenRevocationList revocationList;
+    private final Duration tokenTtl;
+
+    public SignedTokenService(
+            TokenRevocationList revocationList,
+            @Value("${charno.security.token.signing-secret:}") String signingSecret,
+            @Value("${charno.security.token.signed-ttl:15m}") Duration tokenTtl) {
+        this.revocationList = revocationList;
+        this.tokenTtl = tokenTtl;
+        this.codec = new SignedTokenCodec(resolveSecret(signingSecret));
+    }
+
+    /**
+     * 签发Token
+     *
+     * @param user 用户对象
+     * @return Token字符串
+     */
+    public String issue(SysUser user) {
+        long now = System.currentTimeMillis();
+        return codec.encode(user, UUID.randomUUID(), now, now + tokenTtl.toMillis());
+    }
+
+    /**
+     * 获取Token有效期
+     *
+     * @return 有效期
+     */
+    public Duration getTokenTtl() {
+        return tokenTtl;
+    }
+
+    /**
+     * 校验Token并获取会话用户（纯内存操作，不涉及I/O）
+     *
+     * @param token Token字符串
+     * @return 用户对象（只包含 id、status、roleCode、accountType、accountIdentifier），无效、过期或已吊销返回 null
+     */
+    public SysUser verify(String token) {
+        SignedTokenCodec.Claims claims = codec.decode(token);
+        if (claims == null || claims.expiresAt() <= System.currentTimeMillis()) {
+            return null;
+        }
+        if (revocationList.isRevoked(claims.jti(), claims.user().getId(), claims.issuedAt())) {
+            return null;
+        }
+        return claims.user();
+    }
+
+    /**
+     * 吊销Token
+     * 只吊销签名有效且未过期的Token，避免伪造Token占用吊销列表
+     *
+     * @param token Token字符串
+     * @return Mono<Boolean> true 表示已吊销
+     */
+    public Mono<Boolean> revoke(String token) {
+        SignedTokenCodec.Claims claims = codec.decode(token);
+        if (claims == null || claims.expiresAt() <= System.currentTimeMillis()) {
+            return Mono.just(false);
+        }
+        return revocationList.revokeToken(claims.jti(), claims.expiresAt()).thenReturn(true);
+    }
+
+    /**
+     * 吊销某个用户当前已签发的全部Token
+     *
+     * @param userId 用户ID
+     * @return Mono<Void>
+     */
+    public Mono<Void> revokeUser(UUID userId) {
+        return revocationList.revokeUser(userId);
+    }
+
+    private static byte[] resolveSecret(String signingSecret) {
+        if (signingSecret == null || signingSecret.isBlank()) {
+            log.warn("charno.security.token.signing-secret is not set, using a random key: "
+                    + "signed tokens will not survive restarts or validate on other nodes");
+            byte[] secret = new byte[MIN_SECRET_LENGTH];
+            new SecureRandom().nextBytes(secret);
+            return secret;
+        }
+        byte[] secret = signingSecret.getBytes(StandardCharsets.UTF_8);
+        if (secret.length < MIN_SECRET_LENGTH) {
+            log.warn("charno.security.token.signing-secret is shorter than {} bytes", MIN_SECRET_LENGTH);
+        }
+        return secret;
+    }
+}
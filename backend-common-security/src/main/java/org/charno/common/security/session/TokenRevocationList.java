@@ -0,0 +1,232 @@
+package org.charno.common.security.session;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.Range;
+import org.springframework.data.redis.connection.ReactiveSubscription;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+import org.springframework.data.redis.core.ReactiveZSetOperations;
+import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.util.retry.Retry;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 签名Token吊销列表
+ * 签名Token在本地校验，吊销信息以内存结构保存：布隆过滤器（快速否定） + 精确集合（确认）
+ *
+ * 两类吊销：
+ * 1. 单个Token（按 jti）：用于登出，保留到该Token过期为止
+ * 2. 用户级（按 userId + 吊销时间）：用于用户被修改/删除，吊销该时间之前签发的全部Token
+ *
+ * 跨节点同步：
+ * - Redis ZSET {@value #REVOKED_TOKENS_KEY}（score 为过期时间）与 {@value #REVOKED_USERS_KEY}（score 为吊销时间）持久化吊销记录
+ * - 通过 Redis 发布/订阅频道 {@value #REVOCATION_CHANNEL} 实时广播
+ * - 按 sync-interval 周期性从Redis全量同步，弥补订阅中断期间丢失的消息，同时清理过期记录并重建布隆过滤器
+ *
+ * 仅在 charno.security.token.mode=signed 时启用
+ */
+@Component
+@ConditionalOnProperty(name = "charno.security.token.mode", havingValue = "signed")
+public class TokenRevocationList {
+
+    private static final Logger log = LoggerFactory.getLogger(TokenRevocationList.class);
+
+    static final String REVOKED_TOKENS_KEY = "token:revoked";
+    static final String REVOKED_USERS_KEY = "token:revoked:users";
+    static final String REVOCATION_CHANNEL = "token:revocation";
+    private static final String TOKEN_MESSAGE_PREFIX = "jti:";
+    private static final String USER_MESSAGE_PREFIX = "user:";
+
+    private final ReactiveStringRedisTemplate stringRedisTemplate;
+    private final Duration tokenTtl;
+    private final Duration syncInterval;
+    private final long expectedInsertions;
+
+    /**
+     * jti -> 过期时间（毫秒）
+     */
+    private final Map<UUID, Long> revokedTokens = new ConcurrentHashMap<>();
+
+    /**
+     * userId -> 吊销时间（毫秒），该时间及之前签发的Token均无效
+     */
+    private final Map<UUID, Long> revokedUsers = new ConcurrentHashMap<>();
+
+    private volatile BloomFilter bloomFilter;
+
+    private Disposable subscription;
+    private Disposable synchronization;
+
+    public TokenRevocationList(
+            ReactiveStringRedisTemplate stringRedisTemplate,
+            MeterRegistry meterRegistry,
+            @Value("${charno.security.token.signed-ttl:15m}") Duration tokenTtl,
+            @Value("${charno.security.token.revocation.sync-interval:30s}") Duration syncInterval,
+            @Value("${charno.security.token.revocation.expected-insertions:100000}") long expectedInsertions) {
+        this.stringRedisTemplate = stringRedisTemplate;
+        this.tokenTtl = tokenTtl;
+        this.syncInterval = syncInterval;
+        this.expectedInsertions = expectedInsertions;
+        this.bloomFilter = newBloomFilter();
+
+        Gauge.builder("token.revocation.size", revokedTokens, Map::size)
+                .description("Revoked signed tokens that have not expired yet")
+                .register(meterRegistry);
+    }
+
+    /**
+     * 订阅吊销频道并启动周期同步
+     * Redis不可用时按指数退避重连，避免启动失败
+     */
+    @PostConstruct
+    public void start() {
+        subscription = stringRedisTemplate.listenToChannel(REVOCATION_CHANNEL)
+                .map(ReactiveSubscription.Message::getMessage)
+                .doOnNext(this::onRevocationMessage)
+                .doOnError(e -> log.warn("Token revocation subscription interrupted: {}", e.getMessage()))
+                .retryWhen(Retry.backoff(Long.MAX_VALUE, Duration.ofSeconds(1)).maxBackoff(Duration.ofSeconds(30)))
+                .subscribe();
+
+        synchronization = Flux.interval(Duration.ZERO, syncInterval)
+                .concatMap(tick -> synchronize())
+                .subscribe();
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (subscription != null) {
+            subscription.dispose();
+        }
+        if (synchronization != null) {
+            synchronization.dispose();
+        }
+    }
+
+    /**
+     * 判断Token是否已被吊销（纯内存操作）
+     *
+     * @param jti      Token唯一标识
+     * @param userId   用户ID
+     * @param issuedAt 签发时间（毫秒）
+     * @return true 表示已吊销
+     */
+    public boolean isRevoked(UUID jti, UUID userId, long issuedAt) {
+        Long userRevokedAt = revokedUsers.get(userId);
+        if (userRevokedAt != null && issuedAt <= userRevokedAt) {
+            return true;
+        }
+        return bloomFilter.mightContain(jti) && revokedTokens.containsKey(jti);
+    }
+
+    /**
+     * 吊销单个Token（本节点立即生效，并写入Redis、广播到其他节点）
+     *
+     * @param jti       Token唯一标识
+     * @param expiresAt Token过期时间（毫秒）
+     * @return Mono<Void>
+     */
+    public Mono<Void> revokeToken(UUID jti, long expiresAt) {
+        addToken(jti, expiresAt);
+        return stringRedisTemplate.opsForZSet().add(REVOKED_TOKENS_KEY, jti.toString(), expiresAt)
+                .then(publish(TOKEN_MESSAGE_PREFIX + jti + ":" + expiresAt))
+                .doOnError(e -> log.warn("Failed to persist token revocation: jti={}, error: {}", jti, e.getMessage()))
+                .onErrorResume(e -> Mono.empty());
+    }
+
+    /**
+     * 吊销某个用户在当前时间之前签发的全部Token（本节点立即生效，并写入Redis、广播到其他节点）
+     *
+     * @param userId 用户ID
+     * @return Mono<Void>
+     */
+    public Mono<Void> revokeUser(UUID userId) {
+        long revokedAt = System.currentTimeMillis();
+        addUser(userId, revokedAt);
+        return stringRedisTemplate.opsForZSet().add(REVOKED_USERS_KEY, userId.toString(), revokedAt)
+                .then(publish(USER_MESSAGE_PREFIX + userId + ":" + revokedAt))
+                .doOnError(e -> log.warn("Failed to persist user revocation: userId={}, error: {}", userId, e.getMessage()))
+                .onErrorResume(e -> Mono.empty());
+    }
+
+    private Mono<Void> publish(String message) {
+        return stringRedisTemplate.convertAndSend(REVOCATION_CHANNEL, message).then();
+    }
+
+    private void onRevocationMessage(String message) {
+        try {
+            int separator = message.lastIndexOf(':');
+            long timestamp = Long.parseLong(message.substring(separator + 1));
+            if (message.startsWith(TOKEN_MESSAGE_PREFIX)) {
+                addToken(UUID.fromString(message.substring(TOKEN_MESSAGE_PREFIX.length(), separator)), timestamp);
+            } else if (message.startsWith(USER_MESSAGE_PREFIX)) {
+                addUser(UUID.fromString(message.substring(USER_MESSAGE_PREFIX.length(), separator)), timestamp);
+            }
+        } catch (RuntimeException e) {
+            log.warn("Ignoring malformed token revocation message: {}", message);
+        }
+    }
+
+    /**
+     * 从Redis同步吊销记录
+     * 先清理Redis中已过期的记录，再加载仍然有效的记录，最后重建布隆过滤器以移除过期元素
+     */
+    private Mono<Void> synchronize() {
+        ReactiveZSetOperations<String, String> zSet = stringRedisTemplate.opsForZSet();
+        long now = System.currentTimeMillis();
+        // 用户级吊销只需保留一个Token有效期：更早签发的Token本身已过期
+        long userHorizon = now - tokenTtl.toMillis();
+
+        Mono<Void> tokens = zSet.removeRangeByScore(REVOKED_TOKENS_KEY, Range.closed(0d, (double) now))
+                .thenMany(zSet.rangeByScoreWithScores(REVOKED_TOKENS_KEY, Range.rightUnbounded(Range.Bound.exclusive((double) now))))
+                .doOnNext(tuple -> revokedTokens.merge(UUID.fromString(tuple.getValue()), tuple.getScore().longValue(), Math::max))
+                .then();
+        Mono<Void> users = zSet.removeRangeByScore(REVOKED_USERS_KEY, Range.closed(0d, (double) userHorizon))
+                .thenMany(zSet.rangeByScoreWithScores(REVOKED_USERS_KEY, Range.rightUnbounded(Range.Bound.exclusive((double) userHorizon))))
+                .doOnNext(tuple -> revokedUsers.merge(UUID.fromString(tuple.getValue()), tuple.getScore().longValue(), Math::max))
+                .then();
+
+        return Mono.when(tokens, users)
+                .doOnError(e -> log.warn("Failed to synchronize token revocations from Redis: {}", e.getMessage()))
+                .onErrorResume(e -> Mono.empty())
+                .doFinally(signal -> prune(now, userHorizon));
+    }
+
+    private synchronized void addToken(UUID jti, long expiresAt) {
+        revokedTokens.merge(jti, expiresAt, Math::max);
+        bloomFilter.put(jti);
+    }
+
+    private void addUser(UUID userId, long revokedAt) {
+        revokedUsers.merge(userId, revokedAt, Math::max);
+    }
+
+    /**
+     * 清理本地过期记录并重建布隆过滤器
+     * 与 addToken 互斥，保证重建期间新增的jti不会丢失
+     */
+    private synchronized void prune(long now, long userHorizon) {
+        revokedTokens.values().removeIf(expiresAt -> expiresAt <= now);
+        revokedUsers.values().removeIf(revokedAt -> revokedAt <= userHorizon);
+
+        BloomFilter rebuilt = newBloomFilter();
+        revokedTokens.keySet().forEach(rebuilt::put);
+        bloomFilter = rebuilt;
+    }
+
+    private BloomFilter newBloomFilter() {
+        return new BloomFilter(Math.max(expectedInsertions, revokedTokens.size() * 2L), 0.01);
+    }
+}
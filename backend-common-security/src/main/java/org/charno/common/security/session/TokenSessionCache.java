@@ -0,0 +1,203 @@
+package org.charno.common.security.session;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.charno.systementity.entity.SysUser;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.ReactiveSubscription;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+import reactor.util.retry.Retry;
+
+import java.time.Duration;
+import java.util.UUID;
+
+/**
+ * Token会话一级缓存（L1）
+ * 进程内有界缓存，位于Redis（L2）之前，减少认证链路上的Redis访问与反序列化开销
+ *
+ * 淘汰策略：
+ * 1. 容量淘汰：超过 maximum-size 后按 Caffeine 的 W-TinyLFU 策略淘汰
+ * 2. 时间淘汰：写入后 expire-after-write 过期，限制与Redis之间的最大不一致窗口
+ *
+ * 跨节点失效：
+ * - 通过 Redis 发布/订阅频道 {@value #INVALIDATION_CHANNEL} 广播失效消息
+ * - 消息格式：token:{token}（单个Token失效）或 user:{userId}（该用户的全部会话失效）
+ * - 订阅中断期间可能丢失消息，因此订阅出错时会清空本地缓存
+ *
+ * 过期副本（stale）：
+ * - 每次写入L1时同时写入一个保存时间更长的有界副本（stale-maximum-size / stale-expire-after-write）
+ * - 仅在Redis不可用（熔断器打开、查询超时或失败）时读取，使最近访问过的用户在Redis故障期间保持登录
+ * - 单个Token和用户的失效消息同样清除副本；订阅中断时只清空L1，副本依靠 stale-expire-after-write 限制过期时间
+ *
+ * 指标：通过 Micrometer 暴露 cache.gets（hit/miss）、cache.evictions、cache.size 等，cache 标签为 token.session；
+ * 过期副本的命中次数为 token.session.stale.served
+ */
+@Component
+public class TokenSessionCache {
+
+    private static final Logger log = LoggerFactory.getLogger(TokenSessionCache.class);
+
+    static final String INVALIDATION_CHANNEL = "token:invalidation";
+    private static final String TOKEN_MESSAGE_PREFIX = "token:";
+    private static final String USER_MESSAGE_PREFIX = "user:";
+
+    private final Cache<String, SysUser> cache;
+    private final Cache<String, SysUser> staleCache;
+    private final Counter staleServedCounter;
+    private final ReactiveStringRedisTemplate stringRedisTemplate;
+
+    private Disposable subscription;
+
+    public TokenSessionCache(
+            ReactiveStringRedisTemplate stringRedisTemplate,
+            MeterRegistry meterRegistry,
+            @Value("${charno.security.session-cache.maximum-size:10000}") long maximumSize,
+            @Value("${charno.security.session-cache.expire-after-write:60s}") Duration expireAfterWrite,
+            @Value("${charno.security.session-cache.stale-maximum-size:10000}") long staleMaximumSize,
+            @Value("${charno.security.session-cache.stale-expire-after-write:15m}") Duration staleExpireAfterWrite) {
+        this.stringRedisTemplate = stringRedisTemplate;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(expireAfterWrite)
+                .recordStats()
+                .build();
+        this.staleCache = Caffeine.newBuilder()
+                .maximumSize(staleMaximumSize)
+                .expireAfterWrite(staleExpireAfterWrite)
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "token.session");
+        this.staleServedCounter = Counter.builder("token.session.stale.served")
+                .description("Sessions served from the stale copy while Redis was unavailable")
+                .register(meterRegistry);
+    }
+
+    /**
+     * 订阅失效频道
+     * Redis不可用时按指数退避重连，避免启动失败
+     */
+    @PostConstruct
+    public void subscribe() {
+        subscription = stringRedisTemplate.listenToChannel(INVALIDATION_CHANNEL)
+                .map(ReactiveSubscription.Message::getMessage)
+                .doOnNext(this::onInvalidationMessage)
+                .doOnError(e -> {
+                    log.warn("Token invalidation subscription interrupted, clearing L1 cache: {}", e.getMessage());
+                    cache.invalidateAll();
+                })
+                .retryWhen(Retry.backoff(Long.MAX_VALUE, Duration.ofSeconds(1)).maxBackoff(Duration.ofSeconds(30)))
+                .subscribe();
+    }
+
+    @PreDestroy
+    public void unsubscribe() {
+        if (subscription != null) {
+            subscription.dispose();
+        }
+    }
+
+    /**
+     * 从L1缓存获取会话
+     *
+     * @param token Token字符串
+     * @return 用户对象，未命中返回 null
+     */
+    public SysUser get(String token) {
+        return cache.getIfPresent(token);
+    }
+
+    /**
+     * 写入L1缓存
+     *
+     * @param token Token字符串
+     * @param user  用户对象
+     */
+    public void put(String token, SysUser user) {
+        cache.put(token, user);
+        staleCache.put(token, user);
+    }
+
+    /**
+     * 从过期副本获取会话
+     * 仅在Redis不可用时调用
+     *
+     * @param token Token字符串
+     * @return 用户对象，未命中返回 null
+     */
+    public SysUser getStale(String token) {
+        SysUser user = staleCache.getIfPresent(token);
+        if (user != null) {
+            staleServedCounter.increment();
+        }
+        return user;
+    }
+
+    /**
+     * 使单个Token失效（本节点立即生效，并广播到其他节点）
+     *
+     * @param token Token字符串
+     * @return Mono<Void>
+     */
+    public Mono<Void> invalidateToken(String token) {
+        cache.invalidate(token);
+        staleCache.invalidate(token);
+        return publish(TOKEN_MESSAGE_PREFIX + token);
+    }
+
+    /**
+     * 使某个用户的全部会话失效（本节点立即生效，并广播到其他节点）
+     * 用于用户信息被修改或删除的场景
+     *
+     * @param userId 用户ID
+     * @return Mono<Void>
+     */
+    public Mono<Void> invalidateUser(UUID userId) {
+        evictUserLocally(userId);
+        return publish(USER_MESSAGE_PREFIX + userId);
+    }
+
+    /**
+     * 获取缓存统计信息（命中、未命中、淘汰次数等）
+     *
+     * @return CacheStats
+     */
+    public CacheStats stats() {
+        return cache.stats();
+    }
+
+    private Mono<Void> publish(String message) {
+        return stringRedisTemplate.convertAndSend(INVALIDATION_CHANNEL, message)
+                .doOnError(e -> log.warn("Failed to publish token invalidation: message={}, error: {}", message, e.getMessage()))
+                .onErrorResume(e -> Mono.empty())
+                .then();
+    }
+
+    private void onInvalidationMessage(String message) {
+        if (message.startsWith(TOKEN_MESSAGE_PREFIX)) {
+            String token = message.substring(TOKEN_MESSAGE_PREFIX.length());
+            cache.invalidate(token);
+            staleCache.invalidate(token);
+        } else if (message.startsWith(USER_MESSAGE_PREFIX)) {
+            try {
+                evictUserLocally(UUID.fromString(message.substring(USER_MESSAGE_PREFIX.length())));
+            } catch (IllegalArgumentException e) {
+                log.warn("Ignoring malformed token invalidation message: {}", message);
+            }
+        }
+    }
+
+    private void evictUserLocally(UUID userId) {
+        cache.asMap().values().removeIf(user -> userId.equals(user.getId()));
+        staleCache.asMap().values().removeIf(user -> userId.equals(user.getId()));
+    }
+}
@@ -0,0 +1,124 @@
+package org.charno.common.security.session;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Range;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+import org.springframework.data.redis.core.ZSetOperations;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.HexFormat;
+import java.util.UUID;
+
+/**
+ * 用户会话索引
+ * 为每个用户维护一个Redis ZSET（{@value #INDEX_PREFIX}{userId}），成员为Token，score 为登录时间（毫秒）
+ * 管理操作（吊销全部、刷新全部、列出会话）只访问该用户自己的Key，无需 SCAN 全部 token:* Key
+ *
+ * 索引的过期时间与会话TTL一致，并随会话一起滑动延长；会话自然过期后残留的成员在访问时惰性清理
+ */
+@Component
+public class UserSessionIndex {
+
+    private static final Logger log = LoggerFactory.getLogger(UserSessionIndex.class);
+
+    static final String INDEX_PREFIX = "user:tokens:";
+    private static final int SESSION_ID_BYTES = 8;
+
+    private final ReactiveStringRedisTemplate stringRedisTemplate;
+    private final Duration sessionTtl;
+
+    public UserSessionIndex(
+            ReactiveStringRedisTemplate stringRedisTemplate,
+            @Value("${charno.security.session.ttl:30m}") Duration sessionTtl) {
+        this.stringRedisTemplate = stringRedisTemplate;
+        this.sessionTtl = sessionTtl;
+    }
+
+    /**
+     * 获取用户索引的Redis Key
+     *
+     * @param userId 用户ID
+     * @return Redis Key
+     */
+    public static String key(UUID userId) {
+        return INDEX_PREFIX + userId;
+    }
+
+    /**
+     * 计算会话的对外标识
+     * 取Token的SHA-256摘要前8字节，可用于展示和定位会话，但无法还原出Token
+     *
+     * @param token Token字符串
+     * @return 会话标识（16位十六进制）
+     */
+    public static String sessionId(String token) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest, 0, SESSION_ID_BYTES);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    /**
+     * 将Token加入用户索引，并延长索引过期时间
+     *
+     * @param userId 用户ID
+     * @param token  Token字符串
+     * @return Mono<Void>
+     */
+    public Mono<Void> add(UUID userId, String token) {
+        String key = key(userId);
+        return stringRedisTemplate.opsForZSet().add(key, token, System.currentTimeMillis())
+                .then(stringRedisTemplate.expire(key, sessionTtl))
+                .doOnError(e -> log.warn("Failed to index session: userId={}, error: {}", userId, e.getMessage()))
+                .onErrorResume(e -> Mono.empty())
+                .then();
+    }
+
+    /**
+     * 从用户索引中移除Token
+     *
+     * @param userId 用户ID
+     * @param tokens Token列表
+     * @return Mono<Void>
+     */
+    public Mono<Void> remove(UUID userId, Collection<String> tokens) {
+        if (tokens.isEmpty()) {
+            return Mono.empty();
+        }
+        return stringRedisTemplate.opsForZSet().remove(key(userId), tokens.toArray())
+                .doOnError(e -> log.warn("Failed to remove sessions from index: userId={}, error: {}", userId, e.getMessage()))
+                .onErrorResume(e -> Mono.empty())
+                .then();
+    }
+
+    /**
+     * 获取用户的全部Token（按登录时间升序）
+     *
+     * @param userId 用户ID
+     * @return Flux<TypedTuple>，value 为Token，score 为登录时间（毫秒）
+     */
+    public Flux<ZSetOperations.TypedTuple<String>> members(UUID userId) {
+        return stringRedisTemplate.opsForZSet().rangeWithScores(key(userId), Range.unbounded());
+    }
+
+    /**
+     * 删除用户索引
+     *
+     * @param userId 用户ID
+     * @return Mono<Void>
+     */
+    public Mono<Void> delete(UUID userId) {
+        return stringRedisTemplate.delete(key(userId)).then();
+    }
+}
@@ -1,19 +1,39 @@
 package org.charno.common.security.util;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Component;
 
 /**
  * 密码工具类
  * 提供密码加密和验证的便捷方法
+ *
+ * 密码算法版本（sys_user.password_algo_version）：
+ * - 1：旧版本的无前缀 BCrypt 哈希
+ * - 2：带 {id} 前缀的 DelegatingPasswordEncoder 哈希
+ * 修改密码策略（算法、PBKDF2 迭代次数等无法从哈希值判断的参数）时提高 charno.security.password.algo-version，
+ * 已有密码会在用户下次登录成功后重新加密
  */
 @Component
 public class PasswordUtil {
 
     private final PasswordEncoder passwordEncoder;
+    private final int algoVersion;
 
-    public PasswordUtil(PasswordEncoder passwordEncoder) {
+    public PasswordUtil(PasswordEncoder passwordEncoder,
+                        @Value("${charno.security.password.algo-version:2}") int algoVersion) {
         this.passwordEncoder = passwordEncoder;
+        this.algoVersion = algoVersion;
+    }
+
+    /**
+     * 获取当前密码算法版本
+     * 新加密的密码应同时保存此版本号
+     *
+     * @return 密码算法版本
+     */
+    public int getAlgoVersion() {
+        return algoVersion;
     }
 
     /**
@@ -47,5 +67,19 @@ public class PasswordUtil {
     public boolean upgradeEncoding(String encodedPassword) {
         return passwordEncoder.upgradeEncoding(encodedPassword);
     }
-}
 
+    /**
+     * 检查已保存的密码是否需要按当前策略重新加密
+     * 算法版本低于当前版本，或编码器判断强度不足（如 BCrypt cost 低于校准值、算法不是当前算法）时需要
+     *
+     * @param encodedPassword 加密后的密码
+     * @param passwordAlgoVersion 保存的密码算法版本
+     * @return true 如果需要重新加密，false 否则
+     */
+    public boolean needsRehash(String encodedPassword, Integer passwordAlgoVersion) {
+        if (passwordAlgoVersion == null || passwordAlgoVersion < algoVersion) {
+            return true;
+        }
+        return upgradeEncoding(encodedPassword);
+    }
+}
@@ -1,6 +1,7 @@
 package org.charno.common.security.util;
 
 import org.charno.common.security.annotation.RequiresRole;
+import org.charno.common.security.service.RoleHierarchy;
 import org.springframework.core.annotation.AnnotatedElementUtils;
 import org.springframework.web.method.HandlerMethod;
 import org.springframework.web.reactive.HandlerMapping;
@@ -8,7 +9,6 @@ import org.springframework.web.server.ServerWebExchange;
 import reactor.core.publisher.Mono;
 
 import java.lang.reflect.Method;
-import java.util.Arrays;
 import java.util.List;
 
 /**
@@ -19,6 +19,7 @@ public class RoleCheckUtil {
 
     /**
      * 从ServerWebExchange获取HandlerMethod
+     * 注意：仅在DispatcherHandler完成Handler匹配后可用，WebFilter中请使用RoleRequirementIndex
      * 
      * @param exchange ServerWebExchange
      * @return Mono<HandlerMethod>，如果无法获取则返回空
@@ -58,6 +59,19 @@ public class RoleCheckUtil {
 
     /**
      * 校验角色code是否匹配
+     * 支持OR关系：如果用户角色code或其任一祖先角色在requiredRoles数组中，则匹配成功
+     * 
+     * @param roleHierarchy 角色继承关系
+     * @param userRoleCode 用户的角色code
+     * @param requiredRoles 需要的角色code数组
+     * @return true表示匹配成功，false表示匹配失败
+     */
+    public static boolean isRoleMatched(RoleHierarchy roleHierarchy, String userRoleCode, String[] requiredRoles) {
+        return roleHierarchy.isRoleMatched(userRoleCode, requiredRoles);
+    }
+
+    /**
+     * 校验角色code是否匹配（不考虑角色继承，需要考虑继承时使用 {@link #isRoleMatched(RoleHierarchy, String, String[])}）
      * 支持OR关系：如果用户角色code在requiredRoles数组中，则匹配成功
      * 
      * @param userRoleCode 用户的角色code
@@ -69,12 +83,16 @@ public class RoleCheckUtil {
             return false;
         }
 
-        List<String> requiredRolesList = Arrays.asList(requiredRoles);
-        return requiredRolesList.contains(userRoleCode);
+        for (String requiredRole : requiredRoles) {
+            if (userRoleCode.equals(requiredRole)) {
+                return true;
+            }
+        }
+        return false;
     }
 
     /**
-     * 校验角色code是否匹配（重载方法，支持List）
+     * 校验角色code是否匹配（重载方法，支持List，不考虑角色继承）
      * 
      * @param userRoleCode 用户的角色code
      * @param requiredRoles 需要的角色code列表
@@ -1,21 +1,59 @@
 package org.charno.common.security.util;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
+import org.charno.common.security.session.InvalidTokenCache;
+import org.charno.common.security.session.RefreshTokenService;
+import org.charno.common.security.session.SessionCodec;
+import org.charno.common.security.session.SessionStoreCircuitBreaker;
+import org.charno.common.security.session.SessionTtlRefresher;
+import org.charno.common.security.session.SignedTokenCodec;
+import org.charno.common.security.session.SignedTokenService;
+import org.charno.common.security.session.TokenSessionCache;
+import org.charno.common.security.session.UserSessionIndex;
 import org.charno.systementity.entity.SysUser;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.ReactiveStringCommands;
+import org.springframework.data.redis.connection.RedisStringCommands;
 import org.springframework.data.redis.core.ReactiveRedisTemplate;
+import org.springframework.data.redis.core.types.Expiration;
 import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
 import java.time.Duration;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneId;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
  * Token工具类
  * 提供Token生成、存储、查询、删除的便捷方法
  * 
  * 优化：将用户信息与Token一起存储到Redis，避免每次请求都访问PostgreSQL
+ * 优化：在Redis（L2）之前增加进程内L1缓存（TokenSessionCache），热点Token无需访问Redis
+ * 优化：会话使用紧凑的二进制编码（SessionCodec）存储，只保留认证需要的字段
+ * 优化：滑动过期，访问过的会话由SessionTtlRefresher批量延长TTL，活跃用户不会被强制登出
+ * 优化：按用户维护会话索引（UserSessionIndex），吊销/刷新某个用户的全部会话只访问该用户的Key
+ * 优化：同一Token的并发查询合并为一次Redis GET（页面加载时的并行请求共享结果）
+ * 容错：Redis查询有独立的超时时间并受熔断器保护，Redis不可用时使用L1的过期副本，最近访问过的用户保持登录
+ * 优化：格式错误的Token和最近确认无效的Token由InvalidTokenCache直接拒绝，不访问Redis
+ * 优化：访问Token只在短时间内有效（charno.security.session.ttl），客户端使用刷新Token（RefreshTokenService）换取新的访问Token，
+ *       Redis中的会话数量只与近期活跃的用户有关
+ *
+ * Token模式（charno.security.token.mode）：
+ * - opaque（默认）：随机UUID Token，会话保存在Redis
+ * - signed：短期有效的HMAC签名Token，会话信息编码在Token中，本地校验无需访问Redis（见 SignedTokenService）
  */
 @Component
 public class TokenUtil {
@@ -23,14 +61,70 @@ public class TokenUtil {
     private static final Logger log = LoggerFactory.getLogger(TokenUtil.class);
 
     private static final String TOKEN_PREFIX = "token:";
-    private static final long TOKEN_EXPIRE_SECONDS = 604800L; // 7天
 
-    private final ReactiveRedisTemplate<String, Object> redisTemplate;
-    private final ObjectMapper objectMapper;
+    private final ReactiveRedisTemplate<String, SysUser> redisTemplate;
+    private final TokenSessionCache sessionCache;
+    private final InvalidTokenCache invalidTokenCache;
+    private final SessionTtlRefresher ttlRefresher;
+    private final SessionStoreCircuitBreaker circuitBreaker;
+    private final UserSessionIndex sessionIndex;
+    private final SignedTokenService signedTokenService;
+    private final RefreshTokenService refreshTokenService;
+    private final Duration tokenTtl;
+    private final Duration lookupTimeout;
 
-    public TokenUtil(ReactiveRedisTemplate<String, Object> redisTemplate, ObjectMapper objectMapper) {
+    /**
+     * 正在进行中的Redis查询（按Token合并），查询完成后移除
+     */
+    private final Map<String, Mono<SysUser>> inFlightLookups = new ConcurrentHashMap<>();
+
+    public TokenUtil(@Qualifier("sessionRedisTemplate") ReactiveRedisTemplate<String, SysUser> redisTemplate,
+                     TokenSessionCache sessionCache,
+                     InvalidTokenCache invalidTokenCache,
+                     SessionTtlRefresher ttlRefresher,
+                     SessionStoreCircuitBreaker circuitBreaker,
+                     UserSessionIndex sessionIndex,
+                     ObjectProvider<SignedTokenService> signedTokenService,
+                     RefreshTokenService refreshTokenService,
+                     @Value("${charno.security.session.ttl:30m}") Duration tokenTtl,
+                     @Value("${charno.security.session.lookup-timeout:300ms}") Duration lookupTimeout) {
         this.redisTemplate = redisTemplate;
-        this.objectMapper = objectMapper;
+        this.sessionCache = sessionCache;
+        this.invalidTokenCache = invalidTokenCache;
+        this.ttlRefresher = ttlRefresher;
+        this.circuitBreaker = circuitBreaker;
+        this.sessionIndex = sessionIndex;
+        this.refreshTokenService = refreshTokenService;
+        this.tokenTtl = tokenTtl;
+        this.lookupTimeout = lookupTimeout;
+        // 仅在 signed 模式下存在
+        this.signedTokenService = signedTokenService.getIfAvailable();
+    }
+
+    /**
+     * 为用户签发访问Token
+     * opaque 模式：生成随机Token并保存会话到Redis
+     * signed 模式：在本地生成签名Token，不访问Redis
+     *
+     * @param user 用户对象
+     * @return Mono<String> Token字符串
+     */
+    public Mono<String> issueToken(SysUser user) {
+        if (signedTokenService != null) {
+            return Mono.fromCallable(() -> signedTokenService.issue(SessionCodec.project(user)));
+        }
+        String token = generateToken();
+        return saveToken(token, user).thenReturn(token);
+    }
+
+    /**
+     * 获取访问Token有效期
+     * opaque 模式为会话空闲过期时间，signed 模式为签名Token有效期
+     *
+     * @return 有效期
+     */
+    public Duration getAccessTokenTtl() {
+        return signedTokenService != null ? signedTokenService.getTokenTtl() : tokenTtl;
     }
 
     /**
@@ -45,7 +139,8 @@ public class TokenUtil {
 
     /**
      * 保存Token到Redis
-     * 将Token和用户信息（SysUser对象）存储到Redis，设置7天过期时间
+     * 将Token和会话信息（SysUser中认证需要的字段）存储到Redis，设置空闲过期时间（默认30分钟，访问时滑动延长）
+     * 保存成功后同时写入L1缓存，并加入用户会话索引，同时移除本节点的无效Token记录
      *
      * @param token Token字符串
      * @param user  用户对象
@@ -53,57 +148,238 @@ public class TokenUtil {
      */
     public Mono<Void> saveToken(String token, SysUser user) {
         String key = TOKEN_PREFIX + token;
+        SysUser session = SessionCodec.project(user);
         return redisTemplate.opsForValue()
-                .set(key, user, Duration.ofSeconds(TOKEN_EXPIRE_SECONDS))
+                .set(key, session, tokenTtl)
                 .doOnError(error -> log.warn("Failed to save token to Redis: key={}, error: {}", key, error.getMessage()))
-                .then();
+                .doOnSuccess(saved -> {
+                    invalidTokenCache.remove(token);
+                    sessionCache.put(token, session);
+                })
+                .then(sessionIndex.add(user.getId(), token));
     }
 
     /**
      * 根据Token获取用户信息
-     * 从Redis直接获取用户对象，无需查询数据库
+     * 格式错误或最近确认无效的Token直接返回空，不访问L1缓存和Redis
+     * 优先从L1缓存获取，未命中时从Redis获取并回填L1缓存，无需查询数据库
+     * L1未命中时同一Token的并发查询共享同一个进行中的Redis GET
+     * Redis查询超过 lookup-timeout、失败或熔断器打开时，改用L1的过期副本（没有副本则视为未登录）
+     * 命中的会话记录到SessionTtlRefresher，稍后批量延长TTL
+     *
+     * 注意：返回的用户对象只包含 id、status、roleCode、accountType、accountIdentifier
      *
      * @param token Token字符串
      * @return Mono<SysUser> 用户对象，如果Token不存在或已过期则返回空
      */
     public Mono<SysUser> getUserByToken(String token) {
+        if (SignedTokenCodec.isSignedToken(token)) {
+            // 签名Token在本地校验，不访问Redis；非 signed 模式下不接受签名Token
+            return signedTokenService != null ? Mono.justOrEmpty(signedTokenService.verify(token)) : Mono.empty();
+        }
+
+        if (invalidTokenCache.rejects(token)) {
+            return Mono.empty();
+        }
+
         String key = TOKEN_PREFIX + token;
-        return redisTemplate.opsForValue()
-                .get(key)
-                .flatMap(obj -> {
-                    try {
-                        // 将 Redis 中的对象转换为 SysUser
-                        // Redis 中存储的是 JSON，反序列化后可能是 LinkedHashMap
-                        SysUser user;
-                        if (obj instanceof SysUser) {
-                            user = (SysUser) obj;
-                        } else {
-                            // 如果是 LinkedHashMap 或其他类型，使用 ObjectMapper 转换
-                            user = objectMapper.convertValue(obj, SysUser.class);
-                        }
-                        return Mono.just(user);
-                    } catch (Exception e) {
-                        log.warn("Failed to convert object to SysUser: {}, error: {}", obj.getClass().getName(), e.getMessage());
-                        return Mono.empty();
+        SysUser cachedUser = sessionCache.get(token);
+        if (cachedUser != null) {
+            touch(key, cachedUser);
+            return Mono.just(cachedUser);
+        }
+
+        return Mono.defer(() -> inFlightLookups.computeIfAbsent(token, this::loadFromRedis));
+    }
+
+    /**
+     * 从Redis查询会话
+     * 结果通过 cache() 共享给等待中的调用方；查询结束（成功、为空、失败）后立即从进行中列表移除，
+     * 之后的调用走L1缓存或重新查询，不会长期持有结果；移除时只移除自身，不会误删之后登记的新查询
+     * 只有Redis明确返回"不存在"时才记录为无效Token；超时、失败、熔断时不记录
+     * cache() 不会向上游传播取消，Redis GET 总是以成功、失败或超时结束，熔断器许可由此归还
+     */
+    private Mono<SysUser> loadFromRedis(String token) {
+        String key = TOKEN_PREFIX + token;
+        AtomicReference<Mono<SysUser>> self = new AtomicReference<>();
+        Mono<SysUser> lookup = Mono.defer(() -> {
+                    if (!circuitBreaker.tryAcquire()) {
+                        return Mono.justOrEmpty(sessionCache.getStale(token));
                     }
+                    long start = System.nanoTime();
+                    return redisTemplate.opsForValue()
+                            .get(key)
+                            .timeout(lookupTimeout)
+                            .doOnSuccess(user -> {
+                                circuitBreaker.onSuccess(System.nanoTime() - start);
+                                if (user == null) {
+                                    invalidTokenCache.add(token);
+                                }
+                            })
+                            .doOnError(e -> circuitBreaker.onError())
+                            .doOnNext(user -> {
+                                sessionCache.put(token, user);
+                                touch(key, user);
+                            })
+                            .onErrorResume(e -> {
+                                log.warn("Failed to get user from Redis for token: {}, error: {}", key, e.getMessage());
+                                return Mono.justOrEmpty(sessionCache.getStale(token));
+                            });
                 })
-                .switchIfEmpty(Mono.empty())
-                .onErrorResume(e -> {
-                    log.warn("Failed to get user from Redis for token: {}, error: {}", key, e.getMessage());
-                    return Mono.empty();
-                });
+                .doFinally(signal -> inFlightLookups.remove(token, self.get()))
+                .cache();
+        self.set(lookup);
+        return lookup;
     }
 
     /**
      * 删除Token
-     * 用于登出等场景
+     * 用于登出等场景，同时使所有节点的L1缓存失效，并从用户会话索引中移除；本节点记录为无效Token
+     * 签名Token无法删除，改为加入吊销列表
      *
      * @param token Token字符串
      * @return Mono<Long> 删除操作的结果（1表示删除成功，0表示Token不存在）
      */
     public Mono<Long> deleteToken(String token) {
+        if (SignedTokenCodec.isSignedToken(token)) {
+            return signedTokenService != null
+                    ? signedTokenService.revoke(token).map(revoked -> revoked ? 1L : 0L)
+                    : Mono.just(0L);
+        }
         String key = TOKEN_PREFIX + token;
-        return redisTemplate.delete(key);
+        Mono<Void> unindex = redisTemplate.opsForValue().get(key)
+                .flatMap(user -> sessionIndex.remove(user.getId(), List.of(token)))
+                .onErrorResume(e -> Mono.empty());
+        return unindex
+                .then(redisTemplate.delete(key))
+                .doOnSuccess(deleted -> invalidTokenCache.add(token))
+                .flatMap(deleted -> sessionCache.invalidateToken(token).thenReturn(deleted));
+    }
+
+    /**
+     * 吊销某个用户的全部会话
+     * 用于禁用、删除用户等场景：通过用户会话索引定位该用户的Token并删除，同时使各节点L1缓存失效，
+     * 并吊销该用户的全部刷新Token
+     *
+     * @param userId 用户ID
+     * @return Mono<Long> 删除的会话数量
+     */
+    public Mono<Long> revokeAllForUser(UUID userId) {
+        return sessionIndex.members(userId)
+                .map(tuple -> TOKEN_PREFIX + tuple.getValue())
+                .collectList()
+                .flatMap(keys -> keys.isEmpty()
+                        ? Mono.just(0L)
+                        : redisTemplate.delete(keys.toArray(new String[0])))
+                .flatMap(deleted -> sessionIndex.delete(userId)
+                        .then(refreshTokenService.revokeAll(userId))
+                        .then(invalidateUserSessions(userId))
+                        .thenReturn(deleted));
+    }
+
+    /**
+     * 刷新某个用户全部会话中的用户信息
+     * 用于修改角色等场景：用户保持登录，但各会话立即使用新的用户信息
+     * 使用 SET ... KEEPTTL XX 批量覆盖，只更新仍然存在的会话且不改变其过期时间；已过期的会话从索引中清理
+     * signed 模式下签名Token中的信息无法更新，会被吊销（需要重新登录）
+     *
+     * @param user 更新后的用户对象
+     * @return Mono<Long> 更新的会话数量
+     */
+    public Mono<Long> refreshAllForUser(SysUser user) {
+        UUID userId = user.getId();
+        ByteBuffer value = ByteBuffer.wrap(SessionCodec.encode(SessionCodec.project(user)));
+
+        return sessionIndex.members(userId)
+                .map(tuple -> tuple.getValue())
+                .collectList()
+                .flatMap(tokens -> {
+                    if (tokens.isEmpty()) {
+                        return Mono.just(0L);
+                    }
+                    Flux<ReactiveStringCommands.SetCommand> commands = Flux.fromIterable(tokens)
+                            .map(token -> ReactiveStringCommands.SetCommand
+                                    .set(ByteBuffer.wrap((TOKEN_PREFIX + token).getBytes(StandardCharsets.UTF_8)))
+                                    .value(value.duplicate())
+                                    .expiring(Expiration.keepTtl())
+                                    .withSetOption(RedisStringCommands.SetOption.ifPresent()));
+                    return redisTemplate.execute(connection -> connection.stringCommands().set(commands))
+                            .collectList()
+                            .flatMap(responses -> {
+                                List<String> expired = responses.stream()
+                                        .filter(response -> !Boolean.TRUE.equals(response.getOutput()))
+                                        .map(response -> StandardCharsets.UTF_8.decode(response.getInput().getKey().duplicate())
+                                                .toString().substring(TOKEN_PREFIX.length()))
+                                        .toList();
+                                return sessionIndex.remove(userId, expired)
+                                        .thenReturn((long) (responses.size() - expired.size()));
+                            });
+                })
+                .flatMap(updated -> invalidateUserSessions(userId).thenReturn(updated));
+    }
+
+    /**
+     * 列出某个用户的活跃会话
+     * 不返回Token本身，只返回不可逆的会话标识；已过期的会话从索引中清理
+     *
+     * @param userId 用户ID
+     * @return Flux<Map> 会话信息，包含 sessionId、loginAt、expiresInSeconds
+     */
+    public Flux<Map<String, Object>> listSessions(UUID userId) {
+        return sessionIndex.members(userId)
+                .flatMapSequential(tuple -> {
+                    String token = tuple.getValue();
+                    return redisTemplate.getExpire(TOKEN_PREFIX + token)
+                            .map(ttl -> {
+                                Map<String, Object> session = new LinkedHashMap<>();
+                                session.put("sessionId", UserSessionIndex.sessionId(token));
+                                session.put("loginAt", OffsetDateTime.ofInstant(
+                                        Instant.ofEpochMilli(tuple.getScore().longValue()), ZoneId.systemDefault()));
+                                session.put("expiresInSeconds", ttl.toSeconds());
+                                return session;
+                            })
+                            .switchIfEmpty(sessionIndex.remove(userId, List.of(token)).then(Mono.<Map<String, Object>>empty()));
+                });
+    }
+
+    /**
+     * 吊销某个用户的单个会话
+     *
+     * @param userId    用户ID
+     * @param sessionId 会话标识（见 {@link #listSessions(UUID)}）
+     * @return Mono<Boolean> true 表示找到并删除了该会话
+     */
+    public Mono<Boolean> revokeSession(UUID userId, String sessionId) {
+        return sessionIndex.members(userId)
+                .map(tuple -> tuple.getValue())
+                .filter(token -> UserSessionIndex.sessionId(token).equals(sessionId))
+                .next()
+                .flatMap(token -> deleteToken(token).map(deleted -> deleted > 0))
+                .defaultIfEmpty(false);
+    }
+
+    /**
+     * 使某个用户的L1会话缓存失效
+     * 用于用户信息被修改或删除的场景，确保各节点不会继续使用本地缓存中的旧用户信息
+     * signed 模式下同时吊销该用户已签发的签名Token（签名Token中的用户信息无法更新）
+     *
+     * @param userId 用户ID
+     * @return Mono<Void>
+     */
+    public Mono<Void> invalidateUserSessions(UUID userId) {
+        Mono<Void> invalidation = sessionCache.invalidateUser(userId);
+        if (signedTokenService != null) {
+            invalidation = invalidation.then(signedTokenService.revokeUser(userId));
+        }
+        return invalidation;
+    }
+
+    /**
+     * 记录会话访问，会话Key和用户会话索引一起滑动延长
+     */
+    private void touch(String key, SysUser user) {
+        ttlRefresher.touch(key);
+        ttlRefresher.touch(UserSessionIndex.key(user.getId()));
     }
 }
 
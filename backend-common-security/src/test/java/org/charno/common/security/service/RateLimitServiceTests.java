@@ -0,0 +1,96 @@
+package org.charno.common.security.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.charno.common.security.annotation.RateLimit;
+import org.junit.jupiter.api.Test;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * RateLimitService 单元测试
+ * 令牌桶的补充与等待时间计算使用二进制可精确表示的速率，避免浮点误差影响断言
+ */
+class RateLimitServiceTests {
+
+    private static final long T0 = 1_700_000_000_000L;
+
+    @Test
+    void startsFullAndAllowsCapacityBurst() {
+        RateLimitService.LocalBucket bucket = new RateLimitService.LocalBucket(3, 0.25, T0);
+
+        assertThat(bucket.tryAcquire(T0)).isZero();
+        assertThat(bucket.tryAcquire(T0)).isZero();
+        assertThat(bucket.tryAcquire(T0)).isZero();
+        // 桶已空，补充一个令牌需要 1 / 0.25 = 4ms
+        assertThat(bucket.tryAcquire(T0)).isEqualTo(4);
+    }
+
+    @Test
+    void waitCoversOnlyTheMissingFraction() {
+        RateLimitService.LocalBucket bucket = new RateLimitService.LocalBucket(1, 0.25, T0);
+        assertThat(bucket.tryAcquire(T0)).isZero();
+
+        // 2ms 补充 0.5 个令牌，还差 0.5 个
+        assertThat(bucket.tryAcquire(T0 + 2)).isEqualTo(2);
+        // 被拒绝的请求不消耗令牌
+        assertThat(bucket.tryAcquire(T0 + 3)).isEqualTo(1);
+        assertThat(bucket.tryAcquire(T0 + 4)).isZero();
+    }
+
+    @Test
+    void roundsFractionalWaitUp() {
+        RateLimitService.LocalBucket bucket = new RateLimitService.LocalBucket(1, 0.125, T0);
+        assertThat(bucket.tryAcquire(T0)).isZero();
+
+        // 还差 1 - 0.375 = 0.625 个令牌，需要 5ms
+        assertThat(bucket.tryAcquire(T0 + 3)).isEqualTo(5);
+        // 还差 0.125 个令牌，需要 1ms
+        assertThat(bucket.tryAcquire(T0 + 7)).isEqualTo(1);
+    }
+
+    @Test
+    void refillIsCappedAtCapacity() {
+        RateLimitService.LocalBucket bucket = new RateLimitService.LocalBucket(2, 0.25, T0);
+        assertThat(bucket.tryAcquire(T0)).isZero();
+        assertThat(bucket.tryAcquire(T0)).isZero();
+
+        // 空闲一小时后最多补满到容量
+        long later = T0 + Duration.ofHours(1).toMillis();
+        assertThat(bucket.tryAcquire(later)).isZero();
+        assertThat(bucket.tryAcquire(later)).isZero();
+        assertThat(bucket.tryAcquire(later)).isEqualTo(4);
+    }
+
+    @Test
+    void ignoresClockGoingBackwards() {
+        RateLimitService.LocalBucket bucket = new RateLimitService.LocalBucket(1, 0.25, T0);
+        assertThat(bucket.tryAcquire(T0)).isZero();
+
+        // 时间回拨不补充令牌，也不产生负的令牌数
+        assertThat(bucket.tryAcquire(T0 - 1_000)).isEqualTo(4);
+        assertThat(bucket.tryAcquire(T0 - 996)).isZero();
+    }
+
+    @Test
+    void localModeLimitsPerBucketKeyAndCountsOutcomes() {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        RateLimitService service = new RateLimitService(null, meterRegistry, "local", 100, Duration.ofHours(1));
+        // 每分钟2个令牌，测试期间可以忽略补充
+        RateLimitIndex.Rule rule = new RateLimitIndex.Rule("login", 2, 2.0 / 60_000, RateLimit.Key.IP);
+
+        StepVerifier.create(service.tryAcquire("login:10.0.0.1", rule)).expectNext(0L).verifyComplete();
+        StepVerifier.create(service.tryAcquire("login:10.0.0.1", rule)).expectNext(0L).verifyComplete();
+        StepVerifier.create(service.tryAcquire("login:10.0.0.1", rule))
+                .assertNext(wait -> assertThat(wait).isPositive().isLessThanOrEqualTo(30_000L))
+                .verifyComplete();
+        StepVerifier.create(service.tryAcquire("login:10.0.0.2", rule)).expectNext(0L).verifyComplete();
+
+        assertThat(meterRegistry.get("rate.limit.requests").tag("name", "login").tag("outcome", "allowed")
+                .counter().count()).isEqualTo(3);
+        assertThat(meterRegistry.get("rate.limit.requests").tag("name", "login").tag("outcome", "rejected")
+                .counter().count()).isEqualTo(1);
+    }
+}
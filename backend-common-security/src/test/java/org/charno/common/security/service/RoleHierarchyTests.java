@@ -0,0 +1,141 @@
+package org.charno.common.security.service;
+
+import org.charno.systementity.entity.SysRole;
+import org.charno.systementity.repository.SysRoleRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * RoleHierarchy 单元测试
+ */
+class RoleHierarchyTests {
+
+    @Test
+    void closureContainsSelfAndAllAncestors() {
+        Map<String, Set<String>> closures = RoleHierarchy.computeClosures(List.of(
+                role("ADMIN", null),
+                role("MANAGER", "ADMIN"),
+                role("AUDITOR", "MANAGER"),
+                role("USER", null)));
+
+        assertThat(closures.get("ADMIN")).containsExactlyInAnyOrder("ADMIN");
+        assertThat(closures.get("MANAGER")).containsExactlyInAnyOrder("MANAGER", "ADMIN");
+        assertThat(closures.get("AUDITOR")).containsExactlyInAnyOrder("AUDITOR", "MANAGER", "ADMIN");
+        assertThat(closures.get("USER")).containsExactlyInAnyOrder("USER");
+    }
+
+    @Test
+    void siblingsDoNotInheritFromEachOther() {
+        Map<String, Set<String>> closures = RoleHierarchy.computeClosures(List.of(
+                role("ADMIN", null),
+                role("EDITOR", "ADMIN"),
+                role("VIEWER", "ADMIN")));
+
+        assertThat(closures.get("EDITOR")).doesNotContain("VIEWER");
+        assertThat(closures.get("VIEWER")).doesNotContain("EDITOR");
+    }
+
+    @Test
+    void stopsAtCycles() {
+        Map<String, Set<String>> closures = RoleHierarchy.computeClosures(List.of(
+                role("A", "B"),
+                role("B", "C"),
+                role("C", "A"),
+                role("D", "A")));
+
+        assertThat(closures.get("A")).containsExactlyInAnyOrder("A", "B", "C");
+        assertThat(closures.get("B")).containsExactlyInAnyOrder("A", "B", "C");
+        assertThat(closures.get("C")).containsExactlyInAnyOrder("A", "B", "C");
+        // 指向环的角色得到整个环，但不会被环中的角色继承
+        assertThat(closures.get("D")).containsExactlyInAnyOrder("D", "A", "B", "C");
+        assertThat(closures.get("A")).doesNotContain("D");
+    }
+
+    @Test
+    void stopsAtSelfReference() {
+        Map<String, Set<String>> closures = RoleHierarchy.computeClosures(List.of(role("A", "A")));
+
+        assertThat(closures.get("A")).containsExactly("A");
+    }
+
+    @Test
+    void keepsParentMissingFromSysRole() {
+        Map<String, Set<String>> closures = RoleHierarchy.computeClosures(List.of(role("CHILD", "GONE")));
+
+        assertThat(closures.get("CHILD")).containsExactlyInAnyOrder("CHILD", "GONE");
+        assertThat(closures).doesNotContainKey("GONE");
+    }
+
+    @Test
+    void matchesInheritedRoles() {
+        RoleHierarchy hierarchy = hierarchy(Flux.just(role("ADMIN", null), role("MANAGER", "ADMIN")));
+        StepVerifier.create(hierarchy.refresh()).verifyComplete();
+
+        assertThat(hierarchy.isRoleMatched("MANAGER", "ADMIN")).isTrue();
+        assertThat(hierarchy.isRoleMatched("ADMIN", "MANAGER")).isFalse();
+        assertThat(hierarchy.isRoleMatched("MANAGER", "USER", "ADMIN")).isTrue();
+        assertThat(hierarchy.isRoleMatched(null, "ADMIN")).isFalse();
+        assertThat(hierarchy.isRoleMatched("MANAGER", (String[]) null)).isFalse();
+        assertThat(hierarchy.getRoleCodes()).containsExactlyInAnyOrder("ADMIN", "MANAGER");
+    }
+
+    @Test
+    void unknownRoleMatchesOnlyItself() {
+        RoleHierarchy hierarchy = hierarchy(Flux.just(role("ADMIN", null)));
+        StepVerifier.create(hierarchy.refresh()).verifyComplete();
+
+        assertThat(hierarchy.getAncestors("GUEST")).containsExactly("GUEST");
+        assertThat(hierarchy.isRoleMatched("GUEST", "GUEST")).isTrue();
+        assertThat(hierarchy.isRoleMatched("GUEST", "ADMIN")).isFalse();
+    }
+
+    @Test
+    void keepsClosuresAndSkipsListenersWhenReloadFails() {
+        SysRoleRepository repository = mock(SysRoleRepository.class);
+        when(repository.findAll())
+                .thenReturn(Flux.just(role("ADMIN", null), role("MANAGER", "ADMIN")))
+                .thenReturn(Flux.error(new IllegalStateException("database unavailable")));
+        RoleHierarchy hierarchy = new RoleHierarchy(repository, redis());
+        AtomicInteger notified = new AtomicInteger();
+        hierarchy.addListener(notified::incrementAndGet);
+
+        StepVerifier.create(hierarchy.refresh()).verifyComplete();
+        StepVerifier.create(hierarchy.refresh()).verifyComplete();
+
+        assertThat(notified).hasValue(1);
+        assertThat(hierarchy.isRoleMatched("MANAGER", "ADMIN")).isTrue();
+    }
+
+    private static RoleHierarchy hierarchy(Flux<SysRole> roles) {
+        SysRoleRepository repository = mock(SysRoleRepository.class);
+        when(repository.findAll()).thenReturn(roles);
+        return new RoleHierarchy(repository, redis());
+    }
+
+    private static ReactiveStringRedisTemplate redis() {
+        ReactiveStringRedisTemplate redis = mock(ReactiveStringRedisTemplate.class);
+        when(redis.convertAndSend(eq(RoleHierarchy.REFRESH_CHANNEL), anyString())).thenReturn(Mono.just(1L));
+        return redis;
+    }
+
+    private static SysRole role(String code, String parentCode) {
+        SysRole role = new SysRole();
+        role.setCode(code);
+        role.setParentCode(parentCode);
+        return role;
+    }
+}
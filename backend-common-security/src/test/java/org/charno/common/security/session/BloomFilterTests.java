@@ -0,0 +1,75 @@
+package org.charno.common.security.session;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * BloomFilter 单元测试
+ * 使用固定种子生成随机UUID，结果可重复
+ */
+class BloomFilterTests {
+
+    @Test
+    void emptyFilterContainsNothing() {
+        BloomFilter filter = new BloomFilter(1000, 0.01);
+
+        assertThat(filter.mightContain(UUID.randomUUID())).isFalse();
+    }
+
+    @Test
+    void hasNoFalseNegatives() {
+        Random random = new Random(42);
+        BloomFilter filter = new BloomFilter(10_000, 0.01);
+        List<UUID> inserted = new ArrayList<>();
+        for (int i = 0; i < 10_000; i++) {
+            UUID value = randomUuid(random);
+            filter.put(value);
+            inserted.add(value);
+        }
+
+        assertThat(inserted).allMatch(filter::mightContain);
+    }
+
+    @Test
+    void falsePositiveRateStaysNearTarget() {
+        Random random = new Random(7);
+        BloomFilter filter = new BloomFilter(10_000, 0.01);
+        for (int i = 0; i < 10_000; i++) {
+            filter.put(randomUuid(random));
+        }
+
+        int falsePositives = 0;
+        int probes = 100_000;
+        for (int i = 0; i < probes; i++) {
+            if (filter.mightContain(randomUuid(random))) {
+                falsePositives++;
+            }
+        }
+
+        assertThat((double) falsePositives / probes).isLessThan(0.02);
+    }
+
+    @Test
+    void toleratesDegenerateSizing() {
+        BloomFilter filter = new BloomFilter(0, 0);
+        UUID value = UUID.randomUUID();
+        filter.put(value);
+
+        assertThat(filter.mightContain(value)).isTrue();
+    }
+
+    /**
+     * 与 UUID.randomUUID() 相同的版本4格式，但使用可重复的随机源
+     */
+    private static UUID randomUuid(Random random) {
+        long msb = (random.nextLong() & ~0xF000L) | 0x4000L;
+        long lsb = (random.nextLong() & ~(0xC000L << 48)) | (0x8000L << 48);
+        return new UUID(msb, lsb);
+    }
+}
@@ -0,0 +1,118 @@
+package org.charno.common.security.session;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * InvalidTokenCache 单元测试
+ * 使用可控时钟驱动精确缓存过期和布隆过滤器轮换
+ */
+class InvalidTokenCacheTests {
+
+    private static final Duration TTL = Duration.ofSeconds(30);
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final AtomicLong clock = new AtomicLong(1_000_000_000L);
+    private final InvalidTokenCache cache = new InvalidTokenCache(meterRegistry, 1000, TTL, clock::get);
+
+    @Test
+    void acceptsUuidShapedTokens() {
+        assertThat(InvalidTokenCache.isUuidShaped("0b7e1f4a-2c3d-4e5f-8a9b-0c1d2e3f4a5b")).isTrue();
+        assertThat(InvalidTokenCache.isUuidShaped("0B7E1F4A-2C3D-4E5F-8A9B-0C1D2E3F4A5B")).isTrue();
+        assertThat(InvalidTokenCache.isUuidShaped(UUID.randomUUID().toString())).isTrue();
+    }
+
+    @Test
+    void rejectsMisshapedTokens() {
+        assertThat(InvalidTokenCache.isUuidShaped(null)).isFalse();
+        assertThat(InvalidTokenCache.isUuidShaped("")).isFalse();
+        // 长度不对
+        assertThat(InvalidTokenCache.isUuidShaped("0b7e1f4a-2c3d-4e5f-8a9b-0c1d2e3f4a5")).isFalse();
+        assertThat(InvalidTokenCache.isUuidShaped("0b7e1f4a-2c3d-4e5f-8a9b-0c1d2e3f4a5b0")).isFalse();
+        // 分隔符位置不对
+        assertThat(InvalidTokenCache.isUuidShaped("0b7e1f4a2-c3d-4e5f-8a9b-0c1d2e3f4a5b")).isFalse();
+        assertThat(InvalidTokenCache.isUuidShaped("0b7e1f4a-2c3d-4e5f-8a9b_0c1d2e3f4a5b")).isFalse();
+        // 非十六进制字符
+        assertThat(InvalidTokenCache.isUuidShaped("0b7e1f4a-2c3d-4e5f-8a9b-0c1d2e3f4a5g")).isFalse();
+        // 签名Token
+        assertThat(InvalidTokenCache.isUuidShaped("AAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAA.sig")).isFalse();
+    }
+
+    @Test
+    void rejectsNonAsciiDigits() {
+        // Character.digit 会把全角数字、阿拉伯-印度数字当作十六进制数字
+        assertThat(InvalidTokenCache.isUuidShaped("０b7e1f4a-2c3d-4e5f-8a9b-0c1d2e3f4a5b")).isFalse();
+        assertThat(InvalidTokenCache.isUuidShaped("١b7e1f4a-2c3d-4e5f-8a9b-0c1d2e3f4a5b")).isFalse();
+    }
+
+    @Test
+    void rejectsMalformedTokensAndCountsThem() {
+        assertThat(cache.rejects("not-a-token")).isTrue();
+        assertThat(cache.rejects(null)).isTrue();
+
+        assertThat(meterRegistry.get("token.invalid.rejected").tag("reason", "malformed").counter().count()).isEqualTo(2);
+    }
+
+    @Test
+    void rejectsRecordedTokensUntilRemoved() {
+        String token = UUID.randomUUID().toString();
+        assertThat(cache.rejects(token)).isFalse();
+
+        cache.add(token);
+        assertThat(cache.rejects(token)).isTrue();
+        assertThat(meterRegistry.get("token.invalid.rejected").tag("reason", "cached").counter().count()).isEqualTo(1);
+
+        // Token 被重新保存后不再拒绝（布隆过滤器仍判定为"可能存在"，由精确缓存决定）
+        cache.remove(token);
+        assertThat(cache.rejects(token)).isFalse();
+    }
+
+    @Test
+    void ignoresMalformedTokensOnAdd() {
+        cache.add("not-a-token");
+
+        assertThat(cache.rejects(UUID.randomUUID().toString())).isFalse();
+    }
+
+    @Test
+    void forgetsTokensAfterTtl() {
+        String token = UUID.randomUUID().toString();
+        cache.add(token);
+
+        advance(TTL.minusNanos(1));
+        assertThat(cache.rejects(token)).isTrue();
+
+        advance(Duration.ofNanos(1));
+        assertThat(cache.rejects(token)).isFalse();
+    }
+
+    @Test
+    void previousBloomFilterGenerationKeepsCachedTokensVisible() {
+        String early = UUID.randomUUID().toString();
+        String late = UUID.randomUUID().toString();
+        cache.add(early);
+        advance(TTL.minusSeconds(1));
+        cache.add(late);
+
+        // 下一次 add 轮换布隆过滤器，late 仍在精确缓存中，只能由上一代布隆过滤器判定为"可能存在"
+        advance(Duration.ofSeconds(1));
+        cache.add(UUID.randomUUID().toString());
+        assertThat(cache.rejects(late)).isTrue();
+        assertThat(cache.rejects(early)).isFalse();
+
+        // 再轮换一次后 late 所在的一代被丢弃，此时它在精确缓存中也已过期
+        advance(TTL);
+        cache.add(UUID.randomUUID().toString());
+        assertThat(cache.rejects(late)).isFalse();
+    }
+
+    private void advance(Duration duration) {
+        clock.addAndGet(duration.toNanos());
+    }
+}
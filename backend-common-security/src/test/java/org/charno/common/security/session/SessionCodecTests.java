@@ -0,0 +1,154 @@
+package org.charno.common.security.session;
+
+import org.charno.systementity.entity.SysUser;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * SessionCodec 单元测试
+ */
+class SessionCodecTests {
+
+    private static final UUID USER_ID = UUID.fromString("6f1c2a9e-8b4d-4e3f-9a1b-2c3d4e5f6a7b");
+
+    @Test
+    void roundTripsSessionFields() {
+        SysUser decoded = SessionCodec.decode(SessionCodec.encode(user("alice")));
+
+        assertSession(decoded, "alice");
+    }
+
+    @Test
+    void roundTripsNullAndEmptyFields() {
+        SysUser user = user("");
+        user.setStatus(null);
+        user.setRoleCode(null);
+
+        SysUser decoded = SessionCodec.decode(SessionCodec.encode(user));
+
+        assertThat(decoded.getStatus()).isNull();
+        assertThat(decoded.getRoleCode()).isNull();
+        assertThat(decoded.getAccountType()).isEqualTo("USERNAME");
+        assertThat(decoded.getAccountIdentifier()).isEmpty();
+    }
+
+    @Test
+    void roundTripsMultiByteCharacters() {
+        SysUser decoded = SessionCodec.decode(SessionCodec.encode(user("管理员-😀")));
+
+        assertThat(decoded.getAccountIdentifier()).isEqualTo("管理员-😀");
+    }
+
+    @Test
+    void writesHeaderAndLeavesSmallRecordsUncompressed() {
+        byte[] record = SessionCodec.encode(user("alice"));
+
+        assertThat(SessionCodec.isSessionRecord(record)).isTrue();
+        assertThat(record[0]).isEqualTo(SessionCodec.MAGIC);
+        assertThat(record[1]).isEqualTo(SessionCodec.VERSION);
+        assertThat(record[2]).isZero();
+    }
+
+    @Test
+    void compressesLargeRecords() {
+        String identifier = "a".repeat(1000);
+
+        byte[] record = SessionCodec.encode(user(identifier));
+
+        assertThat(record[2] & 1).isEqualTo(1);
+        assertThat(record.length).isLessThan(identifier.length());
+        assertSession(SessionCodec.decode(record), identifier);
+    }
+
+    @Test
+    void roundTripsFieldsLongerThanSignedShortRange() {
+        // 超过 32767 字节的长度不能被当作负数（null）读取
+        String identifier = "x".repeat(40_000);
+
+        assertSession(SessionCodec.decode(SessionCodec.encode(user(identifier))), identifier);
+    }
+
+    @Test
+    void roundTripsFieldAtMaximumLength() {
+        String identifier = "y".repeat(SessionCodec.MAX_STRING_LENGTH);
+
+        assertSession(SessionCodec.decode(SessionCodec.encode(user(identifier))), identifier);
+    }
+
+    @Test
+    void rejectsOversizeFields() {
+        SysUser user = user("z".repeat(SessionCodec.MAX_STRING_LENGTH + 1));
+
+        assertThatThrownBy(() -> SessionCodec.encode(user)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void rejectsRecordsWithoutMagic() {
+        byte[] json = "{\"id\":\"x\"}".getBytes(StandardCharsets.UTF_8);
+
+        assertThat(SessionCodec.isSessionRecord(json)).isFalse();
+        assertThat(SessionCodec.isSessionRecord(null)).isFalse();
+        assertThatThrownBy(() -> SessionCodec.decode(json)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void rejectsUnsupportedVersion() {
+        byte[] record = SessionCodec.encode(user("alice"));
+        record[1] = (byte) (SessionCodec.VERSION + 1);
+
+        assertThatThrownBy(() -> SessionCodec.decode(record)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void rejectsTruncatedRecords() {
+        byte[] record = SessionCodec.encode(user("alice"));
+        byte[] truncated = Arrays.copyOf(record, record.length - 3);
+
+        assertThatThrownBy(() -> SessionCodec.decode(truncated)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void rejectsTruncatedCompressedRecords() {
+        byte[] record = SessionCodec.encode(user("a".repeat(1000)));
+        byte[] truncated = Arrays.copyOf(record, record.length - 4);
+
+        assertThatThrownBy(() -> SessionCodec.decode(truncated)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void projectKeepsOnlySessionFields() {
+        SysUser user = user("alice");
+        user.setPasswordHash("hash");
+        user.setNickname("Alice");
+
+        SysUser session = SessionCodec.project(user);
+
+        assertSession(session, "alice");
+        assertThat(session.getPasswordHash()).isNull();
+        assertThat(session.getNickname()).isNull();
+    }
+
+    private static SysUser user(String accountIdentifier) {
+        SysUser user = new SysUser();
+        user.setId(USER_ID);
+        user.setStatus("ENABLED");
+        user.setRoleCode("ADMIN");
+        user.setAccountType("USERNAME");
+        user.setAccountIdentifier(accountIdentifier);
+        return user;
+    }
+
+    private static void assertSession(SysUser session, String accountIdentifier) {
+        assertThat(session.getId()).isEqualTo(USER_ID);
+        assertThat(session.getStatus()).isEqualTo("ENABLED");
+        assertThat(session.getRoleCode()).isEqualTo("ADMIN");
+        assertThat(session.getAccountType()).isEqualTo("USERNAME");
+        assertThat(session.getAccountIdentifier()).isEqualTo(accountIdentifier);
+    }
+}
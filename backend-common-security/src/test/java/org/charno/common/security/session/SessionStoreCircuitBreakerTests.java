@@ -0,0 +1,152 @@
+package org.charno.common.security.session;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * SessionStoreCircuitBreaker 单元测试
+ * 窗口10次、最少5次调用、失败率50%、慢调用率80%、慢调用100ms、半开试探2次
+ */
+class SessionStoreCircuitBreakerTests {
+
+    private static final long FAST = Duration.ofMillis(1).toNanos();
+    private static final long SLOW = Duration.ofMillis(200).toNanos();
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Test
+    void staysClosedBelowMinimumCalls() {
+        SessionStoreCircuitBreaker breaker = breaker(Duration.ofMinutes(1));
+
+        for (int i = 0; i < 4; i++) {
+            assertThat(breaker.tryAcquire()).isTrue();
+            breaker.onError();
+        }
+
+        assertThat(breaker.getState()).isEqualTo(SessionStoreCircuitBreaker.State.CLOSED);
+    }
+
+    @Test
+    void opensWhenFailureRateReachesThreshold() {
+        SessionStoreCircuitBreaker breaker = breaker(Duration.ofMinutes(1));
+
+        succeed(breaker, 3);
+        fail(breaker, 2);
+        assertThat(breaker.getState()).isEqualTo(SessionStoreCircuitBreaker.State.CLOSED);
+
+        fail(breaker, 1);
+        assertThat(breaker.getState()).isEqualTo(SessionStoreCircuitBreaker.State.OPEN);
+    }
+
+    @Test
+    void opensWhenSlowCallRateReachesThreshold() {
+        SessionStoreCircuitBreaker breaker = breaker(Duration.ofMinutes(1));
+
+        succeed(breaker, 1);
+        for (int i = 0; i < 4; i++) {
+            assertThat(breaker.tryAcquire()).isTrue();
+            breaker.onSuccess(SLOW);
+        }
+
+        assertThat(breaker.getState()).isEqualTo(SessionStoreCircuitBreaker.State.OPEN);
+    }
+
+    @Test
+    void slidingWindowForgetsOldFailures() {
+        SessionStoreCircuitBreaker breaker = breaker(Duration.ofMinutes(1));
+
+        // 窗口内 6次成功 + 4次失败 = 40% 失败率
+        succeed(breaker, 6);
+        fail(breaker, 4);
+        // 之后的10次成功依次挤出窗口内的全部旧结果
+        succeed(breaker, 10);
+        // 旧的失败已被遗忘，窗口内重新为 40% 失败率
+        fail(breaker, 4);
+
+        assertThat(breaker.getState()).isEqualTo(SessionStoreCircuitBreaker.State.CLOSED);
+    }
+
+    @Test
+    void rejectsCallsWhileOpenAndCountsRejections() {
+        SessionStoreCircuitBreaker breaker = breaker(Duration.ofMinutes(1));
+        fail(breaker, 5);
+
+        assertThat(breaker.tryAcquire()).isFalse();
+        assertThat(breaker.tryAcquire()).isFalse();
+        assertThat(meterRegistry.get("token.session.breaker.rejected").counter().count()).isEqualTo(2);
+        assertThat(meterRegistry.get("token.session.breaker.state").tag("state", "open").gauge().value()).isEqualTo(1);
+    }
+
+    @Test
+    void halfOpenAllowsLimitedProbesAndClosesAfterSuccesses() {
+        SessionStoreCircuitBreaker breaker = breaker(Duration.ZERO);
+        fail(breaker, 5);
+        assertThat(breaker.getState()).isEqualTo(SessionStoreCircuitBreaker.State.OPEN);
+
+        assertThat(breaker.tryAcquire()).isTrue();
+        assertThat(breaker.getState()).isEqualTo(SessionStoreCircuitBreaker.State.HALF_OPEN);
+        assertThat(breaker.tryAcquire()).isTrue();
+        assertThat(breaker.tryAcquire()).isFalse();
+
+        breaker.onSuccess(FAST);
+        assertThat(breaker.getState()).isEqualTo(SessionStoreCircuitBreaker.State.HALF_OPEN);
+        breaker.onSuccess(FAST);
+        assertThat(breaker.getState()).isEqualTo(SessionStoreCircuitBreaker.State.CLOSED);
+    }
+
+    @Test
+    void closingResetsTheWindow() {
+        SessionStoreCircuitBreaker breaker = breaker(Duration.ZERO);
+        fail(breaker, 5);
+        succeed(breaker, 2);
+        assertThat(breaker.getState()).isEqualTo(SessionStoreCircuitBreaker.State.CLOSED);
+
+        // 打开前的失败不再计入，需要重新达到最少调用次数
+        fail(breaker, 4);
+        assertThat(breaker.getState()).isEqualTo(SessionStoreCircuitBreaker.State.CLOSED);
+    }
+
+    @Test
+    void halfOpenFailureReopens() {
+        SessionStoreCircuitBreaker breaker = breaker(Duration.ZERO);
+        fail(breaker, 5);
+
+        assertThat(breaker.tryAcquire()).isTrue();
+        breaker.onError();
+
+        assertThat(breaker.getState()).isEqualTo(SessionStoreCircuitBreaker.State.OPEN);
+    }
+
+    @Test
+    void halfOpenSlowCallReopens() {
+        SessionStoreCircuitBreaker breaker = breaker(Duration.ZERO);
+        fail(breaker, 5);
+
+        assertThat(breaker.tryAcquire()).isTrue();
+        breaker.onSuccess(SLOW);
+
+        assertThat(breaker.getState()).isEqualTo(SessionStoreCircuitBreaker.State.OPEN);
+    }
+
+    private SessionStoreCircuitBreaker breaker(Duration openDuration) {
+        return new SessionStoreCircuitBreaker(meterRegistry, 10, 5, 50, 80, Duration.ofMillis(100), openDuration, 2);
+    }
+
+    private static void succeed(SessionStoreCircuitBreaker breaker, int calls) {
+        for (int i = 0; i < calls; i++) {
+            assertThat(breaker.tryAcquire()).isTrue();
+            breaker.onSuccess(FAST);
+        }
+    }
+
+    private static void fail(SessionStoreCircuitBreaker breaker, int calls) {
+        for (int i = 0; i < calls; i++) {
+            assertThat(breaker.tryAcquire()).isTrue();
+            breaker.onError();
+        }
+    }
+}
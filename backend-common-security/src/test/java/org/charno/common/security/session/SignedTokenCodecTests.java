@@ -0,0 +1,98 @@
+package org.charno.common.security.session;
+
+import org.charno.systementity.entity.SysUser;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * SignedTokenCodec 单元测试
+ */
+class SignedTokenCodecTests {
+
+    private static final byte[] SECRET = "0123456789abcdef0123456789abcdef".getBytes(StandardCharsets.US_ASCII);
+    private static final UUID JTI = UUID.fromString("0b7e1f4a-2c3d-4e5f-8a9b-0c1d2e3f4a5b");
+    private static final long ISSUED_AT = 1_700_000_000_000L;
+    private static final long EXPIRES_AT = ISSUED_AT + 900_000L;
+
+    private final SignedTokenCodec codec = new SignedTokenCodec(SECRET);
+
+    @Test
+    void roundTripsClaims() {
+        SysUser user = user();
+
+        SignedTokenCodec.Claims claims = codec.decode(codec.encode(user, JTI, ISSUED_AT, EXPIRES_AT));
+
+        assertThat(claims).isNotNull();
+        assertThat(claims.jti()).isEqualTo(JTI);
+        assertThat(claims.issuedAt()).isEqualTo(ISSUED_AT);
+        assertThat(claims.expiresAt()).isEqualTo(EXPIRES_AT);
+        assertThat(claims.user().getId()).isEqualTo(user.getId());
+        assertThat(claims.user().getStatus()).isEqualTo("ENABLED");
+        assertThat(claims.user().getRoleCode()).isEqualTo("ADMIN");
+        assertThat(claims.user().getAccountType()).isEqualTo("USERNAME");
+        assertThat(claims.user().getAccountIdentifier()).isEqualTo("alice");
+    }
+
+    @Test
+    void distinguishesSignedFromOpaqueTokens() {
+        assertThat(SignedTokenCodec.isSignedToken(codec.encode(user(), JTI, ISSUED_AT, EXPIRES_AT))).isTrue();
+        assertThat(SignedTokenCodec.isSignedToken(UUID.randomUUID().toString())).isFalse();
+        assertThat(SignedTokenCodec.isSignedToken(".signature")).isFalse();
+        assertThat(SignedTokenCodec.isSignedToken(null)).isFalse();
+    }
+
+    @Test
+    void rejectsTokenSignedWithAnotherKey() {
+        SignedTokenCodec other = new SignedTokenCodec("fedcba9876543210fedcba9876543210".getBytes(StandardCharsets.US_ASCII));
+
+        assertThat(codec.decode(other.encode(user(), JTI, ISSUED_AT, EXPIRES_AT))).isNull();
+    }
+
+    @Test
+    void rejectsTamperedPayload() {
+        String token = codec.encode(user(), JTI, ISSUED_AT, EXPIRES_AT);
+        int separator = token.indexOf('.');
+        byte[] payload = Base64.getUrlDecoder().decode(token.substring(0, separator));
+        // 延长过期时间
+        payload[9] ^= 0x01;
+        String tampered = Base64.getUrlEncoder().withoutPadding().encodeToString(payload) + token.substring(separator);
+
+        assertThat(codec.decode(tampered)).isNull();
+    }
+
+    @Test
+    void rejectsTamperedSignature() {
+        String token = codec.encode(user(), JTI, ISSUED_AT, EXPIRES_AT);
+        // 修改签名的第一个字符（末尾字符含填充位，修改后可能解码出相同的字节）
+        int first = token.indexOf('.') + 1;
+        char replacement = token.charAt(first) == 'A' ? 'B' : 'A';
+        String tampered = token.substring(0, first) + replacement + token.substring(first + 1);
+
+        assertThat(codec.decode(tampered)).isNull();
+    }
+
+    @Test
+    void rejectsMalformedTokens() {
+        String token = codec.encode(user(), JTI, ISSUED_AT, EXPIRES_AT);
+
+        assertThat(codec.decode(token + ".extra")).isNull();
+        assertThat(codec.decode(token.substring(0, token.indexOf('.')) + ".!!!")).isNull();
+        assertThat(codec.decode("no-separator")).isNull();
+        assertThat(codec.decode(".")).isNull();
+    }
+
+    private static SysUser user() {
+        SysUser user = new SysUser();
+        user.setId(UUID.fromString("6f1c2a9e-8b4d-4e3f-9a1b-2c3d4e5f6a7b"));
+        user.setStatus("ENABLED");
+        user.setRoleCode("ADMIN");
+        user.setAccountType("USERNAME");
+        user.setAccountIdentifier("alice");
+        return user;
+    }
+}
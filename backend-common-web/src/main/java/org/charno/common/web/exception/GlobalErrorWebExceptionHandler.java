@@ -0,0 +1,76 @@
+package org.charno.common.web.exception;
+
+import org.charno.common.web.response.ErrorResponseWriter;
+import org.charno.common.web.response.ResponseCode;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.web.reactive.error.ErrorWebExceptionHandler;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 全局异常处理器
+ * 处理Controller之外（过滤器、路由匹配、请求体解析等）抛出的异常，返回与 ApiResponse 相同格式的JSON，
+ * 替代Spring Boot默认的错误页面/错误属性响应
+ *
+ * 执行顺序：Order(-2)，在Spring Boot默认的 DefaultErrorWebExceptionHandler（Order(-1)）之前执行
+ *
+ * 响应消息使用状态码对应的 ResponseCode 固定文案（不返回异常信息），由 ErrorResponseWriter 预编码写入
+ */
+@Component
+@Order(-2)
+public class GlobalErrorWebExceptionHandler implements ErrorWebExceptionHandler {
+
+    private static final Logger log = LoggerFactory.getLogger(GlobalErrorWebExceptionHandler.class);
+
+    private final ErrorResponseWriter errorResponseWriter;
+
+    /**
+     * HTTP状态码 -> ResponseCode（不包含 SUCCESS 和 FAIL）
+     */
+    private final Map<Integer, ResponseCode> responseCodes = new HashMap<>();
+
+    public GlobalErrorWebExceptionHandler(ErrorResponseWriter errorResponseWriter) {
+        this.errorResponseWriter = errorResponseWriter;
+        for (ResponseCode responseCode : ResponseCode.values()) {
+            if (responseCode != ResponseCode.SUCCESS && responseCode != ResponseCode.FAIL) {
+                responseCodes.put(responseCode.getCode(), responseCode);
+            }
+        }
+    }
+
+    @Override
+    public Mono<Void> handle(ServerWebExchange exchange, Throwable ex) {
+        // 响应已提交时无法再写入错误信息，交给框架处理
+        if (exchange.getResponse().isCommitted()) {
+            return Mono.error(ex);
+        }
+
+        HttpStatusCode status = ex instanceof ResponseStatusException responseStatusException
+                ? responseStatusException.getStatusCode()
+                : HttpStatus.INTERNAL_SERVER_ERROR;
+
+        if (status.is5xxServerError()) {
+            log.error("Unhandled exception: path={}", exchange.getRequest().getURI().getPath(), ex);
+        } else {
+            log.debug("Request failed: status={}, path={}, error: {}",
+                    status.value(), exchange.getRequest().getURI().getPath(), ex.getMessage());
+        }
+
+        ResponseCode responseCode = responseCodes.get(status.value());
+        if (responseCode != null) {
+            return errorResponseWriter.write(exchange, status, responseCode);
+        }
+        HttpStatus resolved = HttpStatus.resolve(status.value());
+        String message = resolved != null ? resolved.getReasonPhrase() : ResponseCode.FAIL.getMessage();
+        return errorResponseWriter.write(exchange, status, status.value(), message);
+    }
+}
@@ -0,0 +1,123 @@
+package org.charno.common.web.response;
+
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.MediaType;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 错误响应写入器
+ * 用于过滤器、认证入口点等无法返回 ApiResponse 的位置，直接向响应写入与 ApiResponse 相同格式的JSON：
+ * {"code":401,"message":"...","timestamp":"2025-01-01T00:00:00.000"}
+ *
+ * 优化：每个（code, message）的JSON前缀和后缀在首次使用时编码为字节并缓存，写入时只拼接时间戳；
+ * 时间戳按毫秒缓存，同一毫秒内的错误响应共享同一份编码结果。401/403/429 等高频错误不再逐次格式化字符串
+ *
+ * 注意：message 应为固定文案（如 ResponseCode 中的消息），缓存按 (code, message) 保存，不要传入包含动态内容的消息
+ */
+@Component
+public class ErrorResponseWriter {
+
+    private static final DateTimeFormatter TIMESTAMP_FORMATTER =
+            DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss.SSS").withZone(ZoneId.systemDefault());
+
+    private final Map<String, Template> templates = new ConcurrentHashMap<>();
+
+    private volatile CachedTimestamp cachedTimestamp = new CachedTimestamp(Long.MIN_VALUE, new byte[0]);
+
+    /**
+     * 写入错误响应（使用ResponseCode的状态码和消息）
+     *
+     * @param exchange     ServerWebExchange
+     * @param status       HTTP状态码
+     * @param responseCode 响应码枚举
+     * @return Mono<Void>
+     */
+    public Mono<Void> write(ServerWebExchange exchange, HttpStatusCode status, ResponseCode responseCode) {
+        return write(exchange, status, responseCode.getCode(), responseCode.getMessage());
+    }
+
+    /**
+     * 写入错误响应
+     * 响应已提交时不再处理
+     *
+     * @param exchange ServerWebExchange
+     * @param status   HTTP状态码
+     * @param code     响应体中的状态码
+     * @param message  响应体中的消息（固定文案）
+     * @return Mono<Void>
+     */
+    public Mono<Void> write(ServerWebExchange exchange, HttpStatusCode status, int code, String message) {
+        ServerHttpResponse response = exchange.getResponse();
+        if (response.isCommitted()) {
+            return Mono.empty();
+        }
+
+        response.setStatusCode(status);
+        response.getHeaders().setContentType(MediaType.APPLICATION_JSON);
+
+        Template template = templates.computeIfAbsent(code + ":" + message, key -> Template.of(code, message));
+        byte[] timestamp = timestamp();
+        DataBuffer buffer = response.bufferFactory()
+                .allocateBuffer(template.prefix().length + timestamp.length + template.suffix().length)
+                .write(template.prefix())
+                .write(timestamp)
+                .write(template.suffix());
+        return response.writeWith(Mono.just(buffer));
+    }
+
+    /**
+     * 获取当前时间戳的UTF-8编码，同一毫秒内复用
+     */
+    private byte[] timestamp() {
+        long now = System.currentTimeMillis();
+        CachedTimestamp cached = cachedTimestamp;
+        if (cached.millis() != now) {
+            cached = new CachedTimestamp(now,
+                    TIMESTAMP_FORMATTER.format(Instant.ofEpochMilli(now)).getBytes(StandardCharsets.UTF_8));
+            cachedTimestamp = cached;
+        }
+        return cached.bytes();
+    }
+
+    private record CachedTimestamp(long millis, byte[] bytes) {
+    }
+
+    /**
+     * 预编码的响应体模板：prefix + 时间戳 + suffix
+     */
+    private record Template(byte[] prefix, byte[] suffix) {
+
+        private static final byte[] SUFFIX = "\"}".getBytes(StandardCharsets.UTF_8);
+
+        static Template of(int code, String message) {
+            String prefix = "{\"code\":" + code + ",\"message\":\"" + escape(message) + "\",\"timestamp\":\"";
+            return new Template(prefix.getBytes(StandardCharsets.UTF_8), SUFFIX);
+        }
+
+        private static String escape(String value) {
+            StringBuilder builder = new StringBuilder(value.length());
+            for (int i = 0; i < value.length(); i++) {
+                char c = value.charAt(i);
+                if (c == '"' || c == '\\') {
+                    builder.append('\\').append(c);
+                } else if (c < 0x20) {
+                    builder.append(String.format("\\u%04x", (int) c));
+                } else {
+                    builder.append(c);
+                }
+            }
+            return builder.toString();
+        }
+    }
+}
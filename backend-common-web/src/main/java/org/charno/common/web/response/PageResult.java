@@ -10,6 +10,8 @@ import java.util.List;
 
 /**
  * 分页查询结果
+ * 支持页码分页（page、size）和游标分页（nextCursor、prevCursor）
+ * 总数按 totalStrategy 统计，估算或缓存的 total 只用于展示，不保证精确
  * 
  * @param <T> 数据类型
  */
@@ -27,12 +29,22 @@ public class PageResult<T> implements Serializable {
     private List<T> data;
 
     /**
-     * 总记录数
+     * 总记录数（totalStrategy 为 NONE 时为 -1）
      */
     private long total;
 
     /**
-     * 当前页码（从0开始）
+     * 总记录数的统计方式
+     */
+    private TotalStrategy totalStrategy;
+
+    /**
+     * 是否还有下一页（仅 totalStrategy 为 NONE 的页码分页，通过多查询一行判断）
+     */
+    private Boolean hasNext;
+
+    /**
+     * 当前页码（从0开始，游标分页时为0）
      */
     private int page;
 
@@ -40,5 +52,15 @@ public class PageResult<T> implements Serializable {
      * 每页大小
      */
     private int size;
+
+    /**
+     * 下一页游标（仅游标分页，为空表示没有下一页）
+     */
+    private String nextCursor;
+
+    /**
+     * 上一页游标（仅游标分页，为空表示没有上一页）
+     */
+    private String prevCursor;
 }
 
@@ -45,6 +45,11 @@ public enum ResponseCode {
      */
     METHOD_NOT_ALLOWED(405, "请求方法不允许"),
 
+    /**
+     * 请求过于频繁
+     */
+    TOO_MANY_REQUESTS(429, "请求过于频繁，请稍后重试"),
+
     /**
      * 服务器内部错误
      */
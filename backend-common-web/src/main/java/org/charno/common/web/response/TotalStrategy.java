@@ -0,0 +1,46 @@
+package org.charno.common.web.response;
+
+/**
+ * 分页总数统计方式
+ * 分页查询时由客户端选择，PageResult.totalStrategy 返回实际采用的方式
+ */
+public enum TotalStrategy {
+
+    /**
+     * 精确统计（COUNT(*)）
+     */
+    EXACT,
+
+    /**
+     * 估算（无过滤条件时取 pg_class.reltuples，有过滤条件时取 EXPLAIN 的行数估算）
+     */
+    ESTIMATED,
+
+    /**
+     * 缓存的精确统计（同一过滤条件在短时间内复用上一次的结果）
+     */
+    CACHED,
+
+    /**
+     * 不统计总数（total 为 -1），通过 hasNext 判断是否还有下一页
+     */
+    NONE;
+
+    /**
+     * 解析统计方式（忽略大小写）
+     *
+     * @param value 统计方式
+     * @return TotalStrategy，无法识别时返回 null
+     */
+    public static TotalStrategy from(String value) {
+        if (value == null) {
+            return null;
+        }
+        for (TotalStrategy strategy : values()) {
+            if (strategy.name().equalsIgnoreCase(value)) {
+                return strategy;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,113 @@
+package org.charno.common.web.response;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.http.server.reactive.MockServerHttpResponse;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import reactor.test.StepVerifier;
+
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * ErrorResponseWriter 单元测试
+ * 用 Jackson 解析写入的响应体，验证预编码模板生成的是合法JSON且消息原样往返
+ */
+class ErrorResponseWriterTests {
+
+    private static final String TIMESTAMP_PATTERN = "\\d{4}-\\d{2}-\\d{2}T\\d{2}:\\d{2}:\\d{2}\\.\\d{3}";
+
+    private final ErrorResponseWriter writer = new ErrorResponseWriter();
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    void writesApiResponseLayout() {
+        MockServerWebExchange exchange = exchange();
+
+        StepVerifier.create(writer.write(exchange, HttpStatus.UNAUTHORIZED, 401, "未授权")).verifyComplete();
+
+        MockServerHttpResponse response = exchange.getResponse();
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.UNAUTHORIZED);
+        assertThat(response.getHeaders().getContentType()).isEqualTo(MediaType.APPLICATION_JSON);
+        assertThat(response.getBodyAsString().block())
+                .matches("\\{\"code\":401,\"message\":\"未授权\",\"timestamp\":\"" + TIMESTAMP_PATTERN + "\"}");
+    }
+
+    @Test
+    void timestampIsParseableLocalDateTime() throws Exception {
+        MockServerWebExchange exchange = exchange();
+
+        writer.write(exchange, HttpStatus.FORBIDDEN, 403, "禁止访问").block();
+
+        JsonNode body = objectMapper.readTree(exchange.getResponse().getBodyAsString().block());
+        assertThat(body.get("code").asInt()).isEqualTo(403);
+        assertThat(LocalDateTime.parse(body.get("timestamp").asText())).isNotNull();
+    }
+
+    @Test
+    void escapesQuotesAndBackslashes() throws Exception {
+        String message = "say \"hi\" to C:\\temp\\";
+
+        assertThat(message(write(message))).isEqualTo(message);
+        assertThat(write(message)).contains("\"message\":\"say \\\"hi\\\" to C:\\\\temp\\\\\"");
+    }
+
+    @Test
+    void escapesControlCharacters() throws Exception {
+        String message = "line1\nline2\ttab\r\u0000\u001f";
+
+        String body = write(message);
+
+        assertThat(body).contains("line1\\u000aline2\\u0009tab\\u000d\\u0000\\u001f");
+        assertThat(message(body)).isEqualTo(message);
+    }
+
+    @Test
+    void keepsNonAsciiAndJsonLookalikes() throws Exception {
+        String message = "请求过多 \u2028 \"},\"code\":200,\"x\":\"";
+
+        assertThat(message(write(message))).isEqualTo(message);
+        assertThat(objectMapper.readTree(write(message)).get("code").asInt()).isEqualTo(429);
+    }
+
+    @Test
+    void writesResponseCodeMessage() throws Exception {
+        MockServerWebExchange exchange = exchange();
+
+        writer.write(exchange, HttpStatus.UNAUTHORIZED, ResponseCode.UNAUTHORIZED).block();
+
+        JsonNode body = objectMapper.readTree(exchange.getResponse().getBodyAsString().block());
+        assertThat(body.get("code").asInt()).isEqualTo(ResponseCode.UNAUTHORIZED.getCode());
+        assertThat(body.get("message").asText()).isEqualTo(ResponseCode.UNAUTHORIZED.getMessage());
+    }
+
+    @Test
+    void skipsCommittedResponse() {
+        MockServerWebExchange exchange = exchange();
+        exchange.getResponse().setStatusCode(HttpStatus.OK);
+        exchange.getResponse().setComplete().block();
+
+        StepVerifier.create(writer.write(exchange, HttpStatus.UNAUTHORIZED, 401, "未授权")).verifyComplete();
+
+        assertThat(exchange.getResponse().getStatusCode()).isEqualTo(HttpStatus.OK);
+    }
+
+    private String write(String message) {
+        MockServerWebExchange exchange = exchange();
+        writer.write(exchange, HttpStatus.TOO_MANY_REQUESTS, 429, message).block();
+        return exchange.getResponse().getBodyAsString().block();
+    }
+
+    private String message(String body) throws Exception {
+        return objectMapper.readTree(body).get("message").asText();
+    }
+
+    private static MockServerWebExchange exchange() {
+        return MockServerWebExchange.from(MockServerHttpRequest.get("/api/test"));
+    }
+}
@@ -1,6 +1,7 @@
 package org.charno.common.websocket.config;
 
 import lombok.extern.slf4j.Slf4j;
+import org.charno.common.security.principal.AuthenticatedPrincipal;
 import org.charno.common.websocket.handler.WebSocketHandlerRegistry;
 import org.springframework.context.ApplicationListener;
 import org.springframework.context.annotation.Bean;
@@ -8,8 +9,11 @@ import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.DependsOn;
 import org.springframework.context.event.ContextRefreshedEvent;
 import org.springframework.web.reactive.HandlerMapping;
+import org.springframework.web.reactive.config.WebFluxConfigurer;
 import org.springframework.web.reactive.handler.SimpleUrlHandlerMapping;
 import org.springframework.web.reactive.socket.WebSocketHandler;
+import org.springframework.web.reactive.socket.server.WebSocketService;
+import org.springframework.web.reactive.socket.server.support.HandshakeWebSocketService;
 
 import java.util.HashMap;
 import java.util.Map;
@@ -19,11 +23,14 @@ import java.util.Map;
  * 配置 WebSocket 处理器映射，注册所有 WebSocket 路径
  * 
  * 注意：由于处理器在 ContextRefreshedEvent 时才注册，需要监听该事件并更新映射
+ *
+ * 握手时将 AuthenticationFilter 保存的 AuthenticatedPrincipal 请求属性复制到 WebSocket 会话属性，
+ * 处理器可通过 BaseWebSocketHandler.getPrincipal(session) 直接读取
  */
 @Slf4j
 @Configuration
 @DependsOn("webSocketHandlerRegistry")  // 确保在 WebSocketHandlerRegistry 之后创建
-public class WebSocketConfig implements ApplicationListener<ContextRefreshedEvent> {
+public class WebSocketConfig implements ApplicationListener<ContextRefreshedEvent>, WebFluxConfigurer {
     
     private final WebSocketHandlerRegistry handlerRegistry;
     
@@ -57,6 +64,19 @@ public class WebSocketConfig implements ApplicationListener<ContextRefreshedEven
         return mapping;
     }
     
+    /**
+     * 配置 WebSocket 握手服务
+     * 只复制用户主体属性到会话，避免把其他请求属性带入长连接
+     * 
+     * @return WebSocketService
+     */
+    @Override
+    public WebSocketService getWebSocketService() {
+        HandshakeWebSocketService service = new HandshakeWebSocketService();
+        service.setSessionAttributePredicate(AuthenticatedPrincipal.ATTRIBUTE::equals);
+        return service;
+    }
+    
     /**
      * 监听 ContextRefreshedEvent，在应用上下文刷新后更新处理器映射
      * 此时所有带 @WebSocketHandler 注解的处理器已经注册到 WebSocketHandlerRegistry
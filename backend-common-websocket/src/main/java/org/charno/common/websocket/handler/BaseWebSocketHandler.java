@@ -2,6 +2,7 @@ package org.charno.common.websocket.handler;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.extern.slf4j.Slf4j;
+import org.charno.common.security.principal.AuthenticatedPrincipal;
 import org.charno.common.websocket.manager.WebSocketConnectionManager;
 import org.charno.common.websocket.model.WebSocketMessage;
 import org.charno.common.websocket.model.WebSocketMessageType;
@@ -255,6 +256,19 @@ public abstract class BaseWebSocketHandler implements WebSocketHandler {
         return sendMessage(session, errorMessage);
     }
     
+    /**
+     * 获取握手时已认证的用户主体
+     * AuthenticationFilter 验证握手请求的 Token（Authorization 请求头或 token 查询参数）后，
+     * 用户主体会被复制到会话属性中，子类的 authenticate 实现可直接使用，无需再次验证 Token
+     * 
+     * @param session WebSocket 会话
+     * @return 用户主体，未认证返回 null
+     */
+    protected AuthenticatedPrincipal getPrincipal(WebSocketSession session) {
+        Object principal = session.getAttributes().get(AuthenticatedPrincipal.ATTRIBUTE);
+        return principal instanceof AuthenticatedPrincipal authenticatedPrincipal ? authenticatedPrincipal : null;
+    }
+    
     /**
      * 从 URL 查询参数中提取 Token
      */
@@ -0,0 +1,66 @@
+package org.charno.systementity.entity;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.relational.core.mapping.Table;
+
+import java.time.OffsetDateTime;
+import java.util.UUID;
+
+/**
+ * API Key实体
+ * 供脚本、集成系统等机器客户端使用，只保存Key的SHA-256摘要，Key本身只在创建时返回一次
+ * Spring Data R2DBC 实体类
+ */
+@Getter
+@Setter
+@Table(name = "sys_api_key")
+public class SysApiKey {
+
+    /**
+     * API Key唯一标识（UUID 主键）
+     */
+    @Id
+    private UUID id;
+
+    /**
+     * 名称（用途说明）
+     */
+    private String name;
+
+    /**
+     * Key前缀（唯一，用于定位Key，可以展示）
+     */
+    private String keyPrefix;
+
+    /**
+     * 完整Key的SHA-256摘要（十六进制）
+     */
+    private String keyHash;
+
+    /**
+     * 所属用户ID，关联 sys_user 表
+     */
+    private UUID userId;
+
+    /**
+     * 授权范围（角色代码），关联 sys_role 表，使用该Key的请求按此角色校验
+     */
+    private String roleCode;
+
+    /**
+     * 状态（ENABLED / DISABLED）
+     */
+    private String status;
+
+    /**
+     * 过期时间（为空表示不过期）
+     */
+    private OffsetDateTime expiresAt;
+
+    /**
+     * 创建时间
+     */
+    private OffsetDateTime createdAt;
+}
@@ -0,0 +1,39 @@
+package org.charno.systementity.entity;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.relational.core.mapping.Table;
+
+import java.time.OffsetDateTime;
+
+/**
+ * 系统权限实体
+ * Spring Data R2DBC 实体类
+ */
+@Getter
+@Setter
+@Table(name = "sys_permission")
+public class SysPermission {
+
+    /**
+     * 权限代码（主键，唯一标识，如 user:delete）
+     */
+    @Id
+    private String code;
+
+    /**
+     * 权限名称
+     */
+    private String name;
+
+    /**
+     * 权限描述
+     */
+    private String description;
+
+    /**
+     * 创建时间
+     */
+    private OffsetDateTime createdAt;
+}
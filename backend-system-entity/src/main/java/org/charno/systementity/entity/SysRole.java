@@ -32,6 +32,12 @@ public class SysRole {
      */
     private String description;
 
+    /**
+     * 父角色代码（可选，关联 sys_role 表）
+     * 角色继承父角色及其所有祖先角色的角色要求和操作权限
+     */
+    private String parentCode;
+
     /**
      * 创建时间
      */
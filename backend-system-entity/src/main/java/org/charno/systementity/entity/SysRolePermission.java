@@ -0,0 +1,28 @@
+package org.charno.systementity.entity;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.data.relational.core.mapping.Table;
+
+/**
+ * 角色权限关联实体
+ * Spring Data R2DBC 实体类
+ *
+ * 注意：联合主键（role_code, permission_code），没有单列 @Id，不提供 Repository，
+ * 通过 R2dbcEntityTemplate 的 insert / select / delete 操作
+ */
+@Getter
+@Setter
+@Table(name = "sys_role_permission")
+public class SysRolePermission {
+
+    /**
+     * 角色代码，关联 sys_role 表
+     */
+    private String roleCode;
+
+    /**
+     * 权限代码，关联 sys_permission 表
+     */
+    private String permissionCode;
+}
@@ -0,0 +1,17 @@
+package org.charno.systementity.repository;
+
+import org.charno.systementity.entity.SysApiKey;
+import org.springframework.data.repository.reactive.ReactiveCrudRepository;
+import org.springframework.data.repository.reactive.ReactiveSortingRepository;
+
+import java.util.UUID;
+
+/**
+ * API Key Repository
+ * Spring Data R2DBC 响应式持久层接口
+ * 
+ * 规范参考：prompt/持久层规范.md
+ */
+public interface SysApiKeyRepository extends ReactiveCrudRepository<SysApiKey, UUID>,
+                                            ReactiveSortingRepository<SysApiKey, UUID> {
+}
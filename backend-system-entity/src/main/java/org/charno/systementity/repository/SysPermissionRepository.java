@@ -0,0 +1,15 @@
+package org.charno.systementity.repository;
+
+import org.charno.systementity.entity.SysPermission;
+import org.springframework.data.repository.reactive.ReactiveCrudRepository;
+import org.springframework.data.repository.reactive.ReactiveSortingRepository;
+
+/**
+ * 系统权限 Repository
+ * Spring Data R2DBC 响应式持久层接口
+ * 
+ * 规范参考：prompt/持久层规范.md
+ */
+public interface SysPermissionRepository extends ReactiveCrudRepository<SysPermission, String>,
+                                               ReactiveSortingRepository<SysPermission, String> {
+}
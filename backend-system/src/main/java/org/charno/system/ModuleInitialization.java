@@ -3,7 +3,7 @@ package org.charno.system;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.charno.common.security.config.PermitAllPathProvider;
-import org.charno.common.security.util.PasswordUtil;
+import org.charno.common.security.service.PasswordHashingService;
 import org.charno.systementity.entity.SysRole;
 import org.charno.systementity.entity.SysUser;
 import org.charno.systementity.repository.SysRoleRepository;
@@ -36,7 +36,7 @@ public class ModuleInitialization implements ApplicationRunner, PermitAllPathPro
     private final SysRoleRepository roleRepository;
     private final SysUserRepository userRepository;
     private final R2dbcEntityTemplate template;
-    private final PasswordUtil passwordUtil;
+    private final PasswordHashingService passwordHashingService;
 
     @Override
     public void run(ApplicationArguments args) {
@@ -107,7 +107,7 @@ public class ModuleInitialization implements ApplicationRunner, PermitAllPathPro
                     // 生成随机密码（使用 UUID 去掉连字符，取前16位）
                     return UUID.randomUUID().toString().replace("-", "").substring(0, 16);
                 })
-                .flatMap(rawPassword -> {
+                .flatMap(rawPassword -> passwordHashingService.encode(rawPassword).flatMap(passwordHash -> {
                     // 创建用户对象
                     SysUser user = new SysUser();
                     user.setId(UUID.randomUUID());
@@ -117,9 +117,8 @@ public class ModuleInitialization implements ApplicationRunner, PermitAllPathPro
                     user.setRoleCode("ADMIN");
                     
                     // 加密密码
-                    String passwordHash = passwordUtil.encode(rawPassword);
                     user.setPasswordHash(passwordHash);
-                    user.setPasswordAlgoVersion(1);
+                    user.setPasswordAlgoVersion(passwordHashingService.getAlgoVersion());
                     user.setPasswordChangedAt(OffsetDateTime.now());
                     
                     // 设置用户基本信息
@@ -146,22 +145,23 @@ public class ModuleInitialization implements ApplicationRunner, PermitAllPathPro
                             log.info("root 用户已创建，密码: {}", rawPassword);
                         })
                         .doOnError(e -> log.error("创建 root 用户失败", e));
-                })
+                }))
             )
             .then();
     }
 
     /**
      * 获取系统模块需要放行的路径
-     * 包括登录和注册接口
+     * 包括登录、刷新Token和注册接口
      * 
      * @return 路径列表
      */
     @Override
     public List<String> getPermitAllPaths() {
         return Arrays.asList(
-                "/api/login",       // 登录接口
-                "/api/register"     // 注册接口
+                "/api/login",           // 登录接口
+                "/api/login/refresh",   // 刷新Token接口（访问Token过期后调用，不携带有效的访问Token）
+                "/api/register"         // 注册接口
         );
     }
 }
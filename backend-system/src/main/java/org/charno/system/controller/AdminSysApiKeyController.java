@@ -0,0 +1,254 @@
+package org.charno.system.controller;
+
+import org.charno.common.security.annotation.RateLimit;
+import org.charno.common.security.annotation.RequiresRole;
+import org.charno.common.security.service.RoleHierarchy;
+import org.charno.common.security.session.ApiKeyService;
+import org.charno.common.web.response.ApiResponse;
+import org.charno.common.web.response.PageResult;
+import org.charno.systementity.entity.SysApiKey;
+import org.charno.systementity.repository.SysApiKeyRepository;
+import org.charno.systementity.repository.SysRoleRepository;
+import org.charno.systementity.repository.SysUserRepository;
+import org.charno.system.service.AdminSysApiKeyService;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.r2dbc.core.R2dbcEntityTemplate;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Mono;
+
+import java.time.OffsetDateTime;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * 系统API Key管理控制器
+ * 面向管理的控制类，提供创建、吊销及条件查询功能
+ *
+ * - 完整Key只在创建时返回一次（apiKey 字段），数据库只保存SHA-256摘要，所有接口都不返回摘要
+ * - Key的授权范围（roleCode）只能是所属用户的角色或其祖先角色，Key的权限不会超过所属用户
+ * - 修改、删除后调用 ApiKeyService.invalidate() 清除各节点的校验缓存
+ */
+@RequiresRole("ADMIN")
+@RestController
+@RequestMapping("/api/admin/api-keys")
+public class AdminSysApiKeyController {
+
+    private static final String STATUS_ENABLED = "ENABLED";
+    private static final String STATUS_DISABLED = "DISABLED";
+
+    private final AdminSysApiKeyService adminApiKeyService;
+    private final SysApiKeyRepository apiKeyRepository;
+    private final SysUserRepository userRepository;
+    private final SysRoleRepository roleRepository;
+    private final R2dbcEntityTemplate template;
+    private final ApiKeyService apiKeyService;
+    private final RoleHierarchy roleHierarchy;
+
+    public AdminSysApiKeyController(AdminSysApiKeyService adminApiKeyService,
+                                    SysApiKeyRepository apiKeyRepository,
+                                    SysUserRepository userRepository,
+                                    SysRoleRepository roleRepository,
+                                    R2dbcEntityTemplate template,
+                                    ApiKeyService apiKeyService,
+                                    RoleHierarchy roleHierarchy) {
+        this.adminApiKeyService = adminApiKeyService;
+        this.apiKeyRepository = apiKeyRepository;
+        this.userRepository = userRepository;
+        this.roleRepository = roleRepository;
+        this.template = template;
+        this.apiKeyService = apiKeyService;
+        this.roleHierarchy = roleHierarchy;
+    }
+
+    // ==================== CRUD 操作 ====================
+
+    /**
+     * 创建API Key
+     * 请求体需要 name、userId，可选 roleCode（默认为所属用户的角色）和 expiresAt
+     *
+     * @param apiKey API Key实体
+     * @return 响应结果，包含 apiKey（完整Key，只返回这一次）和 key（Key信息，不含摘要）
+     */
+    @PostMapping
+    public Mono<ApiResponse<Map<String, Object>>> create(@RequestBody SysApiKey apiKey) {
+        if (apiKey.getName() == null || apiKey.getName().isEmpty()) {
+            return Mono.just(ApiResponse.<Map<String, Object>>fail("Key名称不能为空"));
+        }
+        if (apiKey.getUserId() == null) {
+            return Mono.just(ApiResponse.<Map<String, Object>>fail("所属用户不能为空"));
+        }
+
+        return userRepository.findById(apiKey.getUserId())
+            .filter(user -> user.getDeletedAt() == null)
+            .flatMap(user -> {
+                String roleCode = apiKey.getRoleCode() == null || apiKey.getRoleCode().isEmpty()
+                    ? user.getRoleCode()
+                    : apiKey.getRoleCode();
+                // 授权范围不能超过所属用户的角色
+                if (!roleHierarchy.isRoleMatched(user.getRoleCode(), roleCode)) {
+                    return Mono.just(ApiResponse.<Map<String, Object>>fail("授权范围超出所属用户的角色：" + roleCode));
+                }
+                return roleRepository.existsById(roleCode)
+                    .flatMap(exists -> {
+                        if (!exists) {
+                            return Mono.just(ApiResponse.<Map<String, Object>>fail("角色不存在：" + roleCode));
+                        }
+                        ApiKeyService.GeneratedApiKey generated = apiKeyService.generate();
+                        apiKey.setId(null);
+                        apiKey.setRoleCode(roleCode);
+                        apiKey.setKeyPrefix(generated.prefix());
+                        apiKey.setKeyHash(generated.keyHash());
+                        apiKey.setStatus(STATUS_ENABLED);
+                        apiKey.setCreatedAt(OffsetDateTime.now());
+                        // 使用 insert() 方法强制插入新记录，id 由数据库生成
+                        return template.insert(apiKey)
+                            .map(savedKey -> {
+                                Map<String, Object> result = new LinkedHashMap<>();
+                                result.put("apiKey", generated.rawKey());
+                                result.put("key", AdminSysApiKeyService.hideHash(savedKey));
+                                return ApiResponse.success(result);
+                            });
+                    });
+            })
+            .switchIfEmpty(Mono.just(ApiResponse.<Map<String, Object>>fail("用户不存在")))
+            .onErrorResume(e -> Mono.just(ApiResponse.<Map<String, Object>>fail("创建API Key失败：" + e.getMessage())));
+    }
+
+    /**
+     * 根据ID查询API Key
+     *
+     * @param id API Key ID
+     * @return 响应结果（不含摘要）
+     */
+    @GetMapping("/{id}")
+    public Mono<ApiResponse<SysApiKey>> getById(@PathVariable UUID id) {
+        return apiKeyRepository.findById(id)
+            .map(AdminSysApiKeyService::hideHash)
+            .map(ApiResponse::success)
+            .switchIfEmpty(Mono.just(ApiResponse.fail("API Key不存在")))
+            .onErrorResume(e -> Mono.just(ApiResponse.fail("查询API Key失败：" + e.getMessage())));
+    }
+
+    /**
+     * 更新API Key
+     * 可以修改名称、状态（ENABLED / DISABLED）和过期时间；Key本身、所属用户和授权范围不能修改（需要时重新创建）
+     *
+     * @param id API Key ID
+     * @param apiKey API Key实体
+     * @return 响应结果（不含摘要）
+     */
+    @PutMapping("/{id}")
+    public Mono<ApiResponse<SysApiKey>> update(@PathVariable UUID id, @RequestBody SysApiKey apiKey) {
+        if (apiKey.getStatus() != null
+                && !STATUS_ENABLED.equals(apiKey.getStatus()) && !STATUS_DISABLED.equals(apiKey.getStatus())) {
+            return Mono.just(ApiResponse.<SysApiKey>fail("状态只能为 ENABLED 或 DISABLED"));
+        }
+
+        return apiKeyRepository.findById(id)
+            .flatMap(existingKey -> {
+                if (apiKey.getName() != null && !apiKey.getName().isEmpty()) {
+                    existingKey.setName(apiKey.getName());
+                }
+                if (apiKey.getStatus() != null) {
+                    existingKey.setStatus(apiKey.getStatus());
+                }
+                existingKey.setExpiresAt(apiKey.getExpiresAt());
+                // 状态和过期时间可能变化，清除校验缓存
+                return apiKeyRepository.save(existingKey)
+                    .flatMap(savedKey -> apiKeyService.invalidate(savedKey.getKeyPrefix()).thenReturn(savedKey))
+                    .map(AdminSysApiKeyService::hideHash)
+                    .map(ApiResponse::success);
+            })
+            .switchIfEmpty(Mono.just(ApiResponse.<SysApiKey>fail("API Key不存在")))
+            .onErrorResume(e -> Mono.just(ApiResponse.<SysApiKey>fail("更新API Key失败：" + e.getMessage())));
+    }
+
+    /**
+     * 删除（吊销）API Key
+     *
+     * @param id API Key ID
+     * @return 响应结果
+     */
+    @DeleteMapping("/{id}")
+    public Mono<ApiResponse<Void>> delete(@PathVariable UUID id) {
+        // 删除后清除校验缓存，Key立即在所有节点失效
+        return apiKeyRepository.findById(id)
+            .flatMap(existingKey -> apiKeyRepository.delete(existingKey)
+                .then(apiKeyService.invalidate(existingKey.getKeyPrefix()))
+                .then(Mono.just(ApiResponse.<Void>success())))
+            .switchIfEmpty(Mono.just(ApiResponse.<Void>fail("API Key不存在")))
+            .onErrorResume(e -> Mono.just(ApiResponse.<Void>fail("删除API Key失败：" + e.getMessage())));
+    }
+
+    // ==================== 条件查询 ====================
+
+    /**
+     * 不分页条件查询API Key
+     *
+     * @param userId 所属用户ID（可选，精确查询）
+     * @param name Key名称（可选，支持模糊查询）
+     * @param status 状态（可选，精确查询）
+     * @return 响应结果（不含摘要）
+     */
+    @RateLimit(permits = 120, key = RateLimit.Key.USER)
+    @GetMapping("/query")
+    public Mono<ApiResponse<List<SysApiKey>>> query(
+            @RequestParam(required = false) UUID userId,
+            @RequestParam(required = false) String name,
+            @RequestParam(required = false) String status) {
+        return adminApiKeyService.query(userId, name, status)
+            .collectList()
+            .map(ApiResponse::success)
+            .onErrorResume(e -> Mono.just(ApiResponse.fail("查询API Key失败：" + e.getMessage())));
+    }
+
+    /**
+     * 分页条件查询API Key
+     *
+     * @param userId 所属用户ID（可选，精确查询）
+     * @param name Key名称（可选，支持模糊查询）
+     * @param status 状态（可选，精确查询）
+     * @param page 页码（从0开始，默认0）
+     * @param size 每页大小（默认10）
+     * @param sort 排序字段（可选，格式：field,asc/desc，默认按createdAt降序）
+     * @return 响应结果（不含摘要）
+     */
+    @RateLimit(permits = 120, key = RateLimit.Key.USER)
+    @GetMapping("/query/page")
+    public Mono<ApiResponse<PageResult<SysApiKey>>> queryWithPage(
+            @RequestParam(required = false) UUID userId,
+            @RequestParam(required = false) String name,
+            @RequestParam(required = false) String status,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "10") int size,
+            @RequestParam(required = false) String sort) {
+
+        Pageable pageable = buildPageable(page, size, sort);
+
+        return adminApiKeyService.queryWithPage(userId, name, status, pageable)
+            .map(ApiResponse::success)
+            .onErrorResume(e -> Mono.just(ApiResponse.fail("分页查询API Key失败：" + e.getMessage())));
+    }
+
+    /**
+     * 构建分页参数
+     */
+    private Pageable buildPageable(int page, int size, String sort) {
+        if (sort != null && !sort.isEmpty()) {
+            String[] sortParts = sort.split(",");
+            if (sortParts.length == 2) {
+                String field = sortParts[0].trim();
+                Sort.Direction direction = "desc".equalsIgnoreCase(sortParts[1].trim())
+                    ? Sort.Direction.DESC
+                    : Sort.Direction.ASC;
+                return PageRequest.of(page, size, Sort.by(direction, field));
+            }
+        }
+        // 默认按创建时间降序
+        return PageRequest.of(page, size, Sort.by(Sort.Direction.DESC, "createdAt"));
+    }
+}
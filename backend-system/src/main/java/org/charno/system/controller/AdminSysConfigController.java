@@ -1,19 +1,27 @@
 package org.charno.system.controller;
 
+import org.charno.common.security.annotation.RateLimit;
 import org.charno.common.security.annotation.RequiresRole;
 import org.charno.common.web.response.ApiResponse;
 import org.charno.common.web.response.PageResult;
+import org.charno.common.web.response.TotalStrategy;
 import org.charno.systementity.entity.SysConfig;
 import org.charno.systementity.repository.SysConfigRepository;
 import org.charno.system.service.AdminSysConfigService;
+import org.charno.system.service.ExportService;
+import org.charno.system.service.SearchMode;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
 import org.springframework.data.r2dbc.core.R2dbcEntityTemplate;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.server.reactive.ServerHttpResponse;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
 import reactor.core.publisher.Mono;
 
 import java.util.List;
+import java.util.concurrent.TimeUnit;
 
 /**
  * 系统配置管理控制器
@@ -27,13 +35,16 @@ public class AdminSysConfigController {
     private final AdminSysConfigService adminConfigService;
     private final SysConfigRepository configRepository;
     private final R2dbcEntityTemplate template;
+    private final ExportService exportService;
 
     public AdminSysConfigController(AdminSysConfigService adminConfigService, 
                                     SysConfigRepository configRepository,
-                                    R2dbcEntityTemplate template) {
+                                    R2dbcEntityTemplate template,
+                                    ExportService exportService) {
         this.adminConfigService = adminConfigService;
         this.configRepository = configRepository;
         this.template = template;
+        this.exportService = exportService;
     }
 
     // ==================== CRUD 操作 ====================
@@ -131,13 +142,20 @@ public class AdminSysConfigController {
      * 
      * @param key 配置键（可选，支持模糊查询）
      * @param value 配置值（可选，支持模糊查询）
+     * @param search 搜索方式（like：区分大小写的模糊查询，默认；fuzzy：不区分大小写的模糊查询，使用三元组索引）
      * @return 响应结果
      */
+    @RateLimit(permits = 120, key = RateLimit.Key.USER)
     @GetMapping("/query")
     public Mono<ApiResponse<List<SysConfig>>> query(
             @RequestParam(required = false) String key,
-            @RequestParam(required = false) String value) {
-        return adminConfigService.query(key, value)
+            @RequestParam(required = false) String value,
+            @RequestParam(defaultValue = "like") String search) {
+        SearchMode searchMode = SearchMode.from(search);
+        if (searchMode == null) {
+            return Mono.just(ApiResponse.fail("不支持的搜索方式：" + search));
+        }
+        return adminConfigService.query(key, value, searchMode)
             .collectList()
             .map(ApiResponse::success)
             .onErrorResume(e -> Mono.just(ApiResponse.fail("查询配置失败：" + e.getMessage())));
@@ -150,29 +168,86 @@ public class AdminSysConfigController {
      * @param value 配置值（可选，支持模糊查询）
      * @param page 页码（从0开始，默认0）
      * @param size 每页大小（默认10）
-     * @param sort 排序字段（可选，格式：field,asc/desc，默认按key升序）
+     * @param sort 排序字段（可选，格式：field,asc/desc，默认按key升序；bestMatch 按匹配度排序）
+     * @param pagination 分页方式（offset：页码分页，默认；cursor：游标分页，忽略page，排序支持 key）
+     * @param cursor 游标（游标分页时使用上一次返回的 nextCursor / prevCursor，为空时查询第一页）
+     * @param search 搜索方式（like：区分大小写的模糊查询，默认；fuzzy：不区分大小写的模糊查询，使用三元组索引）
+     * @param total 总数统计方式（exact：精确，默认；estimated：估算；cached：短时缓存；none：不统计，返回 hasNext）
      * @return 响应结果
      */
+    @RateLimit(permits = 120, key = RateLimit.Key.USER)
     @GetMapping("/query/page")
     public Mono<ApiResponse<PageResult<SysConfig>>> queryWithPage(
             @RequestParam(required = false) String key,
             @RequestParam(required = false) String value,
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "10") int size,
-            @RequestParam(required = false) String sort) {
+            @RequestParam(required = false) String sort,
+            @RequestParam(defaultValue = "offset") String pagination,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "like") String search,
+            @RequestParam(defaultValue = "exact") String total) {
         
+        SearchMode searchMode = SearchMode.from(search);
+        if (searchMode == null) {
+            return Mono.just(ApiResponse.fail("不支持的搜索方式：" + search));
+        }
+        TotalStrategy totalStrategy = TotalStrategy.from(total);
+        if (totalStrategy == null) {
+            return Mono.just(ApiResponse.fail("不支持的总数统计方式：" + total));
+        }
         Pageable pageable = buildPageable(page, size, sort);
         
-        return adminConfigService.queryWithPage(key, value, pageable)
+        // 游标分页：按排序字段 + 主键定位边界，不使用 OFFSET
+        Mono<PageResult<SysConfig>> result = "cursor".equalsIgnoreCase(pagination)
+            ? adminConfigService.queryWithCursor(key, value, pageable.getSort(), size, cursor, searchMode, totalStrategy)
+            : adminConfigService.queryWithPage(key, value, pageable, searchMode, totalStrategy);
+        
+        return result
             .map(ApiResponse::success)
             .onErrorResume(e -> Mono.just(ApiResponse.fail("分页查询配置失败：" + e.getMessage())));
     }
 
+    /**
+     * 流式导出配置
+     * 查询结果按批次从数据库读取并直接写入响应，不收集完整结果，也不包装为 ApiResponse；
+     * 参数错误时返回400，导出过程中出错时连接中断（响应已开始写入）
+     * 
+     * @param key 配置键（可选，支持模糊查询）
+     * @param value 配置值（可选，支持模糊查询）
+     * @param search 搜索方式（like：区分大小写的模糊查询，默认；fuzzy：不区分大小写的模糊查询，使用三元组索引）
+     * @param format 导出格式（ndjson：每行一个JSON对象，默认；csv）
+     * @param gzip 是否gzip压缩（默认false，压缩后文件名追加 .gz）
+     * @param response 响应
+     * @return 写入完成信号
+     */
+    @RateLimit(permits = 10, period = 1, unit = TimeUnit.MINUTES, key = RateLimit.Key.USER)
+    @GetMapping("/export")
+    public Mono<Void> export(
+            @RequestParam(required = false) String key,
+            @RequestParam(required = false) String value,
+            @RequestParam(defaultValue = "like") String search,
+            @RequestParam(defaultValue = "ndjson") String format,
+            @RequestParam(defaultValue = "false") boolean gzip,
+            ServerHttpResponse response) {
+        SearchMode searchMode = SearchMode.from(search);
+        ExportService.Format exportFormat = ExportService.Format.from(format);
+        if (searchMode == null || exportFormat == null) {
+            return Mono.error(new ResponseStatusException(HttpStatus.BAD_REQUEST));
+        }
+        return exportService.write(response, "configs", adminConfigService.export(key, value, searchMode),
+            AdminSysConfigService.EXPORT_COLUMNS, exportFormat, gzip);
+    }
+
     /**
      * 构建分页参数
      */
     private Pageable buildPageable(int page, int size, String sort) {
         if (sort != null && !sort.isEmpty()) {
+            // bestMatch 不需要排序方向，总是按匹配度降序
+            if (SearchMode.BEST_MATCH.equals(sort.trim())) {
+                return PageRequest.of(page, size, Sort.by(Sort.Direction.DESC, SearchMode.BEST_MATCH));
+            }
             String[] sortParts = sort.split(",");
             if (sortParts.length == 2) {
                 String field = sortParts[0].trim();
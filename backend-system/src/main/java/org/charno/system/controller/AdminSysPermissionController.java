@@ -0,0 +1,195 @@
+package org.charno.system.controller;
+
+import org.charno.common.security.annotation.RateLimit;
+import org.charno.common.security.annotation.RequiresRole;
+import org.charno.common.security.service.PermissionIndex;
+import org.charno.common.web.response.ApiResponse;
+import org.charno.common.web.response.PageResult;
+import org.charno.systementity.entity.SysPermission;
+import org.charno.systementity.repository.SysPermissionRepository;
+import org.charno.system.service.AdminSysPermissionService;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.r2dbc.core.R2dbcEntityTemplate;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Mono;
+
+import java.time.OffsetDateTime;
+import java.util.List;
+
+/**
+ * 系统权限管理控制器
+ * 面向管理的控制类，提供CRUD及条件查询功能
+ * 权限变更后调用 PermissionIndex.refresh() 重建各节点的权限索引
+ */
+@RequiresRole("ADMIN")
+@RestController
+@RequestMapping("/api/admin/permissions")
+public class AdminSysPermissionController {
+
+    private final AdminSysPermissionService adminPermissionService;
+    private final SysPermissionRepository permissionRepository;
+    private final R2dbcEntityTemplate template;
+    private final PermissionIndex permissionIndex;
+
+    public AdminSysPermissionController(AdminSysPermissionService adminPermissionService,
+                                        SysPermissionRepository permissionRepository,
+                                        R2dbcEntityTemplate template,
+                                        PermissionIndex permissionIndex) {
+        this.adminPermissionService = adminPermissionService;
+        this.permissionRepository = permissionRepository;
+        this.template = template;
+        this.permissionIndex = permissionIndex;
+    }
+
+    // ==================== CRUD 操作 ====================
+
+    /**
+     * 创建权限
+     * 
+     * @param permission 权限实体
+     * @return 响应结果
+     */
+    @PostMapping
+    public Mono<ApiResponse<SysPermission>> create(@RequestBody SysPermission permission) {
+        // 检查权限代码是否已存在
+        if (permission.getCode() == null || permission.getCode().isEmpty()) {
+            return Mono.just(ApiResponse.<SysPermission>fail("权限代码不能为空"));
+        }
+        
+        return permissionRepository.existsById(permission.getCode())
+            .flatMap(exists -> {
+                if (exists) {
+                    return Mono.just(ApiResponse.<SysPermission>fail("权限代码已存在：" + permission.getCode()));
+                }
+                // 设置创建时间
+                if (permission.getCreatedAt() == null) {
+                    permission.setCreatedAt(OffsetDateTime.now());
+                }
+                // 使用 insert() 方法强制插入新记录，避免 save() 尝试更新
+                // 权限变更后重建权限索引
+                return template.insert(permission)
+                    .flatMap(savedPermission -> permissionIndex.refresh().thenReturn(savedPermission))
+                    .map(ApiResponse::success);
+            })
+            .onErrorResume(e -> Mono.just(ApiResponse.<SysPermission>fail("创建权限失败：" + e.getMessage())));
+    }
+
+    /**
+     * 根据代码查询权限
+     * 
+     * @param code 权限代码
+     * @return 响应结果
+     */
+    @GetMapping("/{code}")
+    public Mono<ApiResponse<SysPermission>> getByCode(@PathVariable String code) {
+        return permissionRepository.findById(code)
+            .map(ApiResponse::success)
+            .switchIfEmpty(Mono.just(ApiResponse.fail("权限不存在")))
+            .onErrorResume(e -> Mono.just(ApiResponse.fail("查询权限失败：" + e.getMessage())));
+    }
+
+    /**
+     * 更新权限
+     * 权限代码是主键不能修改，可以更新名称和描述（不影响权限索引）
+     * 
+     * @param code 权限代码
+     * @param permission 权限实体
+     * @return 响应结果
+     */
+    @PutMapping("/{code}")
+    public Mono<ApiResponse<SysPermission>> update(@PathVariable String code, @RequestBody SysPermission permission) {
+        // 先查询现有权限，保留创建时间
+        return permissionRepository.findById(code)
+            .flatMap(existingPermission -> {
+                // 更新允许修改的字段
+                existingPermission.setName(permission.getName());
+                existingPermission.setDescription(permission.getDescription());
+                return permissionRepository.save(existingPermission)
+                    .map(ApiResponse::success);
+            })
+            .switchIfEmpty(Mono.just(ApiResponse.<SysPermission>fail("权限不存在")))
+            .onErrorResume(e -> Mono.just(ApiResponse.<SysPermission>fail("更新权限失败：" + e.getMessage())));
+    }
+
+    /**
+     * 删除权限
+     * 角色权限关联通过外键级联删除
+     * 
+     * @param code 权限代码
+     * @return 响应结果
+     */
+    @DeleteMapping("/{code}")
+    public Mono<ApiResponse<Void>> delete(@PathVariable String code) {
+        // 删除后重建权限索引
+        return permissionRepository.deleteById(code)
+            .then(permissionIndex.refresh())
+            .then(Mono.just(ApiResponse.<Void>success()))
+            .onErrorResume(e -> Mono.just(ApiResponse.<Void>fail("删除权限失败：" + e.getMessage())));
+    }
+
+    // ==================== 条件查询 ====================
+
+    /**
+     * 不分页条件查询权限
+     * 
+     * @param code 权限代码（可选，支持模糊查询）
+     * @param name 权限名称（可选，支持模糊查询）
+     * @return 响应结果
+     */
+    @RateLimit(permits = 120, key = RateLimit.Key.USER)
+    @GetMapping("/query")
+    public Mono<ApiResponse<List<SysPermission>>> query(
+            @RequestParam(required = false) String code,
+            @RequestParam(required = false) String name) {
+        return adminPermissionService.query(code, name)
+            .collectList()
+            .map(ApiResponse::success)
+            .onErrorResume(e -> Mono.just(ApiResponse.fail("查询权限失败：" + e.getMessage())));
+    }
+
+    /**
+     * 分页条件查询权限
+     * 
+     * @param code 权限代码（可选，支持模糊查询）
+     * @param name 权限名称（可选，支持模糊查询）
+     * @param page 页码（从0开始，默认0）
+     * @param size 每页大小（默认10）
+     * @param sort 排序字段（可选，格式：field,asc/desc，默认按code升序）
+     * @return 响应结果
+     */
+    @RateLimit(permits = 120, key = RateLimit.Key.USER)
+    @GetMapping("/query/page")
+    public Mono<ApiResponse<PageResult<SysPermission>>> queryWithPage(
+            @RequestParam(required = false) String code,
+            @RequestParam(required = false) String name,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "10") int size,
+            @RequestParam(required = false) String sort) {
+        
+        Pageable pageable = buildPageable(page, size, sort);
+        
+        return adminPermissionService.queryWithPage(code, name, pageable)
+            .map(ApiResponse::success)
+            .onErrorResume(e -> Mono.just(ApiResponse.fail("分页查询权限失败：" + e.getMessage())));
+    }
+
+    /**
+     * 构建分页参数
+     */
+    private Pageable buildPageable(int page, int size, String sort) {
+        if (sort != null && !sort.isEmpty()) {
+            String[] sortParts = sort.split(",");
+            if (sortParts.length == 2) {
+                String field = sortParts[0].trim();
+                Sort.Direction direction = "desc".equalsIgnoreCase(sortParts[1].trim()) 
+                    ? Sort.Direction.DESC 
+                    : Sort.Direction.ASC;
+                return PageRequest.of(page, size, Sort.by(direction, field));
+            }
+        }
+        // 默认按权限代码升序
+        return PageRequest.of(page, size, Sort.by(Sort.Direction.ASC, "code"));
+    }
+}
@@ -1,20 +1,41 @@
 package org.charno.system.controller;
 
+import org.charno.common.security.annotation.RateLimit;
 import org.charno.common.security.annotation.RequiresRole;
+import org.charno.common.security.service.PermissionIndex;
+import org.charno.common.security.service.RoleRequirementIndex;
 import org.charno.common.web.response.ApiResponse;
 import org.charno.common.web.response.PageResult;
+import org.charno.common.web.response.TotalStrategy;
+import org.charno.systementity.entity.SysPermission;
 import org.charno.systementity.entity.SysRole;
+import org.charno.systementity.entity.SysRolePermission;
 import org.charno.systementity.repository.SysRoleRepository;
+import org.charno.system.service.AdminSysPermissionService;
 import org.charno.system.service.AdminSysRoleService;
+import org.charno.system.service.ExportService;
+import org.charno.system.service.SearchMode;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
 import org.springframework.data.r2dbc.core.R2dbcEntityTemplate;
+import org.springframework.data.relational.core.query.Criteria;
+import org.springframework.data.relational.core.query.Query;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.transaction.reactive.TransactionalOperator;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
 import java.time.OffsetDateTime;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
 
 /**
  * 系统角色管理控制器
@@ -28,11 +49,23 @@ public class AdminSysRoleController {
     private final AdminSysRoleService adminRoleService;
     private final SysRoleRepository roleRepository;
     private final R2dbcEntityTemplate template;
+    private final RoleRequirementIndex roleRequirementIndex;
+    private final AdminSysPermissionService adminPermissionService;
+    private final PermissionIndex permissionIndex;
+    private final ExportService exportService;
+    private final TransactionalOperator transactionalOperator;
 
-    public AdminSysRoleController(AdminSysRoleService adminRoleService, SysRoleRepository roleRepository, R2dbcEntityTemplate template) {
+    public AdminSysRoleController(AdminSysRoleService adminRoleService, SysRoleRepository roleRepository, R2dbcEntityTemplate template, RoleRequirementIndex roleRequirementIndex,
+                                  AdminSysPermissionService adminPermissionService, PermissionIndex permissionIndex,
+                                  ExportService exportService, TransactionalOperator transactionalOperator) {
         this.adminRoleService = adminRoleService;
         this.roleRepository = roleRepository;
         this.template = template;
+        this.roleRequirementIndex = roleRequirementIndex;
+        this.adminPermissionService = adminPermissionService;
+        this.permissionIndex = permissionIndex;
+        this.exportService = exportService;
+        this.transactionalOperator = transactionalOperator;
     }
 
     // ==================== CRUD 操作 ====================
@@ -50,18 +83,28 @@ public class AdminSysRoleController {
             return Mono.just(ApiResponse.<SysRole>fail("角色代码不能为空"));
         }
         
+        if (role.getParentCode() != null && role.getParentCode().isEmpty()) {
+            role.setParentCode(null);
+        }
+        
         return roleRepository.existsById(role.getCode())
             .flatMap(exists -> {
                 if (exists) {
                     return Mono.just(ApiResponse.<SysRole>fail("角色代码已存在：" + role.getCode()));
                 }
-                // 设置创建时间
-                if (role.getCreatedAt() == null) {
-                    role.setCreatedAt(OffsetDateTime.now());
-                }
-                // 使用 insert() 方法强制插入新记录，避免 save() 尝试更新
-                return template.insert(role)
-                    .map(ApiResponse::success);
+                return validateParent(role.getCode(), role.getParentCode())
+                    .map(ApiResponse::<SysRole>fail)
+                    .switchIfEmpty(Mono.defer(() -> {
+                        // 设置创建时间
+                        if (role.getCreatedAt() == null) {
+                            role.setCreatedAt(OffsetDateTime.now());
+                        }
+                        // 使用 insert() 方法强制插入新记录，避免 save() 尝试更新
+                        // 角色变更后重建角色继承关系和角色要求索引
+                        return template.insert(role)
+                            .flatMap(savedRole -> roleRequirementIndex.refresh().thenReturn(savedRole))
+                            .map(ApiResponse::success);
+                    }));
             })
             .onErrorResume(e -> Mono.just(ApiResponse.<SysRole>fail("创建角色失败：" + e.getMessage())));
     }
@@ -82,6 +125,7 @@ public class AdminSysRoleController {
 
     /**
      * 更新角色
+     * 修改父角色时校验父角色存在且不会形成环，修改后重建角色继承关系
      * 
      * @param code 角色代码
      * @param role 角色实体
@@ -89,16 +133,24 @@ public class AdminSysRoleController {
      */
     @PutMapping("/{code}")
     public Mono<ApiResponse<SysRole>> update(@PathVariable String code, @RequestBody SysRole role) {
+        String parentCode = role.getParentCode() != null && !role.getParentCode().isEmpty() ? role.getParentCode() : null;
         // 先查询现有角色，保留创建时间
         return roleRepository.findById(code)
-            .flatMap(existingRole -> {
-                // 更新允许修改的字段
-                existingRole.setName(role.getName());
-                existingRole.setDescription(role.getDescription());
-                // 保留原有的创建时间，不更新
-                return roleRepository.save(existingRole)
-                    .map(ApiResponse::success);
-            })
+            .flatMap(existingRole -> validateParent(code, parentCode)
+                .map(ApiResponse::<SysRole>fail)
+                .switchIfEmpty(Mono.defer(() -> {
+                    boolean parentChanged = !Objects.equals(existingRole.getParentCode(), parentCode);
+                    // 更新允许修改的字段
+                    existingRole.setName(role.getName());
+                    existingRole.setDescription(role.getDescription());
+                    existingRole.setParentCode(parentCode);
+                    // 保留原有的创建时间，不更新
+                    return roleRepository.save(existingRole)
+                        .flatMap(savedRole -> parentChanged
+                            ? roleRequirementIndex.refresh().thenReturn(savedRole)
+                            : Mono.just(savedRole))
+                        .map(ApiResponse::success);
+                })))
             .switchIfEmpty(Mono.just(ApiResponse.<SysRole>fail("角色不存在")))
             .onErrorResume(e -> Mono.just(ApiResponse.<SysRole>fail("更新角色失败：" + e.getMessage())));
     }
@@ -115,12 +167,119 @@ public class AdminSysRoleController {
         if ("ADMIN".equalsIgnoreCase(code)) {
             return Mono.just(ApiResponse.<Void>fail("ADMIN 角色不允许删除"));
         }
-        // 允许删除
+        // 允许删除，删除后重建角色要求索引和权限索引（角色权限关联通过外键级联删除）
         return roleRepository.deleteById(code)
+            .then(roleRequirementIndex.refresh())
+            .then(permissionIndex.refresh())
             .then(Mono.just(ApiResponse.<Void>success()))
             .onErrorResume(e -> Mono.just(ApiResponse.<Void>fail("删除角色失败：" + e.getMessage())));
     }
 
+    // ==================== 角色继承 ====================
+
+    /**
+     * 查询角色的全部祖先角色（由近到远）
+     * 
+     * @param code 角色代码
+     * @return 响应结果
+     */
+    @GetMapping("/{code}/ancestors")
+    public Mono<ApiResponse<List<SysRole>>> getAncestors(@PathVariable String code) {
+        return adminRoleService.queryAncestors(code)
+            .collectList()
+            .map(ApiResponse::success)
+            .onErrorResume(e -> Mono.just(ApiResponse.fail("查询祖先角色失败：" + e.getMessage())));
+    }
+
+    /**
+     * 查询角色的全部后代角色（按层级由近到远）
+     * 
+     * @param code 角色代码
+     * @return 响应结果
+     */
+    @GetMapping("/{code}/descendants")
+    public Mono<ApiResponse<List<SysRole>>> getDescendants(@PathVariable String code) {
+        return adminRoleService.queryDescendants(code)
+            .collectList()
+            .map(ApiResponse::success)
+            .onErrorResume(e -> Mono.just(ApiResponse.fail("查询后代角色失败：" + e.getMessage())));
+    }
+
+    // ==================== 角色权限 ====================
+
+    /**
+     * 查询角色拥有的权限
+     * 
+     * @param code 角色代码
+     * @return 响应结果（权限代码列表）
+     */
+    @GetMapping("/{code}/permissions")
+    public Mono<ApiResponse<List<String>>> getPermissions(@PathVariable String code) {
+        return adminPermissionService.queryByRole(code)
+            .collectList()
+            .map(ApiResponse::success)
+            .onErrorResume(e -> Mono.just(ApiResponse.fail("查询角色权限失败：" + e.getMessage())));
+    }
+
+    /**
+     * 设置角色拥有的权限（整体替换）
+     * 先校验权限代码全部存在，再在一个事务中删除原有权限并写入新权限，任一步失败时角色权限保持不变
+     * 设置后重建各节点的权限索引
+     * 
+     * @param code 角色代码
+     * @param permissionCodes 权限代码列表（必须存在于 sys_permission 中）
+     * @return 响应结果（设置后的权限代码列表）
+     */
+    @PutMapping("/{code}/permissions")
+    public Mono<ApiResponse<List<String>>> setPermissions(@PathVariable String code, @RequestBody List<String> permissionCodes) {
+        return roleRepository.existsById(code)
+            .flatMap(exists -> {
+                if (!exists) {
+                    return Mono.just(ApiResponse.<List<String>>fail("角色不存在"));
+                }
+                Set<String> codes = permissionCodes != null ? new LinkedHashSet<>(permissionCodes) : Set.of();
+                return findMissingPermissions(codes)
+                    .flatMap(missing -> {
+                        if (!missing.isEmpty()) {
+                            return Mono.just(ApiResponse.<List<String>>fail("权限不存在：" + String.join(", ", missing)));
+                        }
+                        Flux<SysRolePermission> grants = Flux.fromIterable(codes)
+                            .map(permissionCode -> {
+                                SysRolePermission grant = new SysRolePermission();
+                                grant.setRoleCode(code);
+                                grant.setPermissionCode(permissionCode);
+                                return grant;
+                            });
+                        Mono<Void> replace = template.delete(SysRolePermission.class)
+                            .matching(Query.query(Criteria.where("roleCode").is(code)))
+                            .all()
+                            .thenMany(grants.concatMap(template::insert))
+                            .then();
+                        return transactionalOperator.transactional(replace)
+                            .then(permissionIndex.refresh())
+                            .thenMany(adminPermissionService.queryByRole(code))
+                            .collectList()
+                            .map(ApiResponse::success);
+                    });
+            })
+            .onErrorResume(e -> Mono.just(ApiResponse.<List<String>>fail("设置角色权限失败：" + e.getMessage())));
+    }
+
+    /**
+     * 查找不存在于 sys_permission 中的权限代码
+     */
+    private Mono<List<String>> findMissingPermissions(Set<String> codes) {
+        if (codes.isEmpty()) {
+            return Mono.just(List.of());
+        }
+        return template.select(SysPermission.class)
+            .matching(Query.query(Criteria.where("code").in(codes)))
+            .all()
+            .map(SysPermission::getCode)
+            .collect(Collectors.toSet())
+            .map(existing -> codes.stream().filter(c -> !existing.contains(c)).toList());
+    }
+
     // ==================== 条件查询 ====================
 
     /**
@@ -128,13 +287,20 @@ public class AdminSysRoleController {
      * 
      * @param code 角色代码（可选，支持模糊查询）
      * @param name 角色名称（可选，支持模糊查询）
+     * @param search 搜索方式（like：区分大小写的模糊查询，默认；fuzzy：不区分大小写的模糊查询，使用三元组索引）
      * @return 响应结果
      */
+    @RateLimit(permits = 120, key = RateLimit.Key.USER)
     @GetMapping("/query")
     public Mono<ApiResponse<List<SysRole>>> query(
             @RequestParam(required = false) String code,
-            @RequestParam(required = false) String name) {
-        return adminRoleService.query(code, name)
+            @RequestParam(required = false) String name,
+            @RequestParam(defaultValue = "like") String search) {
+        SearchMode searchMode = SearchMode.from(search);
+        if (searchMode == null) {
+            return Mono.just(ApiResponse.fail("不支持的搜索方式：" + search));
+        }
+        return adminRoleService.query(code, name, searchMode)
             .collectList()
             .map(ApiResponse::success)
             .onErrorResume(e -> Mono.just(ApiResponse.fail("查询角色失败：" + e.getMessage())));
@@ -147,29 +313,112 @@ public class AdminSysRoleController {
      * @param name 角色名称（可选，支持模糊查询）
      * @param page 页码（从0开始，默认0）
      * @param size 每页大小（默认10）
-     * @param sort 排序字段（可选，格式：field,asc/desc，默认按createdAt降序）
+     * @param sort 排序字段（可选，格式：field,asc/desc，默认按createdAt降序；bestMatch 按匹配度排序）
+     * @param pagination 分页方式（offset：页码分页，默认；cursor：游标分页，忽略page，排序支持 createdAt、code）
+     * @param cursor 游标（游标分页时使用上一次返回的 nextCursor / prevCursor，为空时查询第一页）
+     * @param search 搜索方式（like：区分大小写的模糊查询，默认；fuzzy：不区分大小写的模糊查询，使用三元组索引）
+     * @param total 总数统计方式（exact：精确，默认；estimated：估算；cached：短时缓存；none：不统计，返回 hasNext）
      * @return 响应结果
      */
+    @RateLimit(permits = 120, key = RateLimit.Key.USER)
     @GetMapping("/query/page")
     public Mono<ApiResponse<PageResult<SysRole>>> queryWithPage(
             @RequestParam(required = false) String code,
             @RequestParam(required = false) String name,
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "10") int size,
-            @RequestParam(required = false) String sort) {
+            @RequestParam(required = false) String sort,
+            @RequestParam(defaultValue = "offset") String pagination,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "like") String search,
+            @RequestParam(defaultValue = "exact") String total) {
         
+        SearchMode searchMode = SearchMode.from(search);
+        if (searchMode == null) {
+            return Mono.just(ApiResponse.fail("不支持的搜索方式：" + search));
+        }
+        TotalStrategy totalStrategy = TotalStrategy.from(total);
+        if (totalStrategy == null) {
+            return Mono.just(ApiResponse.fail("不支持的总数统计方式：" + total));
+        }
         Pageable pageable = buildPageable(page, size, sort);
         
-        return adminRoleService.queryWithPage(code, name, pageable)
+        // 游标分页：按排序字段 + 主键定位边界，不使用 OFFSET
+        Mono<PageResult<SysRole>> result = "cursor".equalsIgnoreCase(pagination)
+            ? adminRoleService.queryWithCursor(code, name, pageable.getSort(), size, cursor, searchMode, totalStrategy)
+            : adminRoleService.queryWithPage(code, name, pageable, searchMode, totalStrategy);
+        
+        return result
             .map(ApiResponse::success)
             .onErrorResume(e -> Mono.just(ApiResponse.fail("分页查询角色失败：" + e.getMessage())));
     }
 
+    /**
+     * 校验父角色：父角色必须存在，且不能是角色自身或其后代（否则形成环）
+     * 
+     * @return Mono<String> 校验失败时返回错误消息，通过时返回空
+     */
+    private Mono<String> validateParent(String code, String parentCode) {
+        if (parentCode == null) {
+            return Mono.empty();
+        }
+        if (parentCode.equals(code)) {
+            return Mono.just("不能将角色自身设为父角色");
+        }
+        return roleRepository.existsById(parentCode)
+            .flatMap(exists -> {
+                if (!exists) {
+                    return Mono.just("父角色不存在：" + parentCode);
+                }
+                // 父角色的祖先中出现当前角色，说明父角色是当前角色的后代
+                return adminRoleService.queryAncestors(parentCode)
+                    .any(ancestor -> ancestor.getCode().equals(code))
+                    .flatMap(cycle -> cycle
+                        ? Mono.just("角色继承关系不能形成环：" + parentCode + " 是 " + code + " 的后代角色")
+                        : Mono.<String>empty());
+            });
+    }
+
+    /**
+     * 流式导出角色
+     * 查询结果按批次从数据库读取并直接写入响应，不收集完整结果，也不包装为 ApiResponse；
+     * 参数错误时返回400，导出过程中出错时连接中断（响应已开始写入）
+     * 
+     * @param code 角色代码（可选，支持模糊查询）
+     * @param name 角色名称（可选，支持模糊查询）
+     * @param search 搜索方式（like：区分大小写的模糊查询，默认；fuzzy：不区分大小写的模糊查询，使用三元组索引）
+     * @param format 导出格式（ndjson：每行一个JSON对象，默认；csv）
+     * @param gzip 是否gzip压缩（默认false，压缩后文件名追加 .gz）
+     * @param response 响应
+     * @return 写入完成信号
+     */
+    @RateLimit(permits = 10, period = 1, unit = TimeUnit.MINUTES, key = RateLimit.Key.USER)
+    @GetMapping("/export")
+    public Mono<Void> export(
+            @RequestParam(required = false) String code,
+            @RequestParam(required = false) String name,
+            @RequestParam(defaultValue = "like") String search,
+            @RequestParam(defaultValue = "ndjson") String format,
+            @RequestParam(defaultValue = "false") boolean gzip,
+            ServerHttpResponse response) {
+        SearchMode searchMode = SearchMode.from(search);
+        ExportService.Format exportFormat = ExportService.Format.from(format);
+        if (searchMode == null || exportFormat == null) {
+            return Mono.error(new ResponseStatusException(HttpStatus.BAD_REQUEST));
+        }
+        return exportService.write(response, "roles", adminRoleService.export(code, name, searchMode),
+            AdminSysRoleService.EXPORT_COLUMNS, exportFormat, gzip);
+    }
+
     /**
      * 构建分页参数
      */
     private Pageable buildPageable(int page, int size, String sort) {
         if (sort != null && !sort.isEmpty()) {
+            // bestMatch 不需要排序方向，总是按匹配度降序
+            if (SearchMode.BEST_MATCH.equals(sort.trim())) {
+                return PageRequest.of(page, size, Sort.by(Sort.Direction.DESC, SearchMode.BEST_MATCH));
+            }
             String[] sortParts = sort.split(",");
             if (sortParts.length == 2) {
                 String field = sortParts[0].trim();
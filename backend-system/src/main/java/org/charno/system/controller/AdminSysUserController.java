@@ -1,19 +1,31 @@
 package org.charno.system.controller;
 
+import org.charno.common.security.annotation.RateLimit;
+import org.charno.common.security.annotation.RequiresPermission;
 import org.charno.common.security.annotation.RequiresRole;
+import org.charno.common.security.util.TokenUtil;
 import org.charno.common.web.response.ApiResponse;
 import org.charno.common.web.response.PageResult;
+import org.charno.common.web.response.TotalStrategy;
 import org.charno.systementity.entity.SysUser;
 import org.charno.systementity.repository.SysUserRepository;
+import org.charno.system.service.AdminSysUserBulkService;
 import org.charno.system.service.AdminSysUserService;
+import org.charno.system.service.ExportService;
+import org.charno.system.service.SearchMode;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.server.reactive.ServerHttpResponse;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
 import reactor.core.publisher.Mono;
 
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.TimeUnit;
 
 /**
  * 系统用户管理控制器
@@ -26,10 +38,17 @@ public class AdminSysUserController {
 
     private final AdminSysUserService adminUserService;
     private final SysUserRepository userRepository;
+    private final TokenUtil tokenUtil;
+    private final ExportService exportService;
+    private final AdminSysUserBulkService bulkService;
 
-    public AdminSysUserController(AdminSysUserService adminUserService, SysUserRepository userRepository) {
+    public AdminSysUserController(AdminSysUserService adminUserService, SysUserRepository userRepository, TokenUtil tokenUtil,
+                                  ExportService exportService, AdminSysUserBulkService bulkService) {
         this.adminUserService = adminUserService;
         this.userRepository = userRepository;
+        this.tokenUtil = tokenUtil;
+        this.exportService = exportService;
+        this.bulkService = bulkService;
     }
 
     // ==================== CRUD 操作 ====================
@@ -112,8 +131,13 @@ public class AdminSysUserController {
                 // 保留密码相关字段，不更新（密码修改应通过专门的接口）
                 // 更新 updatedAt
                 existingUser.setUpdatedAt(java.time.OffsetDateTime.now());
-                // 保存更新后的用户
+                // 保存更新后的用户，并同步该用户的会话：
+                // 非启用状态吊销全部会话，否则将新的用户信息（如角色）写入现有会话
                 return userRepository.save(existingUser)
+                    .flatMap(savedUser -> ("ENABLED".equals(savedUser.getStatus())
+                            ? tokenUtil.refreshAllForUser(savedUser)
+                            : tokenUtil.revokeAllForUser(id))
+                        .thenReturn(savedUser))
                     .map(ApiResponse::success);
             })
             .switchIfEmpty(Mono.just(ApiResponse.<SysUser>fail("用户不存在")))
@@ -122,10 +146,12 @@ public class AdminSysUserController {
 
     /**
      * 删除用户
+     * 需要 user:delete 权限
      * 
      * @param id 用户ID
      * @return 响应结果
      */
+    @RequiresPermission("user:delete")
     @DeleteMapping("/{id}")
     public Mono<ApiResponse<Void>> delete(@PathVariable UUID id) {
         // 先查询用户，检查是否为 root 账号
@@ -135,14 +161,108 @@ public class AdminSysUserController {
                 if ("root".equalsIgnoreCase(user.getAccountIdentifier())) {
                     return Mono.just(ApiResponse.<Void>fail("root 账号不允许删除"));
                 }
-                // 允许删除
-        return userRepository.deleteById(id)
+                // 允许删除，并吊销该用户的全部会话
+                return userRepository.deleteById(id)
+                    .then(tokenUtil.revokeAllForUser(id))
                     .then(Mono.just(ApiResponse.<Void>success()));
             })
             .switchIfEmpty(Mono.just(ApiResponse.<Void>fail("用户不存在")))
             .onErrorResume(e -> Mono.just(ApiResponse.<Void>fail("删除用户失败：" + e.getMessage())));
     }
 
+    // ==================== 批量操作 ====================
+
+    /**
+     * 批量创建用户
+     * 在一个事务中按批次插入，账号已存在、角色不存在等条目返回失败原因，其余条目照常创建
+     * 
+     * @param users 用户列表（status、roleCode、accountType、accountIdentifier 必填）
+     * @return 响应结果，按请求顺序的逐条结果（index、id、success、message）
+     */
+    @RateLimit(permits = 10, period = 1, unit = TimeUnit.MINUTES, key = RateLimit.Key.USER)
+    @PostMapping("/bulk")
+    public Mono<ApiResponse<List<AdminSysUserBulkService.BulkResult>>> bulkCreate(@RequestBody List<SysUser> users) {
+        return bulkService.create(users)
+            .map(ApiResponse::success)
+            .onErrorResume(e -> Mono.just(ApiResponse.fail("批量创建用户失败：" + e.getMessage())));
+    }
+
+    /**
+     * 批量更新用户
+     * 只更新提交了的字段；root 账号的角色代码不允许更改，用户不存在的条目返回失败原因，其余条目照常更新
+     * 
+     * @param users 用户列表（id 必填）
+     * @return 响应结果，按请求顺序的逐条结果（index、id、success、message）
+     */
+    @RateLimit(permits = 10, period = 1, unit = TimeUnit.MINUTES, key = RateLimit.Key.USER)
+    @PutMapping("/bulk")
+    public Mono<ApiResponse<List<AdminSysUserBulkService.BulkResult>>> bulkUpdate(@RequestBody List<SysUser> users) {
+        return bulkService.update(users)
+            .map(ApiResponse::success)
+            .onErrorResume(e -> Mono.just(ApiResponse.fail("批量更新用户失败：" + e.getMessage())));
+    }
+
+    /**
+     * 批量删除用户
+     * root 账号不允许删除，用户不存在的条目返回失败原因，其余条目照常删除；需要 user:delete 权限
+     * 
+     * @param ids 用户ID列表
+     * @return 响应结果，按请求顺序的逐条结果（index、id、success、message）
+     */
+    @RequiresPermission("user:delete")
+    @RateLimit(permits = 10, period = 1, unit = TimeUnit.MINUTES, key = RateLimit.Key.USER)
+    @PostMapping("/bulk/delete")
+    public Mono<ApiResponse<List<AdminSysUserBulkService.BulkResult>>> bulkDelete(@RequestBody List<UUID> ids) {
+        return bulkService.delete(ids)
+            .map(ApiResponse::success)
+            .onErrorResume(e -> Mono.just(ApiResponse.fail("批量删除用户失败：" + e.getMessage())));
+    }
+
+    // ==================== 会话管理 ====================
+
+    /**
+     * 查询用户的活跃会话
+     * 
+     * @param id 用户ID
+     * @return 响应结果，包含 sessionId、loginAt、expiresInSeconds（不包含Token本身）
+     */
+    @GetMapping("/{id}/sessions")
+    public Mono<ApiResponse<List<Map<String, Object>>>> listSessions(@PathVariable UUID id) {
+        return tokenUtil.listSessions(id)
+            .collectList()
+            .map(ApiResponse::success)
+            .onErrorResume(e -> Mono.just(ApiResponse.fail("查询会话失败：" + e.getMessage())));
+    }
+
+    /**
+     * 吊销用户的全部会话（强制下线）
+     * 
+     * @param id 用户ID
+     * @return 响应结果，包含吊销的会话数量
+     */
+    @DeleteMapping("/{id}/sessions")
+    public Mono<ApiResponse<Long>> revokeSessions(@PathVariable UUID id) {
+        return tokenUtil.revokeAllForUser(id)
+            .map(ApiResponse::success)
+            .onErrorResume(e -> Mono.just(ApiResponse.fail("吊销会话失败：" + e.getMessage())));
+    }
+
+    /**
+     * 吊销用户的单个会话
+     * 
+     * @param id 用户ID
+     * @param sessionId 会话标识
+     * @return 响应结果
+     */
+    @DeleteMapping("/{id}/sessions/{sessionId}")
+    public Mono<ApiResponse<Void>> revokeSession(@PathVariable UUID id, @PathVariable String sessionId) {
+        return tokenUtil.revokeSession(id, sessionId)
+            .map(revoked -> revoked
+                ? ApiResponse.<Void>success()
+                : ApiResponse.<Void>fail("会话不存在"))
+            .onErrorResume(e -> Mono.just(ApiResponse.<Void>fail("吊销会话失败：" + e.getMessage())));
+    }
+
     // ==================== 条件查询 ====================
 
     /**
@@ -153,16 +273,23 @@ public class AdminSysUserController {
      * @param accountType 账号类型（可选）
      * @param accountIdentifier 账号标识符（可选，支持模糊查询）
      * @param nickname 昵称（可选，支持模糊查询）
+     * @param search 搜索方式（like：区分大小写的模糊查询，默认；fuzzy：不区分大小写的模糊查询，使用三元组索引）
      * @return 响应结果
      */
+    @RateLimit(permits = 120, key = RateLimit.Key.USER)
     @GetMapping("/query")
     public Mono<ApiResponse<List<SysUser>>> query(
             @RequestParam(required = false) String status,
             @RequestParam(required = false) String roleCode,
             @RequestParam(required = false) String accountType,
             @RequestParam(required = false) String accountIdentifier,
-            @RequestParam(required = false) String nickname) {
-        return adminUserService.query(status, roleCode, accountType, accountIdentifier, nickname)
+            @RequestParam(required = false) String nickname,
+            @RequestParam(defaultValue = "like") String search) {
+        SearchMode searchMode = SearchMode.from(search);
+        if (searchMode == null) {
+            return Mono.just(ApiResponse.fail("不支持的搜索方式：" + search));
+        }
+        return adminUserService.query(status, roleCode, accountType, accountIdentifier, nickname, searchMode)
             .collectList()
             .map(ApiResponse::success)
             .onErrorResume(e -> Mono.just(ApiResponse.fail("查询用户失败：" + e.getMessage())));
@@ -178,9 +305,14 @@ public class AdminSysUserController {
      * @param nickname 昵称（可选，支持模糊查询）
      * @param page 页码（从0开始，默认0）
      * @param size 每页大小（默认10）
-     * @param sort 排序字段（可选，格式：field,asc/desc，默认按createdAt降序）
+     * @param sort 排序字段（可选，格式：field,asc/desc，默认按createdAt降序；bestMatch 按匹配度排序）
+     * @param pagination 分页方式（offset：页码分页，默认；cursor：游标分页，忽略page，排序支持 createdAt、accountIdentifier）
+     * @param cursor 游标（游标分页时使用上一次返回的 nextCursor / prevCursor，为空时查询第一页）
+     * @param search 搜索方式（like：区分大小写的模糊查询，默认；fuzzy：不区分大小写的模糊查询，使用三元组索引）
+     * @param total 总数统计方式（exact：精确，默认；estimated：估算；cached：短时缓存；none：不统计，返回 hasNext）
      * @return 响应结果
      */
+    @RateLimit(permits = 120, key = RateLimit.Key.USER)
     @GetMapping("/query/page")
     public Mono<ApiResponse<PageResult<SysUser>>> queryWithPage(
             @RequestParam(required = false) String status,
@@ -190,20 +322,78 @@ public class AdminSysUserController {
             @RequestParam(required = false) String nickname,
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "10") int size,
-            @RequestParam(required = false) String sort) {
+            @RequestParam(required = false) String sort,
+            @RequestParam(defaultValue = "offset") String pagination,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "like") String search,
+            @RequestParam(defaultValue = "exact") String total) {
         
+        SearchMode searchMode = SearchMode.from(search);
+        if (searchMode == null) {
+            return Mono.just(ApiResponse.fail("不支持的搜索方式：" + search));
+        }
+        TotalStrategy totalStrategy = TotalStrategy.from(total);
+        if (totalStrategy == null) {
+            return Mono.just(ApiResponse.fail("不支持的总数统计方式：" + total));
+        }
         Pageable pageable = buildPageable(page, size, sort);
         
-        return adminUserService.queryWithPage(status, roleCode, accountType, accountIdentifier, nickname, pageable)
+        // 游标分页：按排序字段 + 主键定位边界，不使用 OFFSET
+        Mono<PageResult<SysUser>> result = "cursor".equalsIgnoreCase(pagination)
+            ? adminUserService.queryWithCursor(status, roleCode, accountType, accountIdentifier, nickname, pageable.getSort(), size, cursor, searchMode, totalStrategy)
+            : adminUserService.queryWithPage(status, roleCode, accountType, accountIdentifier, nickname, pageable, searchMode, totalStrategy);
+        
+        return result
             .map(ApiResponse::success)
             .onErrorResume(e -> Mono.just(ApiResponse.fail("分页查询用户失败：" + e.getMessage())));
     }
 
+    /**
+     * 流式导出用户
+     * 查询结果按批次从数据库读取并直接写入响应，不收集完整结果，也不包装为 ApiResponse；
+     * 参数错误时返回400，导出过程中出错时连接中断（响应已开始写入）
+     * 
+     * @param status 用户状态（可选）
+     * @param roleCode 角色代码（可选）
+     * @param accountType 账号类型（可选）
+     * @param accountIdentifier 账号标识符（可选，支持模糊查询）
+     * @param nickname 昵称（可选，支持模糊查询）
+     * @param search 搜索方式（like：区分大小写的模糊查询，默认；fuzzy：不区分大小写的模糊查询，使用三元组索引）
+     * @param format 导出格式（ndjson：每行一个JSON对象，默认；csv）
+     * @param gzip 是否gzip压缩（默认false，压缩后文件名追加 .gz）
+     * @param response 响应
+     * @return 写入完成信号
+     */
+    @RateLimit(permits = 10, period = 1, unit = TimeUnit.MINUTES, key = RateLimit.Key.USER)
+    @GetMapping("/export")
+    public Mono<Void> export(
+            @RequestParam(required = false) String status,
+            @RequestParam(required = false) String roleCode,
+            @RequestParam(required = false) String accountType,
+            @RequestParam(required = false) String accountIdentifier,
+            @RequestParam(required = false) String nickname,
+            @RequestParam(defaultValue = "like") String search,
+            @RequestParam(defaultValue = "ndjson") String format,
+            @RequestParam(defaultValue = "false") boolean gzip,
+            ServerHttpResponse response) {
+        SearchMode searchMode = SearchMode.from(search);
+        ExportService.Format exportFormat = ExportService.Format.from(format);
+        if (searchMode == null || exportFormat == null) {
+            return Mono.error(new ResponseStatusException(HttpStatus.BAD_REQUEST));
+        }
+        return exportService.write(response, "users", adminUserService.export(status, roleCode, accountType, accountIdentifier, nickname, searchMode),
+            AdminSysUserService.EXPORT_COLUMNS, exportFormat, gzip);
+    }
+
     /**
      * 构建分页参数
      */
     private Pageable buildPageable(int page, int size, String sort) {
         if (sort != null && !sort.isEmpty()) {
+            // bestMatch 不需要排序方向，总是按匹配度降序
+            if (SearchMode.BEST_MATCH.equals(sort.trim())) {
+                return PageRequest.of(page, size, Sort.by(Sort.Direction.DESC, SearchMode.BEST_MATCH));
+            }
             String[] sortParts = sort.split(",");
             if (sortParts.length == 2) {
                 String field = sortParts[0].trim();
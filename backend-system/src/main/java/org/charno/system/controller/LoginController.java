@@ -1,13 +1,19 @@
 package org.charno.system.controller;
 
+import org.charno.common.security.annotation.RateLimit;
+import org.charno.common.security.service.PasswordHashingRejectedException;
 import org.charno.common.web.response.ApiResponse;
+import org.charno.common.web.response.ResponseCode;
 import org.charno.systementity.entity.SysUser;
 import org.charno.system.service.LoginService;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.server.ServerWebExchange;
 import reactor.core.publisher.Mono;
 
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
 
 /**
  * 登录控制器
@@ -17,6 +23,11 @@ import java.util.Map;
 @RequestMapping("/api/login")
 public class LoginController {
 
+    /**
+     * sys_user.last_login_ip 的列长度
+     */
+    private static final int MAX_CLIENT_IP_LENGTH = 64;
+
     private final LoginService loginService;
 
     public LoginController(LoginService loginService) {
@@ -29,8 +40,9 @@ public class LoginController {
      * 
      * @param requestBody 请求体，包含 username、password
      * @param exchange ServerWebExchange，用于获取客户端IP
-     * @return 响应结果，包含用户信息和accessToken
+     * @return 响应结果，包含用户信息、accessToken、refreshToken和expiresIn（访问Token有效期，秒）
      */
+    @RateLimit(permits = 10, period = 1, unit = TimeUnit.MINUTES)
     @PostMapping
     public Mono<ApiResponse<Map<String, Object>>> login(
             @RequestBody Map<String, String> requestBody,
@@ -59,9 +71,37 @@ public class LoginController {
                     }
                     return ApiResponse.success(result);
                 })
+                .onErrorResume(PasswordHashingRejectedException.class, e -> {
+                    // 密码哈希线程池已满，快速失败返回503，提示客户端稍后重试
+                    exchange.getResponse().setStatusCode(HttpStatus.SERVICE_UNAVAILABLE);
+                    exchange.getResponse().getHeaders().set(HttpHeaders.RETRY_AFTER, "1");
+                    return Mono.just(ApiResponse.fail(ResponseCode.SERVICE_UNAVAILABLE.getCode(), e.getMessage()));
+                })
                 .onErrorResume(e -> Mono.just(ApiResponse.fail(e.getMessage())));
     }
 
+    /**
+     * 刷新访问Token
+     * 使用刷新Token换取新的访问Token和新的刷新Token（刷新Token每次使用后轮换，旧Token立即失效）
+     * 
+     * @param requestBody 请求体，包含 refreshToken
+     * @return 响应结果，包含accessToken、refreshToken和expiresIn（访问Token有效期，秒）
+     */
+    @RateLimit(permits = 30, period = 1, unit = TimeUnit.MINUTES)
+    @PostMapping("/refresh")
+    public Mono<ApiResponse<Map<String, Object>>> refresh(@RequestBody Map<String, String> requestBody) {
+        String refreshToken = requestBody.get("refreshToken");
+        
+        // 参数验证
+        if (refreshToken == null || refreshToken.isEmpty()) {
+            return Mono.just(ApiResponse.fail("刷新Token不能为空"));
+        }
+        
+        return loginService.refresh(refreshToken)
+                .map(ApiResponse::success)
+                .onErrorResume(e -> Mono.just(ApiResponse.fail(ResponseCode.UNAUTHORIZED.getCode(), e.getMessage())));
+    }
+
     // TODO: 第三方登录接口（暂未实现）
     // 每个登录方法对应一种账户类型
     
@@ -100,17 +140,18 @@ public class LoginController {
     /**
      * 获取客户端IP地址
      * 优先从X-Forwarded-For头获取（适用于反向代理场景），否则从请求中获取
+     * 请求头由客户端控制，结果截断到 sys_user.last_login_ip 的长度（{@value #MAX_CLIENT_IP_LENGTH}）
      */
     private String getClientIp(ServerWebExchange exchange) {
         String xForwardedFor = exchange.getRequest().getHeaders().getFirst("X-Forwarded-For");
         if (xForwardedFor != null && !xForwardedFor.isEmpty()) {
             // X-Forwarded-For可能包含多个IP，取第一个
-            return xForwardedFor.split(",")[0].trim();
+            return truncateIp(xForwardedFor.split(",")[0].trim());
         }
         
         String xRealIp = exchange.getRequest().getHeaders().getFirst("X-Real-IP");
         if (xRealIp != null && !xRealIp.isEmpty()) {
-            return xRealIp;
+            return truncateIp(xRealIp.trim());
         }
         
         // 从远程地址获取
@@ -120,5 +161,9 @@ public class LoginController {
         
         return "unknown";
     }
+
+    private static String truncateIp(String ip) {
+        return ip.length() > MAX_CLIENT_IP_LENGTH ? ip.substring(0, MAX_CLIENT_IP_LENGTH) : ip;
+    }
 }
 
@@ -7,6 +7,8 @@ import org.springframework.web.bind.annotation.*;
 import org.springframework.web.server.ServerWebExchange;
 import reactor.core.publisher.Mono;
 
+import java.util.Map;
+
 /**
  * 登出控制器
  * 面向业务的控制类，实现登出相关的业务功能
@@ -26,20 +28,24 @@ public class LogoutController {
 
     /**
      * 用户登出
-     * 从请求头提取Token并删除Redis中的Token
+     * 从请求头提取Token并删除Redis中的Token，请求体携带 refreshToken 时同时吊销刷新Token
      * 
+     * @param requestBody 请求体（可选），包含 refreshToken
      * @param exchange ServerWebExchange，用于获取请求头
      * @return 响应结果
      */
     @PostMapping
-    public Mono<ApiResponse<Void>> logout(ServerWebExchange exchange) {
+    public Mono<ApiResponse<Void>> logout(
+            @RequestBody(required = false) Map<String, String> requestBody,
+            ServerWebExchange exchange) {
         ServerHttpRequest request = exchange.getRequest();
         
         // 从请求头中提取Token
         String token = extractToken(request);
+        String refreshToken = requestBody != null ? requestBody.get("refreshToken") : null;
         
         // 调用业务层处理登出逻辑
-        return logoutService.logout(token)
+        return logoutService.logout(token, refreshToken)
                 .then(Mono.just(ApiResponse.<Void>success()))
                 .onErrorResume(e -> Mono.just(ApiResponse.<Void>success()));
     }
@@ -1,12 +1,19 @@
 package org.charno.system.controller;
 
+import org.charno.common.security.annotation.RateLimit;
+import org.charno.common.security.service.PasswordHashingRejectedException;
 import org.charno.common.web.response.ApiResponse;
+import org.charno.common.web.response.ResponseCode;
 import org.charno.systementity.entity.SysUser;
 import org.charno.system.service.RegisterService;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ServerWebExchange;
 import reactor.core.publisher.Mono;
 
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
 
 /**
  * 注册控制器
@@ -27,10 +34,14 @@ public class RegisterController {
      * 账号类型固定为 USERNAME
      * 
      * @param requestBody 请求体，包含 username、password、nickname
+     * @param exchange ServerWebExchange，用于设置响应状态
      * @return 响应结果，包含用户信息
      */
+    @RateLimit(permits = 5, period = 10, unit = TimeUnit.MINUTES)
     @PostMapping
-    public Mono<ApiResponse<SysUser>> register(@RequestBody Map<String, String> requestBody) {
+    public Mono<ApiResponse<SysUser>> register(
+            @RequestBody Map<String, String> requestBody,
+            ServerWebExchange exchange) {
         String username = requestBody.get("username");
         String password = requestBody.get("password");
         String nickname = requestBody.get("nickname");
@@ -48,6 +59,12 @@ public class RegisterController {
         
         return registerService.register(username, password, nickname)
                 .map(ApiResponse::success)
+                .onErrorResume(PasswordHashingRejectedException.class, e -> {
+                    // 密码哈希线程池已满，快速失败返回503，提示客户端稍后重试
+                    exchange.getResponse().setStatusCode(HttpStatus.SERVICE_UNAVAILABLE);
+                    exchange.getResponse().getHeaders().set(HttpHeaders.RETRY_AFTER, "1");
+                    return Mono.just(ApiResponse.fail(ResponseCode.SERVICE_UNAVAILABLE.getCode(), e.getMessage()));
+                })
                 .onErrorResume(e -> Mono.just(ApiResponse.fail(e.getMessage())));
     }
 }
@@ -0,0 +1,108 @@
+package org.charno.system.service;
+
+import org.charno.common.web.response.PageResult;
+import org.charno.systementity.entity.SysApiKey;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.r2dbc.core.R2dbcEntityTemplate;
+import org.springframework.data.relational.core.query.Criteria;
+import org.springframework.data.relational.core.query.Query;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.UUID;
+
+/**
+ * 系统API Key管理业务服务
+ * 面向管理的业务服务，提供条件查询功能
+ * 查询结果不返回Key摘要（keyHash 置空）
+ */
+@Service
+public class AdminSysApiKeyService {
+
+    private final R2dbcEntityTemplate template;
+
+    public AdminSysApiKeyService(R2dbcEntityTemplate template) {
+        this.template = template;
+    }
+
+    // ==================== 条件查询 ====================
+
+    /**
+     * 不分页条件查询API Key
+     *
+     * @param userId 所属用户ID（可选，精确查询）
+     * @param name Key名称（可选，支持模糊查询）
+     * @param status 状态（可选，精确查询）
+     * @return Flux<SysApiKey> API Key列表
+     */
+    public Flux<SysApiKey> query(UUID userId, String name, String status) {
+        Criteria criteria = buildCriteria(userId, name, status);
+        return template.select(SysApiKey.class)
+            .matching(Query.query(criteria))
+            .all()
+            .map(AdminSysApiKeyService::hideHash);
+    }
+
+    /**
+     * 分页条件查询API Key
+     *
+     * @param userId 所属用户ID（可选，精确查询）
+     * @param name Key名称（可选，支持模糊查询）
+     * @param status 状态（可选，精确查询）
+     * @param pageable 分页参数
+     * @return Mono<PageResult<SysApiKey>> 分页结果
+     */
+    public Mono<PageResult<SysApiKey>> queryWithPage(UUID userId, String name, String status, Pageable pageable) {
+        Criteria criteria = buildCriteria(userId, name, status);
+        Query query = Query.query(criteria);
+
+        // 获取总数
+        Mono<Long> countMono = template.count(query, SysApiKey.class);
+
+        // 获取分页数据
+        Mono<java.util.List<SysApiKey>> dataMono = template.select(SysApiKey.class)
+            .matching(query.with(pageable))
+            .all()
+            .map(AdminSysApiKeyService::hideHash)
+            .collectList();
+
+        // 组合成分页结果
+        return Mono.zip(countMono, dataMono)
+            .map(tuple -> PageResult.<SysApiKey>builder()
+                .data(tuple.getT2())
+                .total(tuple.getT1())
+                .page(pageable.getPageNumber())
+                .size(pageable.getPageSize())
+                .build());
+    }
+
+    /**
+     * 清除Key摘要，避免通过管理接口返回
+     */
+    public static SysApiKey hideHash(SysApiKey apiKey) {
+        apiKey.setKeyHash(null);
+        return apiKey;
+    }
+
+    /**
+     * 构建查询条件
+     */
+    private Criteria buildCriteria(UUID userId, String name, String status) {
+        Criteria criteria = Criteria.empty();
+
+        if (userId != null) {
+            criteria = criteria.and(Criteria.where("userId").is(userId));
+        }
+
+        if (name != null && !name.isEmpty()) {
+            criteria = criteria.and(Criteria.where("name").like("%" + name + "%"));
+        }
+
+        if (status != null && !status.isEmpty()) {
+            criteria = criteria.and(Criteria.where("status").is(status));
+        }
+
+        return criteria;
+    }
+}
@@ -1,8 +1,10 @@
 package org.charno.system.service;
 
 import org.charno.common.web.response.PageResult;
+import org.charno.common.web.response.TotalStrategy;
 import org.charno.systementity.entity.SysConfig;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.data.r2dbc.core.R2dbcEntityTemplate;
 import org.springframework.data.relational.core.query.Criteria;
 import org.springframework.data.relational.core.query.Query;
@@ -10,6 +12,10 @@ import org.springframework.stereotype.Service;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
 /**
  * 系统配置管理业务服务
  * 面向管理的业务服务，提供条件查询功能
@@ -17,10 +23,29 @@ import reactor.core.publisher.Mono;
 @Service
 public class AdminSysConfigService {
 
+    /**
+     * 游标分页定义：按 key（主键）排序
+     */
+    private static final KeysetPagination<SysConfig> KEYSET = KeysetPagination
+        .of(SysConfig.class, "key", SysConfig::getKey, value -> value);
+
+    /**
+     * 导出列
+     */
+    public static final List<ExportService.Column<SysConfig>> EXPORT_COLUMNS = List.of(
+        new ExportService.Column<>("key", SysConfig::getKey),
+        new ExportService.Column<>("value", SysConfig::getValue),
+        new ExportService.Column<>("description", SysConfig::getDescription));
+
     private final R2dbcEntityTemplate template;
+    private final PageTotalService pageTotalService;
+    private final ExportService exportService;
 
-    public AdminSysConfigService(R2dbcEntityTemplate template) {
+    public AdminSysConfigService(R2dbcEntityTemplate template, PageTotalService pageTotalService,
+                            ExportService exportService) {
         this.template = template;
+        this.pageTotalService = pageTotalService;
+        this.exportService = exportService;
     }
 
     // ==================== 条件查询 ====================
@@ -30,10 +55,11 @@ public class AdminSysConfigService {
      * 
      * @param key 配置键（可选，支持模糊查询）
      * @param value 配置值（可选，支持模糊查询）
+     * @param searchMode 文本条件的搜索方式
      * @return Flux<SysConfig> 配置列表
      */
-    public Flux<SysConfig> query(String key, String value) {
-        Criteria criteria = buildCriteria(key, value);
+    public Flux<SysConfig> query(String key, String value, SearchMode searchMode) {
+        Criteria criteria = buildCriteria(key, value, searchMode);
         return template.select(SysConfig.class)
             .matching(Query.query(criteria))
             .all();
@@ -45,43 +71,67 @@ public class AdminSysConfigService {
      * @param key 配置键（可选，支持模糊查询）
      * @param value 配置值（可选，支持模糊查询）
      * @param pageable 分页参数
+     * @param searchMode 文本条件的搜索方式
+     * @param totalStrategy 总数统计方式
      * @return Mono<PageResult<SysConfig>> 分页结果
      */
-    public Mono<PageResult<SysConfig>> queryWithPage(String key, String value, Pageable pageable) {
-        Criteria criteria = buildCriteria(key, value);
-        Query query = Query.query(criteria);
-        
-        // 获取总数
-        Mono<Long> countMono = template.count(query, SysConfig.class);
-        
-        // 获取分页数据
-        Mono<java.util.List<SysConfig>> dataMono = template.select(SysConfig.class)
-            .matching(query.with(pageable))
-            .all()
-            .collectList();
-        
-        // 组合成分页结果
-        return Mono.zip(countMono, dataMono)
-            .map(tuple -> PageResult.<SysConfig>builder()
-                .data(tuple.getT2())
-                .total(tuple.getT1())
-                .page(pageable.getPageNumber())
-                .size(pageable.getPageSize())
-                .build());
+    public Mono<PageResult<SysConfig>> queryWithPage(String key, String value, Pageable pageable,
+                                       SearchMode searchMode, TotalStrategy totalStrategy) {
+        Criteria criteria = buildCriteria(key, value, searchMode);
+        // 按匹配度排序：替换为各文本条件的 similarity() 之和
+        Map<String, String> terms = new LinkedHashMap<>();
+        terms.put("key", key);
+        terms.put("value", value);
+        Pageable resolved = SearchMode.bestMatch(pageable, terms, Sort.by(Sort.Direction.ASC, "key"));
+        return pageTotalService.page(SysConfig.class, criteria, resolved, totalStrategy);
+    }
+
+    /**
+     * 游标分页条件查询配置
+     * 按 key 定位边界，不使用 OFFSET，任意深度的分页代价相同
+     * 
+     * @param key 配置键（可选，支持模糊查询）
+     * @param value 配置值（可选，支持模糊查询）
+     * @param sort 排序（支持 key）
+     * @param size 每页大小
+     * @param cursor 游标（上一次查询返回的 nextCursor / prevCursor，为空时查询第一页）
+     * @param searchMode 文本条件的搜索方式
+     * @param totalStrategy 总数统计方式
+     * @return Mono<PageResult<SysConfig>> 分页结果，包含 nextCursor、prevCursor
+     */
+    public Mono<PageResult<SysConfig>> queryWithCursor(String key, String value, Sort sort, int size, String cursor,
+                                                     SearchMode searchMode, TotalStrategy totalStrategy) {
+        Criteria criteria = buildCriteria(key, value, searchMode);
+        return KEYSET.query(template, criteria, sort, size, cursor,
+            pageTotalService.count(SysConfig.class, criteria, totalStrategy));
+    }
+
+    /**
+     * 流式导出配置（按 fetch-size 分批读取，不收集完整结果）
+     * 按 key 升序
+     * 
+     * @param key 配置键（可选，支持模糊查询）
+     * @param value 配置值（可选，支持模糊查询）
+     * @param searchMode 文本条件的搜索方式
+     * @return Flux<SysConfig> 配置数据流
+     */
+    public Flux<SysConfig> export(String key, String value, SearchMode searchMode) {
+        Criteria criteria = buildCriteria(key, value, searchMode);
+        return exportService.stream(SysConfig.class, criteria, Sort.by("key"));
     }
 
     /**
      * 构建查询条件
      */
-    private Criteria buildCriteria(String key, String value) {
+    private Criteria buildCriteria(String key, String value, SearchMode searchMode) {
         Criteria criteria = Criteria.empty();
 
         if (key != null && !key.isEmpty()) {
-            criteria = criteria.and(Criteria.where("key").like("%" + key + "%"));
+            criteria = criteria.and(searchMode.contains("key", key));
         }
 
         if (value != null && !value.isEmpty()) {
-            criteria = criteria.and(Criteria.where("value").like("%" + value + "%"));
+            criteria = criteria.and(searchMode.contains("value", value));
         }
 
         return criteria;
@@ -0,0 +1,106 @@
+package org.charno.system.service;
+
+import org.charno.common.web.response.PageResult;
+import org.charno.systementity.entity.SysPermission;
+import org.charno.systementity.entity.SysRolePermission;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.r2dbc.core.R2dbcEntityTemplate;
+import org.springframework.data.relational.core.query.Criteria;
+import org.springframework.data.relational.core.query.Query;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * 系统权限管理业务服务
+ * 面向管理的业务服务，提供条件查询功能
+ */
+@Service
+public class AdminSysPermissionService {
+
+    private final R2dbcEntityTemplate template;
+
+    public AdminSysPermissionService(R2dbcEntityTemplate template) {
+        this.template = template;
+    }
+
+    // ==================== 条件查询 ====================
+
+    /**
+     * 不分页条件查询权限
+     * 
+     * @param code 权限代码（可选，支持模糊查询）
+     * @param name 权限名称（可选，支持模糊查询）
+     * @return Flux<SysPermission> 权限列表
+     */
+    public Flux<SysPermission> query(String code, String name) {
+        Criteria criteria = buildCriteria(code, name);
+        return template.select(SysPermission.class)
+            .matching(Query.query(criteria))
+            .all();
+    }
+
+    /**
+     * 分页条件查询权限
+     * 
+     * @param code 权限代码（可选，支持模糊查询）
+     * @param name 权限名称（可选，支持模糊查询）
+     * @param pageable 分页参数
+     * @return Mono<PageResult<SysPermission>> 分页结果
+     */
+    public Mono<PageResult<SysPermission>> queryWithPage(String code, String name, Pageable pageable) {
+        Criteria criteria = buildCriteria(code, name);
+        Query query = Query.query(criteria);
+        
+        // 获取总数
+        Mono<Long> countMono = template.count(query, SysPermission.class);
+        
+        // 获取分页数据
+        Mono<java.util.List<SysPermission>> dataMono = template.select(SysPermission.class)
+            .matching(query.with(pageable))
+            .all()
+            .collectList();
+        
+        // 组合成分页结果
+        return Mono.zip(countMono, dataMono)
+            .map(tuple -> PageResult.<SysPermission>builder()
+                .data(tuple.getT2())
+                .total(tuple.getT1())
+                .page(pageable.getPageNumber())
+                .size(pageable.getPageSize())
+                .build());
+    }
+
+    /**
+     * 查询角色拥有的权限代码
+     * 
+     * @param roleCode 角色代码
+     * @return Flux<String> 权限代码列表（按代码升序）
+     */
+    public Flux<String> queryByRole(String roleCode) {
+        return template.select(SysRolePermission.class)
+            .matching(Query.query(Criteria.where("roleCode").is(roleCode))
+                .sort(Sort.by("permissionCode")))
+            .all()
+            .map(SysRolePermission::getPermissionCode);
+    }
+
+    /**
+     * 构建查询条件
+     */
+    private Criteria buildCriteria(String code, String name) {
+        Criteria criteria = Criteria.empty();
+
+        if (code != null && !code.isEmpty()) {
+            criteria = criteria.and(Criteria.where("code").like("%" + code + "%"));
+        }
+
+        if (name != null && !name.isEmpty()) {
+            criteria = criteria.and(Criteria.where("name").like("%" + name + "%"));
+        }
+
+        return criteria;
+    }
+}
+
@@ -1,8 +1,10 @@
 package org.charno.system.service;
 
 import org.charno.common.web.response.PageResult;
+import org.charno.common.web.response.TotalStrategy;
 import org.charno.systementity.entity.SysRole;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.data.r2dbc.core.R2dbcEntityTemplate;
 import org.springframework.data.relational.core.query.Criteria;
 import org.springframework.data.relational.core.query.Query;
@@ -10,6 +12,11 @@ import org.springframework.stereotype.Service;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.time.OffsetDateTime;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
 /**
  * 系统角色管理业务服务
  * 面向管理的业务服务，提供条件查询功能
@@ -17,10 +24,33 @@ import reactor.core.publisher.Mono;
 @Service
 public class AdminSysRoleService {
 
+    /**
+     * 游标分页定义：按 createdAt 或 code 排序，code 作为最后的排序字段
+     * 对应索引 idx_sys_role_created_at_code、主键
+     */
+    private static final KeysetPagination<SysRole> KEYSET = KeysetPagination
+        .of(SysRole.class, "code", SysRole::getCode, value -> value)
+        .sortKey("createdAt", SysRole::getCreatedAt, OffsetDateTime::parse);
+
+    /**
+     * 导出列
+     */
+    public static final List<ExportService.Column<SysRole>> EXPORT_COLUMNS = List.of(
+        new ExportService.Column<>("code", SysRole::getCode),
+        new ExportService.Column<>("name", SysRole::getName),
+        new ExportService.Column<>("description", SysRole::getDescription),
+        new ExportService.Column<>("parentCode", SysRole::getParentCode),
+        new ExportService.Column<>("createdAt", SysRole::getCreatedAt));
+
     private final R2dbcEntityTemplate template;
+    private final PageTotalService pageTotalService;
+    private final ExportService exportService;
 
-    public AdminSysRoleService(R2dbcEntityTemplate template) {
+    public AdminSysRoleService(R2dbcEntityTemplate template, PageTotalService pageTotalService,
+                            ExportService exportService) {
         this.template = template;
+        this.pageTotalService = pageTotalService;
+        this.exportService = exportService;
     }
 
     // ==================== 条件查询 ====================
@@ -30,10 +60,11 @@ public class AdminSysRoleService {
      * 
      * @param code 角色代码（可选，支持模糊查询）
      * @param name 角色名称（可选，支持模糊查询）
+     * @param searchMode 文本条件的搜索方式
      * @return Flux<SysRole> 角色列表
      */
-    public Flux<SysRole> query(String code, String name) {
-        Criteria criteria = buildCriteria(code, name);
+    public Flux<SysRole> query(String code, String name, SearchMode searchMode) {
+        Criteria criteria = buildCriteria(code, name, searchMode);
         return template.select(SysRole.class)
             .matching(Query.query(criteria))
             .all();
@@ -45,43 +76,116 @@ public class AdminSysRoleService {
      * @param code 角色代码（可选，支持模糊查询）
      * @param name 角色名称（可选，支持模糊查询）
      * @param pageable 分页参数
+     * @param searchMode 文本条件的搜索方式
+     * @param totalStrategy 总数统计方式
      * @return Mono<PageResult<SysRole>> 分页结果
      */
-    public Mono<PageResult<SysRole>> queryWithPage(String code, String name, Pageable pageable) {
-        Criteria criteria = buildCriteria(code, name);
-        Query query = Query.query(criteria);
-        
-        // 获取总数
-        Mono<Long> countMono = template.count(query, SysRole.class);
-        
-        // 获取分页数据
-        Mono<java.util.List<SysRole>> dataMono = template.select(SysRole.class)
-            .matching(query.with(pageable))
-            .all()
-            .collectList();
-        
-        // 组合成分页结果
-        return Mono.zip(countMono, dataMono)
-            .map(tuple -> PageResult.<SysRole>builder()
-                .data(tuple.getT2())
-                .total(tuple.getT1())
-                .page(pageable.getPageNumber())
-                .size(pageable.getPageSize())
-                .build());
+    public Mono<PageResult<SysRole>> queryWithPage(String code, String name, Pageable pageable,
+                                       SearchMode searchMode, TotalStrategy totalStrategy) {
+        Criteria criteria = buildCriteria(code, name, searchMode);
+        // 按匹配度排序：替换为各文本条件的 similarity() 之和
+        Map<String, String> terms = new LinkedHashMap<>();
+        terms.put("code", code);
+        terms.put("name", name);
+        Pageable resolved = SearchMode.bestMatch(pageable, terms, Sort.by(Sort.Direction.DESC, "createdAt"));
+        return pageTotalService.page(SysRole.class, criteria, resolved, totalStrategy);
+    }
+
+    /**
+     * 游标分页条件查询角色
+     * 按“排序字段 + code”定位边界，不使用 OFFSET，任意深度的分页代价相同
+     * 
+     * @param code 角色代码（可选，支持模糊查询）
+     * @param name 角色名称（可选，支持模糊查询）
+     * @param sort 排序（支持 createdAt、code）
+     * @param size 每页大小
+     * @param cursor 游标（上一次查询返回的 nextCursor / prevCursor，为空时查询第一页）
+     * @param searchMode 文本条件的搜索方式
+     * @param totalStrategy 总数统计方式
+     * @return Mono<PageResult<SysRole>> 分页结果，包含 nextCursor、prevCursor
+     */
+    public Mono<PageResult<SysRole>> queryWithCursor(String code, String name, Sort sort, int size, String cursor,
+                                                     SearchMode searchMode, TotalStrategy totalStrategy) {
+        Criteria criteria = buildCriteria(code, name, searchMode);
+        return KEYSET.query(template, criteria, sort, size, cursor,
+            pageTotalService.count(SysRole.class, criteria, totalStrategy));
+    }
+
+    // ==================== 角色继承查询 ====================
+
+    /**
+     * 查询角色的全部祖先角色（由近到远，不包含自身）
+     * 使用 PostgreSQL 递归CTE，CYCLE 子句保证数据中存在环时查询也能结束
+     * 
+     * @param code 角色代码
+     * @return Flux<SysRole> 祖先角色列表
+     */
+    public Flux<SysRole> queryAncestors(String code) {
+        return queryHierarchy("""
+                WITH RECURSIVE hierarchy AS (
+                    SELECT r.*, 0 AS depth FROM sys_role r WHERE r.code = :code
+                    UNION ALL
+                    SELECT p.*, h.depth + 1 FROM sys_role p JOIN hierarchy h ON p.code = h.parent_code
+                ) CYCLE code SET is_cycle USING path
+                SELECT code, name, description, parent_code, created_at FROM hierarchy
+                WHERE depth > 0 AND NOT is_cycle
+                ORDER BY depth
+                """, code);
+    }
+
+    /**
+     * 查询角色的全部后代角色（按层级由近到远，不包含自身）
+     * 
+     * @param code 角色代码
+     * @return Flux<SysRole> 后代角色列表
+     */
+    public Flux<SysRole> queryDescendants(String code) {
+        return queryHierarchy("""
+                WITH RECURSIVE hierarchy AS (
+                    SELECT r.*, 0 AS depth FROM sys_role r WHERE r.code = :code
+                    UNION ALL
+                    SELECT c.*, h.depth + 1 FROM sys_role c JOIN hierarchy h ON c.parent_code = h.code
+                ) CYCLE code SET is_cycle USING path
+                SELECT code, name, description, parent_code, created_at FROM hierarchy
+                WHERE depth > 0 AND NOT is_cycle
+                ORDER BY depth, code
+                """, code);
+    }
+
+    private Flux<SysRole> queryHierarchy(String sql, String code) {
+        return template.getDatabaseClient()
+            .sql(sql)
+            .bind("code", code)
+            .map((row, metadata) -> template.getConverter().read(SysRole.class, row, metadata))
+            .all();
+    }
+
+    /**
+     * 流式导出角色（按 fetch-size 分批读取，不收集完整结果）
+     * 按 code 升序
+     * 
+     * @param code 角色代码（可选，支持模糊查询）
+     * @param name 角色名称（可选，支持模糊查询）
+     * @param searchMode 文本条件的搜索方式
+     * @return Flux<SysRole> 角色数据流
+     */
+    public Flux<SysRole> export(String code, String name, SearchMode searchMode) {
+        Criteria criteria = buildCriteria(code, name, searchMode);
+        return exportService.stream(SysRole.class, criteria, Sort.by("code"));
     }
 
     /**
      * 构建查询条件
      */
-    private Criteria buildCriteria(String code, String name) {
+    private Criteria buildCriteria(String code, String name, SearchMode searchMode) {
         Criteria criteria = Criteria.empty();
 
         if (code != null && !code.isEmpty()) {
-            criteria = criteria.and(Criteria.where("code").like("%" + code + "%"));
+            criteria = criteria.and(searchMode.contains("code", code));
         }
 
         if (name != null && !name.isEmpty()) {
-            criteria = criteria.and(Criteria.where("name").like("%" + name + "%"));
+            criteria = criteria.and(searchMode.contains("name", name));
         }
 
         return criteria;
@@ -0,0 +1,477 @@
+package org.charno.system.service;
+
+import org.charno.common.security.util.TokenUtil;
+import org.charno.systementity.entity.SysRole;
+import org.charno.systementity.entity.SysUser;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.r2dbc.core.R2dbcEntityTemplate;
+import org.springframework.data.relational.core.query.Criteria;
+import org.springframework.data.relational.core.query.Query;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.Function;
+
+/**
+ * 系统用户批量管理服务
+ * 批量创建、更新、删除用户，每个请求在一个事务中执行，每批 chunk-size 条只需常数次数据库往返
+ *
+ * - 创建：INSERT ... VALUES (...), (...) ON CONFLICT DO NOTHING RETURNING，账号已存在的条目返回失败；
+ *   不写入密码字段（忽略提交的 passwordHash、passwordAlgoVersion）
+ * - 更新：SELECT ... FOR UPDATE 锁定并校验本批用户，再以一条 UPDATE ... FROM (VALUES ...) RETURNING 更新，
+ *   只更新提交了的字段（与单条更新相同的字段，不修改密码）
+ * - 删除：SELECT ... FOR UPDATE 校验后以一条 DELETE ... WHERE id IN (...) 删除
+ * - root 账号保护：按批次查询出的账号标识判断，root 的角色代码不允许更改，root 不允许删除
+ *
+ * 参数校验失败、用户不存在、root 保护的条目在结果中返回失败原因，其余条目照常执行；
+ * 数据库执行出错（如更新账号标识时违反唯一约束）时整个事务回滚，请求失败。
+ * 会话同步（吊销或刷新）在事务提交后执行，与单条接口一致
+ */
+@Service
+public class AdminSysUserBulkService {
+
+    /**
+     * PostgreSQL 单条语句的绑定参数上限
+     */
+    private static final int MAX_BIND_PARAMETERS = 65535;
+
+    private static final String ROOT_ACCOUNT = "root";
+
+    /**
+     * 创建时写入的字段（id、时间戳由数据库生成）
+     * 不写入密码字段：客户端提交的哈希值无法确认按当前密码策略（PasswordHashingService）生成，新用户没有密码
+     */
+    private static final List<Field> CREATE_FIELDS = List.of(
+        new Field("status", "varchar", SysUser::getStatus, String.class),
+        new Field("role_code", "varchar", SysUser::getRoleCode, String.class),
+        new Field("account_type", "varchar", SysUser::getAccountType, String.class),
+        new Field("account_identifier", "varchar", SysUser::getAccountIdentifier, String.class),
+        new Field("nickname", "varchar", SysUser::getNickname, String.class),
+        new Field("avatar_url", "varchar", SysUser::getAvatarUrl, String.class),
+        new Field("gender", "varchar", SysUser::getGender, String.class),
+        new Field("locale", "varchar", SysUser::getLocale, String.class),
+        new Field("timezone", "varchar", SysUser::getTimezone, String.class));
+
+    /**
+     * 更新时允许修改的字段（第一个为主键，为空的字段保持原值）
+     */
+    private static final List<Field> UPDATE_FIELDS = List.of(
+        new Field("id", "uuid", SysUser::getId, UUID.class),
+        new Field("status", "varchar", SysUser::getStatus, String.class),
+        new Field("role_code", "varchar", SysUser::getRoleCode, String.class),
+        new Field("account_type", "varchar", SysUser::getAccountType, String.class),
+        new Field("account_identifier", "varchar", SysUser::getAccountIdentifier, String.class),
+        new Field("nickname", "varchar", SysUser::getNickname, String.class),
+        new Field("avatar_url", "varchar", SysUser::getAvatarUrl, String.class),
+        new Field("gender", "varchar", SysUser::getGender, String.class),
+        new Field("locale", "varchar", SysUser::getLocale, String.class),
+        new Field("timezone", "varchar", SysUser::getTimezone, String.class));
+
+    private final R2dbcEntityTemplate template;
+    private final DatabaseClient databaseClient;
+    private final TransactionalOperator transactionalOperator;
+    private final TokenUtil tokenUtil;
+    private final int chunkSize;
+    private final int maxItems;
+
+    public AdminSysUserBulkService(
+            R2dbcEntityTemplate template,
+            TransactionalOperator transactionalOperator,
+            TokenUtil tokenUtil,
+            @Value("${charno.system.bulk.chunk-size:500}") int chunkSize,
+            @Value("${charno.system.bulk.max-items:10000}") int maxItems) {
+        this.template = template;
+        this.databaseClient = template.getDatabaseClient();
+        this.transactionalOperator = transactionalOperator;
+        this.tokenUtil = tokenUtil;
+        // 每批的绑定参数数量不能超过上限
+        this.chunkSize = Math.min(Math.max(1, chunkSize), MAX_BIND_PARAMETERS / CREATE_FIELDS.size());
+        this.maxItems = maxItems;
+    }
+
+    // ==================== 批量操作 ====================
+
+    /**
+     * 批量创建用户
+     *
+     * @param users 用户列表（status、roleCode、accountType、accountIdentifier 必填）
+     * @return Mono<List<BulkResult>> 按请求顺序的逐条结果，成功时包含新用户ID
+     */
+    public Mono<List<BulkResult>> create(List<SysUser> users) {
+        return Mono.defer(() -> {
+            checkSize(users);
+            List<BulkResult> results = new ArrayList<>();
+            List<Item<SysUser>> pending = new ArrayList<>();
+            Set<List<String>> accounts = new HashSet<>();
+            for (int i = 0; i < users.size(); i++) {
+                SysUser user = users.get(i);
+                if (user == null || user.getStatus() == null || user.getRoleCode() == null
+                        || user.getAccountType() == null || user.getAccountIdentifier() == null) {
+                    results.add(BulkResult.fail(i, null, "status、roleCode、accountType、accountIdentifier 不能为空"));
+                } else if (!accounts.add(accountKey(user.getAccountType(), user.getAccountIdentifier()))) {
+                    results.add(BulkResult.fail(i, null, "请求中账号重复"));
+                } else {
+                    pending.add(new Item<>(i, user));
+                }
+            }
+
+            Mono<List<BulkResult>> write = checkRoles(pending, results)
+                .flatMap(valid -> Flux.fromIterable(chunks(valid))
+                    .concatMap(this::insertChunk)
+                    .collectList());
+            return transactionalOperator.transactional(write)
+                .map(written -> sorted(results, written));
+        });
+    }
+
+    /**
+     * 批量更新用户
+     * 只更新提交了的字段，root 账号的角色代码不允许更改；非启用状态的用户吊销全部会话，否则刷新会话中的用户信息
+     *
+     * @param users 用户列表（id 必填）
+     * @return Mono<List<BulkResult>> 按请求顺序的逐条结果
+     */
+    public Mono<List<BulkResult>> update(List<SysUser> users) {
+        return Mono.defer(() -> {
+            checkSize(users);
+            List<BulkResult> results = new ArrayList<>();
+            List<Item<SysUser>> pending = new ArrayList<>();
+            Set<UUID> ids = new HashSet<>();
+            for (int i = 0; i < users.size(); i++) {
+                SysUser user = users.get(i);
+                if (user == null || user.getId() == null) {
+                    results.add(BulkResult.fail(i, null, "用户ID不能为空"));
+                } else if (!ids.add(user.getId())) {
+                    results.add(BulkResult.fail(i, user.getId(), "请求中用户ID重复"));
+                } else {
+                    pending.add(new Item<>(i, user));
+                }
+            }
+
+            List<SysUser> updatedUsers = new ArrayList<>();
+            Mono<List<BulkResult>> write = checkRoles(pending, results)
+                .flatMap(valid -> Flux.fromIterable(chunks(valid))
+                    .concatMap(chunk -> updateChunk(chunk, updatedUsers))
+                    .collectList());
+            return transactionalOperator.transactional(write)
+                // 事务提交后同步会话
+                .flatMap(written -> Flux.fromIterable(updatedUsers)
+                    .flatMap(user -> "ENABLED".equals(user.getStatus())
+                        ? tokenUtil.refreshAllForUser(user)
+                        : tokenUtil.revokeAllForUser(user.getId()))
+                    .then(Mono.fromCallable(() -> sorted(results, written))));
+        });
+    }
+
+    /**
+     * 批量删除用户
+     * root 账号不允许删除；删除后吊销用户的全部会话
+     *
+     * @param ids 用户ID列表
+     * @return Mono<List<BulkResult>> 按请求顺序的逐条结果
+     */
+    public Mono<List<BulkResult>> delete(List<UUID> ids) {
+        return Mono.defer(() -> {
+            checkSize(ids);
+            List<BulkResult> results = new ArrayList<>();
+            List<Item<UUID>> pending = new ArrayList<>();
+            Set<UUID> unique = new HashSet<>();
+            for (int i = 0; i < ids.size(); i++) {
+                UUID id = ids.get(i);
+                if (id == null) {
+                    results.add(BulkResult.fail(i, null, "用户ID不能为空"));
+                } else if (!unique.add(id)) {
+                    results.add(BulkResult.fail(i, id, "请求中用户ID重复"));
+                } else {
+                    pending.add(new Item<>(i, id));
+                }
+            }
+
+            Mono<List<BulkResult>> write = Flux.fromIterable(chunks(pending))
+                .concatMap(this::deleteChunk)
+                .collectList();
+            return transactionalOperator.transactional(write)
+                // 事务提交后吊销会话
+                .flatMap(written -> Flux.fromIterable(written)
+                    .filter(BulkResult::success)
+                    .flatMap(result -> tokenUtil.revokeAllForUser(result.id()))
+                    .then(Mono.fromCallable(() -> sorted(results, written))));
+        });
+    }
+
+    // ==================== 分批执行 ====================
+
+    /**
+     * 插入一批用户，ON CONFLICT 跳过已存在的账号，按 RETURNING 的账号对应回请求条目
+     */
+    private Flux<BulkResult> insertChunk(List<Item<SysUser>> chunk) {
+        StringBuilder sql = new StringBuilder("INSERT INTO sys_user (");
+        CREATE_FIELDS.forEach(field -> sql.append(field.column()).append(", "));
+        sql.append("version) VALUES ");
+        for (int i = 0; i < chunk.size(); i++) {
+            sql.append(i > 0 ? ", (" : "(");
+            appendPlaceholders(sql, i * CREATE_FIELDS.size(), CREATE_FIELDS, false);
+            sql.append(", 0)");
+        }
+        sql.append(" ON CONFLICT (account_type, account_identifier) DO NOTHING")
+            .append(" RETURNING id, account_type, account_identifier");
+
+        return bindAll(databaseClient.sql(sql.toString()), chunk, CREATE_FIELDS)
+            .map((row, metadata) -> Map.entry(
+                accountKey(row.get("account_type", String.class), row.get("account_identifier", String.class)),
+                row.get("id", UUID.class)))
+            .all()
+            .collectMap(Map.Entry::getKey, Map.Entry::getValue)
+            .flatMapIterable(created -> chunk.stream()
+                .map(item -> {
+                    UUID id = created.get(accountKey(item.value().getAccountType(), item.value().getAccountIdentifier()));
+                    return id != null
+                        ? BulkResult.success(item.index(), id)
+                        : BulkResult.fail(item.index(), null, "账号已存在");
+                })
+                .toList());
+    }
+
+    /**
+     * 锁定并校验一批用户，再以一条 UPDATE ... FROM (VALUES ...) 更新
+     */
+    private Flux<BulkResult> updateChunk(List<Item<SysUser>> chunk, List<SysUser> updatedUsers) {
+        return lock(chunk.stream().map(item -> item.value().getId()).toList())
+            .flatMapMany(existing -> {
+                List<BulkResult> rejected = new ArrayList<>();
+                List<Item<SysUser>> allowed = new ArrayList<>();
+                for (Item<SysUser> item : chunk) {
+                    SysUser user = item.value();
+                    Existing current = existing.get(user.getId());
+                    if (current == null) {
+                        rejected.add(BulkResult.fail(item.index(), user.getId(), "用户不存在"));
+                    } else if (current.isRoot() && user.getRoleCode() != null && !user.getRoleCode().equals(current.roleCode())) {
+                        rejected.add(BulkResult.fail(item.index(), user.getId(), "root 账号的角色代码不允许更改"));
+                    } else {
+                        allowed.add(item);
+                    }
+                }
+                if (allowed.isEmpty()) {
+                    return Flux.fromIterable(rejected);
+                }
+
+                StringBuilder sql = new StringBuilder("UPDATE sys_user AS u SET ");
+                for (Field field : UPDATE_FIELDS.subList(1, UPDATE_FIELDS.size())) {
+                    sql.append(field.column()).append(" = COALESCE(v.").append(field.column())
+                        .append(", u.").append(field.column()).append("), ");
+                }
+                sql.append("updated_at = now(), version = COALESCE(u.version, 0) + 1 FROM (VALUES ");
+                for (int i = 0; i < allowed.size(); i++) {
+                    sql.append(i > 0 ? ", (" : "(");
+                    appendPlaceholders(sql, i * UPDATE_FIELDS.size(), UPDATE_FIELDS, true);
+                    sql.append(")");
+                }
+                sql.append(") AS v(");
+                for (int i = 0; i < UPDATE_FIELDS.size(); i++) {
+                    sql.append(i > 0 ? ", " : "").append(UPDATE_FIELDS.get(i).column());
+                }
+                sql.append(") WHERE u.id = v.id RETURNING u.*");
+
+                Map<UUID, Integer> indexes = new HashMap<>();
+                allowed.forEach(item -> indexes.put(item.value().getId(), item.index()));
+                return bindAll(databaseClient.sql(sql.toString()), allowed, UPDATE_FIELDS)
+                    .map((row, metadata) -> template.getConverter().read(SysUser.class, row, metadata))
+                    .all()
+                    .doOnNext(updatedUsers::add)
+                    .map(user -> BulkResult.success(indexes.get(user.getId()), user.getId()))
+                    .concatWith(Flux.fromIterable(rejected));
+            });
+    }
+
+    /**
+     * 锁定并校验一批用户，再以一条 DELETE ... WHERE id IN (...) 删除
+     */
+    private Flux<BulkResult> deleteChunk(List<Item<UUID>> chunk) {
+        return lock(chunk.stream().map(Item::value).toList())
+            .flatMapMany(existing -> {
+                List<BulkResult> results = new ArrayList<>();
+                List<UUID> deletable = new ArrayList<>();
+                for (Item<UUID> item : chunk) {
+                    Existing current = existing.get(item.value());
+                    if (current == null) {
+                        results.add(BulkResult.fail(item.index(), item.value(), "用户不存在"));
+                    } else if (current.isRoot()) {
+                        results.add(BulkResult.fail(item.index(), item.value(), "root 账号不允许删除"));
+                    } else {
+                        deletable.add(item.value());
+                        results.add(BulkResult.success(item.index(), item.value()));
+                    }
+                }
+                if (deletable.isEmpty()) {
+                    return Flux.fromIterable(results);
+                }
+                return template.delete(SysUser.class)
+                    .matching(Query.query(Criteria.where("id").in(deletable)))
+                    .all()
+                    .thenMany(Flux.fromIterable(results));
+            });
+    }
+
+    // ==================== 辅助方法 ====================
+
+    /**
+     * 校验角色代码是否存在（一次查询整个请求涉及的角色），不存在的条目加入失败结果
+     */
+    private Mono<List<Item<SysUser>>> checkRoles(List<Item<SysUser>> items, List<BulkResult> results) {
+        Set<String> codes = new HashSet<>();
+        items.forEach(item -> {
+            if (item.value().getRoleCode() != null) {
+                codes.add(item.value().getRoleCode());
+            }
+        });
+        Mono<Set<String>> existingMono = codes.isEmpty()
+            ? Mono.just(Set.of())
+            : template.select(SysRole.class)
+                .matching(Query.query(Criteria.where("code").in(codes)))
+                .all()
+                .map(SysRole::getCode)
+                .collect(HashSet::new, Set::add);
+        return existingMono.map(existing -> {
+            List<Item<SysUser>> valid = new ArrayList<>();
+            for (Item<SysUser> item : items) {
+                String roleCode = item.value().getRoleCode();
+                if (roleCode != null && !existing.contains(roleCode)) {
+                    results.add(BulkResult.fail(item.index(), item.value().getId(), "角色不存在：" + roleCode));
+                } else {
+                    valid.add(item);
+                }
+            }
+            return valid;
+        });
+    }
+
+    /**
+     * 锁定一批用户（SELECT ... FOR UPDATE），返回 id -> 账号标识、角色代码
+     */
+    private Mono<Map<UUID, Existing>> lock(List<UUID> ids) {
+        StringBuilder sql = new StringBuilder("SELECT id, account_identifier, role_code FROM sys_user WHERE id IN (");
+        for (int i = 0; i < ids.size(); i++) {
+            sql.append(i > 0 ? ", $" : "$").append(i + 1);
+        }
+        sql.append(") FOR UPDATE");
+
+        DatabaseClient.GenericExecuteSpec spec = databaseClient.sql(sql.toString());
+        for (int i = 0; i < ids.size(); i++) {
+            spec = spec.bind(i, ids.get(i));
+        }
+        return spec
+            .map((row, metadata) -> new Existing(
+                row.get("id", UUID.class),
+                row.get("account_identifier", String.class),
+                row.get("role_code", String.class)))
+            .all()
+            .collectMap(Existing::id, Function.identity());
+    }
+
+    private void checkSize(List<?> items) {
+        if (items == null || items.isEmpty()) {
+            throw new IllegalArgumentException("批量操作不能为空");
+        }
+        if (items.size() > maxItems) {
+            throw new IllegalArgumentException("批量操作数量超过上限 " + maxItems);
+        }
+    }
+
+    private <T> List<List<Item<T>>> chunks(List<Item<T>> items) {
+        List<List<Item<T>>> chunks = new ArrayList<>();
+        for (int from = 0; from < items.size(); from += chunkSize) {
+            chunks.add(items.subList(from, Math.min(from + chunkSize, items.size())));
+        }
+        return chunks;
+    }
+
+    /**
+     * 追加一行的占位符 $n，typed 为 true 时带类型转换（VALUES 作为 FROM 子句时无法从目标列推断类型）
+     */
+    private static void appendPlaceholders(StringBuilder sql, int base, List<Field> fields, boolean typed) {
+        for (int i = 0; i < fields.size(); i++) {
+            sql.append(i > 0 ? ", $" : "$").append(base + i + 1);
+            if (typed) {
+                sql.append("::").append(fields.get(i).sqlType());
+            }
+        }
+    }
+
+    private static DatabaseClient.GenericExecuteSpec bindAll(DatabaseClient.GenericExecuteSpec spec,
+                                                             List<Item<SysUser>> items, List<Field> fields) {
+        for (int i = 0; i < items.size(); i++) {
+            int base = i * fields.size();
+            for (int j = 0; j < fields.size(); j++) {
+                Field field = fields.get(j);
+                Object value = field.getter().apply(items.get(i).value());
+                spec = value != null
+                    ? spec.bind(base + j, value)
+                    : spec.bindNull(base + j, field.javaType());
+            }
+        }
+        return spec;
+    }
+
+    private static List<String> accountKey(String accountType, String accountIdentifier) {
+        return List.of(accountType, accountIdentifier);
+    }
+
+    private static List<BulkResult> sorted(List<BulkResult> rejected, List<BulkResult> written) {
+        List<BulkResult> all = new ArrayList<>(rejected.size() + written.size());
+        all.addAll(rejected);
+        all.addAll(written);
+        all.sort(Comparator.comparingInt(BulkResult::index));
+        return all;
+    }
+
+    /**
+     * 批量操作的单条结果
+     *
+     * @param index   条目在请求数组中的下标
+     * @param id      用户ID（创建失败或未提供时为空）
+     * @param success 是否成功
+     * @param message 失败原因（成功时为空）
+     */
+    public record BulkResult(int index, UUID id, boolean success, String message) {
+
+        static BulkResult success(int index, UUID id) {
+            return new BulkResult(index, id, true, null);
+        }
+
+        static BulkResult fail(int index, UUID id, String message) {
+            return new BulkResult(index, id, false, message);
+        }
+    }
+
+    /**
+     * 写入的字段
+     *
+     * @param column   列名
+     * @param sqlType  VALUES 中的类型
+     * @param getter   取值
+     * @param javaType 值为空时绑定的类型
+     */
+    private record Field(String column, String sqlType, Function<SysUser, Object> getter, Class<?> javaType) {
+    }
+
+    private record Item<T>(int index, T value) {
+    }
+
+    private record Existing(UUID id, String accountIdentifier, String roleCode) {
+
+        boolean isRoot() {
+            return ROOT_ACCOUNT.equalsIgnoreCase(accountIdentifier);
+        }
+    }
+}
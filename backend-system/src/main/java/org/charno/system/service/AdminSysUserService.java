@@ -1,8 +1,10 @@
 package org.charno.system.service;
 
 import org.charno.common.web.response.PageResult;
+import org.charno.common.web.response.TotalStrategy;
 import org.charno.systementity.entity.SysUser;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.data.r2dbc.core.R2dbcEntityTemplate;
 import org.springframework.data.relational.core.query.Criteria;
 import org.springframework.data.relational.core.query.Query;
@@ -10,6 +12,12 @@ import org.springframework.stereotype.Service;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.time.OffsetDateTime;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
 /**
  * 系统用户管理业务服务
  * 面向管理的业务服务，提供条件查询功能
@@ -17,10 +25,44 @@ import reactor.core.publisher.Mono;
 @Service
 public class AdminSysUserService {
 
+    /**
+     * 游标分页定义：按 createdAt 或 accountIdentifier 排序，id 作为最后的排序字段
+     * 对应索引 idx_sys_user_created_at_id、idx_sys_user_account_identifier_id
+     */
+    private static final KeysetPagination<SysUser> KEYSET = KeysetPagination
+        .of(SysUser.class, "id", SysUser::getId, UUID::fromString)
+        .sortKey("createdAt", SysUser::getCreatedAt, OffsetDateTime::parse)
+        .sortKey("accountIdentifier", SysUser::getAccountIdentifier, value -> value);
+
+    /**
+     * 导出列（不包含 passwordHash 等密码相关字段）
+     */
+    public static final List<ExportService.Column<SysUser>> EXPORT_COLUMNS = List.of(
+        new ExportService.Column<>("id", SysUser::getId),
+        new ExportService.Column<>("status", SysUser::getStatus),
+        new ExportService.Column<>("roleCode", SysUser::getRoleCode),
+        new ExportService.Column<>("accountType", SysUser::getAccountType),
+        new ExportService.Column<>("accountIdentifier", SysUser::getAccountIdentifier),
+        new ExportService.Column<>("nickname", SysUser::getNickname),
+        new ExportService.Column<>("avatarUrl", SysUser::getAvatarUrl),
+        new ExportService.Column<>("gender", SysUser::getGender),
+        new ExportService.Column<>("locale", SysUser::getLocale),
+        new ExportService.Column<>("timezone", SysUser::getTimezone),
+        new ExportService.Column<>("lastLoginAt", SysUser::getLastLoginAt),
+        new ExportService.Column<>("lastLoginIp", SysUser::getLastLoginIp),
+        new ExportService.Column<>("createdAt", SysUser::getCreatedAt),
+        new ExportService.Column<>("updatedAt", SysUser::getUpdatedAt),
+        new ExportService.Column<>("deletedAt", SysUser::getDeletedAt));
+
     private final R2dbcEntityTemplate template;
+    private final PageTotalService pageTotalService;
+    private final ExportService exportService;
 
-    public AdminSysUserService(R2dbcEntityTemplate template) {
+    public AdminSysUserService(R2dbcEntityTemplate template, PageTotalService pageTotalService,
+                            ExportService exportService) {
         this.template = template;
+        this.pageTotalService = pageTotalService;
+        this.exportService = exportService;
     }
 
     // ==================== 条件查询 ====================
@@ -33,11 +75,12 @@ public class AdminSysUserService {
      * @param accountType 账号类型（可选）
      * @param accountIdentifier 账号标识符（可选，支持模糊查询）
      * @param nickname 昵称（可选，支持模糊查询）
+     * @param searchMode 文本条件的搜索方式
      * @return Flux<SysUser> 用户列表
      */
     public Flux<SysUser> query(String status, String roleCode, String accountType, 
-                               String accountIdentifier, String nickname) {
-        Criteria criteria = buildCriteria(status, roleCode, accountType, accountIdentifier, nickname);
+                               String accountIdentifier, String nickname, SearchMode searchMode) {
+        Criteria criteria = buildCriteria(status, roleCode, accountType, accountIdentifier, nickname, searchMode);
         return template.select(SysUser.class)
             .matching(Query.query(criteria))
             .all();
@@ -52,37 +95,71 @@ public class AdminSysUserService {
      * @param accountIdentifier 账号标识符（可选，支持模糊查询）
      * @param nickname 昵称（可选，支持模糊查询）
      * @param pageable 分页参数
+     * @param searchMode 文本条件的搜索方式
+     * @param totalStrategy 总数统计方式
      * @return Mono<PageResult<SysUser>> 分页结果
      */
     public Mono<PageResult<SysUser>> queryWithPage(String status, String roleCode, String accountType,
-                                       String accountIdentifier, String nickname, Pageable pageable) {
-        Criteria criteria = buildCriteria(status, roleCode, accountType, accountIdentifier, nickname);
-        Query query = Query.query(criteria);
-        
-        // 获取总数
-        Mono<Long> countMono = template.count(query, SysUser.class);
-        
-        // 获取分页数据
-        Mono<java.util.List<SysUser>> dataMono = template.select(SysUser.class)
-            .matching(query.with(pageable))
-            .all()
-            .collectList();
-        
-        // 组合成分页结果
-        return Mono.zip(countMono, dataMono)
-            .map(tuple -> PageResult.<SysUser>builder()
-                .data(tuple.getT2())
-                .total(tuple.getT1())
-                .page(pageable.getPageNumber())
-                .size(pageable.getPageSize())
-                .build());
+                                       String accountIdentifier, String nickname, Pageable pageable,
+                                       SearchMode searchMode, TotalStrategy totalStrategy) {
+        Criteria criteria = buildCriteria(status, roleCode, accountType, accountIdentifier, nickname, searchMode);
+        // 按匹配度排序：替换为各文本条件的 similarity() 之和
+        Map<String, String> terms = new LinkedHashMap<>();
+        terms.put("account_identifier", accountIdentifier);
+        terms.put("nickname", nickname);
+        Pageable resolved = SearchMode.bestMatch(pageable, terms, Sort.by(Sort.Direction.DESC, "createdAt"));
+        return pageTotalService.page(SysUser.class, criteria, resolved, totalStrategy);
+    }
+
+    /**
+     * 游标分页条件查询用户
+     * 按“排序字段 + id”定位边界，不使用 OFFSET，任意深度的分页代价相同
+     * 
+     * @param status 用户状态（可选）
+     * @param roleCode 角色代码（可选）
+     * @param accountType 账号类型（可选）
+     * @param accountIdentifier 账号标识符（可选，支持模糊查询）
+     * @param nickname 昵称（可选，支持模糊查询）
+     * @param sort 排序（支持 createdAt、accountIdentifier、id）
+     * @param size 每页大小
+     * @param cursor 游标（上一次查询返回的 nextCursor / prevCursor，为空时查询第一页）
+     * @param searchMode 文本条件的搜索方式
+     * @param totalStrategy 总数统计方式
+     * @return Mono<PageResult<SysUser>> 分页结果，包含 nextCursor、prevCursor
+     */
+    public Mono<PageResult<SysUser>> queryWithCursor(String status, String roleCode, String accountType,
+                                                     String accountIdentifier, String nickname,
+                                                     Sort sort, int size, String cursor,
+                                                     SearchMode searchMode, TotalStrategy totalStrategy) {
+        Criteria criteria = buildCriteria(status, roleCode, accountType, accountIdentifier, nickname, searchMode);
+        return KEYSET.query(template, criteria, sort, size, cursor,
+            pageTotalService.count(SysUser.class, criteria, totalStrategy));
+    }
+
+    /**
+     * 流式导出用户（按 fetch-size 分批读取，不收集完整结果）
+     * 按 createdAt、id 升序（使用 idx_sys_user_created_at_id）
+     * 
+     * @param status 用户状态（可选）
+     * @param roleCode 角色代码（可选）
+     * @param accountType 账号类型（可选）
+     * @param accountIdentifier 账号标识符（可选，支持模糊查询）
+     * @param nickname 昵称（可选，支持模糊查询）
+     * @param searchMode 文本条件的搜索方式
+     * @return Flux<SysUser> 用户数据流
+     */
+    public Flux<SysUser> export(String status, String roleCode, String accountType,
+                                String accountIdentifier, String nickname, SearchMode searchMode) {
+        Criteria criteria = buildCriteria(status, roleCode, accountType, accountIdentifier, nickname, searchMode);
+        return exportService.stream(SysUser.class, criteria, Sort.by("createdAt", "id"));
     }
 
     /**
      * 构建查询条件
      */
     private Criteria buildCriteria(String status, String roleCode, String accountType,
-                                   String accountIdentifier, String nickname) {
+                                   String accountIdentifier, String nickname,
+                                   SearchMode searchMode) {
         Criteria criteria = Criteria.empty();
 
         if (status != null && !status.isEmpty()) {
@@ -98,11 +175,11 @@ public class AdminSysUserService {
         }
 
         if (accountIdentifier != null && !accountIdentifier.isEmpty()) {
-            criteria = criteria.and(Criteria.where("accountIdentifier").like("%" + accountIdentifier + "%"));
+            criteria = criteria.and(searchMode.contains("accountIdentifier", accountIdentifier));
         }
 
         if (nickname != null && !nickname.isEmpty()) {
-            criteria = criteria.and(Criteria.where("nickname").like("%" + nickname + "%"));
+            criteria = criteria.and(searchMode.contains("nickname", nickname));
         }
 
         return criteria;
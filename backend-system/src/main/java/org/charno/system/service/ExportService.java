@@ -0,0 +1,280 @@
+package org.charno.system.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.buffer.DataBufferFactory;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.r2dbc.core.R2dbcEntityTemplate;
+import org.springframework.data.r2dbc.core.StatementMapper;
+import org.springframework.data.relational.core.query.Criteria;
+import org.springframework.data.relational.core.sql.Expressions;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.r2dbc.core.PreparedOperation;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * 查询结果导出服务
+ * 将查询结果以 NDJSON（每行一个JSON对象）或 CSV 流式写入响应，不在内存中收集完整结果
+ *
+ * - 查询：通过服务端游标按 fetch-size 分批从PostgreSQL读取（Statement.fetchSize），
+ *   下游（网络写出）的请求量决定读取速度，客户端读取慢时数据库读取随之暂停
+ * - 编码：每 flush-rows 行编码为一个 DataBuffer 写出，内存占用与总行数无关
+ * - 压缩：gzip=true 时以 gzip 流（sync flush）逐块压缩，下载文件名追加 .gz
+ *
+ * 导出只包含 Column 定义的列（如用户不导出 passwordHash）
+ */
+@Service
+public class ExportService {
+
+    private static final byte[] NEWLINE = "\n".getBytes(StandardCharsets.UTF_8);
+
+    private final R2dbcEntityTemplate template;
+    private final ObjectMapper objectMapper;
+    private final int fetchSize;
+    private final int flushRows;
+
+    public ExportService(
+            R2dbcEntityTemplate template,
+            ObjectMapper objectMapper,
+            @Value("${charno.system.export.fetch-size:500}") int fetchSize,
+            @Value("${charno.system.export.flush-rows:500}") int flushRows) {
+        this.template = template;
+        this.objectMapper = objectMapper;
+        this.fetchSize = Math.max(1, fetchSize);
+        this.flushRows = Math.max(1, flushRows);
+    }
+
+    /**
+     * 流式查询
+     *
+     * @param type     实体类型
+     * @param criteria 过滤条件
+     * @param sort     排序
+     * @return Flux<T>，按 fetch-size 分批从数据库读取
+     */
+    public <T> Flux<T> stream(Class<T> type, Criteria criteria, Sort sort) {
+        StatementMapper statementMapper = template.getDataAccessStrategy().getStatementMapper().forType(type);
+        StatementMapper.SelectSpec selectSpec = statementMapper.createSelect(template.getDataAccessStrategy().getTableName(type))
+                .withProjection(Expressions.asterisk())
+                .withCriteria(criteria)
+                .withSort(sort);
+        PreparedOperation<?> operation = statementMapper.getMappedObject(selectSpec);
+        return template.getDatabaseClient().sql(operation)
+                .filter(statement -> statement.fetchSize(fetchSize))
+                .map((row, metadata) -> template.getConverter().read(type, row, metadata))
+                .all();
+    }
+
+    /**
+     * 将数据流写入响应
+     *
+     * @param response ServerHttpResponse
+     * @param filename 下载文件名（不含扩展名）
+     * @param rows     数据
+     * @param columns  导出的列
+     * @param format   导出格式
+     * @param gzip     是否gzip压缩
+     * @return Mono<Void>
+     */
+    public <T> Mono<Void> write(ServerHttpResponse response, String filename, Flux<T> rows,
+                                List<Column<T>> columns, Format format, boolean gzip) {
+        String attachment = filename + "." + format.getExtension() + (gzip ? ".gz" : "");
+        HttpHeaders headers = response.getHeaders();
+        headers.set(HttpHeaders.CONTENT_TYPE, gzip ? "application/gzip" : format.getContentType());
+        headers.setContentDisposition(ContentDisposition.attachment().filename(attachment, StandardCharsets.UTF_8).build());
+
+        DataBufferFactory bufferFactory = response.bufferFactory();
+        return response.writeWith(Flux.defer(() -> {
+            Flux<byte[]> chunks = encode(rows, columns, format);
+            if (!gzip) {
+                return chunks.map(bufferFactory::wrap);
+            }
+            GzipEncoder encoder = new GzipEncoder();
+            return chunks.map(encoder::encode)
+                    .concatWith(Mono.fromCallable(encoder::finish))
+                    .filter(bytes -> bytes.length > 0)
+                    .map(bufferFactory::wrap)
+                    .doFinally(signal -> encoder.close());
+        }));
+    }
+
+    /**
+     * 按 flush-rows 行一块编码
+     */
+    private <T> Flux<byte[]> encode(Flux<T> rows, List<Column<T>> columns, Format format) {
+        Flux<byte[]> body = rows.buffer(flushRows)
+                .map(batch -> {
+                    ByteArrayOutputStream out = new ByteArrayOutputStream();
+                    for (T row : batch) {
+                        if (format == Format.CSV) {
+                            writeCsvLine(out, columns.stream().map(column -> column.getter().apply(row)).toList());
+                        } else {
+                            writeJsonLine(out, columns, row);
+                        }
+                    }
+                    return out.toByteArray();
+                });
+        if (format == Format.CSV) {
+            ByteArrayOutputStream header = new ByteArrayOutputStream();
+            writeCsvLine(header, columns.stream().<Object>map(Column::name).toList());
+            return Flux.concat(Mono.just(header.toByteArray()), body);
+        }
+        return body;
+    }
+
+    private <T> void writeJsonLine(ByteArrayOutputStream out, List<Column<T>> columns, T row) {
+        Map<String, Object> values = new LinkedHashMap<>();
+        for (Column<T> column : columns) {
+            values.put(column.name(), column.getter().apply(row));
+        }
+        try {
+            out.writeBytes(objectMapper.writeValueAsBytes(values));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("导出数据序列化失败", e);
+        }
+        out.writeBytes(NEWLINE);
+    }
+
+    /**
+     * 写入一行CSV（RFC 4180：包含逗号、引号或换行的值加引号，引号写两次）
+     */
+    private static void writeCsvLine(ByteArrayOutputStream out, List<Object> values) {
+        StringBuilder line = new StringBuilder();
+        for (int i = 0; i < values.size(); i++) {
+            if (i > 0) {
+                line.append(',');
+            }
+            Object value = values.get(i);
+            if (value == null) {
+                continue;
+            }
+            String text = value.toString();
+            if (text.indexOf(',') >= 0 || text.indexOf('"') >= 0 || text.indexOf('\n') >= 0 || text.indexOf('\r') >= 0) {
+                line.append('"').append(text.replace("\"", "\"\"")).append('"');
+            } else {
+                line.append(text);
+            }
+        }
+        line.append("\r\n");
+        out.writeBytes(line.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * 导出格式
+     */
+    public enum Format {
+
+        NDJSON("ndjson", "application/x-ndjson"),
+
+        CSV("csv", "text/csv;charset=UTF-8");
+
+        private final String extension;
+        private final String contentType;
+
+        Format(String extension, String contentType) {
+            this.extension = extension;
+            this.contentType = contentType;
+        }
+
+        public String getExtension() {
+            return extension;
+        }
+
+        public String getContentType() {
+            return contentType;
+        }
+
+        /**
+         * 解析导出格式（忽略大小写）
+         *
+         * @param value 导出格式
+         * @return Format，无法识别时返回 null
+         */
+        public static Format from(String value) {
+            if (value == null) {
+                return null;
+            }
+            for (Format format : values()) {
+                if (format.name().equalsIgnoreCase(value)) {
+                    return format;
+                }
+            }
+            return null;
+        }
+    }
+
+    /**
+     * 导出列
+     *
+     * @param name   列名（CSV表头 / JSON字段名）
+     * @param getter 取值
+     */
+    public record Column<T>(String name, Function<T, Object> getter) {
+    }
+
+    /**
+     * 逐块gzip压缩（每块 sync flush，压缩后的数据可以立即写出）
+     * 每次导出使用一个实例，不是线程安全的（Flux 的 onNext 串行调用）
+     */
+    private static final class GzipEncoder {
+
+        private final ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        private final GZIPOutputStream gzip;
+
+        GzipEncoder() {
+            try {
+                this.gzip = new GZIPOutputStream(buffer, true);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        byte[] encode(byte[] chunk) {
+            try {
+                gzip.write(chunk);
+                gzip.flush();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            return drain();
+        }
+
+        byte[] finish() {
+            try {
+                gzip.finish();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            return drain();
+        }
+
+        void close() {
+            try {
+                gzip.close();
+            } catch (IOException ignored) {
+                // 只释放 Deflater，数据已写出或导出已取消
+            }
+        }
+
+        private byte[] drain() {
+            byte[] bytes = buffer.toByteArray();
+            buffer.reset();
+            return bytes;
+        }
+    }
+}
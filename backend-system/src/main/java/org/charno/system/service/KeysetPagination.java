@@ -0,0 +1,203 @@
+package org.charno.system.service;
+
+import org.charno.common.web.response.PageResult;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.r2dbc.core.R2dbcEntityTemplate;
+import org.springframework.data.relational.core.query.Criteria;
+import org.springframework.data.relational.core.query.Query;
+import reactor.core.publisher.Mono;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * 游标（keyset）分页
+ * 按“排序字段 + 主键”定位上一页/下一页的边界，查询条件为
+ * {@code sort_key <= ? AND (sort_key < ? OR id < ?)}（升序时方向相反），与 {@code (sort_key, id) < (?, ?)} 等价，
+ * 由 (sort_key, id) 复合索引直接定位起点，第N页与第1页的代价相同（不使用 OFFSET）
+ *
+ * 游标格式：{方向}.{排序}.{排序字段值}.{主键值}，各部分为 base64url 编码，对客户端不透明
+ * - 方向：n 表示下一页（边界之后），p 表示上一页（边界之前）
+ * - 排序：排序字段和方向，与请求的排序不一致时游标无效
+ *
+ * 只允许按注册的排序字段（非空列，并有对应的复合索引）进行游标分页
+ *
+ * @param <T> 实体类型
+ */
+public final class KeysetPagination<T> {
+
+    private static final String NEXT = "n";
+    private static final String PREVIOUS = "p";
+
+    private final Class<T> type;
+    private final String idProperty;
+    private final Function<T, Object> idGetter;
+    private final Function<String, Object> idParser;
+    private final Map<String, SortKey<T>> sortKeys = new LinkedHashMap<>();
+
+    private KeysetPagination(Class<T> type, String idProperty, Function<T, Object> idGetter, Function<String, Object> idParser) {
+        this.type = type;
+        this.idProperty = idProperty;
+        this.idGetter = idGetter;
+        this.idParser = idParser;
+    }
+
+    /**
+     * 创建游标分页定义
+     *
+     * @param type       实体类型
+     * @param idProperty 主键属性名（排序的最后一个字段，保证顺序唯一）
+     * @param idGetter   主键取值
+     * @param idParser   主键解析（游标中的字符串 -> 绑定值）
+     * @return 游标分页定义，主键本身已注册为排序字段
+     */
+    public static <T> KeysetPagination<T> of(Class<T> type, String idProperty,
+                                             Function<T, Object> idGetter, Function<String, Object> idParser) {
+        KeysetPagination<T> pagination = new KeysetPagination<>(type, idProperty, idGetter, idParser);
+        pagination.sortKeys.put(idProperty, new SortKey<>(idGetter, idParser));
+        return pagination;
+    }
+
+    /**
+     * 注册允许游标分页的排序字段（必须为非空列）
+     *
+     * @param property 属性名
+     * @param getter   取值
+     * @param parser   解析（游标中的字符串 -> 绑定值）
+     * @return this
+     */
+    public KeysetPagination<T> sortKey(String property, Function<T, Object> getter, Function<String, Object> parser) {
+        sortKeys.put(property, new SortKey<>(getter, parser));
+        return this;
+    }
+
+    /**
+     * 游标分页查询
+     *
+     * @param template R2dbcEntityTemplate
+     * @param criteria 过滤条件
+     * @param sort     排序（只使用第一个排序字段，主键作为最后的排序字段自动追加）
+     * @param size     每页大小
+     * @param cursor   游标（为空时查询第一页）
+     * @param totalMono 满足过滤条件的总数（由 PageTotalService 按统计方式获取）
+     * @return Mono<PageResult<T>>，nextCursor / prevCursor 为空表示没有下一页/上一页
+     */
+    public Mono<PageResult<T>> query(R2dbcEntityTemplate template, Criteria criteria, Sort sort, int size, String cursor,
+                                     Mono<PageTotalService.Total> totalMono) {
+        Sort.Order order = sort.stream().findFirst().orElse(Sort.Order.asc(idProperty));
+        SortKey<T> sortKey = sortKeys.get(order.getProperty());
+        if (sortKey == null) {
+            return Mono.error(new IllegalArgumentException("游标分页不支持按 " + order.getProperty() + " 排序，可选：" + sortKeys.keySet()));
+        }
+        String sortToken = order.getProperty() + "," + (order.isAscending() ? "asc" : "desc");
+
+        // 解析游标：上一页时反向查询，结果再反转
+        boolean backward = false;
+        Criteria keyset = null;
+        if (cursor != null && !cursor.isEmpty()) {
+            String[] parts = decode(cursor);
+            if (parts == null || !parts[1].equals(sortToken)) {
+                return Mono.error(new IllegalArgumentException("游标无效"));
+            }
+            backward = PREVIOUS.equals(parts[0]);
+            try {
+                keyset = boundary(order.getProperty(), sortKey.parser().apply(parts[2]), idParser.apply(parts[3]),
+                        order.isAscending() != backward);
+            } catch (RuntimeException e) {
+                return Mono.error(new IllegalArgumentException("游标无效"));
+            }
+        }
+
+        Sort.Direction direction = order.isAscending() != backward ? Sort.Direction.ASC : Sort.Direction.DESC;
+        Sort querySort = order.getProperty().equals(idProperty)
+                ? Sort.by(direction, idProperty)
+                : Sort.by(direction, order.getProperty()).and(Sort.by(direction, idProperty));
+        Query pageQuery = Query.query(keyset != null ? criteria.and(keyset) : criteria)
+                .sort(querySort)
+                // 多查询一行，判断该方向上是否还有数据
+                .limit(size + 1);
+
+        boolean fromPrevious = backward;
+        boolean hasCursor = keyset != null;
+        Mono<List<T>> dataMono = template.select(type)
+                .matching(pageQuery)
+                .all()
+                .collectList();
+
+        return Mono.zip(totalMono, dataMono)
+                .map(tuple -> {
+                    List<T> rows = new ArrayList<>(tuple.getT2());
+                    boolean more = rows.size() > size;
+                    if (more) {
+                        rows.remove(rows.size() - 1);
+                    }
+                    if (fromPrevious) {
+                        Collections.reverse(rows);
+                    }
+                    boolean hasNext = fromPrevious ? hasCursor : more;
+                    boolean hasPrevious = fromPrevious ? more : hasCursor;
+                    return PageResult.<T>builder()
+                            .data(rows)
+                            .total(tuple.getT1().total())
+                            .totalStrategy(tuple.getT1().strategy())
+                            .page(0)
+                            .size(size)
+                            .nextCursor(hasNext && !rows.isEmpty() ? encode(NEXT, sortToken, sortKey, rows.get(rows.size() - 1)) : null)
+                            .prevCursor(hasPrevious && !rows.isEmpty() ? encode(PREVIOUS, sortToken, sortKey, rows.get(0)) : null)
+                            .build();
+                });
+    }
+
+    /**
+     * 构建边界条件
+     * after 为 true 时查询 (key, id) > (keyValue, idValue)，否则查询 (key, id) < (keyValue, idValue)
+     */
+    private Criteria boundary(String property, Object keyValue, Object idValue, boolean after) {
+        if (property.equals(idProperty)) {
+            return after
+                    ? Criteria.where(idProperty).greaterThan(idValue)
+                    : Criteria.where(idProperty).lessThan(idValue);
+        }
+        return after
+                ? Criteria.where(property).greaterThanOrEquals(keyValue)
+                        .and(Criteria.where(property).greaterThan(keyValue).or(idProperty).greaterThan(idValue))
+                : Criteria.where(property).lessThanOrEquals(keyValue)
+                        .and(Criteria.where(property).lessThan(keyValue).or(idProperty).lessThan(idValue));
+    }
+
+    private String encode(String direction, String sortToken, SortKey<T> sortKey, T row) {
+        Base64.Encoder encoder = Base64.getUrlEncoder().withoutPadding();
+        return direction
+                + "." + encoder.encodeToString(sortToken.getBytes(StandardCharsets.UTF_8))
+                + "." + encoder.encodeToString(String.valueOf(sortKey.getter().apply(row)).getBytes(StandardCharsets.UTF_8))
+                + "." + encoder.encodeToString(String.valueOf(idGetter.apply(row)).getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * 解析游标，格式不符返回 null
+     */
+    private static String[] decode(String cursor) {
+        String[] parts = cursor.split("\\.", -1);
+        if (parts.length != 4 || !(NEXT.equals(parts[0]) || PREVIOUS.equals(parts[0]))) {
+            return null;
+        }
+        try {
+            Base64.Decoder decoder = Base64.getUrlDecoder();
+            for (int i = 1; i < parts.length; i++) {
+                parts[i] = new String(decoder.decode(parts[i]), StandardCharsets.UTF_8);
+            }
+            return parts;
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private record SortKey<T>(Function<T, Object> getter, Function<String, Object> parser) {
+    }
+}
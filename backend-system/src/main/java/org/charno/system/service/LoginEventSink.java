@@ -0,0 +1,195 @@
+package org.charno.system.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.TransientDataAccessException;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 登录事件缓冲
+ * 登录成功后只在内存中记录最后登录时间和IP，登录响应不再等待PostgreSQL写入
+ *
+ * 写入策略：
+ * - 同一用户的多次登录在缓冲中合并，只保留最新一次
+ * - 每隔 flush-interval，或缓冲达到 batch-size 个用户时，以一条 UPDATE ... FROM (VALUES ...) 批量写入
+ * - 只更新 last_login_at 和 last_login_ip，不修改 version 和 updated_at，不与管理端的乐观锁更新冲突
+ * - 数据库连接失败或超时：整批事件放回缓冲，下一批次重试（已有更新的事件不会被覆盖）
+ * - 其他失败（例如某一行数据不合法）：批次对半拆分后立即重试，隔离出导致失败的事件，其余事件正常写入；
+ *   单个事件失败时放回缓冲并累计失败次数，达到 max-attempts 后丢弃，避免一行坏数据永久阻塞其他用户的写入
+ *
+ * 注意：进程异常退出时尚未写入的登录时间会丢失；正常停止时会尝试写入剩余事件
+ */
+@Component
+public class LoginEventSink {
+
+    private static final Logger log = LoggerFactory.getLogger(LoginEventSink.class);
+
+    private final DatabaseClient databaseClient;
+    private final Duration flushInterval;
+    private final int batchSize;
+    private final int maxAttempts;
+    private final Map<UUID, LoginEvent> pending = new ConcurrentHashMap<>();
+    private final Sinks.Many<Boolean> batchFull = Sinks.many().multicast().directBestEffort();
+
+    private Disposable flushing;
+
+    public LoginEventSink(
+            DatabaseClient databaseClient,
+            @Value("${charno.system.login-event.flush-interval:1s}") Duration flushInterval,
+            @Value("${charno.system.login-event.batch-size:500}") int batchSize,
+            @Value("${charno.system.login-event.max-attempts:3}") int maxAttempts) {
+        this.databaseClient = databaseClient;
+        this.flushInterval = flushInterval;
+        this.batchSize = batchSize;
+        this.maxAttempts = maxAttempts;
+    }
+
+    @PostConstruct
+    public void start() {
+        flushing = Flux.merge(Flux.interval(flushInterval, flushInterval), batchFull.asFlux())
+                .onBackpressureDrop()
+                .concatMap(signal -> flush())
+                .subscribe();
+    }
+
+    /**
+     * 停止时尽量把缓冲中的事件写入数据库
+     */
+    @PreDestroy
+    public void stop() {
+        if (flushing != null) {
+            flushing.dispose();
+        }
+        try {
+            flush().block(Duration.ofSeconds(5));
+        } catch (RuntimeException e) {
+            log.warn("Failed to flush pending login events on shutdown: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 记录一次登录（纯内存操作）
+     *
+     * @param userId  用户ID
+     * @param loginAt 登录时间
+     * @param loginIp 登录IP
+     */
+    public void record(UUID userId, OffsetDateTime loginAt, String loginIp) {
+        offer(new LoginEvent(userId, loginAt, loginIp, 0));
+        if (pending.size() >= batchSize) {
+            batchFull.tryEmitNext(Boolean.TRUE);
+        }
+    }
+
+    private void offer(LoginEvent event) {
+        pending.merge(event.userId(), event, (current, next) -> next.loginAt().isAfter(current.loginAt()) ? next : current);
+    }
+
+    /**
+     * 取出缓冲中的全部事件，按 batch-size 分批写入
+     * 按键逐个移除并使用 remove 的返回值（而不是替换缓冲），并发记录的事件要么本批次取到，要么留给下一批次
+     */
+    private Mono<Void> flush() {
+        List<LoginEvent> events = new ArrayList<>();
+        for (UUID userId : pending.keySet()) {
+            LoginEvent event = pending.remove(userId);
+            if (event != null) {
+                events.add(event);
+            }
+        }
+        if (events.isEmpty()) {
+            return Mono.empty();
+        }
+
+        List<List<LoginEvent>> batches = new ArrayList<>();
+        for (int from = 0; from < events.size(); from += batchSize) {
+            batches.add(events.subList(from, Math.min(from + batchSize, events.size())));
+        }
+        return Flux.fromIterable(batches)
+                .concatMap(this::update)
+                .then();
+    }
+
+    private Mono<Void> update(List<LoginEvent> batch) {
+        StringBuilder sql = new StringBuilder("UPDATE sys_user AS u SET last_login_at = v.last_login_at, last_login_ip = v.last_login_ip FROM (VALUES ");
+        for (int i = 0; i < batch.size(); i++) {
+            int base = i * 3;
+            if (i > 0) {
+                sql.append(", ");
+            }
+            sql.append("($").append(base + 1).append("::uuid, $")
+                    .append(base + 2).append("::timestamptz, $")
+                    .append(base + 3).append("::varchar)");
+        }
+        sql.append(") AS v(id, last_login_at, last_login_ip) WHERE u.id = v.id")
+                .append(" AND (u.last_login_at IS NULL OR u.last_login_at < v.last_login_at)");
+
+        DatabaseClient.GenericExecuteSpec spec = databaseClient.sql(sql.toString());
+        for (int i = 0; i < batch.size(); i++) {
+            LoginEvent event = batch.get(i);
+            int base = i * 3;
+            spec = spec.bind(base, event.userId()).bind(base + 1, event.loginAt());
+            spec = event.loginIp() != null
+                    ? spec.bind(base + 2, event.loginIp())
+                    : spec.bindNull(base + 2, String.class);
+        }
+
+        return spec.fetch()
+                .rowsUpdated()
+                .doOnNext(updated -> log.debug("Flushed {} login event(s), {} row(s) updated", batch.size(), updated))
+                .then()
+                .onErrorResume(e -> onUpdateFailure(batch, e));
+    }
+
+    /**
+     * 批次写入失败的处理
+     * 连接类失败整批放回缓冲；其他失败对半拆分重试，单个事件失败时累计失败次数，达到上限后丢弃
+     */
+    private Mono<Void> onUpdateFailure(List<LoginEvent> batch, Throwable e) {
+        if (e instanceof DataAccessResourceFailureException || e instanceof TransientDataAccessException) {
+            log.warn("Failed to flush {} login event(s), will retry: {}", batch.size(), e.getMessage());
+            batch.forEach(this::offer);
+            return Mono.empty();
+        }
+        if (batch.size() > 1) {
+            int middle = batch.size() / 2;
+            log.debug("Failed to flush {} login event(s), splitting batch: {}", batch.size(), e.getMessage());
+            return update(batch.subList(0, middle)).then(update(batch.subList(middle, batch.size())));
+        }
+        LoginEvent event = batch.get(0);
+        if (event.attempts() + 1 >= maxAttempts) {
+            log.warn("Dropping login event after {} failed attempt(s): userId={}, error: {}", event.attempts() + 1, event.userId(), e.getMessage());
+        } else {
+            log.warn("Failed to flush login event, will retry: userId={}, error: {}", event.userId(), e.getMessage());
+            offer(event.retried());
+        }
+        return Mono.empty();
+    }
+
+    /**
+     * @param attempts 已失败的写入次数（同一用户有新的登录事件时重新计数）
+     */
+    private record LoginEvent(UUID userId, OffsetDateTime loginAt, String loginIp, int attempts) {
+
+        LoginEvent retried() {
+            return new LoginEvent(userId, loginAt, loginIp, attempts + 1);
+        }
+    }
+}
@@ -1,18 +1,23 @@
 package org.charno.system.service;
 
-import org.charno.common.security.util.PasswordUtil;
+import org.charno.common.security.service.PasswordHashingService;
+import org.charno.common.security.session.RefreshTokenService;
 import org.charno.common.security.util.TokenUtil;
 import org.charno.systementity.entity.SysUser;
-import org.charno.systementity.repository.SysUserRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.data.r2dbc.core.R2dbcEntityTemplate;
 import org.springframework.data.relational.core.query.Criteria;
 import org.springframework.data.relational.core.query.Query;
+import org.springframework.data.relational.core.query.Update;
 import org.springframework.stereotype.Service;
 import reactor.core.publisher.Mono;
 
 import java.time.OffsetDateTime;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
 
 /**
  * 登录业务服务
@@ -21,16 +26,21 @@ import java.util.Map;
 @Service
 public class LoginService {
 
-    private final SysUserRepository userRepository;
+    private static final Logger log = LoggerFactory.getLogger(LoginService.class);
+
     private final R2dbcEntityTemplate template;
-    private final PasswordUtil passwordUtil;
+    private final PasswordHashingService passwordHashingService;
     private final TokenUtil tokenUtil;
+    private final RefreshTokenService refreshTokenService;
+    private final LoginEventSink loginEventSink;
 
-    public LoginService(SysUserRepository userRepository, R2dbcEntityTemplate template, PasswordUtil passwordUtil, TokenUtil tokenUtil) {
-        this.userRepository = userRepository;
+    public LoginService(R2dbcEntityTemplate template, PasswordHashingService passwordHashingService, TokenUtil tokenUtil,
+                        RefreshTokenService refreshTokenService, LoginEventSink loginEventSink) {
         this.template = template;
-        this.passwordUtil = passwordUtil;
+        this.passwordHashingService = passwordHashingService;
         this.tokenUtil = tokenUtil;
+        this.refreshTokenService = refreshTokenService;
+        this.loginEventSink = loginEventSink;
     }
 
     // ==================== 业务逻辑 ====================
@@ -42,7 +52,7 @@ public class LoginService {
      * @param username 用户名
      * @param password 密码（明文）
      * @param loginIp 登录IP地址
-     * @return 登录成功返回包含用户信息和Token的Map，失败返回错误
+     * @return 登录成功返回包含用户信息、accessToken、refreshToken、expiresIn的Map，失败返回错误
      */
     public Mono<Map<String, Object>> login(String username, String password, String loginIp) {
         // 1. 根据用户名查询用户（账号类型固定为 USERNAME）
@@ -58,36 +68,106 @@ public class LoginService {
                         return Mono.error(new RuntimeException("用户已被禁用或锁定"));
                     }
                     
-                    // 3. 验证密码
-                    if (user.getPasswordHash() == null || 
-                        !passwordUtil.matches(password, user.getPasswordHash())) {
+                    // 3. 验证密码（在独立的哈希线程池中执行，不占用事件循环线程）
+                    if (user.getPasswordHash() == null) {
                         return Mono.error(new RuntimeException("账号或密码错误"));
                     }
-                    
-                    // 4. 更新登录时间和IP
-                    user.setLastLoginAt(OffsetDateTime.now());
-                    user.setLastLoginIp(loginIp);
-                    
-                    // 5. 保存用户信息
-                    return userRepository.save(user)
-                            .flatMap(savedUser -> {
-                                // 6. 生成Token
-                                String token = tokenUtil.generateToken();
+                    return passwordHashingService.matches(password, user.getPasswordHash())
+                            .flatMap(matched -> {
+                                if (!matched) {
+                                    return Mono.error(new RuntimeException("账号或密码错误"));
+                                }
+                                
+                                // 4. 密码哈希不符合当前密码策略时，在后台按新策略重新加密（不阻塞登录响应）
+                                if (passwordHashingService.needsRehash(user.getPasswordHash(), user.getPasswordAlgoVersion())) {
+                                    upgradePasswordHash(user.getId(), user.getPasswordHash(), password);
+                                }
                                 
-                                // 7. 保存Token和用户信息到Redis（优化：避免每次请求都查询数据库）
-                                return tokenUtil.saveToken(token, savedUser)
-                                        .then(Mono.fromCallable(() -> {
+                                // 5. 更新登录时间和IP
+                                user.setLastLoginAt(OffsetDateTime.now());
+                                user.setLastLoginIp(loginIp);
+                                
+                                // 6. 记录登录事件（异步批量写入数据库，登录响应不等待PostgreSQL）
+                                loginEventSink.record(user.getId(), user.getLastLoginAt(), loginIp);
+                                return Mono.just(user);
+                            })
+                            .flatMap(savedUser -> {
+                                // 7. 签发访问Token和刷新Token
+                                // opaque 模式：保存Token和用户信息到Redis（优化：避免每次请求都查询数据库）
+                                // signed 模式：生成签名Token，认证时本地校验
+                                // 刷新Token签发失败时只返回访问Token，不影响登录
+                                Mono<String> refreshToken = refreshTokenService.issue(savedUser.getId())
+                                        .doOnError(e -> log.warn("Failed to issue refresh token: userId={}, error: {}", savedUser.getId(), e.getMessage()))
+                                        .onErrorResume(e -> Mono.empty());
+                                return tokenUtil.issueToken(savedUser)
+                                        .zipWith(refreshToken.map(Optional::of).defaultIfEmpty(Optional.empty()))
+                                        .map(tokens -> {
                                             // 8. 构建返回结果（不单独声明DTO，使用Map）
-                                            Map<String, Object> result = new HashMap<>();
+                                            Map<String, Object> result = buildTokenResult(tokens.getT1(), tokens.getT2().orElse(null));
                                             result.put("user", savedUser);
-                                            result.put("accessToken", token);
                                             return result;
-                                        }));
+                                        });
                             });
                 })
                 .switchIfEmpty(Mono.error(new RuntimeException("账号或密码错误")));
     }
 
+    /**
+     * 使用刷新Token换取新的访问Token
+     * 刷新Token轮换后旧Token立即失效；重新从数据库加载用户，用户已被禁用、锁定或删除时吊销新的刷新Token并返回错误
+     *
+     * @param refreshToken 刷新Token
+     * @return 成功返回包含accessToken、refreshToken、expiresIn的Map，失败返回错误
+     */
+    public Mono<Map<String, Object>> refresh(String refreshToken) {
+        return refreshTokenService.rotate(refreshToken)
+                .switchIfEmpty(Mono.error(new RuntimeException("刷新Token无效或已过期，请重新登录")))
+                .flatMap(rotation -> template.select(SysUser.class)
+                        .matching(Query.query(Criteria.where("id").is(rotation.userId())))
+                        .one()
+                        .filter(user -> user.getDeletedAt() == null && "ENABLED".equals(user.getStatus()))
+                        .switchIfEmpty(Mono.defer(() -> refreshTokenService.revoke(rotation.refreshToken())
+                                .then(Mono.<SysUser>error(new RuntimeException("用户已被禁用或锁定")))))
+                        .flatMap(tokenUtil::issueToken)
+                        .map(accessToken -> buildTokenResult(accessToken, rotation.refreshToken())));
+    }
+
+    /**
+     * 构建Token返回结果
+     * expiresIn 为访问Token有效期（秒），客户端可据此提前刷新
+     */
+    private Map<String, Object> buildTokenResult(String accessToken, String refreshToken) {
+        Map<String, Object> result = new HashMap<>();
+        result.put("accessToken", accessToken);
+        if (refreshToken != null) {
+            result.put("refreshToken", refreshToken);
+        }
+        result.put("expiresIn", tokenUtil.getAccessTokenTtl().toSeconds());
+        return result;
+    }
+
+    /**
+     * 按当前密码策略重新加密密码
+     * 在密码哈希线程池中异步执行；只有数据库中的哈希仍为旧值时才更新（期间修改过密码则放弃），
+     * 不修改 version，不与其他更新冲突。线程池繁忙或更新失败时放弃，下次登录再尝试
+     *
+     * @param userId      用户ID
+     * @param oldHash     登录时校验通过的旧哈希
+     * @param rawPassword 原始密码（明文）
+     */
+    private void upgradePasswordHash(UUID userId, String oldHash, String rawPassword) {
+        int algoVersion = passwordHashingService.getAlgoVersion();
+        passwordHashingService.encode(rawPassword)
+                .flatMap(newHash -> template.update(SysUser.class)
+                        .matching(Query.query(Criteria.where("id").is(userId)
+                                .and(Criteria.where("passwordHash").is(oldHash))))
+                        .apply(Update.update("passwordHash", newHash)
+                                .set("passwordAlgoVersion", algoVersion)))
+                .subscribe(
+                        updated -> log.debug("Password hash upgraded: userId={}, updated={}", userId, updated),
+                        e -> log.warn("Failed to upgrade password hash: userId={}, error: {}", userId, e.getMessage()));
+    }
+
     // TODO: 第三方登录方法（暂未实现）
     // 每个登录方法对应一种账户类型
     
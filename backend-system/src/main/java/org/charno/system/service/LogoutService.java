@@ -1,5 +1,6 @@
 package org.charno.system.service;
 
+import org.charno.common.security.session.RefreshTokenService;
 import org.charno.common.security.util.TokenUtil;
 import org.springframework.stereotype.Service;
 import reactor.core.publisher.Mono;
@@ -12,30 +13,41 @@ import reactor.core.publisher.Mono;
 public class LogoutService {
 
     private final TokenUtil tokenUtil;
+    private final RefreshTokenService refreshTokenService;
 
-    public LogoutService(TokenUtil tokenUtil) {
+    public LogoutService(TokenUtil tokenUtil, RefreshTokenService refreshTokenService) {
         this.tokenUtil = tokenUtil;
+        this.refreshTokenService = refreshTokenService;
     }
 
     // ==================== 业务逻辑 ====================
 
     /**
      * 用户登出
-     * 删除Redis中的Token
+     * 删除Redis中的Token（签名Token则加入吊销列表），并吊销刷新Token
      * 
      * @param token Token字符串
+     * @param refreshToken 刷新Token（可选）
      * @return Mono<Void> 登出操作的结果
      */
-    public Mono<Void> logout(String token) {
+    public Mono<Void> logout(String token, String refreshToken) {
+        // 吊销刷新Token（无论吊销是否成功，都返回成功，避免信息泄露）
+        Mono<Void> revokeRefreshToken = refreshToken == null || refreshToken.isEmpty()
+                ? Mono.empty()
+                : refreshTokenService.revoke(refreshToken)
+                        .then()
+                        .onErrorResume(e -> Mono.empty());
+        
         // 如果没有Token，直接返回成功（避免信息泄露）
         if (token == null || token.isEmpty()) {
-            return Mono.empty();
+            return revokeRefreshToken;
         }
         
         // 删除Token（无论删除是否成功，都返回成功，避免信息泄露）
         return tokenUtil.deleteToken(token)
                 .then()
-                .onErrorResume(e -> Mono.empty());
+                .onErrorResume(e -> Mono.empty())
+                .then(revokeRefreshToken);
     }
 }
 
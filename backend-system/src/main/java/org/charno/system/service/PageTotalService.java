@@ -0,0 +1,244 @@
+package org.charno.system.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.charno.common.web.response.PageResult;
+import org.charno.common.web.response.TotalStrategy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.r2dbc.core.R2dbcEntityTemplate;
+import org.springframework.data.r2dbc.core.StatementMapper;
+import org.springframework.data.relational.core.query.Criteria;
+import org.springframework.data.relational.core.query.CriteriaDefinition;
+import org.springframework.data.relational.core.query.Query;
+import org.springframework.data.relational.core.sql.Expressions;
+import org.springframework.data.relational.core.sql.SqlIdentifier;
+import org.springframework.r2dbc.core.PreparedOperation;
+import org.springframework.r2dbc.core.binding.BindTarget;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 分页总数服务
+ * 按 TotalStrategy 统计分页查询的总数，避免在大表上每次分页都执行一次代价高于分页本身的 COUNT(*)
+ *
+ * - EXACT：COUNT(*)
+ * - ESTIMATED：无过滤条件时取 pg_class.reltuples（由 ANALYZE / autovacuum 维护），
+ *   有过滤条件时取 EXPLAIN 的行数估算；估算值小于 exact-threshold 时说明结果集较小，直接精确统计（返回 EXACT）
+ * - CACHED：精确统计的结果按“表 + 过滤条件”缓存 cache-ttl，期间的新增、删除不反映在 total 中；未命中时返回 EXACT
+ * - NONE：不统计，数据查询多取一行判断 hasNext
+ *
+ * 估算失败（如表从未 ANALYZE）时退回精确统计，PageResult.totalStrategy 始终为实际采用的方式
+ */
+@Service
+public class PageTotalService {
+
+    private static final Logger log = LoggerFactory.getLogger(PageTotalService.class);
+
+    private static final String RELTUPLES_SQL = "SELECT reltuples::bigint FROM pg_class WHERE oid = to_regclass(:table)";
+    private static final String PLAN_ROWS = " rows=";
+
+    private final R2dbcEntityTemplate template;
+    private final Cache<String, Long> cache;
+    private final long exactThreshold;
+
+    public PageTotalService(
+            R2dbcEntityTemplate template,
+            @Value("${charno.system.page-total.cache-ttl:30s}") Duration cacheTtl,
+            @Value("${charno.system.page-total.cache-maximum-size:1000}") long cacheMaximumSize,
+            @Value("${charno.system.page-total.exact-threshold:10000}") long exactThreshold) {
+        this.template = template;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(cacheMaximumSize)
+                .expireAfterWrite(cacheTtl)
+                .build();
+        this.exactThreshold = exactThreshold;
+    }
+
+    /**
+     * 页码分页查询
+     *
+     * @param type     实体类型
+     * @param criteria 过滤条件
+     * @param pageable 分页参数
+     * @param strategy 总数统计方式
+     * @return Mono<PageResult<T>>，包含 totalStrategy；NONE 时 total 为 -1 并返回 hasNext
+     */
+    public <T> Mono<PageResult<T>> page(Class<T> type, Criteria criteria, Pageable pageable, TotalStrategy strategy) {
+        Query query = Query.query(criteria).with(pageable);
+        boolean probe = strategy == TotalStrategy.NONE;
+        int size = pageable.getPageSize();
+
+        Mono<Total> totalMono = count(type, criteria, strategy);
+        Mono<List<T>> dataMono = template.select(type)
+                // 不统计总数时多查询一行，判断是否还有下一页
+                .matching(probe ? query.limit(size + 1) : query)
+                .all()
+                .collectList();
+
+        return Mono.zip(totalMono, dataMono)
+                .map(tuple -> {
+                    List<T> rows = tuple.getT2();
+                    Boolean hasNext = null;
+                    if (probe) {
+                        hasNext = rows.size() > size;
+                        if (hasNext) {
+                            rows = new ArrayList<>(rows.subList(0, size));
+                        }
+                    }
+                    return PageResult.<T>builder()
+                            .data(rows)
+                            .total(tuple.getT1().total())
+                            .totalStrategy(tuple.getT1().strategy())
+                            .hasNext(hasNext)
+                            .page(pageable.getPageNumber())
+                            .size(size)
+                            .build();
+                });
+    }
+
+    /**
+     * 统计总数
+     *
+     * @param type     实体类型
+     * @param criteria 过滤条件
+     * @param strategy 总数统计方式
+     * @return Mono<Total>，strategy 为实际采用的方式
+     */
+    public Mono<Total> count(Class<?> type, Criteria criteria, TotalStrategy strategy) {
+        return switch (strategy) {
+            case NONE -> Mono.just(new Total(-1, TotalStrategy.NONE));
+            case ESTIMATED -> estimate(type, criteria);
+            case CACHED -> cached(type, criteria);
+            default -> exact(type, criteria);
+        };
+    }
+
+    private Mono<Total> exact(Class<?> type, Criteria criteria) {
+        return template.count(Query.query(criteria), type)
+                .map(total -> new Total(total, TotalStrategy.EXACT));
+    }
+
+    private Mono<Total> cached(Class<?> type, Criteria criteria) {
+        String key = cacheKey(tableName(type), criteria);
+        Long cachedTotal = cache.getIfPresent(key);
+        if (cachedTotal != null) {
+            return Mono.just(new Total(cachedTotal, TotalStrategy.CACHED));
+        }
+        return exact(type, criteria).doOnNext(total -> cache.put(key, total.total()));
+    }
+
+    private Mono<Total> estimate(Class<?> type, Criteria criteria) {
+        Mono<Long> estimateMono = criteria.isEmpty() ? reltuples(type) : planRows(type, criteria);
+        return estimateMono
+                .doOnError(e -> log.debug("Failed to estimate row count: type={}, error: {}", type.getSimpleName(), e.getMessage()))
+                .onErrorResume(e -> Mono.empty())
+                // 从未 ANALYZE 的表 reltuples 为 -1
+                .filter(estimated -> estimated >= exactThreshold)
+                .map(estimated -> new Total(estimated, TotalStrategy.ESTIMATED))
+                .switchIfEmpty(Mono.defer(() -> exact(type, criteria)));
+    }
+
+    /**
+     * 表的行数估算（pg_class.reltuples）
+     */
+    private Mono<Long> reltuples(Class<?> type) {
+        return template.getDatabaseClient().sql(RELTUPLES_SQL)
+                .bind("table", tableName(type).getReference())
+                .map((row, metadata) -> row.get(0, Long.class))
+                .first();
+    }
+
+    /**
+     * 查询计划的行数估算（EXPLAIN SELECT 1 FROM table WHERE ...，只生成计划，不执行查询）
+     */
+    private Mono<Long> planRows(Class<?> type, Criteria criteria) {
+        StatementMapper statementMapper = template.getDataAccessStrategy().getStatementMapper().forType(type);
+        StatementMapper.SelectSpec selectSpec = statementMapper.createSelect(tableName(type))
+                .withProjection(Expressions.just("1"))
+                .withCriteria(criteria);
+        PreparedOperation<?> operation = statementMapper.getMappedObject(selectSpec);
+        return template.getDatabaseClient().sql(new ExplainOperation(operation))
+                .map((row, metadata) -> row.get(0, String.class))
+                .first()
+                .mapNotNull(PageTotalService::parsePlanRows);
+    }
+
+    /**
+     * 缓存Key：Criteria.toString() 包含列名、运算符和值，相同的过滤条件得到相同的Key；
+     * 其中不包含是否忽略大小写（SearchMode.FUZZY），单独追加
+     */
+    private static String cacheKey(SqlIdentifier tableName, Criteria criteria) {
+        StringBuilder key = new StringBuilder(tableName.getReference()).append('|').append(criteria).append('|');
+        appendIgnoreCase(criteria, key);
+        return key.toString();
+    }
+
+    private static void appendIgnoreCase(CriteriaDefinition criteria, StringBuilder key) {
+        if (criteria == null || criteria.isEmpty()) {
+            return;
+        }
+        appendIgnoreCase(criteria.getPrevious(), key);
+        if (criteria.isGroup()) {
+            criteria.getGroup().forEach(group -> appendIgnoreCase(group, key));
+        } else {
+            key.append(criteria.isIgnoreCase() ? 'i' : 'c');
+        }
+    }
+
+    private SqlIdentifier tableName(Class<?> type) {
+        return template.getDataAccessStrategy().getTableName(type);
+    }
+
+    /**
+     * 解析计划第一行的 rows=N，格式不符返回 null（不使用正则表达式）
+     */
+    private static Long parsePlanRows(String plan) {
+        int start = plan.indexOf(PLAN_ROWS);
+        if (start < 0) {
+            return null;
+        }
+        start += PLAN_ROWS.length();
+        int end = start;
+        while (end < plan.length() && Character.isDigit(plan.charAt(end))) {
+            end++;
+        }
+        return end > start ? Long.parseLong(plan.substring(start, end)) : null;
+    }
+
+    /**
+     * 在映射好的查询前加上 EXPLAIN，参数绑定不变
+     */
+    private record ExplainOperation(PreparedOperation<?> operation) implements PreparedOperation<Object> {
+
+        @Override
+        public Object getSource() {
+            return operation.getSource();
+        }
+
+        @Override
+        public void bindTo(BindTarget target) {
+            operation.bindTo(target);
+        }
+
+        @Override
+        public String toQuery() {
+            return "EXPLAIN " + operation.toQuery();
+        }
+    }
+
+    /**
+     * 总数统计结果
+     *
+     * @param total    总数（NONE 时为 -1）
+     * @param strategy 实际采用的统计方式
+     */
+    public record Total(long total, TotalStrategy strategy) {
+    }
+}
@@ -1,6 +1,6 @@
 package org.charno.system.service;
 
-import org.charno.common.security.util.PasswordUtil;
+import org.charno.common.security.service.PasswordHashingService;
 import org.charno.systementity.entity.SysUser;
 import org.charno.systementity.repository.SysUserRepository;
 import org.springframework.data.r2dbc.core.R2dbcEntityTemplate;
@@ -21,12 +21,12 @@ public class RegisterService {
 
     private final SysUserRepository userRepository;
     private final R2dbcEntityTemplate template;
-    private final PasswordUtil passwordUtil;
+    private final PasswordHashingService passwordHashingService;
 
-    public RegisterService(SysUserRepository userRepository, R2dbcEntityTemplate template, PasswordUtil passwordUtil) {
+    public RegisterService(SysUserRepository userRepository, R2dbcEntityTemplate template, PasswordHashingService passwordHashingService) {
         this.userRepository = userRepository;
         this.template = template;
-        this.passwordUtil = passwordUtil;
+        this.passwordHashingService = passwordHashingService;
     }
 
     // ==================== 业务逻辑 ====================
@@ -70,20 +70,22 @@ public class RegisterService {
                         user.setStatus("ENABLED");
                         user.setRoleCode("USER");
                         
-                        // 6. 加密密码
-                        String passwordHash = passwordUtil.encode(password);
-                        user.setPasswordHash(passwordHash);
-                        user.setPasswordAlgoVersion(1);
-                        
-                        // 7. 设置时间戳
+                        // 6. 设置时间戳
                         OffsetDateTime now = OffsetDateTime.now();
                         user.setCreatedAt(now);
                         user.setUpdatedAt(now);
                         user.setPasswordChangedAt(now);
                         
-                        // 8. 返回用户对象
+                        // 7. 返回用户对象
                         return user;
                     })
+                    .flatMap(user -> passwordHashingService.encode(password)
+                            .map(passwordHash -> {
+                                // 8. 加密密码（在独立的哈希线程池中执行，不占用事件循环线程）
+                                user.setPasswordHash(passwordHash);
+                                user.setPasswordAlgoVersion(passwordHashingService.getAlgoVersion());
+                                return user;
+                            }))
                     .flatMap(user -> userRepository.save(user))
                     .map(savedUser -> {
                         // 9. 清除敏感信息（密码哈希）
@@ -0,0 +1,98 @@
+package org.charno.system.service;
+
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.relational.core.dialect.Escaper;
+import org.springframework.data.relational.core.query.Criteria;
+import org.springframework.data.relational.domain.SqlSort;
+
+import java.util.Map;
+import java.util.StringJoiner;
+
+/**
+ * 文本条件的搜索方式
+ *
+ * - LIKE：区分大小写的子串匹配 {@code col LIKE '%关键字%'}（默认，与原有行为一致）
+ * - FUZZY：不区分大小写的子串匹配 {@code UPPER(col) LIKE UPPER('%关键字%')}，与 ILIKE 语义相同；
+ *   关键字中的 %、_ 按普通字符匹配。由 sql/script.sql 中 {@code gin (upper(col) gin_trgm_ops)} 的 pg_trgm 索引支持，
+ *   不再全表扫描（关键字少于3个字符时无法利用三元组索引）
+ *
+ * 按匹配度排序（sort=bestMatch）：按各文本条件 pg_trgm similarity() 之和降序，相同时按默认排序
+ */
+public enum SearchMode {
+
+    LIKE,
+
+    FUZZY;
+
+    /**
+     * 按匹配度排序的排序字段名
+     */
+    public static final String BEST_MATCH = "bestMatch";
+
+    /**
+     * 解析搜索方式（忽略大小写）
+     *
+     * @param value 搜索方式
+     * @return SearchMode，无法识别时返回 null
+     */
+    public static SearchMode from(String value) {
+        if (value == null) {
+            return null;
+        }
+        for (SearchMode mode : values()) {
+            if (mode.name().equalsIgnoreCase(value)) {
+                return mode;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 构建子串匹配条件
+     *
+     * @param property 属性名
+     * @param value    关键字
+     * @return Criteria
+     */
+    public Criteria contains(String property, String value) {
+        if (this == FUZZY) {
+            return Criteria.where(property).like("%" + Escaper.DEFAULT.escape(value) + "%").ignoreCase(true);
+        }
+        return Criteria.where(property).like("%" + value + "%");
+    }
+
+    /**
+     * 将分页参数中的 bestMatch 排序替换为相似度排序
+     *
+     * @param pageable    分页参数
+     * @param columnTerms 列名 -> 关键字（值为空的条件不参与排序）
+     * @param fallback    默认排序（相似度相同时的排序，没有文本条件时直接使用）
+     * @return 分页参数，未按 bestMatch 排序时原样返回
+     */
+    public static Pageable bestMatch(Pageable pageable, Map<String, String> columnTerms, Sort fallback) {
+        if (pageable.getSort().getOrderFor(BEST_MATCH) == null) {
+            return pageable;
+        }
+        StringJoiner similarity = new StringJoiner(" + ");
+        columnTerms.forEach((column, term) -> {
+            if (term != null && !term.isEmpty()) {
+                similarity.add("similarity(" + column + ", " + literal(term) + ")");
+            }
+        });
+        Sort sort = similarity.length() == 0
+                ? fallback
+                : SqlSort.unsafe(Sort.Direction.DESC, similarity.toString()).and(fallback);
+        return PageRequest.of(pageable.getPageNumber(), pageable.getPageSize(), sort);
+    }
+
+    /**
+     * 转为SQL字符串字面量（与 PostgreSQL quote_literal 相同的规则）
+     * ORDER BY 表达式无法绑定参数，关键字以字面量写入
+     */
+    private static String literal(String value) {
+        String quoted = "'" + value.replace("'", "''") + "'";
+        return value.indexOf('\\') >= 0 ? "E" + quoted.replace("\\", "\\\\") : quoted;
+    }
+}
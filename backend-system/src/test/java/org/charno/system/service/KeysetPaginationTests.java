@@ -0,0 +1,266 @@
+package org.charno.system.service;
+
+import org.charno.common.web.response.PageResult;
+import org.charno.common.web.response.TotalStrategy;
+import org.charno.systementity.entity.SysUser;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.r2dbc.core.R2dbcEntityTemplate;
+import org.springframework.data.r2dbc.core.ReactiveSelectOperation;
+import org.springframework.data.relational.core.query.Criteria;
+import org.springframework.data.relational.core.query.Query;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.nio.charset.StandardCharsets;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * KeysetPagination 单元测试
+ * R2dbcEntityTemplate 按查询顺序返回给定的行，只验证边界条件、排序、翻页方向和游标
+ */
+class KeysetPaginationTests {
+
+    private static final KeysetPagination<SysUser> KEYSET = KeysetPagination
+            .of(SysUser.class, "id", SysUser::getId, UUID::fromString)
+            .sortKey("createdAt", SysUser::getCreatedAt, OffsetDateTime::parse)
+            .sortKey("accountIdentifier", SysUser::getAccountIdentifier, value -> value);
+
+    private static final Criteria FILTER = Criteria.where("status").is("ENABLED");
+    private static final Sort CREATED_AT_DESC = Sort.by(Sort.Direction.DESC, "createdAt");
+    private static final Sort CREATED_AT_ASC = Sort.by(Sort.Direction.ASC, "createdAt");
+
+    private final List<Query> queries = new ArrayList<>();
+
+    @Test
+    void firstPageHasNextCursorOnlyWhenExtraRowReturned() {
+        SysUser a = user(1, "2024-01-03T00:00:00Z");
+        SysUser b = user(2, "2024-01-02T00:00:00Z");
+        SysUser c = user(3, "2024-01-01T00:00:00Z");
+
+        PageResult<SysUser> page = query(List.of(a, b, c), CREATED_AT_DESC, 2, null);
+
+        assertThat(page.getData()).containsExactly(a, b);
+        assertThat(page.getNextCursor()).isNotNull();
+        assertThat(page.getPrevCursor()).isNull();
+        assertThat(page.getTotal()).isEqualTo(10);
+
+        Query query = queries.get(0);
+        assertThat(query.getCriteria()).hasValueSatisfying(criteria -> assertThat(criteria.toString()).isEqualTo(FILTER.toString()));
+        assertThat(query.getSort()).isEqualTo(Sort.by(Sort.Direction.DESC, "createdAt").and(Sort.by(Sort.Direction.DESC, "id")));
+        assertThat(query.getLimit()).isEqualTo(3);
+    }
+
+    @Test
+    void lastPageHasNoNextCursor() {
+        PageResult<SysUser> page = query(List.of(user(1, "2024-01-03T00:00:00Z")), CREATED_AT_DESC, 2, null);
+
+        assertThat(page.getData()).hasSize(1);
+        assertThat(page.getNextCursor()).isNull();
+        assertThat(page.getPrevCursor()).isNull();
+    }
+
+    @Test
+    void nextCursorOnDescendingSortSelectsRowsBeforeBoundary() {
+        SysUser a = user(1, "2024-01-03T00:00:00Z");
+        SysUser b = user(2, "2024-01-02T00:00:00Z");
+        String next = query(List.of(a, b, user(3, "2024-01-01T00:00:00Z")), CREATED_AT_DESC, 2, null).getNextCursor();
+
+        PageResult<SysUser> page = query(List.of(user(3, "2024-01-01T00:00:00Z")), CREATED_AT_DESC, 2, next);
+
+        Query query = queries.get(1);
+        assertThat(query.getCriteria()).hasValueSatisfying(criteria -> assertThat(criteria.toString())
+                .isEqualTo(FILTER.and(Criteria.where("createdAt").lessThanOrEquals(b.getCreatedAt())
+                        .and(Criteria.where("createdAt").lessThan(b.getCreatedAt()).or("id").lessThan(b.getId()))).toString()));
+        assertThat(query.getSort()).isEqualTo(Sort.by(Sort.Direction.DESC, "createdAt").and(Sort.by(Sort.Direction.DESC, "id")));
+        assertThat(page.getNextCursor()).isNull();
+        assertThat(page.getPrevCursor()).isNotNull();
+    }
+
+    @Test
+    void nextCursorOnAscendingSortSelectsRowsAfterBoundary() {
+        SysUser a = user(1, "2024-01-01T00:00:00Z");
+        SysUser b = user(2, "2024-01-02T00:00:00Z");
+        String next = query(List.of(a, b, user(3, "2024-01-03T00:00:00Z")), CREATED_AT_ASC, 2, null).getNextCursor();
+
+        query(List.of(), CREATED_AT_ASC, 2, next);
+
+        Query query = queries.get(1);
+        assertThat(query.getCriteria()).hasValueSatisfying(criteria -> assertThat(criteria.toString())
+                .isEqualTo(FILTER.and(Criteria.where("createdAt").greaterThanOrEquals(b.getCreatedAt())
+                        .and(Criteria.where("createdAt").greaterThan(b.getCreatedAt()).or("id").greaterThan(b.getId()))).toString()));
+        assertThat(query.getSort()).isEqualTo(Sort.by(Sort.Direction.ASC, "createdAt").and(Sort.by(Sort.Direction.ASC, "id")));
+    }
+
+    @Test
+    void previousCursorQueriesInReverseAndRestoresOrder() {
+        SysUser a = user(1, "2024-01-05T00:00:00Z");
+        SysUser b = user(2, "2024-01-04T00:00:00Z");
+        SysUser c = user(3, "2024-01-03T00:00:00Z");
+        SysUser d = user(4, "2024-01-02T00:00:00Z");
+        String previous = query(List.of(d), CREATED_AT_DESC, 2, cursorAfter(CREATED_AT_DESC, c)).getPrevCursor();
+
+        // 反向查询按 createdAt 升序返回，多出的一行（a）说明前面还有数据
+        PageResult<SysUser> page = query(List.of(c, b, a), CREATED_AT_DESC, 2, previous);
+
+        Query query = queries.get(2);
+        assertThat(query.getCriteria()).hasValueSatisfying(criteria -> assertThat(criteria.toString())
+                .isEqualTo(FILTER.and(Criteria.where("createdAt").greaterThanOrEquals(d.getCreatedAt())
+                        .and(Criteria.where("createdAt").greaterThan(d.getCreatedAt()).or("id").greaterThan(d.getId()))).toString()));
+        assertThat(query.getSort()).isEqualTo(Sort.by(Sort.Direction.ASC, "createdAt").and(Sort.by(Sort.Direction.ASC, "id")));
+        assertThat(query.getLimit()).isEqualTo(3);
+
+        assertThat(page.getData()).containsExactly(b, c);
+        assertThat(page.getNextCursor()).isNotNull();
+        assertThat(page.getPrevCursor()).isNotNull();
+    }
+
+    @Test
+    void previousCursorWithoutExtraRowReachesFirstPage() {
+        SysUser a = user(1, "2024-01-03T00:00:00Z");
+        SysUser b = user(2, "2024-01-02T00:00:00Z");
+        SysUser c = user(3, "2024-01-01T00:00:00Z");
+        String previous = query(List.of(c), CREATED_AT_DESC, 2, cursorAfter(CREATED_AT_DESC, b)).getPrevCursor();
+
+        PageResult<SysUser> page = query(List.of(b, a), CREATED_AT_DESC, 2, previous);
+
+        assertThat(page.getData()).containsExactly(a, b);
+        assertThat(page.getPrevCursor()).isNull();
+        assertThat(page.getNextCursor()).isNotNull();
+    }
+
+    @Test
+    void cursorPreservesOffsetDateTimePrecision() {
+        OffsetDateTime createdAt = OffsetDateTime.parse("2024-05-06T07:08:09.123456789+08:00");
+        SysUser a = user(1, "2024-05-06T07:08:10+08:00");
+        SysUser b = user(2, createdAt.toString());
+        String next = query(List.of(a, b, user(3, "2024-05-06T07:08:00+08:00")), CREATED_AT_DESC, 2, null).getNextCursor();
+
+        query(List.of(), CREATED_AT_DESC, 2, next);
+
+        assertThat(queries.get(1).getCriteria()).hasValueSatisfying(criteria -> assertThat(criteria.toString())
+                .contains("createdAt <= '" + createdAt + "'")
+                .contains("id < '" + b.getId() + "'"));
+    }
+
+    @Test
+    void cursorPreservesWholeMinuteOffsetDateTime() {
+        // OffsetDateTime.toString() 在秒为0时省略秒
+        SysUser a = user(1, "2024-01-01T00:01:00Z");
+        SysUser b = user(2, "2024-01-01T00:00:00Z");
+        String next = query(List.of(a, b, user(3, "2023-12-31T00:00:00Z")), CREATED_AT_DESC, 2, null).getNextCursor();
+
+        query(List.of(), CREATED_AT_DESC, 2, next);
+
+        assertThat(queries.get(1).getCriteria()).hasValueSatisfying(criteria -> assertThat(criteria.toString())
+                .contains("createdAt <= '" + b.getCreatedAt() + "'"));
+    }
+
+    @Test
+    void idSortUsesSingleColumnBoundary() {
+        Sort idAsc = Sort.by(Sort.Direction.ASC, "id");
+        SysUser a = user(1, "2024-01-01T00:00:00Z");
+        String next = query(List.of(a, user(2, "2024-01-01T00:00:00Z")), idAsc, 1, null).getNextCursor();
+
+        query(List.of(), idAsc, 1, next);
+
+        Query query = queries.get(1);
+        assertThat(query.getCriteria()).hasValueSatisfying(criteria -> assertThat(criteria.toString())
+                .isEqualTo(FILTER.and(Criteria.where("id").greaterThan(a.getId())).toString()));
+        assertThat(query.getSort()).isEqualTo(idAsc);
+    }
+
+    @Test
+    void unsortedQueryDefaultsToIdAscending() {
+        query(List.of(), Sort.unsorted(), 2, null);
+
+        assertThat(queries.get(0).getSort()).isEqualTo(Sort.by(Sort.Direction.ASC, "id"));
+    }
+
+    @Test
+    void rejectsUnregisteredSortKey() {
+        StepVerifier.create(KEYSET.query(template(List.of()), FILTER, Sort.by("nickname"), 2, null, total()))
+                .expectError(IllegalArgumentException.class)
+                .verify();
+    }
+
+    @Test
+    void rejectsMalformedCursor() {
+        StepVerifier.create(KEYSET.query(template(List.of()), FILTER, CREATED_AT_DESC, 2, "not-a-cursor", total()))
+                .expectError(IllegalArgumentException.class)
+                .verify();
+        StepVerifier.create(KEYSET.query(template(List.of()), FILTER, CREATED_AT_DESC, 2, "n.!!.!!.!!", total()))
+                .expectError(IllegalArgumentException.class)
+                .verify();
+    }
+
+    @Test
+    void rejectsCursorWithUnparsableValue() {
+        SysUser a = user(1, "2024-01-01T00:00:00Z");
+        a.setAccountIdentifier("alice");
+        // accountIdentifier 排序的游标值不是合法的时间，不能用于 createdAt 排序
+        String next = query(List.of(a, user(2, "2024-01-01T00:00:00Z")), Sort.by("accountIdentifier"), 1, null).getNextCursor();
+        String forged = next.replaceFirst("^n\\.[^.]+", "n." + Base64.getUrlEncoder().withoutPadding()
+                .encodeToString("createdAt,asc".getBytes(StandardCharsets.UTF_8)));
+
+        StepVerifier.create(KEYSET.query(template(List.of()), FILTER, CREATED_AT_ASC, 2, forged, total()))
+                .expectError(IllegalArgumentException.class)
+                .verify();
+    }
+
+    @Test
+    void rejectsCursorIssuedForDifferentSort() {
+        String next = query(List.of(user(1, "2024-01-02T00:00:00Z"), user(2, "2024-01-01T00:00:00Z")), CREATED_AT_DESC, 1, null)
+                .getNextCursor();
+
+        StepVerifier.create(KEYSET.query(template(List.of()), FILTER, CREATED_AT_ASC, 1, next, total()))
+                .expectError(IllegalArgumentException.class)
+                .verify();
+    }
+
+    /**
+     * 生成指向某一行之后的游标（通过查询一页只包含该行且还有下一页的结果）
+     */
+    private String cursorAfter(Sort sort, SysUser row) {
+        return query(List.of(row, user(99, "2000-01-01T00:00:00Z")), sort, 1, null).getNextCursor();
+    }
+
+    private PageResult<SysUser> query(List<SysUser> rows, Sort sort, int size, String cursor) {
+        return KEYSET.query(template(rows), FILTER, sort, size, cursor, total()).block();
+    }
+
+    @SuppressWarnings("unchecked")
+    private R2dbcEntityTemplate template(List<SysUser> rows) {
+        R2dbcEntityTemplate template = mock(R2dbcEntityTemplate.class);
+        ReactiveSelectOperation.ReactiveSelect<SysUser> select = mock(ReactiveSelectOperation.ReactiveSelect.class);
+        ReactiveSelectOperation.TerminatingSelect<SysUser> terminating = mock(ReactiveSelectOperation.TerminatingSelect.class);
+        when(template.select(SysUser.class)).thenReturn(select);
+        when(select.matching(any(Query.class))).thenAnswer(invocation -> {
+            queries.add(invocation.getArgument(0));
+            return terminating;
+        });
+        when(terminating.all()).thenReturn(Flux.fromIterable(rows));
+        return template;
+    }
+
+    private static Mono<PageTotalService.Total> total() {
+        return Mono.just(new PageTotalService.Total(10, TotalStrategy.EXACT));
+    }
+
+    private static SysUser user(int index, String createdAt) {
+        SysUser user = new SysUser();
+        user.setId(new UUID(0, index));
+        user.setCreatedAt(OffsetDateTime.parse(createdAt));
+        return user;
+    }
+}
@@ -0,0 +1,161 @@
+package org.charno.system.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * SearchMode.bestMatch 单元测试
+ * 关键字以字面量写入 ORDER BY，按 PostgreSQL 的字面量规则解析生成的表达式，验证关键字无法闭合字面量
+ */
+class SearchModeTests {
+
+    private static final Sort FALLBACK = Sort.by(Sort.Direction.DESC, "createdAt");
+    private static final Pageable BEST_MATCH = PageRequest.of(2, 20, Sort.by(Sort.Direction.DESC, SearchMode.BEST_MATCH));
+
+    @Test
+    void quotesPlainTerm() {
+        assertThat(expression(Map.of("account_identifier", "alice")))
+                .isEqualTo("similarity(account_identifier, 'alice')");
+    }
+
+    @Test
+    void doublesSingleQuotes() {
+        assertThat(expression(Map.of("name", "o'brien")))
+                .isEqualTo("similarity(name, 'o''brien')");
+    }
+
+    @Test
+    void keepsInjectedSqlInsideTheLiteral() {
+        String term = "x')) DESC; DROP TABLE sys_user; --";
+
+        String expression = expression(Map.of("name", term));
+
+        assertThat(expression).isEqualTo("similarity(name, 'x'')) DESC; DROP TABLE sys_user; --')");
+        assertThat(parseLiteral(expression, "similarity(name, ")).isEqualTo(term);
+    }
+
+    @Test
+    void escapesBackslashesWithEscapeStringSyntax() {
+        assertThat(expression(Map.of("name", "a\\b")))
+                .isEqualTo("similarity(name, E'a\\\\b')");
+    }
+
+    @Test
+    void backslashCannotEscapeTheClosingQuote() {
+        // 在 E'' 字符串中 \' 是引号转义，反斜杠必须先被加倍
+        String term = "a\\'); DROP TABLE sys_user; --";
+
+        String expression = expression(Map.of("name", term));
+
+        assertThat(expression).isEqualTo("similarity(name, E'a\\\\''); DROP TABLE sys_user; --')");
+        assertThat(parseLiteral(expression, "similarity(name, ")).isEqualTo(term);
+    }
+
+    @Test
+    void treatsLiteralEscapeStringPrefixAsText() {
+        String term = "E''";
+
+        String expression = expression(Map.of("name", term));
+
+        assertThat(expression).isEqualTo("similarity(name, 'E''''')");
+        assertThat(parseLiteral(expression, "similarity(name, ")).isEqualTo(term);
+    }
+
+    @Test
+    void roundTripsMixedInputs() {
+        List<String> terms = List.of("'", "''", "\\", "\\\\", "\\'", "'\\", "E'\\'", "E'\\\\''", "\\' OR '1'='1", "张三's\\报表");
+
+        for (String term : terms) {
+            String expression = expression(Map.of("name", term));
+            assertThat(parseLiteral(expression, "similarity(name, ")).as(term).isEqualTo(term);
+        }
+    }
+
+    @Test
+    void sumsSimilarityOfEveryNonEmptyTerm() {
+        Map<String, String> terms = new LinkedHashMap<>();
+        terms.put("account_identifier", "ali");
+        terms.put("status", "");
+        terms.put("role_code", null);
+        terms.put("account_type", "user");
+
+        assertThat(expression(terms))
+                .isEqualTo("similarity(account_identifier, 'ali') + similarity(account_type, 'user')");
+    }
+
+    @Test
+    void appendsFallbackAndKeepsPaging() {
+        Pageable resolved = SearchMode.bestMatch(BEST_MATCH, Map.of("name", "alice"), FALLBACK);
+
+        List<Sort.Order> orders = resolved.getSort().toList();
+        assertThat(orders).hasSize(2);
+        assertThat(orders.get(0).getDirection()).isEqualTo(Sort.Direction.DESC);
+        assertThat(orders.get(1)).isEqualTo(Sort.Order.desc("createdAt"));
+        assertThat(resolved.getPageNumber()).isEqualTo(2);
+        assertThat(resolved.getPageSize()).isEqualTo(20);
+    }
+
+    @Test
+    void usesFallbackWithoutTextTerms() {
+        Map<String, String> terms = new LinkedHashMap<>();
+        terms.put("name", null);
+
+        assertThat(SearchMode.bestMatch(BEST_MATCH, terms, FALLBACK).getSort()).isEqualTo(FALLBACK);
+    }
+
+    @Test
+    void leavesOtherSortsUntouched() {
+        Pageable pageable = PageRequest.of(0, 10, Sort.by("name"));
+
+        assertThat(SearchMode.bestMatch(pageable, Map.of("name", "alice"), FALLBACK)).isSameAs(pageable);
+    }
+
+    private static String expression(Map<String, String> terms) {
+        Pageable resolved = SearchMode.bestMatch(BEST_MATCH, terms, FALLBACK);
+        return resolved.getSort().toList().get(0).getProperty();
+    }
+
+    /**
+     * 按 PostgreSQL 规则（standard_conforming_strings=on）解析 prefix 之后的字符串字面量，
+     * 并要求字面量之后只剩下闭合的右括号
+     */
+    private static String parseLiteral(String expression, String prefix) {
+        assertThat(expression).startsWith(prefix);
+        int i = prefix.length();
+        boolean escapeString = expression.charAt(i) == 'E';
+        if (escapeString) {
+            i++;
+        }
+        assertThat(expression.charAt(i)).isEqualTo('\'');
+        i++;
+
+        StringBuilder value = new StringBuilder();
+        while (true) {
+            char c = expression.charAt(i);
+            if (escapeString && c == '\\') {
+                value.append(expression.charAt(i + 1));
+                i += 2;
+            } else if (c == '\'') {
+                if (i + 1 < expression.length() && expression.charAt(i + 1) == '\'') {
+                    value.append('\'');
+                    i += 2;
+                } else {
+                    break;
+                }
+            } else {
+                value.append(c);
+                i++;
+            }
+        }
+        assertThat(expression.substring(i + 1)).isEqualTo(")");
+        return value.toString();
+    }
+}
@@ -3,7 +3,7 @@
  * 对应后端 LoginController
  */
 
-import { post, setToken } from '@/utils/request';
+import { post, setRefreshToken, setToken } from '@/utils/request';
 import type { LoginRequest, LoginResponse } from '@/types';
 
 /**
@@ -11,7 +11,7 @@ import type { LoginRequest, LoginResponse } from '@/types';
  * POST /api/login
  * 
  * @param params 登录参数
- * @returns 登录响应（包含用户信息和accessToken）
+ * @returns 登录响应（包含用户信息、accessToken和refreshToken）
  */
 export const login = async (params: LoginRequest): Promise<LoginResponse> => {
   const result = await post<LoginResponse>(
@@ -20,10 +20,13 @@ export const login = async (params: LoginRequest): Promise<LoginResponse> => {
     { skipAuth: true }
   );
   
-  // 登录成功后自动保存Token
+  // 登录成功后自动保存Token（访问Token过期后由请求封装使用刷新Token自动续期）
   if (result.accessToken) {
     setToken(result.accessToken);
   }
+  if (result.refreshToken) {
+    setRefreshToken(result.refreshToken);
+  }
   
   return result;
 };
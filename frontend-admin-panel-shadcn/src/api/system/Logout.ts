@@ -3,15 +3,17 @@
  * 对应后端 LogoutController
  */
 
-import { post } from '@/utils/request';
+import { getRefreshToken, post } from '@/utils/request';
 
 /**
  * 用户登出
  * POST /api/logout
+ * 同时提交刷新Token，由后端一并吊销
  * 
  * @returns void
  */
 export const logout = async (): Promise<void> => {
-  return post<void>('/api/logout');
+  const refreshToken = getRefreshToken();
+  return post<void>('/api/logout', refreshToken ? { refreshToken } : undefined);
 };
 
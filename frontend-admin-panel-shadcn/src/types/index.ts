@@ -10,12 +10,20 @@
 export interface PageResult<T> {
   /** 数据列表 */
   data: T[];
-  /** 总记录数 */
+  /** 总记录数（totalStrategy 为 NONE 时为 -1） */
   total: number;
-  /** 当前页码（从0开始） */
+  /** 总记录数的统计方式 */
+  totalStrategy?: 'EXACT' | 'ESTIMATED' | 'CACHED' | 'NONE';
+  /** 是否还有下一页（仅 totalStrategy 为 NONE 的页码分页） */
+  hasNext?: boolean;
+  /** 当前页码（从0开始，游标分页时为0） */
   page: number;
   /** 每页大小 */
   size: number;
+  /** 下一页游标（仅游标分页） */
+  nextCursor?: string;
+  /** 上一页游标（仅游标分页） */
+  prevCursor?: string;
 }
 
 /**
@@ -96,6 +104,10 @@ export interface LoginResponse {
   user: SysUser;
   /** 访问令牌 */
   accessToken: string;
+  /** 刷新令牌（每次刷新后轮换） */
+  refreshToken?: string;
+  /** 访问令牌有效期（秒） */
+  expiresIn?: number;
 }
 
 /**
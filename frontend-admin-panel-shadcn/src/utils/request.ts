@@ -46,6 +46,7 @@ export class RequestError extends Error {
  * Token存储键名
  */
 const TOKEN_KEY = 'accessToken';
+const REFRESH_TOKEN_KEY = 'refreshToken';
 
 /**
  * 获取Token
@@ -62,10 +63,25 @@ export const setToken = (token: string): void => {
 };
 
 /**
- * 清除Token
+ * 获取刷新Token
+ */
+export const getRefreshToken = (): string | null => {
+  return localStorage.getItem(REFRESH_TOKEN_KEY);
+};
+
+/**
+ * 设置刷新Token
+ */
+export const setRefreshToken = (refreshToken: string): void => {
+  localStorage.setItem(REFRESH_TOKEN_KEY, refreshToken);
+};
+
+/**
+ * 清除Token（访问Token和刷新Token）
  */
 export const removeToken = (): void => {
   localStorage.removeItem(TOKEN_KEY);
+  localStorage.removeItem(REFRESH_TOKEN_KEY);
 };
 
 /**
@@ -87,6 +103,50 @@ const createUrl = (url: string): string => {
   return `${BASE_URL}${path}`;
 };
 
+/**
+ * 进行中的刷新请求（同一时间只发送一次刷新请求，并发的401请求共享结果）
+ */
+let refreshing: Promise<boolean> | null = null;
+
+/**
+ * 使用刷新Token换取新的访问Token
+ * 刷新Token每次使用后轮换，成功后同时保存新的访问Token和刷新Token
+ * 刷新失败时，如果刷新Token已被其他标签页轮换，视为成功（使用其他标签页保存的新Token重试）
+ *
+ * @returns 是否可以使用新的访问Token重试
+ */
+const refreshAccessToken = (): Promise<boolean> => {
+  if (refreshing) {
+    return refreshing;
+  }
+  const refreshToken = getRefreshToken();
+  if (!refreshToken) {
+    return Promise.resolve(false);
+  }
+
+  refreshing = (async () => {
+    try {
+      const response = await fetch(createUrl('/api/login/refresh'), {
+        method: 'POST',
+        headers: { 'Content-Type': 'application/json' },
+        body: JSON.stringify({ refreshToken }),
+      });
+      const data: ApiResponse<{ accessToken: string; refreshToken: string }> = await response.json();
+      if (response.ok && data.code === 200 && data.data?.accessToken) {
+        setToken(data.data.accessToken);
+        setRefreshToken(data.data.refreshToken);
+        return true;
+      }
+    } catch {
+      // 网络错误等，按刷新失败处理
+    }
+    return getRefreshToken() !== null && getRefreshToken() !== refreshToken;
+  })().finally(() => {
+    refreshing = null;
+  });
+  return refreshing;
+};
+
 /**
  * 请求拦截器：添加Token到请求头
  */
@@ -141,7 +201,7 @@ const responseInterceptor = async <T>(
       errorMessage = response.statusText || '请求失败';
     }
 
-    // 处理401未授权：清除Token并跳转登录
+    // 处理401未授权（刷新Token也已失效）：清除Token并跳转登录
     if (response.status === 401) {
       removeToken();
       // 可以在这里添加路由跳转到登录页
@@ -183,10 +243,15 @@ const request = async <T = any>(
   options: RequestOptions = {}
 ): Promise<T> => {
   const fullUrl = createUrl(url);
-  const interceptedOptions = requestInterceptor(options);
 
   try {
-    const response = await fetch(fullUrl, interceptedOptions);
+    let response = await fetch(fullUrl, requestInterceptor(options));
+    // 访问Token过期：使用刷新Token换取新的访问Token后重试一次
+    if (response.status === 401 && !options.skipAuth && getRefreshToken()) {
+      if (await refreshAccessToken()) {
+        response = await fetch(fullUrl, requestInterceptor(options));
+      }
+    }
     return await responseInterceptor<T>(response, options);
   } catch (error) {
     // 处理网络错误或其他异常
@@ -1,3 +1,6 @@
+-- 三元组扩展：支持 LIKE '%关键字%' 子串匹配走 GIN 索引（SearchMode.FUZZY）
+create extension if not exists pg_trgm;
+
 create table sys_role
 (
     code        varchar(64)                            not null
@@ -5,12 +8,28 @@ create table sys_role
             primary key,
     name        varchar(64)                            not null,
     description varchar(255),
+    parent_code varchar(64)
+        constraint sys_role_parent_code_fk
+            references sys_role,
     created_at  timestamp with time zone default now() not null
 );
 
+comment on column sys_role.parent_code is '父角色代码，角色继承父角色及其所有祖先角色的权限';
+
 alter table sys_role
     owner to postgres;
 
+create index idx_sys_role_parent_code
+    on sys_role (parent_code);
+
+-- 游标分页：(排序字段, 主键) 复合索引
+create index idx_sys_role_created_at_code
+    on sys_role (created_at, code);
+
+-- 模糊搜索（search=fuzzy）：UPPER(name) LIKE UPPER('%关键字%')
+create index idx_sys_role_name_trgm
+    on sys_role using gin (upper(name) gin_trgm_ops);
+
 create table sys_user
 (
     id                    uuid                     default gen_random_uuid() not null
@@ -87,8 +106,12 @@ alter table sys_user
 create index idx_sys_user_status
     on sys_user (status);
 
-create index idx_sys_user_created_at
-    on sys_user (created_at);
+-- 游标分页：(排序字段, 主键) 复合索引，同时支持按 created_at 的范围查询
+create index idx_sys_user_created_at_id
+    on sys_user (created_at, id);
+
+create index idx_sys_user_account_identifier_id
+    on sys_user (account_identifier, id);
 
 create index idx_sys_user_account_password_algo_version
     on sys_user (password_algo_version);
@@ -102,6 +125,13 @@ create index idx_sys_user_last_login_at
 create index idx_sys_user_role_id
     on sys_user (role_code);
 
+-- 模糊搜索（search=fuzzy）：UPPER(列) LIKE UPPER('%关键字%')
+create index idx_sys_user_account_identifier_trgm
+    on sys_user using gin (upper(account_identifier) gin_trgm_ops);
+
+create index idx_sys_user_nickname_trgm
+    on sys_user using gin (upper(nickname) gin_trgm_ops);
+
 create table sys_config
 (
     key         varchar not null
@@ -114,4 +144,95 @@ create table sys_config
 alter table sys_config
     owner to postgres;
 
+-- 模糊搜索（search=fuzzy）：UPPER(列) LIKE UPPER('%关键字%')
+create index idx_sys_config_key_trgm
+    on sys_config using gin (upper(key) gin_trgm_ops);
+
+create index idx_sys_config_value_trgm
+    on sys_config using gin (upper(value) gin_trgm_ops);
+
+
+create table sys_permission
+(
+    code        varchar(128)                           not null
+        constraint sys_permission_pk
+            primary key,
+    name        varchar(64)                            not null,
+    description varchar(255),
+    created_at  timestamp with time zone default now() not null
+);
+
+comment on table sys_permission is '系统权限表';
+
+comment on column sys_permission.code is '权限代码（如 user:delete）';
+
+alter table sys_permission
+    owner to postgres;
+
+create table sys_role_permission
+(
+    role_code       varchar(64)  not null
+        constraint sys_role_permission_sys_role_code_fk
+            references sys_role
+            on delete cascade,
+    permission_code varchar(128) not null
+        constraint sys_role_permission_sys_permission_code_fk
+            references sys_permission
+            on delete cascade,
+    constraint sys_role_permission_pk
+        primary key (role_code, permission_code)
+);
+
+comment on table sys_role_permission is '角色权限关联表';
+
+alter table sys_role_permission
+    owner to postgres;
+
+create index idx_sys_role_permission_permission_code
+    on sys_role_permission (permission_code);
+
+insert into sys_permission (code, name, description)
+values ('user:delete', '删除用户', '删除单个用户及批量删除用户')
+on conflict (code) do nothing;
+
+insert into sys_role_permission (role_code, permission_code)
+select code, 'user:delete'
+from sys_role
+where code = 'ADMIN'
+on conflict do nothing;
+
+create table sys_api_key
+(
+    id          uuid                     default gen_random_uuid() not null
+        primary key,
+    name        varchar(64)                                        not null,
+    key_prefix  varchar(16)                                        not null
+        constraint uk_sys_api_key_key_prefix
+            unique,
+    key_hash    varchar(64)                                        not null,
+    user_id     uuid                                               not null
+        constraint sys_api_key_sys_user_id_fk
+            references sys_user
+            on delete cascade,
+    role_code   varchar(64)                                        not null
+        constraint sys_api_key_sys_role_code_fk
+            references sys_role,
+    status      varchar(32)                                        not null,
+    expires_at  timestamp with time zone,
+    created_at  timestamp with time zone default now()             not null
+);
+
+comment on table sys_api_key is 'API Key表（机器客户端凭证）';
+
+comment on column sys_api_key.key_prefix is 'Key前缀（唯一索引，用于定位Key）';
+
+comment on column sys_api_key.key_hash is '完整Key的SHA-256摘要（十六进制），Key本身不保存';
+
+comment on column sys_api_key.role_code is '授权范围（角色代码），使用该Key的请求按此角色校验';
+
+alter table sys_api_key
+    owner to postgres;
+
+create index idx_sys_api_key_user_id
+    on sys_api_key (user_id);
 